@@ -0,0 +1,64 @@
+package com.github.jakubpakula1.lab.benchmark;
+
+import com.github.jakubpakula1.lab.EmployeeManagementApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wspólny kontekst Springa dla benchmarków - osobna baza H2 w pamięci, bez serwera WWW i bez logowania SQL.
+ */
+final class BenchmarkApplication {
+
+    private static final String[] COMPANIES = {"TechCorp", "Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+    private static final String[] POSITIONS = {"PREZES", "WICEPREZES", "MANAGER", "PROGRAMISTA", "STAZYSTA"};
+    private static final String[] STATUSES = {"ACTIVE", "ON_LEAVE", "TERMINATED"};
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName) {
+        return new SpringApplicationBuilder(EmployeeManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.orm.jpa=WARN",
+                        "logging.level.org.springframework.transaction=WARN")
+                .run();
+    }
+
+    static void seedEmployees(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("DELETE FROM employees");
+
+        String sql = "INSERT INTO employees (first_name, last_name, email, company, position, salary, status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        int batchSize = 10_000;
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{
+                    "Imie" + i,
+                    "Nazwisko" + i,
+                    "user" + i + "@techcorp.com",
+                    COMPANIES[i % COMPANIES.length],
+                    POSITIONS[i % POSITIONS.length],
+                    BigDecimal.valueOf(3000 + (i * 37L) % 22000),
+                    STATUSES[i % STATUSES.length]
+            });
+            if (batch.size() == batchSize) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(sql, batch);
+        }
+    }
+}
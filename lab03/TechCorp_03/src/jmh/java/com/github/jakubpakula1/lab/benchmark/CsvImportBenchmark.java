@@ -0,0 +1,106 @@
+package com.github.jakubpakula1.lab.benchmark;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.service.EmployeeService;
+import com.github.jakubpakula1.lab.service.ImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import CSV paczkami z batchowaniem JDBC w porównaniu z zapisem wiersz po wierszu przez
+ * {@code EmployeeService.addEmployee} (zapytanie o email i insert dla każdego wiersza).
+ * Uruchomienie: {@code ./gradlew jmh -PjmhIncludes=CsvImportBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvImportBenchmark {
+
+    private static final String[] COMPANIES = {"TechCorp", "Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+    private static final Position[] POSITIONS = Position.values();
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ImportService importService;
+    private EmployeeService employeeService;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbc;
+    private Path csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start("import_bench");
+        importService = context.getBean(ImportService.class);
+        employeeService = context.getBean(EmployeeService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        csvFile = Files.createTempFile("employees-bench", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write("firstName;lastName;email;company;position;salary\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write("Imie" + i + ";Nazwisko" + i + ";user" + i + "@techcorp.com;"
+                        + COMPANIES[i % COMPANIES.length] + ";" + POSITIONS[i % POSITIONS.length] + ";"
+                        + (3000 + (i * 37L) % 22000) + "\n");
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        jdbc.update("DELETE FROM employees");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public ImportSummary batchedImport() throws IOException {
+        return importService.importFromCsv(csvFile.toString());
+    }
+
+    @Benchmark
+    public Integer rowByRowImport() {
+        return transactionTemplate.execute(status -> {
+            int imported = 0;
+            try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] row = line.split(";");
+                    Employee employee = new Employee(row[0], row[1], row[3], row[2],
+                            Position.valueOf(row[4]), new BigDecimal(row[5]));
+                    employee.setStatus(EmploymentStatus.ACTIVE);
+                    employeeService.addEmployee(employee);
+                    imported++;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return imported;
+        });
+    }
+}
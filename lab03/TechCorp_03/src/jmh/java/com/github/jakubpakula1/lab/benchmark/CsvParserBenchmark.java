@@ -0,0 +1,88 @@
+package com.github.jakubpakula1.lab.benchmark;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.service.CsvTokenizer;
+import com.github.jakubpakula1.lab.service.ImportProgress;
+import com.github.jakubpakula1.lab.service.MappedCsvReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samo parsowanie CSV do obiektów {@link Employee}, bez bazy: poprzedni parser ({@code readLine}, {@code split},
+ * {@code trim}) w porównaniu z {@link MappedCsvReader} i {@link CsvTokenizer}. Oba warianty w jednym wątku.
+ * Uruchomienie: {@code ./gradlew jmh -PjmhIncludes=CsvParserBenchmark -PjmhProfilers=gc}
+ * (profiler gc pokazuje alokacje na operację).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvParserBenchmark {
+
+    private static final String[] COMPANIES = {"TechCorp", "Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+    private static final String[] FIRST_NAMES = {"Jan", "Łukasz", "Zofia", "Małgorzata", "Piotr", "Józef"};
+    private static final Position[] POSITIONS = Position.values();
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private Path csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("employees-parser-bench", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write("firstName;lastName;email;company;position;salary\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(FIRST_NAMES[i % FIRST_NAMES.length] + ";Nazwisko" + i + ";user" + i + "@techcorp.com;"
+                        + COMPANIES[i % COMPANIES.length] + ";" + POSITIONS[i % POSITIONS.length] + ";"
+                        + (3000 + (i * 37L) % 22000) + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public void readerAndSplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] row = line.split(";");
+                Employee employee = new Employee(row[0].trim(), row[1].trim(), row[3].trim(), row[2].trim(),
+                        Position.valueOf(row[4].trim().toUpperCase()), BigDecimal.valueOf(Integer.parseInt(row[5].trim())));
+                employee.setStatus(EmploymentStatus.ACTIVE);
+                blackhole.consume(employee);
+            }
+        }
+    }
+
+    @Benchmark
+    public void mappedTokenizer(Blackhole blackhole) throws IOException {
+        CsvTokenizer fields = new CsvTokenizer();
+        MappedCsvReader.read(csvFile, (lineNumber, row) -> {
+            fields.split(row);
+            Employee employee = new Employee(fields.string(0), fields.string(1), fields.string(3), fields.string(2),
+                    fields.enumValue(4, POSITIONS), BigDecimal.valueOf(fields.parseInt(5)));
+            employee.setStatus(EmploymentStatus.ACTIVE);
+            blackhole.consume(employee);
+        }, new ImportProgress());
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.jakubpakula1.lab.benchmark;
+
+import com.github.jakubpakula1.lab.model.DashboardStatistics;
+import com.github.jakubpakula1.lab.service.DashboardStatisticsService;
+import com.github.jakubpakula1.lab.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Porównanie dashboardu liczonego pięcioma zapytaniami (poprzednia wersja kontrolera)
+ * z jednym przejściem w {@link DashboardStatisticsService}. Oba warianty omijają cache z {@code StatisticsFacade},
+ * więc mierzony jest skan tabeli, a nie trafienia w cache.
+ * Uruchomienie: {@code ./gradlew jmh -PjmhIncludes=DashboardStatisticsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DashboardStatisticsBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private DashboardStatisticsService dashboardStatisticsService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("dashboard_bench");
+        BenchmarkApplication.seedEmployees(context, rows);
+        employeeService = context.getBean(EmployeeService.class);
+        dashboardStatisticsService = context.getBean(DashboardStatisticsService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void fiveScans(Blackhole blackhole) {
+        blackhole.consume(employeeService.getAllEmployees().size());
+        blackhole.consume(employeeService.getAverageSalary());
+        blackhole.consume(employeeService.getCompanyStatistics());
+        blackhole.consume(employeeService.getPositionStatistics());
+        blackhole.consume(employeeService.getStatusDistribution());
+    }
+
+    @Benchmark
+    public DashboardStatistics singlePass() {
+        return dashboardStatisticsService.getDashboardStatistics();
+    }
+}
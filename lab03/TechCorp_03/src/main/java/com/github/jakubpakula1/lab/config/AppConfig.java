@@ -1,12 +1,16 @@
 package com.github.jakubpakula1.lab.config;
 
 import com.google.gson.Gson;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.net.http.HttpClient;
 
 @Configuration
+@EnableCaching
+@EnableScheduling
 public class AppConfig {
     @Bean
     public HttpClient httpClient() {
@@ -1,14 +1,20 @@
 package com.github.jakubpakula1.lab.controller;
 
 import com.github.jakubpakula1.lab.dto.EmployeeListProjection;
+import com.github.jakubpakula1.lab.exception.ImportJobNotFoundException;
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportMode;
 import com.github.jakubpakula1.lab.model.ImportSummary;
 import com.github.jakubpakula1.lab.model.Position;
 import com.github.jakubpakula1.lab.service.DepartmentService;
 import com.github.jakubpakula1.lab.service.EmployeeService;
 import com.github.jakubpakula1.lab.service.FileStorageService;
-import com.github.jakubpakula1.lab.service.ImportService;
+import com.github.jakubpakula1.lab.service.ImportJob;
+import com.github.jakubpakula1.lab.service.ImportJobService;
+import com.github.jakubpakula1.lab.service.ImportOptions;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,7 +26,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 
@@ -30,13 +39,13 @@ public class EmployeeViewController {
 
     private final EmployeeService employeeService;
     private final DepartmentService departmentService;
-    private final ImportService importService;
+    private final ImportJobService importJobService;
     private final FileStorageService fileStorageService;
 
-    public EmployeeViewController(EmployeeService employeeService, DepartmentService departmentService, ImportService importService, FileStorageService fileStorageService) {
+    public EmployeeViewController(EmployeeService employeeService, DepartmentService departmentService, ImportJobService importJobService, FileStorageService fileStorageService) {
         this.employeeService = employeeService;
         this.departmentService = departmentService;
-        this.importService = importService;
+        this.importJobService = importJobService;
         this.fileStorageService = fileStorageService;
     }
 
@@ -233,47 +242,93 @@ public class EmployeeViewController {
     @PostMapping("/import")
     public String importEmployees(@RequestParam("file") MultipartFile file,
                                   @RequestParam("fileType") String fileType,
+                                  @RequestParam(value = "mode", defaultValue = "REPLACE") ImportMode mode,
+                                  @RequestParam(value = "deleteMissing", defaultValue = "false") boolean deleteMissing,
+                                  @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun,
                                   RedirectAttributes redirectAttributes) {
-        try {
-            if (file.isEmpty()) {
-                redirectAttributes.addFlashAttribute("error", "Proszę wybrać plik");
-                return "redirect:/employees/import";
-            }
-
-            String tempFilePath = System.getProperty("java.io.tmpdir") + "/" + file.getOriginalFilename();
-            file.transferTo(new java.io.File(tempFilePath));
-
-            ImportSummary summary;
-            if ("csv".equalsIgnoreCase(fileType)) {
-                summary = importService.importFromCsv(tempFilePath);
-            } else if ("xml".equalsIgnoreCase(fileType)) {
-                summary = importService.importFromXml(tempFilePath);
-            } else {
-                redirectAttributes.addFlashAttribute("error", "Nieznany typ pliku");
-                return "redirect:/employees/import";
-            }
-
-            new java.io.File(tempFilePath).delete();
-
-            redirectAttributes.addFlashAttribute("summary", summary);
-            redirectAttributes.addFlashAttribute("importedCount", summary.getImportedEmployees());
-
-            if (!summary.getErrors().isEmpty()) {
-                redirectAttributes.addFlashAttribute("errors", summary.getErrors());
-                return "redirect:/employees/import-results";
-            }
-
-            redirectAttributes.addFlashAttribute("message", "Zaimportowano " + summary.getImportedEmployees() + " pracowników");
-            return "redirect:/employees";
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Proszę wybrać plik");
+            return "redirect:/employees/import";
+        }
+
+        ImportFormat format;
+        if ("csv".equalsIgnoreCase(fileType)) {
+            format = ImportFormat.CSV;
+        } else if ("xml".equalsIgnoreCase(fileType)) {
+            format = ImportFormat.XML;
+        } else if ("json".equalsIgnoreCase(fileType)) {
+            format = ImportFormat.JSON;
+        } else {
+            redirectAttributes.addFlashAttribute("error", "Nieznany typ pliku");
+            return "redirect:/employees/import";
+        }
 
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("import-", "." + format.name().toLowerCase());
+            file.transferTo(tempFile);
+            ImportJob job = importJobService.submit(tempFile, file.getOriginalFilename(), format, ImportOptions.of(mode, deleteMissing, dryRun));
+            return "redirect:/employees/import-jobs/" + job.getId();
         } catch (Exception e) {
+            deleteQuietly(tempFile);
             redirectAttributes.addFlashAttribute("error", "Błąd podczas importu: " + e.getMessage());
             return "redirect:/employees/import";
         }
     }
 
+    /**
+     * Postęp importu w tle; po zakończeniu strona pokazuje wyniki importu.
+     */
+    @GetMapping("/import-jobs/{id}")
+    public String importJob(@PathVariable String id, Model model, RedirectAttributes redirectAttributes) {
+        ImportJob job;
+        try {
+            job = importJobService.getJob(id);
+        } catch (ImportJobNotFoundException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/employees/import";
+        }
+
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            ImportSummary summary = job.getSummary();
+            model.addAttribute("summary", summary);
+            model.addAttribute("importedCount", summary.getImportedEmployees());
+            model.addAttribute("errors", summary.getErrors());
+            return "employees/import-results";
+        }
+
+        model.addAttribute("job", importJobService.toDto(job));
+        return "employees/import-progress";
+    }
+
+    @PostMapping("/import-jobs/{id}/cancel")
+    public String cancelImportJob(@PathVariable String id) {
+        importJobService.cancel(id);
+        return "redirect:/employees/import-jobs/" + id;
+    }
+
+    @PostMapping("/import-jobs/{id}/resume")
+    public String resumeImportJob(@PathVariable String id, RedirectAttributes redirectAttributes) {
+        try {
+            importJobService.resume(id);
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", "Nie można wznowić importu: " + e.getMessage());
+            return "redirect:/employees/import";
+        }
+        return "redirect:/employees/import-jobs/" + id;
+    }
+
     @GetMapping("/import-results")
     public String importResults(Model model) {
         return "employees/import-results";
     }
-}
\ No newline at end of file
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // plik tymczasowy - najwyżej zostanie w katalogu tymczasowym
+        }
+    }
+}
@@ -1,105 +1,297 @@
 package com.github.jakubpakula1.lab.controller;
 
+import com.github.jakubpakula1.lab.dto.ImportJobDTO;
+import com.github.jakubpakula1.lab.event.EmployeeChangeLog;
 import com.github.jakubpakula1.lab.exception.EmployeeNotFoundException;
-import com.github.jakubpakula1.lab.exception.FileStorageException;
+import com.github.jakubpakula1.lab.exception.InvalidDataException;
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.model.EmployeeDocument;
 import com.github.jakubpakula1.lab.model.FileType;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportMode;
+import com.github.jakubpakula1.lab.service.EmployeeExportWriter;
 import com.github.jakubpakula1.lab.service.EmployeeService;
 import com.github.jakubpakula1.lab.service.FileStorageService;
-import com.github.jakubpakula1.lab.service.ImportService;
-import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.github.jakubpakula1.lab.service.ImportJob;
+import com.github.jakubpakula1.lab.service.ImportJobService;
+import com.github.jakubpakula1.lab.service.ImportOptions;
+import com.github.jakubpakula1.lab.service.ReportCache;
 import com.github.jakubpakula1.lab.service.ReportGeneratorService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/files")
 public class FileUploadController {
 
+    private static final String DEFAULT_EXPORT_FORMAT = "csv";
+    private static final String DEFAULT_CHANGES_FORMAT = "ndjson";
+    private static final String CHANGE_WATERMARK_HEADER = "X-Change-Watermark";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final FileStorageService fileStorageService;
-    private final ImportService importService;
+    private final ImportJobService importJobService;
     private final ReportGeneratorService reportService;
     private final EmployeeService employeeService;
+    private final ReportCache reportCache;
+    private final EmployeeChangeLog changeLog;
+    private final Map<String, EmployeeExportWriter> exportWriters = new LinkedHashMap<>();
 
-    public FileUploadController(FileStorageService fileStorageService, ImportService importService,ReportGeneratorService reportService, EmployeeService employeeService) {
+    public FileUploadController(FileStorageService fileStorageService, ImportJobService importJobService, ReportGeneratorService reportService, EmployeeService employeeService, ReportCache reportCache, EmployeeChangeLog changeLog, List<EmployeeExportWriter> exportWriters) {
         this.fileStorageService = fileStorageService;
-        this.importService = importService;
+        this.importJobService = importJobService;
         this.reportService = reportService;
         this.employeeService = employeeService;
+        this.reportCache = reportCache;
+        this.changeLog = changeLog;
+        // domyślny format pierwszy - wygrywa przy typach z gwiazdką w Accept
+        exportWriters.stream()
+                .sorted(Comparator.comparing(writer -> !DEFAULT_EXPORT_FORMAT.equals(writer.getFormat())))
+                .forEach(writer -> this.exportWriters.put(writer.getFormat(), writer));
     }
 
+    /**
+     * Zleca import CSV w tle i od razu zwraca zadanie - status, postęp i wynik są pod {@code /api/imports/{id}}.
+     * Z {@code dryRun=true} plik jest tylko sprawdzany, a wynik mówi, co zrobiłby import.
+     */
     @PostMapping("/import/csv")
-    public ResponseEntity<ImportSummary> importCsv(@RequestParam("file") MultipartFile file) {
-        try {
-            String storedName = fileStorageService.storeFile(file, null);
-            Path filePath = fileStorageService.loadFile(storedName);
-            ImportSummary summary = importService.importFromCsv(String.valueOf(filePath));
-            return ResponseEntity.ok(summary);
-        } catch (FileStorageException ex) {
-            ImportSummary err = new ImportSummary();
-            err.setImportedEmployees(0);
-            err.addError(-1, ex.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
-        } catch (Exception ex) {
-            ImportSummary err = new ImportSummary();
-            err.setImportedEmployees(0);
-            err.addError(-1, "Błąd serwera: " + ex.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(err);
-        }
+    public ResponseEntity<ImportJobDTO> importCsv(@RequestParam("file") MultipartFile file,
+                                                  @RequestParam(value = "mode", defaultValue = "REPLACE") ImportMode mode,
+                                                  @RequestParam(value = "deleteMissing", defaultValue = "false") boolean deleteMissing,
+                                                  @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        return submitImport(file, ImportFormat.CSV, ImportOptions.of(mode, deleteMissing, dryRun));
     }
 
+    /**
+     * Zleca import XML w tle, jak {@link #importCsv(MultipartFile, ImportMode, boolean, boolean)}.
+     */
     @PostMapping("/import/xml")
-    public ResponseEntity<ImportSummary> importXml(@RequestParam("file") MultipartFile file) {
-        try {
-            String storedName = fileStorageService.storeFile(file, null);
-            Path filePath = fileStorageService.loadFile(storedName);
-            ImportSummary summary = importService.importFromXml(String.valueOf(filePath));
-            return ResponseEntity.ok(summary);
-        } catch (FileStorageException ex) {
-            ImportSummary err = new ImportSummary();
-            err.setImportedEmployees(0);
-            err.addError(-1, ex.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
-        } catch (Exception ex) {
-            ImportSummary err = new ImportSummary();
-            err.setImportedEmployees(0);
-            err.addError(-1, "Błąd serwera: " + ex.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(err);
+    public ResponseEntity<ImportJobDTO> importXml(@RequestParam("file") MultipartFile file,
+                                                  @RequestParam(value = "mode", defaultValue = "REPLACE") ImportMode mode,
+                                                  @RequestParam(value = "deleteMissing", defaultValue = "false") boolean deleteMissing,
+                                                  @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        return submitImport(file, ImportFormat.XML, ImportOptions.of(mode, deleteMissing, dryRun));
+    }
+
+    /**
+     * Zleca import JSON (tablica obiektów albo NDJSON) w tle, jak {@link #importCsv(MultipartFile, ImportMode, boolean, boolean)}.
+     */
+    @PostMapping("/import/json")
+    public ResponseEntity<ImportJobDTO> importJson(@RequestParam("file") MultipartFile file,
+                                                   @RequestParam(value = "mode", defaultValue = "REPLACE") ImportMode mode,
+                                                   @RequestParam(value = "deleteMissing", defaultValue = "false") boolean deleteMissing,
+                                                   @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        return submitImport(file, ImportFormat.JSON, ImportOptions.of(mode, deleteMissing, dryRun));
+    }
+
+    private ResponseEntity<ImportJobDTO> submitImport(MultipartFile file, ImportFormat format, ImportOptions options) {
+        String storedName = fileStorageService.storeFile(file, null);
+        Path filePath = fileStorageService.loadFile(storedName);
+        ImportJob job = importJobService.submit(filePath, file.getOriginalFilename(), format, options);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/imports/" + job.getId()))
+                .body(importJobService.toDto(job));
+    }
+
+    /**
+     * Eksport pracowników w formacie z parametru {@code format} (csv, xml, json, ndjson) albo, gdy go nie ma,
+     * z nagłówka {@code Accept}; domyślnie CSV. Każdy format jest zapisywany wierszami z kursora bazy do pliku
+     * w cache raportów, a kolejne pobrania przy niezmienionych danych są wysyłane prosto z tego pliku.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Resource> export(@RequestParam(value = "company", required = false) String company,
+                                           @RequestParam(value = "format", required = false) String format,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                           ServletWebRequest request) throws IOException {
+        if (format == null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
         }
+        EmployeeExportWriter writer = format != null ? exportWriter(format) : exportWriterForAccept(accept);
+        if (writer == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        return exportEmployees(company, writer, request);
     }
 
+    /**
+     * Eksport CSV pracowników - to samo co {@code /export?format=csv}.
+     */
     @GetMapping(value = "/export/csv", produces = "text/csv")
-    public ResponseEntity<Resource> exportCsv(@RequestParam(value = "company", required = false) String company) {
-        Resource csv = reportService.generateEmployeesCsv(Optional.ofNullable(company));
-        String filename = company == null ? "employees.csv" : "employees_" + sanitizeFilename(company) + ".csv";
+    public ResponseEntity<Resource> exportCsv(@RequestParam(value = "company", required = false) String company,
+                                              ServletWebRequest request) throws IOException {
+        return exportEmployees(company, exportWriter(DEFAULT_EXPORT_FORMAT), request);
+    }
 
+    /**
+     * Eksport przyrostowy: pracownicy zapisani i usunięci po znaczniku {@code since} - numerze zmiany albo czasie
+     * ISO-8601, np. {@code 2026-10-17T08:00:00Z}; bez znacznika od początku. Domyślnie NDJSON, CSV nie obsługuje zmian.
+     * Nagłówek {@code X-Change-Watermark} to numer, do którego odpowiedź jest kompletna - {@code since} następnego
+     * pobrania. Zakres jest inny przy każdym pobraniu, więc odpowiedź nie trafia do cache raportów.
+     */
+    @GetMapping("/export/changes")
+    public ResponseEntity<StreamingResponseBody> exportChanges(@RequestParam(value = "since", required = false) String since,
+                                                               @RequestParam(value = "format", defaultValue = DEFAULT_CHANGES_FORMAT) String format) {
+        EmployeeExportWriter writer = exportWriter(format);
+        if (!writer.supportsChanges()) {
+            throw new InvalidDataException("Format " + writer.getFormat() + " nie obsługuje eksportu zmian");
+        }
+        long watermark = changeLog.getStableVersion();
+        StreamingResponseBody body;
+        if (since == null || since.isBlank()) {
+            body = out -> reportService.writeEmployeeChanges(0L, watermark, writer, out);
+        } else if (since.chars().allMatch(Character::isDigit)) {
+            long sinceVersion = parseChangeVersion(since);
+            body = out -> reportService.writeEmployeeChanges(sinceVersion, watermark, writer, out);
+        } else {
+            Instant changedAfter = parseChangeTime(since);
+            body = out -> reportService.writeEmployeeChanges(changedAfter, watermark, writer, out);
+        }
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(csv);
+                .header(CHANGE_WATERMARK_HEADER, Long.toString(watermark))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .contentType(MediaType.parseMediaType(writer.getContentType()))
+                .body(body);
     }
 
+    /**
+     * Numer zmiany wyższy niż ostatni nadany pochodzi z innej bazy, np. sprzed restartu - odbiorca musi pobrać zmiany od nowa.
+     */
+    private long parseChangeVersion(String since) {
+        try {
+            long version = Long.parseLong(since);
+            if (version <= changeLog.getLastVersion()) {
+                return version;
+            }
+        } catch (NumberFormatException e) {
+            // poza zakresem long - jak numer z przyszłości
+        }
+        throw new InvalidDataException("Nieznany numer zmiany: " + since + ". Pobierz zmiany od nowa, bez znacznika since");
+    }
+
+    private static Instant parseChangeTime(String since) {
+        try {
+            return Instant.parse(since);
+        } catch (DateTimeParseException e) {
+            throw new InvalidDataException("Znacznik since musi być numerem zmiany albo czasem ISO-8601: " + since);
+        }
+    }
+
+    private ResponseEntity<Resource> exportEmployees(String company, EmployeeExportWriter writer,
+                                                     ServletWebRequest request) throws IOException {
+        Optional<String> companyOpt = Optional.ofNullable(company);
+        List<String> parameters = company == null ? List.of() : List.of("company=" + company.toLowerCase(Locale.ROOT));
+        ReportCache.CachedReport report = reportCache.get("employees-" + writer.getFormat(), parameters,
+                out -> reportService.writeEmployees(companyOpt, writer, out));
+        String filename = (company == null ? "employees" : "employees_" + sanitizeFilename(company)) + "." + writer.getFormat();
+        return cachedReport(report, filename, MediaType.parseMediaType(writer.getContentType()), request);
+    }
+
+    private EmployeeExportWriter exportWriter(String format) {
+        EmployeeExportWriter writer = exportWriters.get(format.trim().toLowerCase(Locale.ROOT));
+        if (writer == null) {
+            throw new InvalidDataException("Nieobsługiwany format eksportu: " + format + ". Dostępne: " + exportWriters.keySet());
+        }
+        return writer;
+    }
+
+    /**
+     * Format najlepiej pasujący do {@code Accept} - wg jakości, potem dokładności typu; przy typach z gwiazdką
+     * wygrywa CSV. Null, gdy żaden format nie jest akceptowany.
+     */
+    private EmployeeExportWriter exportWriterForAccept(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return exportWriters.get(DEFAULT_EXPORT_FORMAT);
+        }
+        List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() <= 0) continue;
+            for (EmployeeExportWriter writer : exportWriters.values()) {
+                if (type.includes(MediaType.parseMediaType(writer.getContentType()))) {
+                    return writer;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Raporty PDF wszystkich firm w jednym archiwum ZIP, renderowane równolegle - archiwum trafia do cache raportów.
+     */
+    @GetMapping(value = "/reports/statistics", produces = "application/zip")
+    public ResponseEntity<Resource> exportAllCompanyStatisticsPdf(ServletWebRequest request) throws IOException {
+        ReportCache.CachedReport report = reportCache.get("statistics-zip", List.of(),
+                reportService::writeAllCompanyStatisticsZip);
+        return cachedReport(report, "statistics.zip", MediaType.parseMediaType("application/zip"), request);
+    }
+
+    /**
+     * Stronicowany raport PDF firmy z cache raportów.
+     */
     @GetMapping(value = "/reports/statistics/{companyName}", produces = "application/pdf")
-    public ResponseEntity<Resource> exportCompanyStatisticsPdf(@PathVariable String companyName) {
-        Resource pdf = reportService.generateCompanyStatisticsPdf(companyName);
+    public ResponseEntity<Resource> exportCompanyStatisticsPdf(@PathVariable String companyName,
+                                                               ServletWebRequest request) throws IOException {
+        ReportCache.CachedReport report = reportCache.get("statistics-pdf", List.of(companyName),
+                out -> reportService.writeCompanyStatisticsPdf(companyName, out));
         String filename = "statistics_" + sanitizeFilename(companyName) + ".pdf";
+        return cachedReport(report, filename, MediaType.APPLICATION_PDF, request);
+    }
 
-        return ResponseEntity.ok()
+    @GetMapping("/reports/cache")
+    public ResponseEntity<Map<String, Object>> getReportCacheMetrics() {
+        return ResponseEntity.ok(reportCache.getMetrics());
+    }
+
+    /**
+     * Odpowiedź z plikiem z cache. Zgodny {@code If-None-Match} kończy się 304 bez czytania pliku, a pod Tomcatem
+     * plik jest wysyłany przez sendfile - z dysku do gniazda bez kopiowania przez pamięć aplikacji.
+     */
+    private ResponseEntity<Resource> cachedReport(ReportCache.CachedReport report, String filename,
+                                                  MediaType mediaType, ServletWebRequest request) {
+        if (request.checkNotModified(report.getEtag())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(report.getEtag())
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+                .contentType(mediaType)
+                .contentLength(report.getSize());
+        HttpServletRequest servletRequest = request.getRequest();
+        if (Boolean.TRUE.equals(servletRequest.getAttribute(SENDFILE_SUPPORT))) {
+            servletRequest.setAttribute(SENDFILE_FILENAME, report.getFile().toString());
+            servletRequest.setAttribute(SENDFILE_START, 0L);
+            servletRequest.setAttribute(SENDFILE_END, report.getSize());
+            return response.build();
+        }
+        return response.body(new FileSystemResource(report.getFile()));
     }
 
         @PostMapping("/documents/{email}")
@@ -0,0 +1,228 @@
+package com.github.jakubpakula1.lab.controller;
+
+import com.github.jakubpakula1.lab.dto.ErrorResponse;
+import com.github.jakubpakula1.lab.dto.ImportJobDTO;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportMode;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.github.jakubpakula1.lab.service.FileStorageService;
+import com.github.jakubpakula1.lab.service.ImportErrorReports;
+import com.github.jakubpakula1.lab.service.ImportFolderWatcher;
+import com.github.jakubpakula1.lab.service.ImportJob;
+import com.github.jakubpakula1.lab.service.ImportJobService;
+import com.github.jakubpakula1.lab.service.ImportOptions;
+import com.github.jakubpakula1.lab.service.ImportProgress;
+import com.github.jakubpakula1.lab.service.ImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/imports")
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+    private final ImportService importService;
+    private final FileStorageService fileStorageService;
+    private final ImportErrorReports errorReports;
+    private final ImportFolderWatcher folderWatcher;
+
+    public ImportJobController(ImportJobService importJobService, ImportService importService,
+                               FileStorageService fileStorageService, ImportErrorReports errorReports,
+                               ImportFolderWatcher folderWatcher) {
+        this.importJobService = importJobService;
+        this.importService = importService;
+        this.fileStorageService = fileStorageService;
+        this.errorReports = errorReports;
+        this.folderWatcher = folderWatcher;
+    }
+
+    /**
+     * Przyjmuje plik i zleca import w tle. Format jest brany z parametru lub z rozszerzenia pliku.
+     * Tryb MERGE aktualizuje pracowników po emailu; {@code deleteMissing} usuwa tych, których nie ma w pliku.
+     * Plik może być spakowany gzip ({@code .csv.gz}) albo zip - jest rozpakowywany w locie podczas importu.
+     * Z {@code dryRun=true} plik jest tylko sprawdzany (nic nie jest usuwane ani zapisywane), a wynik zadania
+     * mówi, ilu pracowników zaimportowałby import i które rekordy by odrzucił.
+     * <p>
+     * Domyślnie import biegnie w jednej transakcji - błąd wycofuje go w całości, razem z usunięciem dawnych
+     * pracowników w trybie REPLACE. Z {@code checkpointed=true} import jest zatwierdzany paczkami i po awarii
+     * albo anulowaniu można go wznowić ({@code POST /{id}/resume}), ale nie jest atomowy: w trybie REPLACE dawni
+     * pracownicy są usuwani od razu, więc nieudany import zostawia w bazie tylko zatwierdzone paczki nowego pliku,
+     * dopóki nie zostanie wznowiony. Archiwa zip, {@code deleteMissing} i {@code dryRun} zawsze idą jedną transakcją.
+     */
+    @PostMapping
+    public ResponseEntity<ImportJobDTO> submit(@RequestParam("file") MultipartFile file,
+                                               @RequestParam(value = "format", required = false) ImportFormat format,
+                                               @RequestParam(value = "mode", defaultValue = "REPLACE") ImportMode mode,
+                                               @RequestParam(value = "deleteMissing", defaultValue = "false") boolean deleteMissing,
+                                               @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun,
+                                               @RequestParam(value = "checkpointed", defaultValue = "false") boolean checkpointed) {
+        ImportFormat importFormat = format != null ? format : formatOf(file.getOriginalFilename());
+        String storedName = fileStorageService.storeFile(file, null);
+        ImportOptions options = ImportOptions.of(mode, deleteMissing, dryRun);
+        ImportJob job = importJobService.submit(fileStorageService.loadFile(storedName), file.getOriginalFilename(),
+                importFormat, checkpointed ? options.asCheckpointed() : options);
+        return accepted(importJobService.toDto(job));
+    }
+
+    /**
+     * Import synchroniczny z treści żądania (np. {@code curl --data-binary @employees.csv -H "Content-Type: text/csv"}).
+     * Plik jest parsowany w trakcie odbierania, bez zapisu na dysk; odpowiedź zawiera gotowe podsumowanie.
+     */
+    @PostMapping(value = "/stream", consumes = {"text/csv", "application/xml", "text/xml", "application/json",
+            "application/x-ndjson", "application/octet-stream"})
+    public ResponseEntity<ImportSummary> importStream(HttpServletRequest request,
+                                                      @RequestParam(value = "format", required = false) ImportFormat format,
+                                                      @RequestParam(value = "mode", defaultValue = "REPLACE") ImportMode mode,
+                                                      @RequestParam(value = "deleteMissing", defaultValue = "false") boolean deleteMissing,
+                                                      @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) throws IOException {
+        ImportFormat importFormat = format != null ? format : formatOfContentType(request.getContentType());
+        ImportOptions options = ImportOptions.of(mode, deleteMissing, dryRun);
+        ImportProgress progress = new ImportProgress();
+        long contentLength = request.getContentLengthLong();
+        if (contentLength >= 0) {
+            progress.setTotalBytes(contentLength);
+        }
+
+        InputStream body = request.getInputStream();
+        ImportSummary summary = switch (importFormat) {
+            case XML -> importService.importFromXml(body, options, progress);
+            case JSON -> importService.importFromJson(body, options, progress);
+            case CSV -> importService.importFromCsv(body, charsetOf(request), options, progress);
+        };
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> listJobs() {
+        return ResponseEntity.ok(importJobService.getJobs().stream().map(importJobService::toDto).toList());
+    }
+
+    /**
+     * Liczniki importu z obserwowanego katalogu: przepustowość, opóźnienie i pliki czekające na import.
+     */
+    @GetMapping("/watch")
+    public ResponseEntity<Map<String, Object>> getWatchMetrics() {
+        return ResponseEntity.ok(folderWatcher.getMetrics());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getStatus(@PathVariable String id) {
+        return ResponseEntity.ok(importJobService.toDto(importJobService.getJob(id)));
+    }
+
+    @GetMapping("/{id}/progress")
+    public ResponseEntity<Map<String, Object>> getProgress(@PathVariable String id) {
+        ImportJob job = importJobService.getJob(id);
+        ImportProgress progress = job.getProgress();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", job.getStatus());
+        body.put("percent", progress.getPercent());
+        body.put("bytesRead", progress.getBytesRead());
+        body.put("totalBytes", progress.getTotalBytes());
+        body.put("recordsRead", progress.getRecordsRead());
+        body.put("recordsWritten", progress.getRecordsWritten());
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable String id, HttpServletRequest request) {
+        if (!importJobService.cancel(id)) {
+            return conflict("Zadanie importu już się zakończyło", request);
+        }
+        return ResponseEntity.accepted().body(importJobService.toDto(importJobService.getJob(id)));
+    }
+
+    /**
+     * Wznawia nieudany import od ostatniej zatwierdzonej paczki (gdy {@code resumable} w statusie zadania).
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable String id, HttpServletRequest request) {
+        try {
+            return accepted(importJobService.toDto(importJobService.resume(id)));
+        } catch (IllegalStateException e) {
+            return conflict(e.getMessage(), request);
+        }
+    }
+
+    /**
+     * Wynik importu: 200 z podsumowaniem po zakończeniu, 202 ze statusem w trakcie, 409 po błędzie lub anulowaniu.
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getResult(@PathVariable String id, HttpServletRequest request) {
+        ImportJob job = importJobService.getJob(id);
+        ImportJobStatus status = job.getStatus();
+        if (status == ImportJobStatus.COMPLETED) {
+            return ResponseEntity.ok(job.getSummary());
+        }
+        if (!status.isFinished()) {
+            return ResponseEntity.accepted().body(importJobService.toDto(job));
+        }
+        String message = status == ImportJobStatus.CANCELLED
+                ? "Import został anulowany"
+                : "Import zakończył się błędem: " + job.getErrorMessage();
+        return conflict(message, request);
+    }
+
+    /**
+     * Pełna lista błędów importu jako NDJSON - wynik importu zawiera tylko próbkę i {@code errorReportId}.
+     */
+    @GetMapping(value = "/error-reports/{reportId}", produces = "application/x-ndjson")
+    public ResponseEntity<Resource> downloadErrorReport(@PathVariable String reportId) {
+        Resource report = new FileSystemResource(errorReports.find(reportId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-errors-" + reportId + ".ndjson\"")
+                .body(report);
+    }
+
+    private static ResponseEntity<ImportJobDTO> accepted(ImportJobDTO job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/imports/" + job.getId()))
+                .body(job);
+    }
+
+    private static ImportFormat formatOf(String fileName) {
+        ImportFormat format = ImportFormat.ofFileName(fileName);
+        if (format != null) return format;
+        // format plików w archiwum ustalany jest po ich nazwach, format zadania jest tylko etykietą
+        if (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) return ImportFormat.CSV;
+        throw new IllegalArgumentException("Nie można ustalić formatu importu dla pliku: " + fileName);
+    }
+
+    private static ImportFormat formatOfContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.contains("xml")) return ImportFormat.XML;
+        if (type.contains("csv")) return ImportFormat.CSV;
+        if (type.contains("json")) return ImportFormat.JSON;
+        throw new IllegalArgumentException("Podaj parametr format dla typu treści: " + contentType);
+    }
+
+    private static Charset charsetOf(HttpServletRequest request) {
+        String encoding = request.getCharacterEncoding();
+        return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+    }
+
+    private static ResponseEntity<ErrorResponse> conflict(String message, HttpServletRequest request) {
+        ErrorResponse err = new ErrorResponse(message, Instant.now(), HttpStatus.CONFLICT.value(), request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(err);
+    }
+}
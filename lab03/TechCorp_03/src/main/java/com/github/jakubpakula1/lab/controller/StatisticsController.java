@@ -1,52 +1,85 @@
 package com.github.jakubpakula1.lab.controller;
 
 import com.github.jakubpakula1.lab.dto.CompanyStatisticsDTO;
-import com.github.jakubpakula1.lab.model.CompanyStatistics;
-import com.github.jakubpakula1.lab.model.Employee;
-import com.github.jakubpakula1.lab.service.EmployeeService;
+import com.github.jakubpakula1.lab.dto.SalaryDistributionDTO;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.service.EmployeeStatisticsStore;
+import com.github.jakubpakula1.lab.service.SalaryDistributionService;
+import com.github.jakubpakula1.lab.service.SingleFlight;
+import com.github.jakubpakula1.lab.service.StatisticsCacheService;
+import com.github.jakubpakula1.lab.service.StatisticsFacade;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/statistics")
 public class StatisticsController {
 
-    private final EmployeeService employeeService;
+    private final StatisticsFacade statisticsFacade;
+    private final EmployeeStatisticsStore statisticsStore;
+    private final SalaryDistributionService salaryDistributionService;
+    private final StatisticsCacheService statisticsCacheService;
+    private final SingleFlight singleFlight;
 
-    public StatisticsController(EmployeeService employeeService) {
-        this.employeeService = employeeService;
+    public StatisticsController(StatisticsFacade statisticsFacade, EmployeeStatisticsStore statisticsStore,
+                                SalaryDistributionService salaryDistributionService,
+                                StatisticsCacheService statisticsCacheService, SingleFlight singleFlight) {
+        this.statisticsFacade = statisticsFacade;
+        this.statisticsStore = statisticsStore;
+        this.salaryDistributionService = salaryDistributionService;
+        this.statisticsCacheService = statisticsCacheService;
+        this.singleFlight = singleFlight;
     }
 
     @GetMapping("/salary/average")
     public ResponseEntity<Map<String, Double>> getAverageSalary(@RequestParam(required = false) String company) {
-        double average = employeeService.getAverageSalary(company);
+        double average = statisticsStore.getAverageSalary(company);
         Map<String, Double> result = Collections.singletonMap("averageSalary", average);
         return ResponseEntity.ok(result);
     }
 
+    @GetMapping("/salary/distribution")
+    public ResponseEntity<SalaryDistributionDTO> getSalaryDistribution(@RequestParam(required = false) String company,
+                                                                       @RequestParam(required = false) Position position,
+                                                                       @RequestParam(defaultValue = "10") int buckets) {
+        if (buckets < 1 || buckets > SalaryDistributionService.MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salaryDistributionService.getDistribution(company, position, buckets));
+    }
+
     @GetMapping("/company/{companyName}")
     public ResponseEntity<CompanyStatisticsDTO> getCompanyStatistics(@PathVariable String companyName) {
         if (companyName == null || companyName.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
 
-        return employeeService.getCompanyStatisticsDTO(companyName)
+        return statisticsFacade.getCompanyStatisticsDTO(companyName)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/positions")
     public ResponseEntity<Map<String, Integer>> getPositionStatistics() {
-        Map<String, Integer> stats = employeeService.getPositionStatistics();
+        Map<String, Integer> stats = statisticsStore.getPositionStatistics();
         return ResponseEntity.ok(stats != null ? stats : Collections.emptyMap());
     }
 
     @GetMapping("/status")
     public ResponseEntity<Map<String, Integer>> getStatusDistribution() {
-        Map<String, Integer> distribution = employeeService.getStatusDistribution();
+        Map<String, Integer> distribution = statisticsStore.getStatusDistribution();
         return ResponseEntity.ok(distribution != null ? distribution : Collections.emptyMap());
     }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStatistics() {
+        return ResponseEntity.ok(statisticsCacheService.getCacheStatistics());
+    }
+
+    @GetMapping("/coalescing")
+    public ResponseEntity<Map<String, Map<String, Long>>> getCoalescingMetrics() {
+        return ResponseEntity.ok(singleFlight.getMetrics());
+    }
 }
\ No newline at end of file
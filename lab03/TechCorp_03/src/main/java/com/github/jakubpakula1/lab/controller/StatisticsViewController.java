@@ -1,10 +1,11 @@
 package com.github.jakubpakula1.lab.controller;
 
 import com.github.jakubpakula1.lab.dto.CompanyStatisticsDTO;
-import com.github.jakubpakula1.lab.model.CompanyStatistics;
+import com.github.jakubpakula1.lab.model.DashboardStatistics;
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.service.DepartmentService;
 import com.github.jakubpakula1.lab.service.EmployeeService;
+import com.github.jakubpakula1.lab.service.StatisticsFacade;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,7 +13,6 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -21,36 +21,33 @@ public class StatisticsViewController {
 
     private final EmployeeService employeeService;
     private final DepartmentService departmentService;
+    private final StatisticsFacade statisticsFacade;
 
-    public StatisticsViewController(EmployeeService employeeService, DepartmentService departmentService) {
+    public StatisticsViewController(EmployeeService employeeService, DepartmentService departmentService,
+                                    StatisticsFacade statisticsFacade) {
         this.employeeService = employeeService;
         this.departmentService = departmentService;
+        this.statisticsFacade = statisticsFacade;
     }
 
     @GetMapping
     public String displayDashboard(Model model) {
-        List<Employee> allEmployees = employeeService.getAllEmployees();
-        int totalEmployees = allEmployees.size();
-        double averageSalary = employeeService.getAverageSalary();
+        DashboardStatistics stats = statisticsFacade.getDashboardStatistics();
         int totalDepartments = departmentService.getAllDepartments().size();
 
-        Map<String, CompanyStatistics> companyStats = employeeService.getCompanyStatistics();
-        Map<String, Integer> positionStats = employeeService.getPositionStatistics();
-        Map<String, Integer> statusDistribution = employeeService.getStatusDistribution();
-
-        model.addAttribute("totalEmployees", totalEmployees);
-        model.addAttribute("averageSalary", String.format("%.2f", averageSalary));
+        model.addAttribute("totalEmployees", stats.getTotalEmployees());
+        model.addAttribute("averageSalary", String.format("%.2f", stats.getAverageSalary()));
         model.addAttribute("totalDepartments", totalDepartments);
-        model.addAttribute("companyStatistics", companyStats);
-        model.addAttribute("positionStatistics", positionStats);
-        model.addAttribute("statusDistribution", statusDistribution);
+        model.addAttribute("companyStatistics", stats.getCompanyStatistics());
+        model.addAttribute("positionStatistics", stats.getPositionStatistics());
+        model.addAttribute("statusDistribution", stats.getStatusDistribution());
 
         return "statistics/dashboard";
     }
 
     @GetMapping("/company/{name}")
     public String displayCompanyStatistics(@PathVariable String name, Model model) {
-        Optional<CompanyStatisticsDTO> statsOpt = employeeService.getCompanyStatisticsDTO(name);
+        Optional<CompanyStatisticsDTO> statsOpt = statisticsFacade.getCompanyStatisticsDTO(name);
 
         if (statsOpt.isEmpty()) {
             model.addAttribute("error", "Brak danych dla firmy: " + name);
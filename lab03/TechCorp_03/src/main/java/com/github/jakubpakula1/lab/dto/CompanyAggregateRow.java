@@ -0,0 +1,33 @@
+package com.github.jakubpakula1.lab.dto;
+
+import java.math.BigDecimal;
+
+public class CompanyAggregateRow {
+    private final String company;
+    private final long employeeCount;
+    private final double averageSalary;
+    private final BigDecimal highestSalary;
+
+    public CompanyAggregateRow(String company, Long employeeCount, Double averageSalary, BigDecimal highestSalary) {
+        this.company = company;
+        this.employeeCount = employeeCount != null ? employeeCount : 0L;
+        this.averageSalary = averageSalary != null ? averageSalary : 0.0;
+        this.highestSalary = highestSalary;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public long getEmployeeCount() {
+        return employeeCount;
+    }
+
+    public double getAverageSalary() {
+        return averageSalary;
+    }
+
+    public BigDecimal getHighestSalary() {
+        return highestSalary;
+    }
+}
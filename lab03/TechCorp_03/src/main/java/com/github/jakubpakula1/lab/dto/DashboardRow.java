@@ -0,0 +1,53 @@
+package com.github.jakubpakula1.lab.dto;
+
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+
+import java.math.BigDecimal;
+
+public class DashboardRow {
+    private final String company;
+    private final String name;
+    private final String surname;
+    private final Position position;
+    private final EmploymentStatus status;
+    private final BigDecimal salary;
+
+    public DashboardRow(String company, String name, String surname, Position position,
+                        EmploymentStatus status, BigDecimal salary) {
+        this.company = company;
+        this.name = name;
+        this.surname = surname;
+        this.position = position;
+        this.status = status;
+        this.salary = salary;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public String getFullName() {
+        return name + " " + surname;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public EmploymentStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getSalary() {
+        return salary;
+    }
+}
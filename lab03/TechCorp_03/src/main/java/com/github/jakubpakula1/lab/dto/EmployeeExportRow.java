@@ -0,0 +1,101 @@
+package com.github.jakubpakula1.lab.dto;
+
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class EmployeeExportRow {
+    private final String name;
+    private final String surname;
+    private final String company;
+    private final String email;
+    private final Position position;
+    private final BigDecimal salary;
+    private final EmploymentStatus status;
+    private final Long changeVersion;
+    private final Instant changedAt;
+    private final boolean deleted;
+
+    public EmployeeExportRow(String name, String surname, String company, String email,
+                             Position position, BigDecimal salary) {
+        this(name, surname, company, email, position, salary, null);
+    }
+
+    public EmployeeExportRow(String name, String surname, String company, String email,
+                             Position position, BigDecimal salary, EmploymentStatus status) {
+        this(name, surname, company, email, position, salary, status, null, null, false);
+    }
+
+    /**
+     * Wiersz eksportu zmian: pracownik z numerem i czasem swojej ostatniej zmiany.
+     */
+    public EmployeeExportRow(String name, String surname, String company, String email,
+                             Position position, BigDecimal salary, EmploymentStatus status,
+                             Long changeVersion, Instant changedAt) {
+        this(name, surname, company, email, position, salary, status, changeVersion, changedAt, false);
+    }
+
+    /**
+     * Wiersz eksportu zmian dla usuniętego pracownika - tylko klucz, firma i zmiana, która go usunęła.
+     */
+    public EmployeeExportRow(String email, String company, Long changeVersion, Instant changedAt) {
+        this(null, null, company, email, null, null, null, changeVersion, changedAt, true);
+    }
+
+    private EmployeeExportRow(String name, String surname, String company, String email,
+                              Position position, BigDecimal salary, EmploymentStatus status,
+                              Long changeVersion, Instant changedAt, boolean deleted) {
+        this.name = name;
+        this.surname = surname;
+        this.company = company;
+        this.email = email;
+        this.position = position;
+        this.salary = salary;
+        this.status = status;
+        this.changeVersion = changeVersion;
+        this.changedAt = changedAt;
+        this.deleted = deleted;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public BigDecimal getSalary() {
+        return salary;
+    }
+
+    public EmploymentStatus getStatus() {
+        return status;
+    }
+
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
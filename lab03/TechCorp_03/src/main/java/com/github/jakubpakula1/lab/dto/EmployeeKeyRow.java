@@ -0,0 +1,19 @@
+package com.github.jakubpakula1.lab.dto;
+
+public class EmployeeKeyRow {
+    private final Long id;
+    private final String email;
+
+    public EmployeeKeyRow(Long id, String email) {
+        this.id = id;
+        this.email = email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.jakubpakula1.lab.dto;
+
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportMode;
+
+import java.time.Instant;
+
+public class ImportJobDTO {
+    private String id;
+    private ImportFormat format;
+    private ImportMode mode;
+    private String fileName;
+    private ImportJobStatus status;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long bytesRead;
+    private long totalBytes;
+    private int percent;
+    private long recordsRead;
+    private long recordsWritten;
+    private Integer importedEmployees;
+    private Integer errorCount;
+    private String errorMessage;
+    private boolean checkpointed;
+    private boolean resumable;
+    private boolean dryRun;
+
+    public ImportJobDTO() {}
+
+    public ImportJobDTO(String id, ImportFormat format, ImportMode mode, String fileName, ImportJobStatus status,
+                        Instant submittedAt, Instant startedAt, Instant finishedAt,
+                        long bytesRead, long totalBytes, int percent, long recordsRead, long recordsWritten,
+                        Integer importedEmployees, Integer errorCount, String errorMessage) {
+        this.id = id;
+        this.format = format;
+        this.mode = mode;
+        this.fileName = fileName;
+        this.status = status;
+        this.submittedAt = submittedAt;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.percent = percent;
+        this.recordsRead = recordsRead;
+        this.recordsWritten = recordsWritten;
+        this.importedEmployees = importedEmployees;
+        this.errorCount = errorCount;
+        this.errorMessage = errorMessage;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public ImportFormat getFormat() { return format; }
+    public void setFormat(ImportFormat format) { this.format = format; }
+
+    public ImportMode getMode() { return mode; }
+    public void setMode(ImportMode mode) { this.mode = mode; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public ImportJobStatus getStatus() { return status; }
+    public void setStatus(ImportJobStatus status) { this.status = status; }
+
+    public Instant getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(Instant submittedAt) { this.submittedAt = submittedAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public long getBytesRead() { return bytesRead; }
+    public void setBytesRead(long bytesRead) { this.bytesRead = bytesRead; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    public int getPercent() { return percent; }
+    public void setPercent(int percent) { this.percent = percent; }
+
+    public long getRecordsRead() { return recordsRead; }
+    public void setRecordsRead(long recordsRead) { this.recordsRead = recordsRead; }
+
+    public long getRecordsWritten() { return recordsWritten; }
+    public void setRecordsWritten(long recordsWritten) { this.recordsWritten = recordsWritten; }
+
+    public Integer getImportedEmployees() { return importedEmployees; }
+    public void setImportedEmployees(Integer importedEmployees) { this.importedEmployees = importedEmployees; }
+
+    public Integer getErrorCount() { return errorCount; }
+    public void setErrorCount(Integer errorCount) { this.errorCount = errorCount; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public boolean isCheckpointed() { return checkpointed; }
+    public void setCheckpointed(boolean checkpointed) { this.checkpointed = checkpointed; }
+
+    public boolean isResumable() { return resumable; }
+    public void setResumable(boolean resumable) { this.resumable = resumable; }
+
+    public boolean isDryRun() { return dryRun; }
+    public void setDryRun(boolean dryRun) { this.dryRun = dryRun; }
+}
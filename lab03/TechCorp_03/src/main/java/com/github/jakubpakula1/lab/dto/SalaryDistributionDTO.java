@@ -0,0 +1,80 @@
+package com.github.jakubpakula1.lab.dto;
+
+import java.util.List;
+
+public class SalaryDistributionDTO {
+    private String company;
+    private String position;
+    private long count;
+    private double min;
+    private double max;
+    private double p50;
+    private double p90;
+    private double p99;
+    private List<HistogramBucket> histogram;
+
+    public SalaryDistributionDTO() {}
+
+    public SalaryDistributionDTO(String company, String position, long count, double min, double max,
+                                 double p50, double p90, double p99, List<HistogramBucket> histogram) {
+        this.company = company;
+        this.position = position;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.histogram = histogram;
+    }
+
+    public String getCompany() { return company; }
+    public void setCompany(String company) { this.company = company; }
+
+    public String getPosition() { return position; }
+    public void setPosition(String position) { this.position = position; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public double getMin() { return min; }
+    public void setMin(double min) { this.min = min; }
+
+    public double getMax() { return max; }
+    public void setMax(double max) { this.max = max; }
+
+    public double getP50() { return p50; }
+    public void setP50(double p50) { this.p50 = p50; }
+
+    public double getP90() { return p90; }
+    public void setP90(double p90) { this.p90 = p90; }
+
+    public double getP99() { return p99; }
+    public void setP99(double p99) { this.p99 = p99; }
+
+    public List<HistogramBucket> getHistogram() { return histogram; }
+    public void setHistogram(List<HistogramBucket> histogram) { this.histogram = histogram; }
+
+    public static class HistogramBucket {
+        private double from;
+        private double to;
+        private long count;
+
+        public HistogramBucket() {}
+
+        public HistogramBucket(double from, double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public double getFrom() { return from; }
+        public void setFrom(double from) { this.from = from; }
+
+        public double getTo() { return to; }
+        public void setTo(double to) { this.to = to; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
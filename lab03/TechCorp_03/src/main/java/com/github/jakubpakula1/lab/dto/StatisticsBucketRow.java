@@ -0,0 +1,49 @@
+package com.github.jakubpakula1.lab.dto;
+
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+
+import java.math.BigDecimal;
+
+public class StatisticsBucketRow {
+    private final String company;
+    private final Position position;
+    private final EmploymentStatus status;
+    private final long employeeCount;
+    private final long salaryCount;
+    private final BigDecimal salarySum;
+
+    public StatisticsBucketRow(String company, Position position, EmploymentStatus status,
+                               Long employeeCount, Long salaryCount, BigDecimal salarySum) {
+        this.company = company;
+        this.position = position;
+        this.status = status;
+        this.employeeCount = employeeCount != null ? employeeCount : 0L;
+        this.salaryCount = salaryCount != null ? salaryCount : 0L;
+        this.salarySum = salarySum != null ? salarySum : BigDecimal.ZERO;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public EmploymentStatus getStatus() {
+        return status;
+    }
+
+    public long getEmployeeCount() {
+        return employeeCount;
+    }
+
+    public long getSalaryCount() {
+        return salaryCount;
+    }
+
+    public BigDecimal getSalarySum() {
+        return salarySum;
+    }
+}
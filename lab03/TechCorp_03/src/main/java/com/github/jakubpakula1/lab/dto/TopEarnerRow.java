@@ -0,0 +1,37 @@
+package com.github.jakubpakula1.lab.dto;
+
+import java.math.BigDecimal;
+
+public class TopEarnerRow {
+    private final String company;
+    private final String name;
+    private final String surname;
+    private final BigDecimal salary;
+
+    public TopEarnerRow(String company, String name, String surname, BigDecimal salary) {
+        this.company = company;
+        this.name = name;
+        this.surname = surname;
+        this.salary = salary;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public String getFullName() {
+        return name + " " + surname;
+    }
+
+    public BigDecimal getSalary() {
+        return salary;
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.jakubpakula1.lab.event;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import com.github.jakubpakula1.lab.repository.EmployeeTombstoneRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Numery zmian pracowników dla eksportu przyrostowego. Każdy zapis i usunięcie encji {@link Employee} dostaje kolejny
+ * numer z jednego licznika, a usunięcie zostawia ślad w tabeli {@code employee_tombstones}.
+ * <p>
+ * Numer jest nadawany przy zapisie, a widoczny dopiero po zatwierdzeniu transakcji, więc transakcje mogą zatwierdzać
+ * się w innej kolejności niż dostały numery. {@link #getStableVersion()} zwraca najwyższy numer, poniżej którego żadna
+ * transakcja nie jest już w toku - odbiorca czytający zmiany tylko do niego nie przeskoczy zmiany zatwierdzonej później.
+ */
+@Component
+public class EmployeeChangeLog {
+
+    private static final String INSERT_TOMBSTONE = "INSERT INTO employee_tombstones " +
+            "(employee_id, email, company, deleted_at, change_version) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_TOMBSTONES = "INSERT INTO employee_tombstones " +
+            "(employee_id, email, company, deleted_at, change_version) " +
+            "SELECT id, email, company, ?, CAST(? AS BIGINT) + ROW_NUMBER() OVER (ORDER BY id) - 1 " +
+            "FROM employees WHERE id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object transactionKey = new Object();
+    /** Najniższe numery transakcji w toku - po jednym na transakcję, bo jej dalsze numery są zawsze wyższe. */
+    private final TreeSet<Long> pendingVersions = new TreeSet<>();
+    private long lastVersion;
+
+    public EmployeeChangeLog(EmployeeRepository employeeRepository,
+                             EmployeeTombstoneRepository tombstoneRepository,
+                             JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lastVersion = Math.max(employeeRepository.findMaxChangeVersion(), tombstoneRepository.findMaxChangeVersion());
+    }
+
+    /**
+     * Nadaje zapisywanemu pracownikowi kolejny numer zmiany i czas modyfikacji.
+     */
+    public void markChanged(Employee employee) {
+        employee.markChanged(nextVersion(), now());
+    }
+
+    /**
+     * Zapisuje ślad usunięcia w bieżącej transakcji. Idzie przez JDBC na połączeniu transakcji, bo listener JPA
+     * nie może utrwalać nowych encji w trakcie flush.
+     */
+    public void recordDeletion(Employee employee) {
+        if (employee.getId() == null || employee.getEmail() == null) return;
+        Instant deletedAt = now();
+        jdbcTemplate.update(INSERT_TOMBSTONE, employee.getId(), employee.getEmail(), employee.getCompany(),
+                deletedAt.atOffset(ZoneOffset.UTC), nextVersion());
+    }
+
+    /**
+     * Zapisuje ślady usunięcia paczki pracowników jednym {@code INSERT ... SELECT}, zanim wiersze zostaną usunięte
+     * bez udziału encji. Każdy ślad dostaje własny numer z zarezerwowanego zakresu.
+     */
+    public void recordDeletions(List<Long> employeeIds) {
+        if (employeeIds == null || employeeIds.isEmpty()) return;
+        Object[] args = new Object[employeeIds.size() + 2];
+        args[0] = now().atOffset(ZoneOffset.UTC);
+        args[1] = reserveVersions(employeeIds.size());
+        for (int i = 0; i < employeeIds.size(); i++) {
+            args[i + 2] = employeeIds.get(i);
+        }
+        jdbcTemplate.update(INSERT_TOMBSTONES.formatted(String.join(", ", Collections.nCopies(employeeIds.size(), "?"))), args);
+    }
+
+    /**
+     * Numer, do którego wszystkie zmiany są już zatwierdzone albo wycofane.
+     */
+    public synchronized long getStableVersion() {
+        return pendingVersions.isEmpty() ? lastVersion : pendingVersions.first() - 1;
+    }
+
+    public synchronized long getLastVersion() {
+        return lastVersion;
+    }
+
+    /**
+     * Kolejny numer zmiany. Pierwszy numer transakcji blokuje stabilny numer do jej zakończenia.
+     */
+    synchronized long nextVersion() {
+        long version = ++lastVersion;
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(transactionKey)) {
+            TransactionSynchronizationManager.bindResource(transactionKey, version);
+            pendingVersions.add(version);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                    release(version);
+                }
+            });
+        }
+        return version;
+    }
+
+    /**
+     * Rezerwuje {@code count} kolejnych numerów i zwraca pierwszy z nich.
+     */
+    synchronized long reserveVersions(int count) {
+        long first = nextVersion();
+        lastVersion += count - 1;
+        return first;
+    }
+
+    /**
+     * Czas z dokładnością kolumny w bazie, żeby encja po zapisie miała ten sam czas co jej wiersz.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private synchronized void release(long version) {
+        pendingVersions.remove(version);
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.jakubpakula1.lab.event;
+
+/**
+ * Zmiana pojedynczego pracownika: {@code before == null} oznacza dodanie, {@code after == null} usunięcie.
+ * Wyjątkiem jest {@link #allDeleted()} - usunięcie wszystkich pracowników naraz, bez stanu poszczególnych wierszy.
+ */
+public final class EmployeeChangedEvent {
+    private final EmployeeSnapshot before;
+    private final EmployeeSnapshot after;
+    private final boolean allDeleted;
+
+    public EmployeeChangedEvent(EmployeeSnapshot before, EmployeeSnapshot after) {
+        this(before, after, false);
+    }
+
+    private EmployeeChangedEvent(EmployeeSnapshot before, EmployeeSnapshot after, boolean allDeleted) {
+        this.before = before;
+        this.after = after;
+        this.allDeleted = allDeleted;
+    }
+
+    public static EmployeeChangedEvent allDeleted() {
+        return new EmployeeChangedEvent(null, null, true);
+    }
+
+    public EmployeeSnapshot getBefore() {
+        return before;
+    }
+
+    public EmployeeSnapshot getAfter() {
+        return after;
+    }
+
+    public boolean isAllDeleted() {
+        return allDeleted;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeChangedEvent{before=" + before + ", after=" + after + ", allDeleted=" + allDeleted + '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.jakubpakula1.lab.event;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA publikujący {@link EmployeeChangedEvent} przy każdym zapisie encji {@link Employee}.
+ * Odbiorcy używają {@code @TransactionalEventListener}, więc zmiany wycofanych transakcji są ignorowane.
+ * Przed zapisem nadaje też numer zmiany, a po usunięciu zostawia ślad w {@link EmployeeChangeLog}.
+ */
+@Component
+public class EmployeeEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+    // listener powstaje razem z EntityManagerFactory, a dziennik zmian korzysta z repozytoriów - stąd leniwie
+    private final ObjectProvider<EmployeeChangeLog> changeLog;
+
+    public EmployeeEntityListener(ApplicationEventPublisher eventPublisher, ObjectProvider<EmployeeChangeLog> changeLog) {
+        this.eventPublisher = eventPublisher;
+        this.changeLog = changeLog;
+    }
+
+    @PostLoad
+    public void onLoad(Employee employee) {
+        employee.rememberLoadedState(EmployeeSnapshot.of(employee));
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void beforeSave(Employee employee) {
+        changeLog.ifAvailable(log -> log.markChanged(employee));
+    }
+
+    @PostPersist
+    public void onPersist(Employee employee) {
+        EmployeeSnapshot after = EmployeeSnapshot.of(employee);
+        employee.rememberLoadedState(after);
+        eventPublisher.publishEvent(new EmployeeChangedEvent(null, after));
+    }
+
+    @PostUpdate
+    public void onUpdate(Employee employee) {
+        EmployeeSnapshot before = employee.loadedState();
+        EmployeeSnapshot after = EmployeeSnapshot.of(employee);
+        employee.rememberLoadedState(after);
+        if (after.equals(before)) return;
+        eventPublisher.publishEvent(new EmployeeChangedEvent(before, after));
+    }
+
+    @PostRemove
+    public void onRemove(Employee employee) {
+        EmployeeSnapshot before = employee.loadedState() != null ? employee.loadedState() : EmployeeSnapshot.of(employee);
+        employee.rememberLoadedState(null);
+        changeLog.ifAvailable(log -> log.recordDeletion(employee));
+        eventPublisher.publishEvent(new EmployeeChangedEvent(before, null));
+    }
+}
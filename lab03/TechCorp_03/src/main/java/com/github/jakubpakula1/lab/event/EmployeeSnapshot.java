@@ -0,0 +1,108 @@
+package com.github.jakubpakula1.lab.event;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Stan pracownika istotny dla statystyk, zapamiętany w chwili odczytu lub zapisu encji.
+ */
+public final class EmployeeSnapshot {
+    private final String email;
+    private final String name;
+    private final String surname;
+    private final String company;
+    private final Position position;
+    private final EmploymentStatus status;
+    private final BigDecimal salary;
+
+    public EmployeeSnapshot(String email, String company, Position position, EmploymentStatus status, BigDecimal salary) {
+        this(email, null, null, company, position, status, salary);
+    }
+
+    public EmployeeSnapshot(String email, String name, String surname, String company, Position position,
+                            EmploymentStatus status, BigDecimal salary) {
+        this.email = email;
+        this.name = name;
+        this.surname = surname;
+        this.company = company;
+        this.position = position;
+        this.status = status;
+        this.salary = salary;
+    }
+
+    public static EmployeeSnapshot of(Employee employee) {
+        return new EmployeeSnapshot(
+                employee.getEmail(),
+                employee.getName(),
+                employee.getSurname(),
+                employee.getCompany(),
+                employee.getPosition(),
+                employee.getStatus(),
+                employee.getSalary()
+        );
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public EmploymentStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getSalary() {
+        return salary;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EmployeeSnapshot that = (EmployeeSnapshot) o;
+        return Objects.equals(email, that.email) &&
+                Objects.equals(name, that.name) &&
+                Objects.equals(surname, that.surname) &&
+                Objects.equals(company, that.company) &&
+                position == that.position &&
+                status == that.status &&
+                (salary == null ? that.salary == null : that.salary != null && salary.compareTo(that.salary) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(email, name, surname, company, position, status, salary == null ? null : salary.stripTrailingZeros());
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeSnapshot{" +
+                "email='" + email + '\'' +
+                ", name='" + name + '\'' +
+                ", surname='" + surname + '\'' +
+                ", company='" + company + '\'' +
+                ", position=" + position +
+                ", status=" + status +
+                ", salary=" + salary +
+                '}';
+    }
+}
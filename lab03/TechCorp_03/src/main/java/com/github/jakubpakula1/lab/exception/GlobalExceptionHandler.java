@@ -85,6 +85,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(err);
     }
 
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleImportJobNotFound(ImportJobNotFoundException ex, HttpServletRequest request) {
+        ErrorResponse err = new ErrorResponse(ex.getMessage(), Instant.now(), HttpStatus.NOT_FOUND.value(), request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(err);
+    }
+
+    @ExceptionHandler(ImportJobRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleImportJobRejected(ImportJobRejectedException ex, HttpServletRequest request) {
+        ErrorResponse err = new ErrorResponse(ex.getMessage(), Instant.now(), HttpStatus.SERVICE_UNAVAILABLE.value(), request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(err);
+    }
+
     @ExceptionHandler(FileStorageException.class)
     public ResponseEntity<ErrorResponse> handleFileStorage(FileStorageException ex, HttpServletRequest request) {
         ErrorResponse err = new ErrorResponse(ex.getMessage(), Instant.now(), HttpStatus.INTERNAL_SERVER_ERROR.value(), request.getRequestURI());
@@ -0,0 +1,7 @@
+package com.github.jakubpakula1.lab.exception;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+}
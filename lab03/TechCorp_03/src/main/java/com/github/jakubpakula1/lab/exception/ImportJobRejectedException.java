@@ -0,0 +1,7 @@
+package com.github.jakubpakula1.lab.exception;
+
+public class ImportJobRejectedException extends RuntimeException {
+    public ImportJobRejectedException(String message) {
+        super(message);
+    }
+}
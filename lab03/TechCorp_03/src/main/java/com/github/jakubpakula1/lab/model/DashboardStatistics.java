@@ -0,0 +1,59 @@
+package com.github.jakubpakula1.lab.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Niezmienna migawka wszystkich danych dashboardu statystyk.
+ */
+public final class DashboardStatistics {
+    private final int totalEmployees;
+    private final double averageSalary;
+    private final Map<String, CompanyStatistics> companyStatistics;
+    private final Map<String, Integer> positionStatistics;
+    private final Map<String, Integer> statusDistribution;
+
+    public DashboardStatistics(int totalEmployees,
+                               double averageSalary,
+                               Map<String, CompanyStatistics> companyStatistics,
+                               Map<String, Integer> positionStatistics,
+                               Map<String, Integer> statusDistribution) {
+        this.totalEmployees = totalEmployees;
+        this.averageSalary = averageSalary;
+        this.companyStatistics = Collections.unmodifiableMap(new LinkedHashMap<>(companyStatistics));
+        this.positionStatistics = Collections.unmodifiableMap(new LinkedHashMap<>(positionStatistics));
+        this.statusDistribution = Collections.unmodifiableMap(new LinkedHashMap<>(statusDistribution));
+    }
+
+    public int getTotalEmployees() {
+        return totalEmployees;
+    }
+
+    public double getAverageSalary() {
+        return averageSalary;
+    }
+
+    public Map<String, CompanyStatistics> getCompanyStatistics() {
+        return companyStatistics;
+    }
+
+    public Map<String, Integer> getPositionStatistics() {
+        return positionStatistics;
+    }
+
+    public Map<String, Integer> getStatusDistribution() {
+        return statusDistribution;
+    }
+
+    @Override
+    public String toString() {
+        return "DashboardStatistics{" +
+                "totalEmployees=" + totalEmployees +
+                ", averageSalary=" + averageSalary +
+                ", companyStatistics=" + companyStatistics +
+                ", positionStatistics=" + positionStatistics +
+                ", statusDistribution=" + statusDistribution +
+                '}';
+    }
+}
@@ -1,15 +1,24 @@
 package com.github.jakubpakula1.lab.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import com.github.jakubpakula1.lab.event.EmployeeChangeLog;
+import com.github.jakubpakula1.lab.event.EmployeeEntityListener;
+import com.github.jakubpakula1.lab.event.EmployeeSnapshot;
 import com.github.jakubpakula1.lab.validation.TechCorpEmail;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Objects;
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_change_version", columnList = "change_version"),
+        @Index(name = "idx_employees_updated_at", columnList = "updated_at")
+})
+@EntityListeners(EmployeeEntityListener.class)
 public class Employee {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = 100)
     private Long id;
 
     @Column(name = "FIRST_NAME", nullable = false)
@@ -53,6 +62,19 @@ public class Employee {
     @JoinColumn(name = "departament_id")
     private Department department;
 
+    /** Numer ostatniej zmiany wiersza, nadawany przy każdym zapisie - patrz {@link EmployeeChangeLog}. */
+    @Column(name = "change_version")
+    private Long changeVersion;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Transient
+    private EmployeeSnapshot loadedState;
+
     public Employee() {
 
     }
@@ -160,6 +182,37 @@ public class Employee {
     public Long getDepartmentId() {
         return department != null ? department.getId() : null;
     }
+
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Oznacza zapis wiersza: nowy numer zmiany i czas modyfikacji, a przy pierwszym zapisie także czas utworzenia.
+     */
+    public void markChanged(long changeVersion, Instant changedAt) {
+        if (createdAt == null) {
+            createdAt = changedAt;
+        }
+        this.updatedAt = changedAt;
+        this.changeVersion = changeVersion;
+    }
+
+    public EmployeeSnapshot loadedState() {
+        return loadedState;
+    }
+
+    public void rememberLoadedState(EmployeeSnapshot loadedState) {
+        this.loadedState = loadedState;
+    }
     @Override
     public int hashCode() {
         return Objects.hash(email == null ? null : email.toLowerCase());
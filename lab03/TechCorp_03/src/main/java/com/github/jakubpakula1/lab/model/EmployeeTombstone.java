@@ -0,0 +1,71 @@
+package com.github.jakubpakula1.lab.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Ślad po usuniętym pracowniku dla eksportu zmian - bez niego odbiorca synchronizujący się numerem zmiany
+ * nie dowiedziałby się o usunięciu. Zapisywany w tej samej transakcji co usunięcie, z kolejnym numerem zmiany.
+ */
+@Entity
+@Table(name = "employee_tombstones", indexes = {
+        @Index(name = "idx_employee_tombstones_change_version", columnList = "change_version"),
+        @Index(name = "idx_employee_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class EmployeeTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column
+    private String company;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    protected EmployeeTombstone() {
+    }
+
+    public EmployeeTombstone(Long employeeId, String email, String company, Instant deletedAt, long changeVersion) {
+        this.employeeId = employeeId;
+        this.email = email;
+        this.company = company;
+        this.deletedAt = deletedAt;
+        this.changeVersion = changeVersion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public long getChangeVersion() {
+        return changeVersion;
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.jakubpakula1.lab.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Punkt kontrolny importu zatwierdzanego paczkami. Zapisywany w tej samej transakcji co paczka pracowników,
+ * więc zawsze wskazuje miejsce w pliku zaraz za ostatnią zatwierdzoną paczką - od niego import jest wznawiany.
+ */
+@Entity
+@Table(name = "import_checkpoints")
+public class ImportCheckpoint {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false, length = 1024)
+    private String filePath;
+
+    @Column(nullable = false, length = 64)
+    private String fileHash;
+
+    @Column(nullable = false)
+    private long fileSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ImportFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ImportMode mode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ImportJobStatus status;
+
+    /** Numer linii (elementu, obiektu), od którego czytać dalej; 0 - import jeszcze nic nie zatwierdził. */
+    @Column(nullable = false)
+    private int nextLineNumber;
+
+    /** Bajt pliku zaraz za ostatnią zatwierdzoną paczką albo -1, gdy czytnik nie zna pozycji w pliku. */
+    @Column(nullable = false)
+    private long byteOffset;
+
+    @Column(nullable = false)
+    private int insertedEmployees;
+
+    @Column(nullable = false)
+    private int updatedEmployees;
+
+    @Column(nullable = false)
+    private int unchangedEmployees;
+
+    @Column(nullable = false)
+    private int errorCount;
+
+    @Column(length = 36)
+    private String errorReportId;
+
+    /** Długość raportu błędów w chwili zatwierdzenia - nadmiar z niezatwierdzonej paczki jest obcinany. */
+    @Column(nullable = false)
+    private long errorReportBytes;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private Instant submittedAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    protected ImportCheckpoint() {
+    }
+
+    public ImportCheckpoint(String id, String fileName, String filePath, String fileHash, long fileSize,
+                            ImportFormat format, ImportMode mode, Instant submittedAt) {
+        this.id = id;
+        this.fileName = fileName;
+        this.filePath = filePath;
+        this.fileHash = fileHash;
+        this.fileSize = fileSize;
+        this.format = format;
+        this.mode = mode;
+        this.status = ImportJobStatus.RUNNING;
+        this.submittedAt = submittedAt;
+        this.updatedAt = submittedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public ImportMode getMode() {
+        return mode;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportJobStatus status) {
+        this.status = status;
+    }
+
+    public boolean isStarted() {
+        return nextLineNumber > 0;
+    }
+
+    public int getNextLineNumber() {
+        return nextLineNumber;
+    }
+
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    /**
+     * Przesuwa punkt kontrolny za zatwierdzaną paczkę.
+     */
+    public void advance(int nextLineNumber, long byteOffset) {
+        this.nextLineNumber = nextLineNumber;
+        this.byteOffset = byteOffset;
+    }
+
+    public int getInsertedEmployees() {
+        return insertedEmployees;
+    }
+
+    public int getUpdatedEmployees() {
+        return updatedEmployees;
+    }
+
+    public int getUnchangedEmployees() {
+        return unchangedEmployees;
+    }
+
+    public void setCounts(int insertedEmployees, int updatedEmployees, int unchangedEmployees) {
+        this.insertedEmployees = insertedEmployees;
+        this.updatedEmployees = updatedEmployees;
+        this.unchangedEmployees = unchangedEmployees;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public String getErrorReportId() {
+        return errorReportId;
+    }
+
+    public long getErrorReportBytes() {
+        return errorReportBytes;
+    }
+
+    public void setErrorReport(String errorReportId, long errorReportBytes) {
+        this.errorReportId = errorReportId;
+        this.errorReportBytes = errorReportBytes;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.jakubpakula1.lab.model;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV,
+    XML,
+    JSON;
+
+    /**
+     * Format po rozszerzeniu nazwy pliku, także skompresowanego ({@code .csv.gz}), albo null, gdy nieznany.
+     */
+    public static ImportFormat ofFileName(String fileName) {
+        if (fileName == null) return null;
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) return CSV;
+        if (name.endsWith(".xml")) return XML;
+        if (name.endsWith(".json") || name.endsWith(".ndjson") || name.endsWith(".jsonl")) return JSON;
+        return null;
+    }
+}
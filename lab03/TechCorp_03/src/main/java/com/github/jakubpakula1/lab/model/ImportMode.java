@@ -0,0 +1,8 @@
+package com.github.jakubpakula1.lab.model;
+
+public enum ImportMode {
+    /** Usuwa wszystkich pracowników i wstawia zawartość pliku. */
+    REPLACE,
+    /** Porównuje plik z tabelą po emailu i zapisuje tylko różnice. */
+    MERGE
+}
@@ -1,14 +1,39 @@
 package com.github.jakubpakula1.lab.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Wynik importu. W pamięci trzymane są tylko liczniki błędów według typu i pierwsze {@code maxErrorSamples}
+ * błędów - pełna lista trafia do pliku raportu ({@code errorReportId}), więc wynik ma stały rozmiar niezależnie od pliku.
+ */
 public class ImportSummary {
+    public static final int DEFAULT_MAX_ERROR_SAMPLES = 100;
+    static final int MAX_ERROR_TYPES = 50;
+    static final String OTHER_ERROR_TYPE = "Inne";
+
     private int importedEmployees;
+    private int insertedEmployees;
+    private int updatedEmployees;
+    private int unchangedEmployees;
+    private int deletedEmployees;
     private  List<ErrorEntry> errors;
+    private final int maxErrorSamples;
+    private int errorCount;
+    private final Map<String, Integer> errorCounts = new LinkedHashMap<>();
+    private String errorReportId;
+    private boolean dryRun;
 
     public ImportSummary() {
+        this(DEFAULT_MAX_ERROR_SAMPLES);
+    }
+
+    public ImportSummary(int maxErrorSamples) {
         this.errors = new ArrayList<>();
+        this.maxErrorSamples = maxErrorSamples;
     }
 
     public int getImportedEmployees() {
@@ -19,6 +44,41 @@ public class ImportSummary {
         this.importedEmployees = importedEmployees;
     }
 
+    public int getInsertedEmployees() {
+        return insertedEmployees;
+    }
+
+    public void setInsertedEmployees(int insertedEmployees) {
+        this.insertedEmployees = insertedEmployees;
+    }
+
+    public int getUpdatedEmployees() {
+        return updatedEmployees;
+    }
+
+    public void setUpdatedEmployees(int updatedEmployees) {
+        this.updatedEmployees = updatedEmployees;
+    }
+
+    public int getUnchangedEmployees() {
+        return unchangedEmployees;
+    }
+
+    public void setUnchangedEmployees(int unchangedEmployees) {
+        this.unchangedEmployees = unchangedEmployees;
+    }
+
+    public int getDeletedEmployees() {
+        return deletedEmployees;
+    }
+
+    public void setDeletedEmployees(int deletedEmployees) {
+        this.deletedEmployees = deletedEmployees;
+    }
+
+    /**
+     * Próbka błędów: pierwsze {@code maxErrorSamples}. Wszystkich jest {@link #getErrorCount()}.
+     */
     public List<ErrorEntry> getErrors() {
         return errors;
     }
@@ -27,22 +87,75 @@ public class ImportSummary {
         this.errors = errors;
     }
 
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorCount > errors.size();
+    }
+
+    public Map<String, Integer> getErrorCounts() {
+        return Collections.unmodifiableMap(errorCounts);
+    }
+
+    public String getErrorReportId() {
+        return errorReportId;
+    }
+
+    public void setErrorReportId(String errorReportId) {
+        this.errorReportId = errorReportId;
+    }
+
+    /**
+     * Wynik importu na próbę - plik został tylko sprawdzony, liczniki mówią, co zrobiłby import.
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
     public void addError(int lineNumber, String errorMessage) {
-        errors.add(new ErrorEntry(lineNumber, errorMessage));
+        addError(new ErrorEntry(lineNumber, errorMessage));
+    }
+
+    public void addError(int lineNumber, String type, String errorMessage) {
+        addError(new ErrorEntry(lineNumber, type, errorMessage));
+    }
+
+    public void addError(ErrorEntry error) {
+        errorCount++;
+        String type = errorCounts.containsKey(error.getType()) || errorCounts.size() < MAX_ERROR_TYPES
+                ? error.getType() : OTHER_ERROR_TYPE;
+        errorCounts.merge(type, 1, Integer::sum);
+        if (errors.size() < maxErrorSamples) {
+            errors.add(error);
+        }
     }
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("ImportSummary: ");
+        sb.append(dryRun ? "ImportSummary (dry run): " : "ImportSummary: ");
         sb.append(importedEmployees).append(" employees imported");
+        if (updatedEmployees > 0 || unchangedEmployees > 0 || deletedEmployees > 0) {
+            sb.append(" (").append(insertedEmployees).append(" inserted, ")
+              .append(updatedEmployees).append(" updated, ")
+              .append(unchangedEmployees).append(" unchanged, ")
+              .append(deletedEmployees).append(" deleted)");
+        }
 
-        if (errors.isEmpty()) {
+        if (errorCount == 0) {
             sb.append(", no errors");
         } else {
-            sb.append(", ").append(errors.size()).append(" errors:");
+            sb.append(", ").append(errorCount).append(" errors:");
             for (ErrorEntry error : errors) {
-                sb.append("\n  Line ").append(error.getLineNumber())
-                  .append(": ").append(error.getErrorMessage());
+                sb.append("\n  ").append(error);
+            }
+            if (isErrorsTruncated()) {
+                sb.append("\n  ... ").append(errorCount - errors.size()).append(" more");
             }
         }
 
@@ -50,24 +163,57 @@ public class ImportSummary {
     }
     public static class ErrorEntry {
         private int lineNumber;
+        private String type;
         private String errorMessage;
+        private String source;
 
 
         public ErrorEntry(int lineNumber, String errorMessage) {
+            this(lineNumber, typeOf(errorMessage), errorMessage);
+        }
+
+        public ErrorEntry(int lineNumber, String type, String errorMessage) {
+            this(lineNumber, type, errorMessage, null);
+        }
+
+        /**
+         * @param source plik w archiwum, z którego pochodzi linia, albo null przy imporcie jednego pliku
+         */
+        public ErrorEntry(int lineNumber, String type, String errorMessage, String source) {
             this.lineNumber = lineNumber;
+            this.type = type;
             this.errorMessage = errorMessage;
+            this.source = source;
+        }
+
+        /**
+         * Typ błędu to komunikat bez zmiennej części po pierwszym {@code ": "}, np. "Invalid position".
+         */
+        static String typeOf(String errorMessage) {
+            if (errorMessage == null) return OTHER_ERROR_TYPE;
+            int separator = errorMessage.indexOf(": ");
+            return separator > 0 ? errorMessage.substring(0, separator) : errorMessage;
         }
 
         public int getLineNumber() {
             return lineNumber;
         }
 
+        public String getType() {
+            return type;
+        }
+
         public String getErrorMessage() {
             return errorMessage;
         }
+
+        public String getSource() {
+            return source;
+        }
+
         @Override
         public String toString() {
-            return "Line " + lineNumber + ": " + errorMessage;
+            return (source != null ? source + ", line " : "Line ") + lineNumber + ": " + errorMessage;
         }
     }
 }
@@ -1,20 +1,32 @@
 package com.github.jakubpakula1.lab.repository;
 
+import com.github.jakubpakula1.lab.dto.CompanyAggregateRow;
+import com.github.jakubpakula1.lab.dto.DashboardRow;
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.github.jakubpakula1.lab.dto.EmployeeKeyRow;
 import com.github.jakubpakula1.lab.dto.EmployeeListProjection;
+import com.github.jakubpakula1.lab.dto.StatisticsBucketRow;
+import com.github.jakubpakula1.lab.dto.TopEarnerRow;
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.model.EmploymentStatus;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
@@ -26,6 +38,18 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSp
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT e.id FROM Employee e WHERE e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT e.email FROM Employee e WHERE e.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    List<Employee> findByEmailIn(Collection<String> emails);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeKeyRow(e.id, e.email) FROM Employee e")
+    Stream<EmployeeKeyRow> streamEmployeeKeys();
+
     List<Employee> findByCompanyIgnoreCase(String company);
 
     List<Employee> findAllByOrderBySurnameAsc();
@@ -41,4 +65,59 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSp
     @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeListProjection(e.id, e.email, e.name, e.surname, e.position, e.department) FROM Employee e WHERE LOWER(e.company) = LOWER(:company)")
     Page<EmployeeListProjection> findByCompanyIgnoreCaseProjected(@Param("company") String company, Pageable pageable);
 
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.CompanyAggregateRow(MIN(e.company), COUNT(e), AVG(e.salary), MAX(e.salary)) " +
+            "FROM Employee e GROUP BY LOWER(e.company) ORDER BY LOWER(e.company)")
+    List<CompanyAggregateRow> aggregateByCompany();
+
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.CompanyAggregateRow(MIN(e.company), COUNT(e), AVG(e.salary), MAX(e.salary)) " +
+            "FROM Employee e WHERE LOWER(e.company) = LOWER(:company)")
+    CompanyAggregateRow aggregateForCompany(@Param("company") String company);
+
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.TopEarnerRow(e.company, e.name, e.surname, e.salary) FROM Employee e " +
+            "WHERE e.salary = (SELECT MAX(e2.salary) FROM Employee e2 WHERE LOWER(e2.company) = LOWER(e.company)) " +
+            "ORDER BY LOWER(e.company), e.id")
+    List<TopEarnerRow> findTopEarnersByCompany();
+
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.TopEarnerRow(e.company, e.name, e.surname, e.salary) FROM Employee e " +
+            "WHERE LOWER(e.company) = LOWER(:company) " +
+            "AND e.salary = (SELECT MAX(e2.salary) FROM Employee e2 WHERE LOWER(e2.company) = LOWER(:company)) ORDER BY e.id")
+    List<TopEarnerRow> findTopEarnersForCompany(@Param("company") String company);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.DashboardRow(e.company, e.name, e.surname, e.position, e.status, e.salary) " +
+            "FROM Employee e ORDER BY e.id")
+    Stream<DashboardRow> streamDashboardRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(e.name, e.surname, e.company, e.email, e.position, e.salary, e.status) " +
+            "FROM Employee e ORDER BY e.id")
+    Stream<EmployeeExportRow> streamExportRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(e.name, e.surname, e.company, e.email, e.position, e.salary, e.status) " +
+            "FROM Employee e WHERE LOWER(e.company) = LOWER(:company) ORDER BY e.id")
+    Stream<EmployeeExportRow> streamExportRowsByCompany(@Param("company") String company);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(e.name, e.surname, e.company, e.email, e.position, e.salary, e.status) " +
+            "FROM Employee e ORDER BY e.company, e.id")
+    Stream<EmployeeExportRow> streamExportRowsOrderedByCompany();
+
+    @Query("SELECT COALESCE(MAX(e.changeVersion), 0) FROM Employee e")
+    long findMaxChangeVersion();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(e.name, e.surname, e.company, e.email, e.position, e.salary, e.status, e.changeVersion, e.updatedAt) " +
+            "FROM Employee e WHERE e.changeVersion > :since AND e.changeVersion <= :upTo ORDER BY e.changeVersion, e.id")
+    Stream<EmployeeExportRow> streamChangedRowsBetweenVersions(@Param("since") long since, @Param("upTo") long upTo);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(e.name, e.surname, e.company, e.email, e.position, e.salary, e.status, e.changeVersion, e.updatedAt) " +
+            "FROM Employee e WHERE e.updatedAt > :since AND e.changeVersion <= :upTo ORDER BY e.changeVersion, e.id")
+    Stream<EmployeeExportRow> streamChangedRowsAfter(@Param("since") Instant since, @Param("upTo") long upTo);
+
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.StatisticsBucketRow(e.company, e.position, e.status, COUNT(e), COUNT(e.salary), SUM(e.salary)) " +
+            "FROM Employee e GROUP BY e.company, e.position, e.status")
+    List<StatisticsBucketRow> aggregateStatisticsBuckets();
+
 }
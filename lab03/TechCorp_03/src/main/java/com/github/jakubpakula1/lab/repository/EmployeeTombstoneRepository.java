@@ -0,0 +1,31 @@
+package com.github.jakubpakula1.lab.repository;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.github.jakubpakula1.lab.model.EmployeeTombstone;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+@Repository
+public interface EmployeeTombstoneRepository extends JpaRepository<EmployeeTombstone, Long> {
+
+    @Query("SELECT COALESCE(MAX(t.changeVersion), 0) FROM EmployeeTombstone t")
+    long findMaxChangeVersion();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(t.email, t.company, t.changeVersion, t.deletedAt) " +
+            "FROM EmployeeTombstone t WHERE t.changeVersion > :since AND t.changeVersion <= :upTo ORDER BY t.changeVersion, t.id")
+    Stream<EmployeeExportRow> streamDeletedRowsBetweenVersions(@Param("since") long since, @Param("upTo") long upTo);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jakubpakula1.lab.dto.EmployeeExportRow(t.email, t.company, t.changeVersion, t.deletedAt) " +
+            "FROM EmployeeTombstone t WHERE t.deletedAt > :since AND t.changeVersion <= :upTo ORDER BY t.changeVersion, t.id")
+    Stream<EmployeeExportRow> streamDeletedRowsAfter(@Param("since") Instant since, @Param("upTo") long upTo);
+}
@@ -0,0 +1,17 @@
+package com.github.jakubpakula1.lab.repository;
+
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+
+    List<ImportCheckpoint> findByStatus(ImportJobStatus status);
+
+    List<ImportCheckpoint> findByStatusAndUpdatedAtBefore(ImportJobStatus status, Instant threshold);
+}
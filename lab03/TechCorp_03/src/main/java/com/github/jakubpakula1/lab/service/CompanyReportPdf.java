@@ -0,0 +1,199 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.CompanyAggregateRow;
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.encoding.GlyphList;
+import org.apache.pdfbox.pdmodel.font.encoding.WinAnsiEncoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Raport PDF firmy: nagłówek i podsumowanie na pierwszej stronie, potem tabela pracowników na tylu stronach,
+ * ile potrzeba. Strony są budowane w dokumencie opartym na pliku tymczasowym, a wiersze czytane z iteratora,
+ * więc raport firmy z dziesiątkami tysięcy pracowników nie trzyma w pamięci ani listy pracowników, ani PDF.
+ */
+final class CompanyReportPdf {
+
+    private static final PDRectangle PAGE_SIZE = PDRectangle.LETTER;
+    private static final PDFont TITLE_FONT = PDType1Font.HELVETICA_BOLD;
+    private static final PDFont TEXT_FONT = PDType1Font.HELVETICA;
+    private static final float MARGIN = 50;
+    private static final float ROW_HEIGHT = 14;
+    private static final float TABLE_FONT_SIZE = 9;
+    private static final float CELL_PADDING = 4;
+
+    private static final String[] COLUMNS = {"#", "Name", "Email", "Position", "Salary"};
+    private static final float[] COLUMN_X = {MARGIN, MARGIN + 40, MARGIN + 200, MARGIN + 380, MARGIN + 460};
+    private static final float TABLE_RIGHT = PAGE_SIZE.getWidth() - MARGIN;
+
+    private final PDDocument document;
+    private PDPageContentStream content;
+    private int pageNumber;
+    private float y;
+
+    private CompanyReportPdf(PDDocument document) {
+        this.document = document;
+    }
+
+    /**
+     * Zapisuje raport do strumienia. Iterator jest czytany dokładnie raz, w kolejności wierszy tabeli.
+     */
+    static void write(String company, CompanyAggregateRow aggregate, String topEarner,
+                      Iterator<EmployeeExportRow> rows, OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            CompanyReportPdf report = new CompanyReportPdf(document);
+            try {
+                report.writeSummary(company, aggregate, topEarner);
+                report.writeTable(rows);
+            } finally {
+                report.closePage();
+            }
+            document.save(out);
+        }
+    }
+
+    private void writeSummary(String company, CompanyAggregateRow aggregate, String topEarner) throws IOException {
+        newPage();
+        text(TITLE_FONT, 16, MARGIN, y, "Statistics for company: " + company);
+        y -= 30;
+        long total = aggregate != null ? aggregate.getEmployeeCount() : 0;
+        BigDecimal highest = aggregate != null ? aggregate.getHighestSalary() : null;
+        text(TEXT_FONT, 12, MARGIN, y, "Total employees: " + total);
+        y -= 16;
+        text(TEXT_FONT, 12, MARGIN, y, "Average salary: "
+                + (total > 0 ? String.format(Locale.ROOT, "%.2f", aggregate.getAverageSalary()) : "-"));
+        y -= 16;
+        text(TEXT_FONT, 12, MARGIN, y, "Highest salary: " + (highest != null ? highest.toPlainString() : "-"));
+        y -= 16;
+        text(TEXT_FONT, 12, MARGIN, y, "Top earner: " + (topEarner != null && !topEarner.isEmpty() ? topEarner : "-"));
+        y -= 30;
+    }
+
+    private void writeTable(Iterator<EmployeeExportRow> rows) throws IOException {
+        tableHeader();
+        int number = 0;
+        while (rows.hasNext()) {
+            EmployeeExportRow row = rows.next();
+            if (y < MARGIN + ROW_HEIGHT) {
+                newPage();
+                tableHeader();
+            }
+            number++;
+            String name = (row.getName() != null ? row.getName() : "") + " " + (row.getSurname() != null ? row.getSurname() : "");
+            tableRow(TEXT_FONT, String.valueOf(number), name.trim(), row.getEmail(),
+                    row.getPosition() != null ? row.getPosition().name() : null,
+                    row.getSalary() != null ? row.getSalary().toPlainString() : null);
+        }
+    }
+
+    private void tableHeader() throws IOException {
+        tableRow(TITLE_FONT, COLUMNS);
+        content.setLineWidth(0.5f);
+        content.moveTo(MARGIN, y + ROW_HEIGHT - 3);
+        content.lineTo(TABLE_RIGHT, y + ROW_HEIGHT - 3);
+        content.stroke();
+    }
+
+    /**
+     * Jeden wiersz tabeli w jednym bloku tekstu - kolumny są przesunięciami względem poprzedniej.
+     */
+    private void tableRow(PDFont font, String... cells) throws IOException {
+        content.beginText();
+        content.setFont(font, TABLE_FONT_SIZE);
+        content.newLineAtOffset(COLUMN_X[0], y);
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                content.newLineAtOffset(COLUMN_X[i] - COLUMN_X[i - 1], 0);
+            }
+            float right = i + 1 < COLUMN_X.length ? COLUMN_X[i + 1] : TABLE_RIGHT;
+            content.showText(fit(font, TABLE_FONT_SIZE, pdfText(cells[i]), right - COLUMN_X[i] - CELL_PADDING));
+        }
+        content.endText();
+        y -= ROW_HEIGHT;
+    }
+
+    private void text(PDFont font, float size, float x, float textY, String value) throws IOException {
+        content.beginText();
+        content.setFont(font, size);
+        content.newLineAtOffset(x, textY);
+        content.showText(fit(font, size, pdfText(value), TABLE_RIGHT - x));
+        content.endText();
+    }
+
+    private void newPage() throws IOException {
+        closePage();
+        PDPage page = new PDPage(PAGE_SIZE);
+        document.addPage(page);
+        content = new PDPageContentStream(document, page);
+        pageNumber++;
+        text(TEXT_FONT, 8, TABLE_RIGHT - 40, MARGIN / 2, "Page " + pageNumber);
+        y = PAGE_SIZE.getHeight() - MARGIN;
+    }
+
+    private void closePage() throws IOException {
+        if (content != null) {
+            content.close();
+            content = null;
+        }
+    }
+
+    /**
+     * Przycina tekst do szerokości w punktach.
+     */
+    private static String fit(PDFont font, float size, String value, float width) throws IOException {
+        float limit = width * 1000 / size;
+        if (font.getStringWidth(value) <= limit) return value;
+        int end = value.length();
+        float ellipsis = font.getStringWidth("...");
+        while (end > 0 && font.getStringWidth(value.substring(0, end)) + ellipsis > limit) {
+            end--;
+        }
+        return value.substring(0, end) + "...";
+    }
+
+    /**
+     * Standardowe czcionki PDF znają tylko znaki WinAnsi - polskie litery spoza tego zestawu tracą ogonki,
+     * a pozostałe znaki są zastępowane znakiem zapytania, zamiast przerywać generowanie raportu.
+     */
+    static String pdfText(String value) {
+        if (value == null) return "";
+        StringBuilder text = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isEncodable(c)) {
+                if (text != null) text.append(c);
+                continue;
+            }
+            if (text == null) {
+                text = new StringBuilder(value.length()).append(value, 0, i);
+            }
+            text.append(replacement(c));
+        }
+        return text != null ? text.toString() : value;
+    }
+
+    private static char replacement(char c) {
+        if (c == 'ł') return 'l';
+        if (c == 'Ł') return 'L';
+        if (Character.isWhitespace(c)) return ' ';
+        char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+        return base != c && isEncodable(base) ? base : '?';
+    }
+
+    private static boolean isEncodable(char c) {
+        if (c >= 0x20 && c < 0x7F) return true;
+        return WinAnsiEncoding.INSTANCE.contains(GlyphList.getAdobeGlyphList().codePointToName(c));
+    }
+}
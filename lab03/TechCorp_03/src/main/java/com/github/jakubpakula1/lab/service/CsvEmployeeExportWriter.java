@@ -0,0 +1,96 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Dotychczasowy eksport CSV: nagłówek i jeden wiersz na pracownika, kolumny
+ * {@code name,surname,company,email,position,salary} rozdzielone przecinkiem. To nie jest układ importu
+ * ({@code firstName;lastName;email;company;position;salary}, średnik) - pliku nie da się zaimportować
+ * z powrotem bez przekształcenia. Do przenoszenia danych między instancjami służą XML, JSON i NDJSON.
+ */
+@Component
+public class CsvEmployeeExportWriter implements EmployeeExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getFormat() {
+        return "csv";
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/csv";
+    }
+
+    /**
+     * Kolumny CSV są stałe, bo polegają na nich dotychczasowi odbiorcy eksportu - nie ma miejsca na numer zmiany
+     * ani znacznik usunięcia.
+     */
+    @Override
+    public boolean supportsChanges() {
+        return false;
+    }
+
+    @Override
+    public void write(Iterator<EmployeeExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("name,surname,company,email,position,salary\n");
+        while (rows.hasNext()) {
+            writeRow(writer, rows.next());
+        }
+        writer.flush();
+    }
+
+    private static void writeRow(Writer writer, EmployeeExportRow row) throws IOException {
+        writeField(writer, row.getName());
+        writer.write(',');
+        writeField(writer, row.getSurname());
+        writer.write(',');
+        writeField(writer, row.getCompany());
+        writer.write(',');
+        writeField(writer, row.getEmail());
+        writer.write(',');
+        writeField(writer, row.getPosition() != null ? row.getPosition().name() : null);
+        writer.write(',');
+        if (row.getSalary() != null) {
+            writer.write(row.getSalary().toPlainString());
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Pole w cudzysłowie tylko wtedy, gdy zawiera przecinek, cudzysłów albo koniec linii.
+     */
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) return;
+        if (!needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') writer.write('"');
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.jakubpakula1.lab.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dzieli wiersz CSV (separator {@code ;}, kodowanie UTF-8) na pola bezpośrednio w buforze bajtów.
+ * Pamięta tylko granice pól - napis powstaje dopiero przy {@link #string(int)}, a liczby i stanowiska
+ * są rozpoznawane wprost z bajtów. Pola bez cudzysłowu są przycinane jak {@code String.trim()},
+ * w polu w cudzysłowie {@code ""} oznacza cudzysłów, a {@code ;} i nowa linia są zwykłymi znakami.
+ * Instancja nie jest bezpieczna wątkowo - każdy wątek parsujący używa własnej.
+ */
+public final class CsvTokenizer {
+
+    private static final byte DELIMITER = ';';
+    private static final byte QUOTE = '"';
+
+    private ByteBuffer buffer;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private boolean[] quoted = new boolean[8];
+    private int size;
+    private byte[] scratch = new byte[128];
+
+    public CsvTokenizer split(MappedCsvReader.Row row) {
+        return split(row.getBuffer(), row.getStart(), row.getEnd());
+    }
+
+    /**
+     * Dzieli bajty {@code [from, to)} na pola. Puste pola na końcu wiersza są pomijane, jak w {@code String.split}.
+     */
+    public CsvTokenizer split(ByteBuffer buffer, int from, int to) {
+        this.buffer = buffer;
+        size = 0;
+        int nonEmptyFields = 0;
+        int position = from;
+        while (true) {
+            int fieldStart = position;
+            int start = skipWhitespace(position, to);
+            int end;
+            boolean fieldQuoted = start < to && buffer.get(start) == QUOTE;
+            if (fieldQuoted) {
+                start++;
+                end = closingQuote(start, to);
+                position = indexOfDelimiter(Math.min(end + 1, to), to);
+            } else {
+                position = indexOfDelimiter(start, to);
+                end = position;
+                while (end > start && isWhitespace(buffer.get(end - 1))) {
+                    end--;
+                }
+            }
+            add(start, end, fieldQuoted);
+            if (fieldQuoted || position > fieldStart) {
+                nonEmptyFields = size;
+            }
+            if (position == to) break;
+            position++;
+        }
+        size = nonEmptyFields;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Treść pola jako napis (UTF-8).
+     */
+    public String string(int field) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length == 0) return "";
+        byte[] bytes = scratch(length);
+        if (!quoted[field]) {
+            buffer.get(start, bytes, 0, length);
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        int n = 0;
+        for (int i = start; i < ends[field]; i++) {
+            byte b = buffer.get(i);
+            bytes[n++] = b;
+            if (b == QUOTE) i++;
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Liczba całkowita z pola, z tymi samymi regułami i wyjątkiem co {@link Integer#parseInt(String)}.
+     */
+    public int parseInt(int field) {
+        if (quoted[field]) {
+            return Integer.parseInt(string(field).trim());
+        }
+        int i = starts[field];
+        int end = ends[field];
+        if (i == end) throw invalidNumber(field);
+
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            }
+            if (++i == end) throw invalidNumber(field);
+        }
+
+        int multiplicationLimit = limit / 10;
+        int result = 0;
+        // liczone ujemnie jak w Integer.parseInt, żeby zmieścić Integer.MIN_VALUE
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) throw invalidNumber(field);
+            result *= 10;
+            if (result < limit + digit) throw invalidNumber(field);
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Stała wyliczenia o nazwie równej polu bez względu na wielkość liter (ASCII) albo null.
+     */
+    public <E extends Enum<E>> E enumValue(int field, E[] values) {
+        if (quoted[field]) {
+            String text = string(field).trim();
+            for (E value : values) {
+                if (value.name().equalsIgnoreCase(text)) return value;
+            }
+            return null;
+        }
+        int start = starts[field];
+        int length = ends[field] - start;
+        for (E value : values) {
+            if (matchesIgnoreCase(start, length, value.name())) return value;
+        }
+        return null;
+    }
+
+    private boolean matchesIgnoreCase(int start, int length, String name) {
+        if (name.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(start + i);
+            if (b >= 'a' && b <= 'z') b -= 'a' - 'A';
+            if (b != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private NumberFormatException invalidNumber(int field) {
+        return new NumberFormatException("For input string: \"" + string(field) + "\"");
+    }
+
+    private int skipWhitespace(int from, int to) {
+        while (from < to && isWhitespace(buffer.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    /**
+     * Indeks cudzysłowu zamykającego pole (pomija {@code ""}) albo {@code to}, gdy pole nie jest zamknięte.
+     */
+    private int closingQuote(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == QUOTE) {
+                if (i + 1 < to && buffer.get(i + 1) == QUOTE) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return to;
+    }
+
+    private int indexOfDelimiter(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == DELIMITER) return i;
+        }
+        return to;
+    }
+
+    private void add(int start, int end, boolean fieldQuoted) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            quoted = Arrays.copyOf(quoted, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        quoted[size] = fieldQuoted;
+        size++;
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+}
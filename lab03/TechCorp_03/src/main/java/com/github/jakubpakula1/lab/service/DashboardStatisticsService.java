@@ -0,0 +1,125 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.DashboardRow;
+import com.github.jakubpakula1.lab.model.CompanyStatistics;
+import com.github.jakubpakula1.lab.model.DashboardStatistics;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Liczy wszystkie dane dashboardu w jednym przejściu po tabeli pracowników.
+ * Wynik jest cache'owany w {@link StatisticsFacade}.
+ */
+@Service
+public class DashboardStatisticsService {
+
+    private final EmployeeRepository employeeRepository;
+
+    public DashboardStatisticsService(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public DashboardStatistics getDashboardStatistics() {
+        try (Stream<DashboardRow> rows = employeeRepository.streamDashboardRows()) {
+            return compute(rows);
+        }
+    }
+
+    static DashboardStatistics compute(Stream<DashboardRow> rows) {
+        Accumulator accumulator = new Accumulator();
+        rows.forEach(accumulator::add);
+        return accumulator.toStatistics();
+    }
+
+    private static final class Accumulator {
+        private int totalEmployees;
+        private int salaryCount;
+        private double salarySum;
+        private final Map<String, CompanyAccumulator> companies = new TreeMap<>();
+        private final Map<Position, Integer> positions = new EnumMap<>(Position.class);
+        private final Map<EmploymentStatus, Integer> statuses = new EnumMap<>(EmploymentStatus.class);
+
+        void add(DashboardRow row) {
+            if (row == null) return;
+            totalEmployees++;
+
+            BigDecimal salary = row.getSalary();
+            if (salary != null) {
+                salaryCount++;
+                salarySum += salary.doubleValue();
+            }
+            if (row.getCompany() != null) {
+                companies.computeIfAbsent(EmployeeService.companyGroup(row.getCompany()), k -> new CompanyAccumulator()).add(row);
+            }
+            if (row.getPosition() != null) {
+                positions.merge(row.getPosition(), 1, Integer::sum);
+            }
+            if (row.getStatus() != null) {
+                statuses.merge(row.getStatus(), 1, Integer::sum);
+            }
+        }
+
+        DashboardStatistics toStatistics() {
+            Map<String, CompanyStatistics> companyStatistics = new LinkedHashMap<>();
+            companies.values().forEach(acc -> companyStatistics.put(acc.company, acc.toStatistics()));
+
+            Map<String, Integer> positionStatistics = new LinkedHashMap<>();
+            positions.forEach((position, count) -> positionStatistics.put(position.name(), count));
+
+            Map<String, Integer> statusDistribution = new LinkedHashMap<>();
+            statuses.forEach((status, count) -> statusDistribution.put(status.name(), count));
+
+            return new DashboardStatistics(
+                    totalEmployees,
+                    salaryCount == 0 ? 0.0 : salarySum / salaryCount,
+                    companyStatistics,
+                    positionStatistics,
+                    statusDistribution
+            );
+        }
+    }
+
+    /**
+     * Firma grupowana bez względu na wielkość liter, jak w {@code EmployeeRepository#aggregateByCompany} -
+     * wyświetlana nazwa to najmniejsza z pisowni, tak jak {@code MIN(company)}.
+     */
+    private static final class CompanyAccumulator {
+        private String company;
+        private int employees;
+        private int salaryCount;
+        private double salarySum;
+        private BigDecimal highestSalary;
+        private String bestEarningName = "";
+
+        void add(DashboardRow row) {
+            if (company == null || row.getCompany().compareTo(company) < 0) {
+                company = row.getCompany();
+            }
+            employees++;
+            BigDecimal salary = row.getSalary();
+            if (salary == null) return;
+
+            salaryCount++;
+            salarySum += salary.doubleValue();
+            if (highestSalary == null || salary.compareTo(highestSalary) > 0) {
+                highestSalary = salary;
+                bestEarningName = row.getFullName();
+            }
+        }
+
+        CompanyStatistics toStatistics() {
+            return new CompanyStatistics(company, employees, salaryCount == 0 ? 0.0 : salarySum / salaryCount, bestEarningName);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Format eksportu pracowników. Implementacje są beanami Springa, a kontroler wybiera je po nazwie formatu
+ * albo typie z nagłówka {@code Accept}. Wiersze przychodzą z kursora bazy, więc zapis musi być strumieniowy -
+ * każdy wiersz trafia do wyjścia od razu i nie jest nigdzie odkładany.
+ */
+public interface EmployeeExportWriter {
+
+    /**
+     * Nazwa formatu w parametrze {@code format} i rozszerzenie pliku, np. {@code csv}.
+     */
+    String getFormat();
+
+    String getContentType();
+
+    /**
+     * Czy format zapisuje numer zmiany i znacznik usunięcia, czyli nadaje się do eksportu zmian.
+     */
+    default boolean supportsChanges() {
+        return true;
+    }
+
+    /**
+     * Zapisuje wszystkie wiersze z iteratora. Strumienia nie zamyka, ale wypycha na koniec swoje bufory.
+     */
+    void write(Iterator<EmployeeExportRow> rows, OutputStream out) throws IOException;
+}
@@ -1,7 +1,12 @@
 package com.github.jakubpakula1.lab.service;
 
+import com.github.jakubpakula1.lab.dto.CompanyAggregateRow;
 import com.github.jakubpakula1.lab.dto.CompanyStatisticsDTO;
+import com.github.jakubpakula1.lab.dto.EmployeeKeyRow;
 import com.github.jakubpakula1.lab.dto.EmployeeListProjection;
+import com.github.jakubpakula1.lab.dto.TopEarnerRow;
+import com.github.jakubpakula1.lab.event.EmployeeChangeLog;
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
 import com.github.jakubpakula1.lab.exception.DuplicateEmailException;
 import com.github.jakubpakula1.lab.model.CompanyStatistics;
 import com.github.jakubpakula1.lab.model.Employee;
@@ -9,8 +14,13 @@ import com.github.jakubpakula1.lab.model.EmploymentStatus;
 import com.github.jakubpakula1.lab.model.Position;
 import com.github.jakubpakula1.lab.repository.EmployeeRepository;
 import com.github.jakubpakula1.lab.specification.EmployeeSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -24,10 +34,25 @@ import java.util.stream.Collectors;
 @Service
 @Validated
 public class EmployeeService {
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
     private final EmployeeRepository employeeRepository;
+    private final EmployeeChangeLog changeLog;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public EmployeeService(EmployeeRepository employeeRepository) {
+        this(employeeRepository, null, null);
+    }
+
+    @Autowired
+    public EmployeeService(EmployeeRepository employeeRepository, EmployeeChangeLog changeLog,
+                           ApplicationEventPublisher eventPublisher) {
         this.employeeRepository = employeeRepository;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -97,6 +122,152 @@ public class EmployeeService {
         return employeeRepository.save(employee);
     }
 
+    /**
+     * Zapisuje paczkę nowych, już zwalidowanych pracowników. Inserty trafiają do bazy jako batch JDBC przy flush,
+     * a czyszczenie kontekstu utrwalania po każdej paczce utrzymuje stałe zużycie pamięci przy dużych importach.
+     */
+    @Transactional
+    public int saveImportChunk(List<Employee> employees) {
+        if (employees == null || employees.isEmpty()) return 0;
+
+        for (Employee employee : employees) {
+            employeeRepository.save(employee);
+        }
+        employeeRepository.flush();
+        if (entityManager != null) {
+            entityManager.clear();
+        }
+        return employees.size();
+    }
+
+    /**
+     * Scala paczkę pracowników z tabelą po emailu: nowych wstawia, istniejącym kopiuje zmienione pola
+     * (UPDATE idzie batchem przy flush dzięki dirty checkingowi), niezmienionych nie dotyka.
+     * Identyfikator, dział i zdjęcie istniejącego pracownika zostają zachowane.
+     */
+    @Transactional
+    public MergeResult mergeImportChunk(List<Employee> employees) {
+        if (employees == null || employees.isEmpty()) return new MergeResult(0, 0, 0);
+
+        Map<String, Employee> existing = new HashMap<>();
+        for (Employee employee : employeeRepository.findByEmailIn(
+                employees.stream().map(Employee::getEmail).collect(Collectors.toSet()))) {
+            existing.put(employee.getEmail(), employee);
+        }
+
+        int inserted = 0, updated = 0, unchanged = 0;
+        for (Employee incoming : employees) {
+            Employee current = existing.get(incoming.getEmail());
+            if (current == null) {
+                employeeRepository.save(incoming);
+                inserted++;
+            } else if (copyImportedFields(incoming, current)) {
+                updated++;
+            } else {
+                unchanged++;
+            }
+        }
+        employeeRepository.flush();
+        if (entityManager != null) {
+            entityManager.clear();
+        }
+        return new MergeResult(inserted, updated, unchanged);
+    }
+
+    /**
+     * Usuwa pracowników, których emaili nie ma w podanym zbiorze. Usuwanie idzie przez encje w paczkach,
+     * żeby listenery JPA zaktualizowały statystyki, a DELETE trafiały do bazy batchem.
+     */
+    @Transactional
+    public int deleteEmployeesNotIn(Set<String> keptEmails) {
+        List<Long> missingIds;
+        try (var keys = employeeRepository.streamEmployeeKeys()) {
+            missingIds = keys.filter(key -> !keptEmails.contains(key.getEmail()))
+                    .map(EmployeeKeyRow::getId)
+                    .toList();
+        }
+
+        for (int from = 0; from < missingIds.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = missingIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, missingIds.size()));
+            employeeRepository.deleteAll(employeeRepository.findAllById(chunk));
+            employeeRepository.flush();
+            if (entityManager != null) {
+                entityManager.clear();
+            }
+        }
+        return missingIds.size();
+    }
+
+    private static boolean copyImportedFields(Employee source, Employee target) {
+        boolean changed = false;
+        if (!Objects.equals(source.getName(), target.getName())) {
+            target.setName(source.getName());
+            changed = true;
+        }
+        if (!Objects.equals(source.getSurname(), target.getSurname())) {
+            target.setSurname(source.getSurname());
+            changed = true;
+        }
+        if (!Objects.equals(source.getCompany(), target.getCompany())) {
+            target.setCompany(source.getCompany());
+            changed = true;
+        }
+        if (source.getPosition() != target.getPosition()) {
+            target.setPosition(source.getPosition());
+            changed = true;
+        }
+        if (source.getSalary() == null ? target.getSalary() != null
+                : target.getSalary() == null || source.getSalary().compareTo(target.getSalary()) != 0) {
+            target.setSalary(source.getSalary());
+            changed = true;
+        }
+        if (source.getStatus() != target.getStatus()) {
+            target.setStatus(source.getStatus());
+            changed = true;
+        }
+        return changed;
+    }
+
+    public static final class MergeResult {
+        private final int inserted;
+        private final int updated;
+        private final int unchanged;
+
+        public MergeResult(int inserted, int updated, int unchanged) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.unchanged = unchanged;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails == null || emails.isEmpty()) return Collections.emptySet();
+        return new HashSet<>(employeeRepository.findExistingEmails(emails));
+    }
+
+    /**
+     * Emaile wszystkich pracowników jednym zapytaniem (strumieniowo, bez encji) - do sprawdzania pliku importu na próbę.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> getAllEmails() {
+        try (var keys = employeeRepository.streamEmployeeKeys()) {
+            return keys.map(EmployeeKeyRow::getEmail).collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
     @Transactional
     public Employee updateEmployee(String email, @Valid Employee updated) {
         if (email == null || email.isBlank() || updated == null) return null;
@@ -198,7 +369,7 @@ public class EmployeeService {
 
     @Transactional(readOnly = true)
     public Map<String, Integer> getStatusDistribution() {
-        return  getAllEmployees().stream()
+        return getAllEmployees().stream()
                 .filter(Objects::nonNull)
                 .map(Employee::getStatus)
                 .filter(Objects::nonNull)
@@ -227,31 +398,29 @@ public class EmployeeService {
 
     @Transactional(readOnly = true)
     public Map<String, CompanyStatistics> getCompanyStatistics() {
-        return getAllEmployees().stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.groupingBy(
-                        Employee::getCompany,
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                employees -> new CompanyStatistics(
-                                        employees.get(0).getCompany(),
-                                        employees.size(),
-                                        employees.stream()
-                                                .map(Employee::getSalary)
-                                                .filter(Objects::nonNull)
-                                                .mapToDouble(BigDecimal::doubleValue)
-                                                .average()
-                                                .orElse(0.0),
-                                        employees.stream()
-                                                .max(Comparator.comparing(
-                                                        Employee::getSalary,
-                                                        Comparator.nullsLast(Comparator.naturalOrder())
-                                                ))
-                                                .map(e -> e.getName() + " " + e.getName())
-                                                .orElse("")
-                                )
-                        )
-                ));
+        Map<String, String> topEarners = new HashMap<>();
+        for (TopEarnerRow row : employeeRepository.findTopEarnersByCompany()) {
+            topEarners.putIfAbsent(companyGroup(row.getCompany()), row.getFullName());
+        }
+
+        Map<String, CompanyStatistics> result = new LinkedHashMap<>();
+        for (CompanyAggregateRow row : employeeRepository.aggregateByCompany()) {
+            result.put(row.getCompany(), new CompanyStatistics(
+                    row.getCompany(),
+                    (int) row.getEmployeeCount(),
+                    row.getAverageSalary(),
+                    topEarners.getOrDefault(companyGroup(row.getCompany()), "")
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * Klucz grupowania firm - ten sam co {@code LOWER(company)} w zapytaniach, żeby statystyki wszystkich firm
+     * zgadzały się ze statystykami pojedynczej firmy wyszukiwanej bez względu na wielkość liter i z dashboardem.
+     */
+    static String companyGroup(String company) {
+        return company != null ? company.toLowerCase(Locale.ROOT) : null;
     }
 
     @Transactional(readOnly = true)
@@ -260,33 +429,23 @@ public class EmployeeService {
             return Optional.empty();
         }
 
-        return getAllEmployees().stream()
-                .filter(Objects::nonNull)
-                .filter(e -> e.getCompany() != null && e.getCompany().equalsIgnoreCase(company.trim()))
-                .collect(Collectors.collectingAndThen(
-                        Collectors.toList(),
-                        employees -> employees.isEmpty() ? Optional.empty() : Optional.of(
-                                new CompanyStatistics(
-                                        company.trim(),
-                                        employees.size(),
-                                        employees.stream()
-                                                .map(Employee::getSalary)
-                                                .filter(Objects::nonNull)
-                                                .mapToDouble(BigDecimal::doubleValue)
-                                                .average()
-                                                .orElse(0.0),
-                                        employees.stream()
-                                                .max(Comparator.comparing(
-                                                        Employee::getSalary,
-                                                        Comparator.nullsLast(Comparator.naturalOrder())
-                                                ))
-                                                .map(e -> e.getName() + " " + e.getName())
-                                                .orElse("")
-                                )
-                        )
-                ));
+        String name = company.trim();
+        CompanyAggregateRow row = employeeRepository.aggregateForCompany(name);
+        if (row == null || row.getEmployeeCount() == 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new CompanyStatistics(
+                name,
+                (int) row.getEmployeeCount(),
+                row.getAverageSalary(),
+                findTopEarnerName(name)
+        ));
     }
 
+    /**
+     * Statystyki firmy prosto z bazy - cache i łączenie równoczesnych wywołań są w {@link StatisticsFacade}.
+     */
     @Transactional(readOnly = true)
     public Optional<CompanyStatisticsDTO> getCompanyStatisticsDTO(String company) {
         if (company == null || company.isBlank()) {
@@ -294,45 +453,67 @@ public class EmployeeService {
         }
 
         String name = company.trim();
-        List<Employee> companyEmployees = getCompanyEmployees(name);
-
-        if (companyEmployees.isEmpty()) {
+        CompanyAggregateRow row = employeeRepository.aggregateForCompany(name);
+        if (row == null || row.getEmployeeCount() == 0) {
             return Optional.empty();
         }
 
-        double highestSalaryDouble = companyEmployees.stream()
-                .map(Employee::getSalary)
-                .filter(Objects::nonNull)
-                .mapToDouble(BigDecimal::doubleValue)
-                .max()
-                .orElse(0.0);
-
-        int highestSalary = (int) highestSalaryDouble;
-
-        String bestEarner = companyEmployees.stream()
-                .max(Comparator.comparing(
-                        Employee::getSalary,
-                        Comparator.nullsLast(Comparator.naturalOrder())
-                ))
-                .map(e -> e.getName() + " " + e.getName())
-                .orElse("");
-
-        double averageSalary = companyEmployees.stream()
-                .map(Employee::getSalary)
-                .filter(Objects::nonNull)
-                .mapToDouble(BigDecimal::doubleValue)
-                .average()
-                .orElse(0.0);
+        int highestSalary = row.getHighestSalary() != null ? row.getHighestSalary().intValue() : 0;
 
         CompanyStatisticsDTO dto = new CompanyStatisticsDTO(
                 name,
-                companyEmployees.size(),
-                averageSalary,
+                (int) row.getEmployeeCount(),
+                row.getAverageSalary(),
                 highestSalary,
-                bestEarner
+                findTopEarnerName(name)
         );
         return Optional.of(dto);
     }
+
+    private String findTopEarnerName(String company) {
+        return employeeRepository.findTopEarnersForCompany(company).stream()
+                .findFirst()
+                .map(TopEarnerRow::getFullName)
+                .orElse("");
+    }
+
+    /**
+     * Referencyjna wersja statystyk firm liczona w pamięci.
+     * Produkcyjnie statystyki liczy baza (GROUP BY) - ta metoda służy testom do porównania wyników.
+     */
+    static Map<String, CompanyStatistics> computeCompanyStatistics(Collection<Employee> employees) {
+        return employees.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(
+                        employee -> companyGroup(employee.getCompany()),
+                        Collectors.collectingAndThen(
+                                Collectors.toList(),
+                                companyEmployees -> new CompanyStatistics(
+                                        companyEmployees.stream()
+                                                .map(Employee::getCompany)
+                                                .min(Comparator.naturalOrder())
+                                                .orElse(null),
+                                        companyEmployees.size(),
+                                        companyEmployees.stream()
+                                                .map(Employee::getSalary)
+                                                .filter(Objects::nonNull)
+                                                .mapToDouble(BigDecimal::doubleValue)
+                                                .average()
+                                                .orElse(0.0),
+                                        companyEmployees.stream()
+                                                .max(Comparator.comparing(
+                                                        Employee::getSalary,
+                                                        Comparator.nullsLast(Comparator.naturalOrder())
+                                                ))
+                                                .map(e -> e.getName() + " " + e.getSurname())
+                                                .orElse("")
+                                )
+                        )
+                ))
+                .values().stream()
+                .collect(Collectors.toMap(CompanyStatistics::getCompany, statistics -> statistics));
+    }
+
     @Transactional
     public Employee updateEmployeeStatus(String email, EmploymentStatus status) {
         if (email == null || email.isBlank() || status == null) {
@@ -372,9 +553,30 @@ public class EmployeeService {
         return employeeRepository.findByDepartment_Id(departmentId);
     }
 
+    /**
+     * Usuwa wszystkich pracowników paczkami identyfikatorów, bez ładowania encji: na paczkę przypada jeden
+     * {@code INSERT ... SELECT} śladów usunięć i jeden {@code DELETE}. Zamiast zdarzenia na każdego pracownika
+     * odbiorcy dostają jedno {@link EmployeeChangedEvent#allDeleted()}.
+     */
     @Transactional
     public void deleteAllEmployees() {
-        employeeRepository.deleteAll();
+        int deleted = 0;
+        long afterId = Long.MIN_VALUE;
+        List<Long> ids;
+        while (!(ids = employeeRepository.findIdsAfter(afterId, PageRequest.of(0, DELETE_CHUNK_SIZE))).isEmpty()) {
+            if (changeLog != null) {
+                changeLog.recordDeletions(ids);
+            }
+            employeeRepository.deleteAllByIdInBatch(ids);
+            deleted += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (entityManager != null) {
+            entityManager.clear();
+        }
+        if (deleted > 0 && eventPublisher != null) {
+            eventPublisher.publishEvent(EmployeeChangedEvent.allDeleted());
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.StatisticsBucketRow;
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.event.EmployeeSnapshot;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Liczniki statystyk (liczba pracowników i suma pensji) per firma, stanowisko i status,
+ * aktualizowane przyrostowo po każdym zatwierdzonym zapisie pracownika. Odczyty nie dotykają bazy.
+ * <p>
+ * Liczniki z bazy ({@link #rebuild}, {@link #reconcile}) podmieniają bieżące tylko wtedy, gdy w trakcie skanu nie było
+ * żadnego zapisu: zmiana zatwierdzona tuż przed skanem mogłaby dotrzeć tu już po podmianie i zostać policzona dwa razy.
+ */
+@Service
+public class EmployeeStatisticsStore {
+
+    public static final long NO_SNAPSHOT = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object transactionKey = new Object();
+    private Counters counters = new Counters();
+    /** Rośnie przy każdym rozpoczętym i każdym zastosowanym zapisie. */
+    private long version;
+    private int writesInFlight;
+
+    /**
+     * Zapis w trakcie transakcji - jego zmiana dotrze dopiero po zatwierdzeniu, a do tego czasu skan bazy
+     * może już ją widzieć albo nie.
+     */
+    @EventListener
+    public void onEmployeeChanging(EmployeeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()
+                    || TransactionSynchronizationManager.hasResource(transactionKey)) {
+                return;
+            }
+            TransactionSynchronizationManager.bindResource(transactionKey, Boolean.TRUE);
+            writesInFlight++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // afterCompletion biegnie po listenerach AFTER_COMMIT, więc zmiana jest już wtedy w licznikach
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                lock.writeLock().lock();
+                try {
+                    writesInFlight--;
+                    version++;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        apply(event);
+    }
+
+    public void apply(EmployeeChangedEvent event) {
+        if (event == null) return;
+        lock.writeLock().lock();
+        try {
+            if (event.isAllDeleted()) {
+                counters = new Counters();
+            } else {
+                counters.add(event.getBefore(), -1);
+                counters.add(event.getAfter(), 1);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public double getAverageSalary(String company) {
+        lock.readLock().lock();
+        try {
+            if (company == null || company.isBlank()) {
+                return counters.total.averageSalary();
+            }
+            Counter counter = counters.companies.get(companyKey(company));
+            return counter == null ? 0.0 : counter.averageSalary();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEmployeeCount() {
+        lock.readLock().lock();
+        try {
+            return counters.total.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Integer> getPositionStatistics() {
+        lock.readLock().lock();
+        try {
+            return counters.countsByName(counters.positions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Integer> getStatusDistribution() {
+        lock.readLock().lock();
+        try {
+            return counters.countsByName(counters.statuses);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Wersja do odczytania przed skanem bazy albo {@link #NO_SNAPSHOT}, gdy jakiś zapis czeka na zatwierdzenie.
+     */
+    public long getScanVersion() {
+        lock.readLock().lock();
+        try {
+            return writesInFlight == 0 ? version : NO_SNAPSHOT;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Porównuje liczniki z agregatami z bazy i w razie rozbieżności je podmienia.
+     * Jeśli od {@code expectedVersion} był jakiś zapis, porównanie jest pomijane (agregaty mogą być nieaktualne).
+     *
+     * @param expectedVersion {@link #getScanVersion()} sprzed skanu
+     * @return {@code true} jeśli wykryto i naprawiono rozbieżność
+     */
+    public boolean reconcile(List<StatisticsBucketRow> rows, long expectedVersion) {
+        Counters fromDatabase = Counters.fromBuckets(rows);
+        lock.writeLock().lock();
+        try {
+            if (!unchangedSince(expectedVersion)) return false;
+            if (counters.equals(fromDatabase)) return false;
+            counters = fromDatabase;
+            version++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Podmienia liczniki na agregaty z bazy - na tej samej zasadzie co {@link #reconcile}.
+     *
+     * @param expectedVersion {@link #getScanVersion()} sprzed skanu
+     * @return {@code false}, gdy w trakcie skanu był zapis i trzeba skanować od nowa
+     */
+    public boolean rebuild(List<StatisticsBucketRow> rows, long expectedVersion) {
+        Counters fromDatabase = Counters.fromBuckets(rows);
+        lock.writeLock().lock();
+        try {
+            if (!unchangedSince(expectedVersion)) return false;
+            counters = fromDatabase;
+            version++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean unchangedSince(long expectedVersion) {
+        return expectedVersion != NO_SNAPSHOT && version == expectedVersion;
+    }
+
+    private static String companyKey(String company) {
+        return company.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Counters {
+        private final Counter total = new Counter();
+        private final Map<String, Counter> companies = new HashMap<>();
+        private final Map<Position, Counter> positions = new EnumMap<>(Position.class);
+        private final Map<EmploymentStatus, Counter> statuses = new EnumMap<>(EmploymentStatus.class);
+
+        static Counters fromBuckets(List<StatisticsBucketRow> rows) {
+            Counters result = new Counters();
+            if (rows == null) return result;
+            for (StatisticsBucketRow row : rows) {
+                result.total.add(row.getEmployeeCount(), row.getSalaryCount(), row.getSalarySum());
+                if (row.getCompany() != null) {
+                    result.companies.computeIfAbsent(companyKey(row.getCompany()), k -> new Counter())
+                            .add(row.getEmployeeCount(), row.getSalaryCount(), row.getSalarySum());
+                }
+                if (row.getPosition() != null) {
+                    result.positions.computeIfAbsent(row.getPosition(), k -> new Counter())
+                            .add(row.getEmployeeCount(), row.getSalaryCount(), row.getSalarySum());
+                }
+                if (row.getStatus() != null) {
+                    result.statuses.computeIfAbsent(row.getStatus(), k -> new Counter())
+                            .add(row.getEmployeeCount(), row.getSalaryCount(), row.getSalarySum());
+                }
+            }
+            return result;
+        }
+
+        void add(EmployeeSnapshot snapshot, int sign) {
+            if (snapshot == null) return;
+            total.add(snapshot.getSalary(), sign);
+            if (snapshot.getCompany() != null) {
+                companies.computeIfAbsent(companyKey(snapshot.getCompany()), k -> new Counter()).add(snapshot.getSalary(), sign);
+            }
+            if (snapshot.getPosition() != null) {
+                positions.computeIfAbsent(snapshot.getPosition(), k -> new Counter()).add(snapshot.getSalary(), sign);
+            }
+            if (snapshot.getStatus() != null) {
+                statuses.computeIfAbsent(snapshot.getStatus(), k -> new Counter()).add(snapshot.getSalary(), sign);
+            }
+        }
+
+        <K extends Enum<K>> Map<String, Integer> countsByName(Map<K, Counter> source) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            source.forEach((key, counter) -> {
+                if (counter.count > 0) result.put(key.name(), (int) counter.count);
+            });
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Counters that)) return false;
+            return total.equals(that.total)
+                    && sameCounters(companies, that.companies)
+                    && sameCounters(positions, that.positions)
+                    && sameCounters(statuses, that.statuses);
+        }
+
+        @Override
+        public int hashCode() {
+            return total.hashCode();
+        }
+
+        private static <K> boolean sameCounters(Map<K, Counter> left, Map<K, Counter> right) {
+            Set<K> keys = new HashSet<>(left.keySet());
+            keys.addAll(right.keySet());
+            for (K key : keys) {
+                Counter a = left.getOrDefault(key, Counter.EMPTY);
+                Counter b = right.getOrDefault(key, Counter.EMPTY);
+                if (!a.equals(b)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Counter {
+        private static final Counter EMPTY = new Counter();
+
+        private long count;
+        private long salaryCount;
+        private BigDecimal salarySum = BigDecimal.ZERO;
+
+        void add(BigDecimal salary, int sign) {
+            count += sign;
+            if (salary != null) {
+                salaryCount += sign;
+                salarySum = sign > 0 ? salarySum.add(salary) : salarySum.subtract(salary);
+            }
+        }
+
+        void add(long employees, long salaries, BigDecimal sum) {
+            count += employees;
+            salaryCount += salaries;
+            salarySum = salarySum.add(sum);
+        }
+
+        double averageSalary() {
+            if (salaryCount <= 0) return 0.0;
+            return salarySum.divide(BigDecimal.valueOf(salaryCount), 10, RoundingMode.HALF_UP).doubleValue();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Counter that)) return false;
+            return count == that.count && salaryCount == that.salaryCount && salarySum.compareTo(that.salarySum) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, salaryCount, salarySum.stripTrailingZeros());
+        }
+    }
+}
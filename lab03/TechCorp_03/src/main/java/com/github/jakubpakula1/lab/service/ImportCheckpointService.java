@@ -0,0 +1,148 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.repository.ImportCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Punkty kontrolne importów zatwierdzanych paczkami ({@link ImportCheckpoint}). Paczka pracowników i przesunięty
+ * punkt kontrolny są zapisywane w jednej transakcji, więc po awarii import wznawia się dokładnie za ostatnią
+ * zatwierdzoną paczką. Nieudane importy czekają na wznowienie przez czas retencji, potem są usuwane razem z plikiem.
+ */
+@Service
+public class ImportCheckpointService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportCheckpointService.class);
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final ImportCheckpointRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public ImportCheckpointService(ImportCheckpointRepository repository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.import.checkpoint-retention-minutes:1440}") long retentionMinutes) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    /**
+     * Zakłada punkt kontrolny nowego importu. Skrót pliku pozwala przy wznowieniu sprawdzić, że plik się nie zmienił.
+     */
+    public ImportCheckpoint start(ImportJob job) throws IOException {
+        Path file = job.getFile();
+        ImportCheckpoint checkpoint = new ImportCheckpoint(job.getId(), job.getFileName() != null ? job.getFileName() : file.getFileName().toString(),
+                file.toAbsolutePath().toString(), hash(file), Files.size(file), job.getFormat(), job.getOptions().getMode(), job.getSubmittedAt());
+        return repository.save(checkpoint);
+    }
+
+    /**
+     * Wykonuje zapis paczki i zapisuje przesunięty przez niego punkt kontrolny w jednej transakcji.
+     */
+    public void commit(ImportCheckpoint checkpoint, Runnable chunkWrite) {
+        transactionTemplate.executeWithoutResult(status -> {
+            chunkWrite.run();
+            checkpoint.setUpdatedAt(Instant.now());
+            repository.save(checkpoint);
+        });
+    }
+
+    public Optional<ImportCheckpoint> find(String id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * Importy przerwane w trakcie (np. zatrzymaniem aplikacji) - do wznowienia przy starcie.
+     */
+    public List<ImportCheckpoint> findInterrupted() {
+        return repository.findByStatus(ImportJobStatus.RUNNING);
+    }
+
+    /**
+     * Sprawdza, czy plik nadal istnieje i ma tę samą treść co przy rozpoczęciu importu.
+     */
+    public boolean matchesFile(ImportCheckpoint checkpoint) {
+        Path file = Path.of(checkpoint.getFilePath());
+        try {
+            return Files.isRegularFile(file) && Files.size(file) == checkpoint.getFileSize()
+                    && hash(file).equals(checkpoint.getFileHash());
+        } catch (IOException e) {
+            log.warn("Nie udało się odczytać pliku importu {}", file, e);
+            return false;
+        }
+    }
+
+    public void markRunning(ImportCheckpoint checkpoint) {
+        checkpoint.setStatus(ImportJobStatus.RUNNING);
+        checkpoint.setErrorMessage(null);
+        checkpoint.setUpdatedAt(Instant.now());
+        repository.save(checkpoint);
+    }
+
+    /**
+     * Oznacza import jako nieudany. Punkt kontrolny jest czytany z bazy na nowo - obiekt z przerwanego importu
+     * może mieć pozycję przesuniętą przez paczkę, której transakcja się nie powiodła.
+     */
+    public void markFailed(String id, String errorMessage) {
+        repository.findById(id).ifPresent(checkpoint -> {
+            checkpoint.setStatus(ImportJobStatus.FAILED);
+            checkpoint.setErrorMessage(errorMessage != null && errorMessage.length() > 1000 ? errorMessage.substring(0, 1000) : errorMessage);
+            checkpoint.setUpdatedAt(Instant.now());
+            repository.save(checkpoint);
+        });
+    }
+
+    public void delete(ImportCheckpoint checkpoint) {
+        repository.deleteById(checkpoint.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.job-cleanup-interval-ms:60000}")
+    public void removeExpiredCheckpoints() {
+        Instant threshold = Instant.now().minus(retention);
+        for (ImportCheckpoint checkpoint : repository.findByStatusAndUpdatedAtBefore(ImportJobStatus.FAILED, threshold)) {
+            try {
+                Files.deleteIfExists(Path.of(checkpoint.getFilePath()));
+            } catch (IOException e) {
+                log.warn("Nie udało się usunąć pliku importu {}", checkpoint.getFilePath(), e);
+            }
+            repository.delete(checkpoint);
+        }
+    }
+
+    static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(file)) {
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.jakubpakula1.lab.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Rozpoznawanie skompresowanych plików importu po sygnaturze (nie po nazwie - pliki tymczasowe i zapisane
+ * uploady mają tylko ostatnie rozszerzenie) i rozpakowywanie ich w locie.
+ */
+enum ImportCompression {
+    NONE,
+    GZIP,
+    ZIP;
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    static ImportCompression of(Path file) throws IOException {
+        byte[] magic = new byte[4];
+        int length;
+        try (InputStream input = Files.newInputStream(file)) {
+            length = input.readNBytes(magic, 0, magic.length);
+        }
+        if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        // lokalny nagłówek pliku albo koniec katalogu pustego archiwum
+        if (length == 4 && magic[0] == 'P' && magic[1] == 'K'
+                && ((magic[2] == 3 && magic[3] == 4) || (magic[2] == 5 && magic[3] == 6))) {
+            return ZIP;
+        }
+        return NONE;
+    }
+
+    static InputStream gunzip(InputStream input) throws IOException {
+        return new GZIPInputStream(input, GZIP_BUFFER_SIZE);
+    }
+
+    /**
+     * Strumień, którego zamknięcie nie zamyka źródła - czytniki formatów nie mogą zamknąć całego archiwum.
+     */
+    static InputStream nonClosing(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
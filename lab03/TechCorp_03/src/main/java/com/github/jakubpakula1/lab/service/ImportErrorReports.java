@@ -0,0 +1,201 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.exception.FileNotFoundException;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Pełne listy błędów importu zapisywane jako NDJSON (jeden błąd w linii) w {@code app.reports.directory}/import-errors.
+ * W {@link ImportSummary} zostają tylko liczniki i próbka, a cały raport można pobrać po identyfikatorze.
+ */
+@Component
+public class ImportErrorReports {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportErrorReports.class);
+    private static final String EXTENSION = ".ndjson";
+    private static final Pattern REPORT_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final Path directory;
+    private final Gson gson;
+    private final int maxErrorSamples;
+    private final Duration retention;
+
+    public ImportErrorReports(@Value("${app.reports.directory}") String reportDir,
+                              Gson gson,
+                              @Value("${app.import.max-error-samples:100}") int maxErrorSamples,
+                              @Value("${app.import.error-report-retention-minutes:1440}") long retentionMinutes) {
+        this.directory = Paths.get(reportDir).toAbsolutePath().normalize().resolve("import-errors");
+        this.gson = gson;
+        this.maxErrorSamples = Math.max(0, maxErrorSamples);
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    /**
+     * Wynik importu z limitem próbki błędów z konfiguracji.
+     */
+    public ImportSummary newSummary() {
+        return new ImportSummary(maxErrorSamples);
+    }
+
+    /**
+     * Nowy raport. Plik powstaje dopiero przy pierwszym błędzie.
+     */
+    public Report create() {
+        return new Report(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Raport wznawianego importu. Plik jest obcinany do długości zapisanej razem z ostatnią zatwierdzoną paczką
+     * (błędy paczki, która nie doszła do skutku, zostaną zapisane ponownie), a nowe błędy są dopisywane.
+     */
+    public Report resume(String reportId, long committedBytes) throws IOException {
+        if (reportId == null || committedBytes <= 0) {
+            return create();
+        }
+        Path file = find(reportId);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(committedBytes);
+        }
+        Report report = new Report(reportId);
+        report.empty = false;
+        return report;
+    }
+
+    /**
+     * Przekazuje po kolei wszystkie błędy z raportu, np. żeby odtworzyć liczniki i próbkę wznawianego importu.
+     */
+    public void replay(String reportId, Consumer<ImportSummary.ErrorEntry> consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(find(reportId), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(gson.fromJson(line, ImportSummary.ErrorEntry.class));
+            }
+        }
+    }
+
+    /**
+     * Plik raportu o podanym identyfikatorze.
+     *
+     * @throws FileNotFoundException gdy raportu nie ma (albo wygasł)
+     */
+    public Path find(String reportId) {
+        if (reportId == null || !REPORT_ID.matcher(reportId).matches()) {
+            throw new FileNotFoundException("Nie znaleziono raportu błędów: " + reportId);
+        }
+        Path file = directory.resolve(reportId + EXTENSION);
+        if (!Files.isReadable(file)) {
+            throw new FileNotFoundException("Nie znaleziono raportu błędów: " + reportId);
+        }
+        return file;
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.job-cleanup-interval-ms:60000}")
+    public void removeExpiredReports() {
+        if (!Files.isDirectory(directory)) return;
+        Instant threshold = Instant.now().minus(retention);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Nie udało się usunąć starych raportów błędów importu", e);
+        }
+    }
+
+    /**
+     * Raport jednego importu. Używany z jednego wątku - etapu zapisu potoku.
+     */
+    public final class Report implements AutoCloseable {
+        private final String id;
+        private BufferedWriter writer;
+        private boolean empty = true;
+
+        private Report(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Identyfikator raportu albo null, gdy nie było błędów.
+         */
+        public String getId() {
+            return empty ? null : id;
+        }
+
+        public void write(ImportSummary.ErrorEntry error) {
+            try {
+                if (writer == null) {
+                    Files.createDirectories(directory);
+                    writer = Files.newBufferedWriter(directory.resolve(id + EXTENSION), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                gson.toJson(error, writer);
+                writer.write('\n');
+                empty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Nie udało się zapisać raportu błędów importu", e);
+            }
+        }
+
+        /**
+         * Wypycha zbuforowane błędy do pliku i zwraca jego długość - do zapisania w punkcie kontrolnym.
+         */
+        public long flush() {
+            if (empty) return 0;
+            try {
+                if (writer != null) {
+                    writer.flush();
+                }
+                return Files.size(directory.resolve(id + EXTENSION));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Nie udało się zapisać raportu błędów importu", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (writer == null) return;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Nie udało się zamknąć raportu błędów importu {}", id, e);
+            }
+        }
+
+        /**
+         * Zamyka i usuwa raport, np. gdy import się nie powiódł i jego wynik nie zostanie pokazany.
+         */
+        public void delete() {
+            close();
+            if (empty) return;
+            try {
+                Files.deleteIfExists(directory.resolve(id + EXTENSION));
+            } catch (IOException e) {
+                log.warn("Nie udało się usunąć raportu błędów importu {}", id, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.google.gson.Gson;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Ciągły import plików wrzucanych do katalogu {@code app.import.watch.directory} (np. feedów od partnerów).
+ * Wątek obserwatora zbiera zdarzenia {@link WatchService} i czeka, aż plik przestanie się zmieniać, a potem
+ * zleca jego import w trybie MERGE na puli o ograniczonej liczbie wątków i ograniczonej kolejce. Po imporcie
+ * plik trafia do {@code processed/} razem z podsumowaniem, a po błędzie do {@code failed/} z opisem błędu.
+ * Pliki nieprzeniesione (np. po zatrzymaniu aplikacji w trakcie importu) są importowane ponownie przy starcie -
+ * import po emailu jest idempotentny. Pusta ścieżka katalogu wyłącza obserwatora.
+ */
+@Service
+public class ImportFolderWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportFolderWatcher.class);
+    private static final String PROCESSED = "processed";
+    private static final String FAILED = "failed";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final ImportService importService;
+    private final Gson gson;
+    private final Path directory;
+    private final Duration stableTime;
+    private final long pollIntervalMillis;
+    private final ThreadPoolExecutor executor;
+
+    /** Pliki czekające, aż przestaną się zmieniać albo aż zwolni się miejsce w kolejce - tylko wątek obserwatora je zmienia. */
+    private final Map<Path, Candidate> pending = new ConcurrentHashMap<>();
+    /** Pliki zlecone do importu (w kolejce albo w trakcie) z chwilą wykrycia. */
+    private final Map<Path, Instant> submitted = new ConcurrentHashMap<>();
+
+    private final AtomicLong filesDetected = new AtomicLong();
+    private final AtomicLong filesImported = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong recordsImported = new AtomicLong();
+    private final AtomicLong recordErrors = new AtomicLong();
+    private final AtomicLong bytesImported = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile Instant lastFinishedAt;
+
+    private volatile WatchService watchService;
+    private volatile Thread watchThread;
+    private volatile boolean running;
+
+    public ImportFolderWatcher(ImportService importService,
+                               Gson gson,
+                               @Value("${app.import.watch.directory:}") String directory,
+                               @Value("${app.import.watch.threads:1}") int threads,
+                               @Value("${app.import.watch.max-queued-files:20}") int maxQueuedFiles,
+                               @Value("${app.import.watch.stable-ms:2000}") long stableMillis,
+                               @Value("${app.import.watch.poll-interval-ms:500}") long pollIntervalMillis) {
+        this.importService = importService;
+        this.gson = gson;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory).toAbsolutePath().normalize();
+        this.stableTime = Duration.ofMillis(Math.max(0, stableMillis));
+        this.pollIntervalMillis = Math.max(10, pollIntervalMillis);
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxQueuedFiles)), watchThreads());
+    }
+
+    /**
+     * Zakłada katalogi, zbiera pliki, które już w nim leżą, i uruchamia wątek obserwatora.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (directory == null || running) return;
+        Files.createDirectories(directory.resolve(PROCESSED));
+        Files.createDirectories(directory.resolve(FAILED));
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        running = true;
+        scan();
+        watchThread = new Thread(this::watch, "import-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        log.info("Obserwowanie katalogu importu {}", directory);
+    }
+
+    /**
+     * Importy w trakcie kończą się normalnie; pliki czekające w katalogu zostaną zaimportowane przy następnym starcie.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Nie udało się zamknąć obserwatora katalogu {}", directory, e);
+            }
+        }
+        executor.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Liczniki przepustowości i opóźnienia. Rosnący {@code oldestWaitingMs} przy pełnej kolejce oznacza,
+     * że import nie nadąża za napływem plików.
+     */
+    public Map<String, Object> getMetrics() {
+        Instant now = Instant.now();
+        long oldest = 0;
+        for (Candidate candidate : pending.values()) {
+            oldest = Math.max(oldest, Duration.between(candidate.detectedAt, now).toMillis());
+        }
+        for (Instant detectedAt : submitted.values()) {
+            oldest = Math.max(oldest, Duration.between(detectedAt, now).toMillis());
+        }
+        long finished = filesImported.get() + filesFailed.get();
+        double busySeconds = busyNanos.get() / 1e9;
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("running", running);
+        metrics.put("directory", directory != null ? directory.toString() : null);
+        metrics.put("filesDetected", filesDetected.get());
+        metrics.put("filesImported", filesImported.get());
+        metrics.put("filesFailed", filesFailed.get());
+        metrics.put("filesWaiting", pending.size());
+        metrics.put("filesQueued", executor.getQueue().size());
+        metrics.put("filesInProgress", executor.getActiveCount());
+        metrics.put("recordsImported", recordsImported.get());
+        metrics.put("recordErrors", recordErrors.get());
+        metrics.put("bytesImported", bytesImported.get());
+        metrics.put("recordsPerSecond", busySeconds > 0 ? Math.round(recordsImported.get() / busySeconds) : 0L);
+        metrics.put("bytesPerSecond", busySeconds > 0 ? Math.round(bytesImported.get() / busySeconds) : 0L);
+        metrics.put("lastLagMs", lastLagMillis);
+        metrics.put("averageLagMs", finished > 0 ? totalLagMillis.get() / finished : 0L);
+        metrics.put("oldestWaitingMs", oldest);
+        metrics.put("lastFinishedAt", lastFinishedAt != null ? lastFinishedAt.toString() : null);
+        return metrics;
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                }
+                submitStableFiles();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // zatrzymanie aplikacji
+        } catch (RuntimeException e) {
+            log.error("Obserwator katalogu importu {} zatrzymał się", directory, e);
+            running = false;
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                scan();
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_DELETE) {
+                pending.remove(file);
+            } else {
+                noticed(file);
+            }
+        }
+        if (!key.reset()) {
+            log.error("Katalog importu {} nie jest już dostępny", directory);
+            running = false;
+        }
+    }
+
+    /**
+     * Pełny przegląd katalogu - przy starcie i gdy zdarzenia zostały zgubione (OVERFLOW).
+     */
+    private void scan() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                noticed(file);
+            }
+        } catch (IOException e) {
+            log.warn("Nie udało się przejrzeć katalogu importu {}", directory, e);
+        }
+    }
+
+    private void noticed(Path file) {
+        if (isIgnored(file.getFileName().toString()) || submitted.containsKey(file)) return;
+        BasicFileAttributes attributes = attributesOf(file);
+        if (attributes == null || !attributes.isRegularFile()) return;
+        Candidate candidate = pending.get(file);
+        if (candidate == null) {
+            pending.put(file, new Candidate(attributes, Instant.now()));
+            filesDetected.incrementAndGet();
+        } else {
+            candidate.update(attributes, Instant.now());
+        }
+    }
+
+    /**
+     * Zleca pliki, których rozmiar i data modyfikacji nie zmieniły się przez {@code stableTime}.
+     * Gdy kolejka jest pełna, plik czeka w katalogu na następną próbę.
+     */
+    private void submitStableFiles() {
+        Instant now = Instant.now();
+        Iterator<Map.Entry<Path, Candidate>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Path, Candidate> entry = entries.next();
+            Path file = entry.getKey();
+            Candidate candidate = entry.getValue();
+            BasicFileAttributes attributes = attributesOf(file);
+            if (attributes == null) {
+                entries.remove();
+                continue;
+            }
+            if (candidate.update(attributes, now) || candidate.changedAt.plus(stableTime).isAfter(now)) continue;
+
+            submitted.put(file, candidate.detectedAt);
+            try {
+                executor.execute(() -> process(file, candidate.detectedAt));
+                entries.remove();
+            } catch (RejectedExecutionException e) {
+                submitted.remove(file);
+                return;
+            }
+        }
+    }
+
+    private void process(Path file, Instant detectedAt) {
+        long startedAt = System.nanoTime();
+        String name = file.getFileName().toString();
+        try {
+            long size = Files.size(file);
+            ImportSummary summary = importFile(file, formatOf(name));
+            Path target = moveTo(PROCESSED, file);
+            Files.writeString(target.resolveSibling(target.getFileName() + ".summary.json"), gson.toJson(summary), StandardCharsets.UTF_8);
+            recordsImported.addAndGet(summary.getImportedEmployees());
+            recordErrors.addAndGet(summary.getErrorCount());
+            bytesImported.addAndGet(size);
+            filesImported.incrementAndGet();
+            log.info("Zaimportowano plik {}: {} pracowników, {} błędów", name, summary.getImportedEmployees(), summary.getErrorCount());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Import pliku {} z katalogu {} zakończył się błędem", name, directory, e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            try {
+                Path target = moveTo(FAILED, file);
+                Files.writeString(target.resolveSibling(target.getFileName() + ".error.txt"), message, StandardCharsets.UTF_8);
+            } catch (IOException moveError) {
+                log.error("Nie udało się przenieść pliku {} do katalogu {}", file, FAILED, moveError);
+            }
+            filesFailed.incrementAndGet();
+        } finally {
+            Instant finishedAt = Instant.now();
+            long lag = Duration.between(detectedAt, finishedAt).toMillis();
+            busyNanos.addAndGet(System.nanoTime() - startedAt);
+            totalLagMillis.addAndGet(lag);
+            lastLagMillis = lag;
+            lastFinishedAt = finishedAt;
+            submitted.remove(file);
+        }
+    }
+
+    private ImportSummary importFile(Path file, ImportFormat format) throws IOException {
+        String path = file.toString();
+        ImportOptions options = ImportOptions.merge(false);
+        ImportProgress progress = new ImportProgress();
+        return switch (format) {
+            case XML -> importService.importFromXml(path, options, progress);
+            case JSON -> importService.importFromJson(path, options, progress);
+            case CSV -> importService.importFromCsv(path, options, progress);
+        };
+    }
+
+    /**
+     * Przenosi plik do podkatalogu pod nazwą z datą - partnerzy często wysyłają kolejne pliki pod tą samą nazwą.
+     */
+    private Path moveTo(String folder, Path file) throws IOException {
+        Path target = directory.resolve(folder).resolve(TIMESTAMP.format(Instant.now()) + "-" + file.getFileName());
+        return Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ImportFormat formatOf(String fileName) {
+        ImportFormat format = ImportFormat.ofFileName(fileName);
+        if (format != null) return format;
+        // format plików w archiwum ustalany jest po ich nazwach
+        if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) return ImportFormat.CSV;
+        throw new IllegalArgumentException("Nieobsługiwany format pliku: " + fileName);
+    }
+
+    /**
+     * Pliki ukryte i tymczasowe - partnerzy zapisują plik pod taką nazwą i zmieniają ją po zakończeniu zapisu.
+     */
+    private static boolean isIgnored(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part") || name.endsWith(".filepart");
+    }
+
+    private static BasicFileAttributes attributesOf(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory watchThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "import-watch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Candidate {
+        private final Instant detectedAt;
+        private long size;
+        private long modified;
+        private Instant changedAt;
+
+        Candidate(BasicFileAttributes attributes, Instant now) {
+            this.detectedAt = now;
+            this.size = attributes.size();
+            this.modified = attributes.lastModifiedTime().toMillis();
+            this.changedAt = now;
+        }
+
+        /**
+         * @return czy plik zmienił się od ostatniego sprawdzenia
+         */
+        boolean update(BasicFileAttributes attributes, Instant now) {
+            if (attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified) return false;
+            size = attributes.size();
+            modified = attributes.lastModifiedTime().toMillis();
+            changedAt = now;
+            return true;
+        }
+    }
+}
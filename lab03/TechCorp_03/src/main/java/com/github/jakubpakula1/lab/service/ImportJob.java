@@ -0,0 +1,158 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Zadanie importu wykonywane w tle przez {@link ImportJobService}. Stan zmieniają wątki puli importów,
+ * a czytają go zapytania o status, dlatego wszystkie pola zmienne są volatile lub atomowe.
+ */
+public class ImportJob {
+    private final String id;
+    private final ImportFormat format;
+    private final ImportOptions options;
+    private final String fileName;
+    private final Path file;
+    private final Instant submittedAt;
+    private final ImportProgress progress = new ImportProgress();
+    private final AtomicReference<ImportJobStatus> status = new AtomicReference<>(ImportJobStatus.QUEUED);
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile ImportSummary summary;
+    private volatile String errorMessage;
+    private volatile Future<?> future;
+    private volatile ImportCheckpoint checkpoint;
+
+    ImportJob(String id, ImportFormat format, ImportOptions options, String fileName, Path file, Instant submittedAt) {
+        this.id = id;
+        this.format = format;
+        this.options = options;
+        this.fileName = fileName;
+        this.file = file;
+        this.submittedAt = submittedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public ImportOptions getOptions() {
+        return options;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status.get();
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public ImportProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Wynik importu - dostępny dopiero po zakończeniu zadania ze statusem COMPLETED.
+     */
+    public ImportSummary getSummary() {
+        return summary;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Czy import jest zatwierdzany paczkami z punktem kontrolnym (anulowanie nie wycofuje zatwierdzonych paczek).
+     */
+    public boolean isCheckpointed() {
+        return checkpoint != null;
+    }
+
+    /**
+     * Czy nieudany albo anulowany import można wznowić od ostatniej zatwierdzonej paczki.
+     */
+    public boolean isResumable() {
+        ImportJobStatus current = status.get();
+        return (current == ImportJobStatus.FAILED || current == ImportJobStatus.CANCELLED) && checkpoint != null;
+    }
+
+    ImportCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    void setCheckpoint(ImportCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    boolean start() {
+        if (!status.compareAndSet(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING)) return false;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    void complete(ImportSummary summary) {
+        this.summary = summary;
+        finish(ImportJobStatus.COMPLETED);
+    }
+
+    void fail(String errorMessage) {
+        this.errorMessage = errorMessage;
+        finish(ImportJobStatus.FAILED);
+    }
+
+    void cancelled() {
+        finish(ImportJobStatus.CANCELLED);
+    }
+
+    /**
+     * Zadanie w kolejce jest anulowane od razu, uruchomione - przy zapisie najbliższej paczki.
+     */
+    boolean cancel() {
+        progress.requestCancel();
+        if (status.compareAndSet(ImportJobStatus.QUEUED, ImportJobStatus.CANCELLED)) {
+            finishedAt = Instant.now();
+            Future<?> task = future;
+            if (task != null) task.cancel(false);
+            return true;
+        }
+        return status.get() == ImportJobStatus.RUNNING;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    private void finish(ImportJobStatus finalStatus) {
+        finishedAt = Instant.now();
+        status.set(finalStatus);
+    }
+}
@@ -0,0 +1,319 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.ImportJobDTO;
+import com.github.jakubpakula1.lab.exception.ImportJobNotFoundException;
+import com.github.jakubpakula1.lab.exception.ImportJobRejectedException;
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uruchamia importy w tle: żądanie HTTP dostaje od razu identyfikator zadania, a import biegnie na puli
+ * o ograniczonej liczbie wątków i ograniczonej kolejce. Zakończone zadania są trzymane przez czas retencji.
+ * Importy biegną w jednej transakcji. Import zlecony z {@link ImportOptions#asCheckpointed()} - gdy skonfigurowano
+ * {@link ImportCheckpointService} - jest zatwierdzany paczkami: nieudany albo anulowany można wznowić
+ * ({@link #resume(String)}), a przerwany zatrzymaniem aplikacji wznawia się sam przy starcie ({@link ImportRecoveryJob}).
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+    static final String CANCELLED_MESSAGE = "Import został anulowany";
+
+    private final ImportService importService;
+    private final ImportCheckpointService checkpoints;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    public ImportJobService(ImportService importService, int maxConcurrentJobs, int maxQueuedJobs, long retentionMinutes) {
+        this(importService, null, maxConcurrentJobs, maxQueuedJobs, retentionMinutes);
+    }
+
+    /**
+     * @param checkpoints punkty kontrolne importów zatwierdzanych paczkami albo null - wtedy każdy import,
+     *                    także zlecony z {@link ImportOptions#asCheckpointed()}, biegnie w jednej transakcji
+     */
+    @Autowired
+    public ImportJobService(ImportService importService,
+                            ImportCheckpointService checkpoints,
+                            @Value("${app.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                            @Value("${app.import.max-queued-jobs:20}") int maxQueuedJobs,
+                            @Value("${app.import.job-retention-minutes:60}") long retentionMinutes) {
+        this.importService = importService;
+        this.checkpoints = checkpoints;
+        int threads = Math.max(1, maxConcurrentJobs);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxQueuedJobs)), importThreads());
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    public ImportJob submit(Path file, String fileName, ImportFormat format) {
+        return submit(file, fileName, format, ImportOptions.replace());
+    }
+
+    /**
+     * Zleca import pliku. Plik należy do zadania i jest usuwany po jego zakończeniu.
+     *
+     * @throws ImportJobRejectedException gdy kolejka importów jest pełna
+     */
+    public ImportJob submit(Path file, String fileName, ImportFormat format, ImportOptions options) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, options, fileName, file, Instant.now());
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(file);
+            throw new ImportJobRejectedException("Zbyt wiele importów w kolejce - spróbuj ponownie później");
+        }
+        return job;
+    }
+
+    /**
+     * Wznawia nieudany albo anulowany import od ostatniej zatwierdzonej paczki. Zadanie zachowuje identyfikator.
+     *
+     * @throws ImportJobNotFoundException gdy import nie ma punktu kontrolnego
+     * @throws IllegalStateException gdy import jeszcze trwa
+     * @throws IllegalArgumentException gdy plik importu zniknął albo się zmienił
+     */
+    public ImportJob resume(String id) {
+        ImportCheckpoint checkpoint = (checkpoints != null ? checkpoints.find(id) : Optional.<ImportCheckpoint>empty())
+                .orElseThrow(() -> new ImportJobNotFoundException("Import " + id + " nie ma punktu kontrolnego do wznowienia"));
+        ImportJob current = jobs.get(id);
+        if (checkpoint.getStatus() != ImportJobStatus.FAILED || (current != null && !current.getStatus().isFinished())) {
+            throw new IllegalStateException("Import " + id + " jeszcze trwa");
+        }
+        if (!checkpoints.matchesFile(checkpoint)) {
+            throw new IllegalArgumentException("Plik importu " + checkpoint.getFileName() + " zmienił się albo został usunięty");
+        }
+        return enqueueResumed(checkpoint);
+    }
+
+    /**
+     * Wznawia importy przerwane zatrzymaniem aplikacji albo awarią - wywoływane przy starcie przez {@link ImportRecoveryJob}.
+     */
+    public void resumeInterrupted() {
+        if (checkpoints == null) return;
+        for (ImportCheckpoint checkpoint : checkpoints.findInterrupted()) {
+            if (!checkpoints.matchesFile(checkpoint)) {
+                log.warn("Nie można wznowić importu {} - plik {} zmienił się albo został usunięty", checkpoint.getId(), checkpoint.getFilePath());
+                checkpoints.markFailed(checkpoint.getId(), "Plik importu zmienił się albo został usunięty");
+                continue;
+            }
+            log.info("Wznawianie importu {} od linii {}", checkpoint.getId(), checkpoint.getNextLineNumber());
+            try {
+                enqueueResumed(checkpoint);
+            } catch (ImportJobRejectedException e) {
+                checkpoints.markFailed(checkpoint.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private ImportJob enqueueResumed(ImportCheckpoint checkpoint) {
+        ImportJob job = new ImportJob(checkpoint.getId(), checkpoint.getFormat(), ImportOptions.of(checkpoint.getMode(), false).asCheckpointed(),
+                checkpoint.getFileName(), Path.of(checkpoint.getFilePath()), checkpoint.getSubmittedAt());
+        job.setCheckpoint(checkpoint);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ImportJobRejectedException("Zbyt wiele importów w kolejce - spróbuj ponownie później");
+        }
+        return job;
+    }
+
+    public ImportJob getJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ImportJobNotFoundException("Nie znaleziono zadania importu: " + id);
+        }
+        return job;
+    }
+
+    public List<ImportJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Anuluje zadanie. Zwraca false, gdy zadanie już się zakończyło.
+     */
+    public boolean cancel(String id) {
+        ImportJob job = getJob(id);
+        boolean cancelled = job.cancel();
+        if (cancelled && job.getStatus().isFinished()) {
+            if (job.getCheckpoint() != null) {
+                markFailed(job.getCheckpoint(), CANCELLED_MESSAGE);
+            } else {
+                deleteQuietly(job.getFile());
+            }
+        }
+        return cancelled;
+    }
+
+    public ImportJobDTO toDto(ImportJob job) {
+        ImportProgress progress = job.getProgress();
+        ImportSummary summary = job.getSummary();
+        ImportJobDTO dto = new ImportJobDTO(
+                job.getId(),
+                job.getFormat(),
+                job.getOptions().getMode(),
+                job.getFileName(),
+                job.getStatus(),
+                job.getSubmittedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                progress.getBytesRead(),
+                progress.getTotalBytes(),
+                progress.getPercent(),
+                progress.getRecordsRead(),
+                progress.getRecordsWritten(),
+                summary != null ? summary.getImportedEmployees() : null,
+                summary != null ? summary.getErrorCount() : null,
+                job.getErrorMessage()
+        );
+        dto.setCheckpointed(job.isCheckpointed());
+        dto.setResumable(job.isResumable());
+        dto.setDryRun(job.getOptions().isDryRun());
+        return dto;
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.job-cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getStatus().isFinished()
+                && job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+
+    /**
+     * Importy zatwierdzane paczkami zatrzymują się na granicy paczki i zostają do wznowienia przy następnym starcie.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        jobs.values().forEach(ImportJob::cancel);
+        executor.shutdown();
+    }
+
+    private void run(ImportJob job) {
+        if (!job.start()) return;
+        boolean keepFile = false;
+        try {
+            job.complete(usesCheckpoints(job) ? runWithCheckpoints(job) : runInTransaction(job));
+            if (job.getCheckpoint() != null) {
+                checkpoints.delete(job.getCheckpoint());
+            }
+        } catch (CancellationException e) {
+            keepFile = cancelled(job);
+        } catch (IOException | RuntimeException e) {
+            if (job.getProgress().isCancelRequested()) {
+                keepFile = cancelled(job);
+            } else {
+                log.warn("Import {} zakończył się błędem", job.getId(), e);
+                String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                job.fail(message);
+                if (job.getCheckpoint() != null) {
+                    markFailed(job.getCheckpoint(), message);
+                    keepFile = true;
+                }
+            }
+        } finally {
+            if (!keepFile) {
+                deleteQuietly(job.getFile());
+            }
+        }
+    }
+
+    private boolean usesCheckpoints(ImportJob job) throws IOException {
+        return checkpoints != null && (job.getCheckpoint() != null
+                || job.getOptions().isCheckpointed() && importService.supportsCheckpoints(job.getFile(), job.getOptions()));
+    }
+
+    private ImportSummary runInTransaction(ImportJob job) throws IOException {
+        String path = job.getFile().toString();
+        return switch (job.getFormat()) {
+            case XML -> importService.importFromXml(path, job.getOptions(), job.getProgress());
+            case JSON -> importService.importFromJson(path, job.getOptions(), job.getProgress());
+            case CSV -> importService.importFromCsv(path, job.getOptions(), job.getProgress());
+        };
+    }
+
+    private ImportSummary runWithCheckpoints(ImportJob job) throws IOException {
+        ImportCheckpoint checkpoint = job.getCheckpoint();
+        if (checkpoint == null) {
+            checkpoint = checkpoints.start(job);
+            job.setCheckpoint(checkpoint);
+        } else {
+            checkpoints.markRunning(checkpoint);
+        }
+        return importService.importWithCheckpoints(checkpoint, job.getOptions(), job.getProgress());
+    }
+
+    /**
+     * Anulowanie zatrzymuje import za ostatnią zatwierdzoną paczką - zatwierdzone paczki zostają w bazie.
+     * Punkt kontrolny i plik też zostają, a import można wznowić ({@link #resume(String)}): w trybie REPLACE
+     * dawni pracownicy są już usunięci i bez wznowienia w bazie zostałaby tylko część pliku. Niewznowiony import
+     * usuwa po czasie retencji {@link ImportCheckpointService}. Przy zatrzymaniu aplikacji import wznowi się sam przy starcie.
+     *
+     * @return czy zostawić plik importu
+     */
+    private boolean cancelled(ImportJob job) {
+        job.cancelled();
+        ImportCheckpoint checkpoint = job.getCheckpoint();
+        if (checkpoint == null) return false;
+        if (!shuttingDown) {
+            markFailed(checkpoint, CANCELLED_MESSAGE);
+        }
+        return true;
+    }
+
+    private void markFailed(ImportCheckpoint checkpoint, String message) {
+        try {
+            checkpoints.markFailed(checkpoint.getId(), message);
+        } catch (RuntimeException e) {
+            log.warn("Nie udało się zapisać stanu importu {}", checkpoint.getId(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Nie udało się usunąć pliku importu {}", file, e);
+        }
+    }
+
+    private static ThreadFactory importThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "import-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.ImportMode;
+
+import java.util.Objects;
+
+/**
+ * Ustawienia importu: tryb zapisu i - w trybie MERGE - czy usuwać pracowników, których nie ma w pliku.
+ * Import na próbę ({@code dryRun}) tylko sprawdza plik i zwraca wynik, jaki dałby import, niczego nie zapisując.
+ * Import {@code checkpointed} jest zatwierdzany paczkami i można go wznowić, ale nie jest już atomowy - domyślnie
+ * cały import biegnie w jednej transakcji.
+ */
+public final class ImportOptions {
+    private static final ImportOptions REPLACE = new ImportOptions(ImportMode.REPLACE, false, false, false);
+
+    private final ImportMode mode;
+    private final boolean deleteMissing;
+    private final boolean dryRun;
+    private final boolean checkpointed;
+
+    private ImportOptions(ImportMode mode, boolean deleteMissing, boolean dryRun, boolean checkpointed) {
+        this.mode = mode;
+        this.deleteMissing = deleteMissing;
+        this.dryRun = dryRun;
+        this.checkpointed = checkpointed;
+    }
+
+    public static ImportOptions replace() {
+        return REPLACE;
+    }
+
+    public static ImportOptions merge(boolean deleteMissing) {
+        return new ImportOptions(ImportMode.MERGE, deleteMissing, false, false);
+    }
+
+    public static ImportOptions of(ImportMode mode, boolean deleteMissing) {
+        return mode == ImportMode.MERGE ? merge(deleteMissing) : replace();
+    }
+
+    public static ImportOptions of(ImportMode mode, boolean deleteMissing, boolean dryRun) {
+        ImportOptions options = of(mode, deleteMissing);
+        return dryRun ? options.asDryRun() : options;
+    }
+
+    /**
+     * Te same ustawienia, ale import tylko na próbę.
+     */
+    public ImportOptions asDryRun() {
+        return new ImportOptions(mode, deleteMissing, true, checkpointed);
+    }
+
+    /**
+     * Te same ustawienia, ale import zatwierdzany paczkami z punktami kontrolnymi, o ile plik na to pozwala.
+     * Nieudany import zostawia w bazie zatwierdzone paczki - w trybie REPLACE także usunięcie dawnych pracowników.
+     */
+    public ImportOptions asCheckpointed() {
+        return new ImportOptions(mode, deleteMissing, dryRun, true);
+    }
+
+    public ImportMode getMode() {
+        return mode;
+    }
+
+    public boolean isMerge() {
+        return mode == ImportMode.MERGE;
+    }
+
+    public boolean isDeleteMissing() {
+        return deleteMissing;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public boolean isCheckpointed() {
+        return checkpointed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ImportOptions)) return false;
+        ImportOptions that = (ImportOptions) o;
+        return deleteMissing == that.deleteMissing && dryRun == that.dryRun && checkpointed == that.checkpointed
+                && mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, deleteMissing, dryRun, checkpointed);
+    }
+
+    @Override
+    public String toString() {
+        return mode + (deleteMissing ? " (z usuwaniem brakujących)" : "") + (dryRun ? " - na próbę" : "")
+                + (checkpointed ? " - paczkami" : "");
+    }
+}
@@ -0,0 +1,447 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Potok importu w trzech etapach: wątek czytający dzieli rekordy pliku na paczki, pula walidacji równolegle
+ * parsuje i waliduje paczki, a zapis odbywa się w wątku wywołującym (w jego transakcji) w kolejności pliku.
+ * Liczba paczek w locie jest ograniczona, więc wolna baza wstrzymuje czytanie pliku zamiast zapełniać pamięć.
+ */
+@Component
+public class ImportPipeline {
+
+    private static final Future<ParsedChunk> END = CompletableFuture.completedFuture(null);
+
+    private final ThreadPoolExecutor validationExecutor;
+    private final ExecutorService readerExecutor;
+    private final ForkJoinPool splitPool;
+    private final int maxChunksInFlight;
+
+    @Autowired
+    public ImportPipeline(@Value("${app.import.validation-threads:0}") int validationThreads,
+                          @Value("${app.import.max-chunks-in-flight:8}") int maxChunksInFlight) {
+        int threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        this.validationExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("import-validation-"));
+        this.validationExecutor.allowCoreThreadTimeOut(true);
+        this.readerExecutor = Executors.newCachedThreadPool(daemonThreads("import-reader-"));
+        this.splitPool = new ForkJoinPool(threads, splitThreads(), null, false);
+        this.maxChunksInFlight = Math.max(1, maxChunksInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readerExecutor.shutdownNow();
+        validationExecutor.shutdownNow();
+        splitPool.shutdownNow();
+    }
+
+    /**
+     * Pula fork-join do czytania fragmentów pliku równolegle (zob. {@link #runSplits}).
+     */
+    ForkJoinPool splitPool() {
+        return splitPool;
+    }
+
+    /**
+     * Czyta rekordy i przekazuje je do potoku wraz z numerem linii (lub elementu) w pliku.
+     */
+    @FunctionalInterface
+    public interface RecordReader<R> {
+        void read(RecordSink<R> sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RecordSink<R> {
+        /**
+         * Blokuje, gdy w locie jest już maksymalna liczba paczek.
+         */
+        void accept(int lineNumber, R record) throws IOException;
+    }
+
+    /**
+     * Zamienia rekord na pracownika albo zapisuje błąd w {@code errors} i zwraca null. Wywoływany współbieżnie.
+     */
+    @FunctionalInterface
+    public interface RecordParser<R> {
+        Employee parse(int lineNumber, R record, ImportSummary errors);
+    }
+
+    /**
+     * Miejsce w pliku za rekordem, od którego można wznowić czytanie (zob. {@link ParsedChunk#getEndOffset()}).
+     */
+    public interface RecordPosition<R> {
+        /**
+         * Bajt pliku zaraz za rekordem albo -1, gdy czytnik go nie zna.
+         */
+        long endOffset(R record);
+
+        /**
+         * Numer linii następnego rekordu - większy o więcej niż 1, gdy rekord zajmuje kilka linii.
+         */
+        int nextLineNumber(int lineNumber, R record);
+
+        static <R> RecordPosition<R> unknown() {
+            return new RecordPosition<>() {
+                @Override
+                public long endOffset(R record) {
+                    return -1;
+                }
+
+                @Override
+                public int nextLineNumber(int lineNumber, R record) {
+                    return lineNumber + 1;
+                }
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChunkWriter {
+        void write(ParsedChunk chunk);
+    }
+
+    public static final class ParsedChunk {
+        private final List<Integer> lineNumbers;
+        private final List<Employee> employees;
+        private final ImportSummary errors;
+        private final int nextLineNumber;
+        private final long endOffset;
+
+        ParsedChunk(List<Integer> lineNumbers, List<Employee> employees, ImportSummary errors, int nextLineNumber, long endOffset) {
+            this.lineNumbers = lineNumbers;
+            this.employees = employees;
+            this.errors = errors;
+            this.nextLineNumber = nextLineNumber;
+            this.endOffset = endOffset;
+        }
+
+        public List<Integer> getLineNumbers() {
+            return lineNumbers;
+        }
+
+        public List<Employee> getEmployees() {
+            return employees;
+        }
+
+        public List<ImportSummary.ErrorEntry> getErrors() {
+            return errors.getErrors();
+        }
+
+        /**
+         * Numer linii pierwszego rekordu za paczką.
+         */
+        public int getNextLineNumber() {
+            return nextLineNumber;
+        }
+
+        /**
+         * Bajt pliku zaraz za ostatnim rekordem paczki albo -1, gdy nieznany.
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+    }
+
+    public <R> void run(int chunkSize, RecordReader<R> reader, RecordParser<R> parser, ChunkWriter writer) throws IOException {
+        run(chunkSize, reader, parser, RecordPosition.unknown(), writer);
+    }
+
+    /**
+     * Jak {@link #run(int, RecordReader, RecordParser, ChunkWriter)}, ale każda paczka niesie pozycję w pliku
+     * za swoim ostatnim rekordem, np. do zapisu punktu kontrolnego.
+     */
+    public <R> void run(int chunkSize, RecordReader<R> reader, RecordParser<R> parser, RecordPosition<R> position,
+                        ChunkWriter writer) throws IOException {
+        BlockingQueue<Future<ParsedChunk>> inFlight = new ArrayBlockingQueue<>(maxChunksInFlight + 1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Future<?> readerTask = readerExecutor.submit(() -> {
+            try {
+                ChunkingSink<R> sink = new ChunkingSink<>(chunkSize, parser, position, inFlight, cancelled);
+                reader.read(sink);
+                sink.finish();
+            } finally {
+                offer(inFlight, END, cancelled);
+            }
+            return null;
+        });
+
+        try {
+            while (true) {
+                Future<ParsedChunk> next = inFlight.take();
+                if (next == END) break;
+                writer.write(await(next));
+            }
+            await(readerTask);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(readerTask, inFlight, cancelled);
+            throw new InterruptedIOException("Import został przerwany");
+        } catch (IOException | RuntimeException | Error e) {
+            abort(readerTask, inFlight, cancelled);
+            throw e;
+        }
+    }
+
+    /**
+     * Wariant potoku dla pliku podzielonego na niezależne fragmenty: każdy fragment czyta, parsuje i waliduje
+     * osobne zadanie puli fork-join, więc równolegle idzie też czytanie, a nie tylko walidacja. Paczki trafiają
+     * do {@code writer} w wątku wywołującym, w kolejności fragmentów. Naraz biegnie najwyżej tyle fragmentów,
+     * ile wątków ma pula, a każdy trzyma najwyżej {@code maxChunksInFlight} gotowych paczek - fragment, na który
+     * {@code writer} jeszcze nie czeka, wstrzymuje czytanie zamiast buforować całą swoją część pliku.
+     */
+    public <R> void runSplits(int chunkSize, List<RecordReader<R>> splits, RecordParser<R> parser, ChunkWriter writer) throws IOException {
+        int maxSplitsInFlight = splitPool.getParallelism();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<Future<?>> tasks = new ArrayList<>(splits.size());
+        Deque<BlockingQueue<Future<ParsedChunk>>> pending = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < splits.size() || !pending.isEmpty()) {
+                while (next < splits.size() && pending.size() < maxSplitsInFlight) {
+                    BlockingQueue<Future<ParsedChunk>> chunks = new ArrayBlockingQueue<>(maxChunksInFlight);
+                    RecordReader<R> split = splits.get(next++);
+                    tasks.add(splitPool.submit(() -> parseSplit(chunkSize, split, parser, chunks, cancelled)));
+                    pending.add(chunks);
+                }
+                BlockingQueue<Future<ParsedChunk>> chunks = pending.removeFirst();
+                for (Future<ParsedChunk> chunk = chunks.take(); chunk != END; chunk = chunks.take()) {
+                    writer.write(await(chunk));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import został przerwany");
+        } finally {
+            cancelled.set(true);
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
+
+    /**
+     * Czyta fragment i odkłada jego paczki do {@code chunks}, na końcu {@link #END}. Błąd fragmentu trafia
+     * do kolejki na miejscu paczki, więc {@code writer} zgłasza go dopiero po paczkach sprzed błędu.
+     */
+    private static <R> void parseSplit(int chunkSize, RecordReader<R> reader, RecordParser<R> parser,
+                                       BlockingQueue<Future<ParsedChunk>> chunks, AtomicBoolean cancelled) {
+        try {
+            List<Integer> lineNumbers = new ArrayList<>(chunkSize);
+            List<R> records = new ArrayList<>(chunkSize);
+            reader.read((lineNumber, record) -> {
+                lineNumbers.add(lineNumber);
+                records.add(record);
+                if (records.size() >= chunkSize) {
+                    offerFromSplit(chunks, CompletableFuture.completedFuture(parse(parser, lineNumbers, records, lineNumber + 1, -1)), cancelled);
+                    lineNumbers.clear();
+                    records.clear();
+                }
+            });
+            if (!records.isEmpty()) {
+                offerFromSplit(chunks, CompletableFuture.completedFuture(
+                        parse(parser, lineNumbers, records, lineNumbers.get(lineNumbers.size() - 1) + 1, -1)), cancelled);
+            }
+            offerFromSplit(chunks, END, cancelled);
+        } catch (IOException | RuntimeException | Error e) {
+            try {
+                offerFromSplit(chunks, CompletableFuture.failedFuture(e), cancelled);
+            } catch (InterruptedIOException ignored) {
+                // import już przerwany - nikt nie czeka na ten fragment
+            }
+        }
+    }
+
+    /**
+     * Jak {@link #offer}, ale czekanie jest zgłaszane puli ({@link ForkJoinPool#managedBlock}), która w tym czasie
+     * może uruchomić dodatkowy wątek. Fragment, na który czeka {@code writer}, dostaje więc wątek także wtedy,
+     * gdy wszystkie wątki puli zajmują fragmenty czekające na swoją kolej (np. z dwóch importów naraz).
+     */
+    private static void offerFromSplit(BlockingQueue<Future<ParsedChunk>> queue, Future<ParsedChunk> chunk,
+                                       AtomicBoolean cancelled) throws InterruptedIOException {
+        ChunkOffer offer = new ChunkOffer(queue, chunk, cancelled);
+        try {
+            ForkJoinPool.managedBlock(offer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import został przerwany");
+        }
+        if (!offer.offered) {
+            throw new InterruptedIOException("Import został przerwany");
+        }
+    }
+
+    private static <R> ParsedChunk parse(RecordParser<R> parser, List<Integer> chunkLines, List<R> chunkRecords,
+                                         int nextLineNumber, long endOffset) {
+        // bez limitu próbki - błędy paczki są ograniczone jej rozmiarem, próbkowanie dopiero w wyniku importu
+        ImportSummary errors = new ImportSummary(Integer.MAX_VALUE);
+        List<Integer> validLines = new ArrayList<>(chunkRecords.size());
+        List<Employee> employees = new ArrayList<>(chunkRecords.size());
+        for (int i = 0; i < chunkRecords.size(); i++) {
+            Employee employee = parser.parse(chunkLines.get(i), chunkRecords.get(i), errors);
+            if (employee != null) {
+                validLines.add(chunkLines.get(i));
+                employees.add(employee);
+            }
+        }
+        return new ParsedChunk(validLines, employees, errors, nextLineNumber, endOffset);
+    }
+
+    private static void abort(Future<?> readerTask, BlockingQueue<Future<ParsedChunk>> inFlight, AtomicBoolean cancelled) {
+        cancelled.set(true);
+        readerTask.cancel(true);
+        List<Future<ParsedChunk>> pending = new ArrayList<>();
+        inFlight.drainTo(pending);
+        pending.forEach(future -> future.cancel(true));
+    }
+
+    private static <T> T await(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void offer(BlockingQueue<Future<ParsedChunk>> queue, Future<ParsedChunk> chunk,
+                              AtomicBoolean cancelled) throws InterruptedIOException {
+        try {
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (cancelled.get()) {
+                    throw new InterruptedIOException("Import został przerwany");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import został przerwany");
+        }
+    }
+
+    private static final class ChunkOffer implements ForkJoinPool.ManagedBlocker {
+        private final BlockingQueue<Future<ParsedChunk>> queue;
+        private final Future<ParsedChunk> chunk;
+        private final AtomicBoolean cancelled;
+        private boolean offered;
+
+        ChunkOffer(BlockingQueue<Future<ParsedChunk>> queue, Future<ParsedChunk> chunk, AtomicBoolean cancelled) {
+            this.queue = queue;
+            this.chunk = chunk;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!offered) {
+                offered = queue.offer(chunk, 100, TimeUnit.MILLISECONDS);
+            }
+            return offered || cancelled.get();
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!offered) {
+                offered = queue.offer(chunk);
+            }
+            return offered || cancelled.get();
+        }
+    }
+
+    private final class ChunkingSink<R> implements RecordSink<R> {
+        private final int chunkSize;
+        private final RecordParser<R> parser;
+        private final RecordPosition<R> position;
+        private final BlockingQueue<Future<ParsedChunk>> inFlight;
+        private final AtomicBoolean cancelled;
+        private List<Integer> lineNumbers;
+        private List<R> records;
+
+        ChunkingSink(int chunkSize, RecordParser<R> parser, RecordPosition<R> position,
+                     BlockingQueue<Future<ParsedChunk>> inFlight, AtomicBoolean cancelled) {
+            this.chunkSize = chunkSize;
+            this.parser = parser;
+            this.position = position;
+            this.inFlight = inFlight;
+            this.cancelled = cancelled;
+            reset();
+        }
+
+        @Override
+        public void accept(int lineNumber, R record) throws IOException {
+            lineNumbers.add(lineNumber);
+            records.add(record);
+            if (records.size() >= chunkSize) {
+                submit();
+            }
+        }
+
+        void finish() throws IOException {
+            if (!records.isEmpty()) {
+                submit();
+            }
+        }
+
+        private void submit() throws IOException {
+            List<Integer> chunkLines = lineNumbers;
+            List<R> chunkRecords = records;
+            int last = chunkRecords.size() - 1;
+            int nextLineNumber = position.nextLineNumber(chunkLines.get(last), chunkRecords.get(last));
+            long endOffset = position.endOffset(chunkRecords.get(last));
+            reset();
+            // Miejsce w kolejce rezerwujemy przed zleceniem walidacji - to ogranicza liczbę paczek w pamięci.
+            CompletableFuture<ParsedChunk> chunk = new CompletableFuture<>();
+            offer(inFlight, chunk, cancelled);
+            try {
+                validationExecutor.execute(() -> {
+                    try {
+                        chunk.complete(parse(parser, chunkLines, chunkRecords, nextLineNumber, endOffset));
+                    } catch (Throwable t) {
+                        chunk.completeExceptionally(t);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                chunk.completeExceptionally(e);
+            }
+        }
+
+        private void reset() {
+            lineNumbers = new ArrayList<>(chunkSize);
+            records = new ArrayList<>(chunkSize);
+        }
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory splitThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("import-split-" + counter.incrementAndGet());
+            return thread;
+        };
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
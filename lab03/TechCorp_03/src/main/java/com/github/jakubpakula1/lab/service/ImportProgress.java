@@ -0,0 +1,102 @@
+package com.github.jakubpakula1.lab.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Postęp pojedynczego importu: bajty przeczytane z pliku, rekordy przeczytane i zapisane.
+ * Aktualizowany przez wątki potoku, czytany przez API statusu; przez niego przekazywane jest też żądanie anulowania.
+ */
+public class ImportProgress {
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong recordsRead = new AtomicLong();
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private volatile long totalBytes = -1;
+    private volatile boolean cancelRequested;
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead.get();
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    /**
+     * Procent przeczytanego pliku (0-100) albo -1, gdy rozmiar nie jest znany.
+     */
+    public int getPercent() {
+        long total = totalBytes;
+        if (total <= 0) return -1;
+        return (int) Math.min(100, bytesRead.get() * 100 / total);
+    }
+
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Przerywa import wyjątkiem, jeśli zażądano anulowania - wyjątek wycofuje transakcję importu.
+     */
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Import został anulowany");
+        }
+    }
+
+    void recordRead() {
+        recordsRead.incrementAndGet();
+    }
+
+    void recordsWritten(int count) {
+        recordsWritten.addAndGet(count);
+    }
+
+    void bytesRead(long count) {
+        bytesRead.addAndGet(count);
+    }
+
+    InputStream track(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytesRead.incrementAndGet();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) bytesRead.addAndGet(n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                bytesRead.addAndGet(skipped);
+                return skipped;
+            }
+        };
+    }
+}
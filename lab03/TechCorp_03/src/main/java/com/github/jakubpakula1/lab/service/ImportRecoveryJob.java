@@ -0,0 +1,23 @@
+package com.github.jakubpakula1.lab.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wznawia przy starcie aplikacji importy przerwane zatrzymaniem albo awarią.
+ */
+@Component
+public class ImportRecoveryJob {
+
+    private final ImportJobService importJobService;
+
+    public ImportRecoveryJob(ImportJobService importJobService) {
+        this.importJobService = importJobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedImports() {
+        importJobService.resumeInterrupted();
+    }
+}
@@ -2,86 +2,218 @@ package com.github.jakubpakula1.lab.service;
 
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportFormat;
 import com.github.jakubpakula1.lab.model.ImportSummary;
 import com.github.jakubpakula1.lab.model.Position;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class ImportService {
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+    static final int CHUNK_SIZE = 1000;
+    private static final Set<String> EMPLOYEE_FIELDS = Set.of("name", "surname", "email", "company", "position", "salary", "status");
+    private static final String CSV_ERROR_PREFIX = "Error while processing row: ";
+    private static final String XML_ERROR_PREFIX = "Błąd przy przetwarzaniu elementu: ";
+    private static final String CSV_READ_ERROR = "Error reading CSV file: ";
+    private static final String XML_READ_ERROR = "Błąd przetwarzania XML: ";
+    private static final String JSON_ERROR_PREFIX = "Błąd przy przetwarzaniu obiektu: ";
+    private static final String JSON_READ_ERROR = "Błąd przetwarzania JSON: ";
+    private static final String ZIP_READ_ERROR = "Błąd przetwarzania archiwum ZIP: ";
+    private static final String DUPLICATE_EMAIL = "Employee with this email already exists!";
+    private static final Position[] POSITIONS = Position.values();
+    private static final ThreadLocal<CsvTokenizer> CSV_TOKENIZER = ThreadLocal.withInitial(CsvTokenizer::new);
+    /** Fragmentów na wątek przy sprawdzaniu pliku na próbę - wyrównuje nierówne tempo fragmentów. */
+    private static final int SPLITS_PER_THREAD = 4;
+
     private final EmployeeService employeeService;
+    private final Validator validator;
+    private final ImportPipeline pipeline;
+    private final ImportErrorReports errorReports;
+    private final ImportCheckpointService checkpoints;
 
-    public ImportService(EmployeeService employeeService) {
+    public ImportService(EmployeeService employeeService, Validator validator, ImportPipeline pipeline,
+                         ImportErrorReports errorReports) {
+        this(employeeService, validator, pipeline, errorReports, null);
+    }
+
+    @Autowired
+    public ImportService(EmployeeService employeeService, Validator validator, ImportPipeline pipeline,
+                         ImportErrorReports errorReports, ImportCheckpointService checkpoints) {
         this.employeeService = employeeService;
+        this.validator = validator;
+        this.pipeline = pipeline;
+        this.errorReports = errorReports;
+        this.checkpoints = checkpoints;
     }
-    @Transactional
+
+    /**
+     * Importuje pracowników z pliku CSV. Linie czyta osobny wątek, parsowanie i walidacja paczek biegną równolegle,
+     * a zapis - w tej transakcji i w kolejności pliku (zob. {@link ImportPipeline}).
+     */
+    @Transactional(rollbackFor = IOException.class)
     public ImportSummary importFromCsv(String filePath) throws IOException {
-        employeeService.deleteAllEmployees();
-        ImportSummary summary = new ImportSummary();
-        int importedEmployees = 0;
-        int lineNumber = 0;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-            lineNumber = 1;
-
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                try {
-                    String[] row = line.split(";");
-                    if (row.length < 6) {
-                        summary.addError(lineNumber, "Invalid number of columns in row");
-                        continue;
-                    }
+        return importFromCsv(filePath, ImportOptions.replace(), new ImportProgress());
+    }
 
-                    String firstName = row[0].trim();
-                    String lastName = row[1].trim();
-                    String email = row[2].trim();
-                    String company = row[3].trim();
-                    Position position;
-                    try {
-                        position = Position.valueOf(row[4].trim().toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        summary.addError(lineNumber, "Invalid position: " + row[4].trim());
-                        continue;
-                    }
+    /**
+     * Jak {@link #importFromCsv(String)}, ale w wybranym trybie ({@link ImportOptions}), z raportowaniem postępu
+     * i przerwaniem zapisu, gdy zażądano anulowania. Plik w UTF-8 jest mapowany do pamięci i dzielony na pola
+     * bez kopiowania ({@link MappedCsvReader}, {@link CsvTokenizer}); inne kodowania czyta {@code Reader}.
+     * Plik gzip albo zip jest rozpakowywany w locie.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromCsv(String filePath, ImportOptions options, ImportProgress progress) throws IOException {
+        return importFile(filePath, ImportFormat.CSV, options, progress);
+    }
 
-                    int salary;
-                    try {
-                        salary = Integer.parseInt(row[5].trim());
-                    } catch (NumberFormatException e) {
-                        summary.addError(lineNumber, "Invalid salary value: " + row[5].trim());
-                        continue;
-                    }
+    /**
+     * Importuje CSV prosto ze strumienia, np. z treści żądania HTTP, bez zapisu na dysk.
+     * Postęp liczony jest w bajtach strumienia. Strumień nie jest zamykany.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromCsv(InputStream input, Charset charset, ImportOptions options, ImportProgress progress) throws IOException {
+        return importFromCsv(new InputStreamReader(progress.track(input), charset), options, progress);
+    }
+
+    /**
+     * Importuje CSV z dowolnego źródła znaków. Źródło nie jest zamykane.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromCsv(Reader source, ImportOptions options, ImportProgress progress) throws IOException {
+        return importWith(options, progress, batch -> readCsv(source, batch, progress));
+    }
 
-                    Employee employee = new Employee(firstName, lastName, company, email, position, BigDecimal.valueOf(salary));
-                    employee.setStatus(EmploymentStatus.ACTIVE);
-                    employeeService.addEmployee(employee);
-                    importedEmployees++;
-                } catch (Exception e) {
-                    summary.addError(lineNumber, "Error while processing row: " + e.getMessage());
+    /**
+     * Czyta wiersze jak {@link MappedCsvReader}: nowa linia wewnątrz pola w cudzysłowie nie kończy wiersza,
+     * a numer linii wiersza to numer jego pierwszej linii w pliku.
+     */
+    private static void readCsvLines(Reader source, ImportPipeline.RecordSink<String> sink, ImportProgress progress) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        reader.readLine();
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int rowLineNumber = lineNumber;
+            if (endsInsideQuotes(line)) {
+                StringBuilder row = new StringBuilder(line);
+                String next;
+                while (endsInsideQuotes(row) && (next = reader.readLine()) != null) {
+                    lineNumber++;
+                    row.append('\n').append(next);
                 }
+                line = row.toString();
+            }
+            progress.recordRead();
+            sink.accept(rowLineNumber, line);
+        }
+    }
+
+    /**
+     * Czy wiersz kończy się w otwartym polu w cudzysłowie - cudzysłów otwiera pole tylko na jego początku.
+     */
+    private static boolean endsInsideQuotes(CharSequence row) {
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (c == ';') {
+                fieldStart = true;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c > ' ') {
+                fieldStart = false;
             }
-        } catch (IOException e) {
-            throw new IOException("Error reading CSV file: " + e.getMessage(), e);
         }
+        return quoted;
+    }
 
-        summary.setImportedEmployees(importedEmployees);
-        return summary;
+    /**
+     * Wiersz przeczytany przez {@code Reader} - dzielony tym samym {@link CsvTokenizer} co wiersz zmapowanego pliku.
+     */
+    private Employee parseCsvLine(int lineNumber, String line, ImportSummary errors) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parseCsvFields(lineNumber, CSV_TOKENIZER.get().split(ByteBuffer.wrap(bytes), 0, bytes.length), errors);
+    }
+
+    /**
+     * Wiersz zmapowanego pliku - bez napisu linii, tablicy pól i przyciętych kopii: powstają tylko napisy
+     * trafiające do pracownika.
+     */
+    private Employee parseCsvRow(int lineNumber, MappedCsvReader.Row row, ImportSummary errors) {
+        return parseCsvFields(lineNumber, CSV_TOKENIZER.get().split(row), errors);
+    }
+
+    private Employee parseCsvFields(int lineNumber, CsvTokenizer fields, ImportSummary errors) {
+        try {
+            if (fields.size() < 6) {
+                errors.addError(lineNumber, "Invalid number of columns in row");
+                return null;
+            }
+
+            Position position = fields.enumValue(4, POSITIONS);
+            if (position == null) {
+                errors.addError(lineNumber, "Invalid position: " + fields.string(4));
+                return null;
+            }
+
+            int salary;
+            try {
+                salary = fields.parseInt(5);
+            } catch (NumberFormatException e) {
+                errors.addError(lineNumber, "Invalid salary value: " + fields.string(5));
+                return null;
+            }
+
+            Employee employee = new Employee(fields.string(0), fields.string(1), fields.string(3), fields.string(2),
+                    position, BigDecimal.valueOf(salary));
+            employee.setStatus(EmploymentStatus.ACTIVE);
+            return validated(lineNumber, employee, errors, CSV_ERROR_PREFIX);
+        } catch (Exception e) {
+            errors.addError(lineNumber, CSV_ERROR_PREFIX + e.getClass().getSimpleName(), CSV_ERROR_PREFIX + e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -98,117 +230,777 @@ public class ImportService {
      *     <status>ACTIVE</status>
      *   </employee>
      * </employees>
+     * Plik jest czytany strumieniowo (StAX) - wątek czytający trzyma naraz tylko jeden element {@code <employee>}.
      */
-   @Transactional
+    @Transactional(rollbackFor = IOException.class)
     public ImportSummary importFromXml(String filePath) throws IOException {
-        employeeService.deleteAllEmployees();
-        ImportSummary summary = new ImportSummary();
-        int importedEmployees = 0;
-        int elementNumber = 0;
+        return importFromXml(filePath, ImportOptions.replace(), new ImportProgress());
+    }
 
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            factory.setXIncludeAware(false);
-            factory.setExpandEntityReferences(false);
-
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new File(filePath));
-
-            NodeList employees = doc.getElementsByTagName("employee");
-
-            for (int i = 0; i < employees.getLength(); i++) {
-                elementNumber = i + 1;
-                try {
-                    Element empElement = (Element) employees.item(i);
-
-                    String name = getElementValue(empElement, "name");
-                    String surname = getElementValue(empElement, "surname");
-                    String email = getElementValue(empElement, "email");
-                    String company = getElementValue(empElement, "company");
-                    String positionStr = getElementValue(empElement, "position");
-                    String salaryStr = getElementValue(empElement, "salary");
-
-                    if (name == null || name.trim().isEmpty()) {
-                        summary.addError(elementNumber, "Pole 'name' jest wymagane");
-                        continue;
-                    }
-                    if (surname == null || surname.trim().isEmpty()) {
-                        summary.addError(elementNumber, "Pole 'surname' jest wymagane");
-                        continue;
-                    }
-                    if (email == null || email.trim().isEmpty()) {
-                        summary.addError(elementNumber, "Pole 'email' jest wymagane");
-                        continue;
-                    }
-                    if (company == null || company.trim().isEmpty()) {
-                        summary.addError(elementNumber, "Pole 'company' jest wymagane");
-                        continue;
-                    }
+    /**
+     * Jak {@link #importFromXml(String)}, ale w wybranym trybie ({@link ImportOptions}), z raportowaniem postępu
+     * i przerwaniem zapisu, gdy zażądano anulowania.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromXml(String filePath, ImportOptions options, ImportProgress progress) throws IOException {
+        return importFile(filePath, ImportFormat.XML, options, progress);
+    }
 
-                    Position position;
-                    try {
-                        if (positionStr == null || positionStr.trim().isEmpty() || "None".equalsIgnoreCase(positionStr.trim())) {
-                            summary.addError(elementNumber, "Nieprawidłowa pozycja: " + positionStr);
-                            continue;
+    /**
+     * Importuje XML prosto ze strumienia, np. z treści żądania HTTP, bez zapisu na dysk. Strumień nie jest zamykany.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromXml(InputStream input, ImportOptions options, ImportProgress progress) throws IOException {
+        return importWith(options, progress, batch -> readXml(progress.track(input), batch, progress));
+    }
+
+    /**
+     * Importuje pracowników z pliku JSON: tablicy obiektów ({@code [{...}, {...}]}) albo NDJSON (obiekt w każdej linii).
+     * Pola jak w XML: name, surname, email, company, position, salary, status. Plik jest czytany strumieniowo
+     * ({@link JsonReader}) - wątek czytający trzyma naraz tylko jeden obiekt.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromJson(String filePath) throws IOException {
+        return importFromJson(filePath, ImportOptions.replace(), new ImportProgress());
+    }
+
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromJson(String filePath, ImportOptions options, ImportProgress progress) throws IOException {
+        return importFile(filePath, ImportFormat.JSON, options, progress);
+    }
+
+    /**
+     * Importuje JSON (UTF-8) prosto ze strumienia, np. z treści żądania HTTP. Strumień nie jest zamykany.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ImportSummary importFromJson(InputStream input, ImportOptions options, ImportProgress progress) throws IOException {
+        return importWith(options, progress, batch -> readJson(progress.track(input), batch, progress));
+    }
+
+    /**
+     * Import pliku z dysku. Plik gzip (np. {@code .csv.gz}) jest rozpakowywany w locie, a z archiwum zip
+     * importowane są po kolei wszystkie pliki CSV, XML i JSON (format po nazwie pliku w archiwum, pozostałe
+     * są pomijane) - w jednej transakcji, z jednym wynikiem i wspólnym sprawdzaniem powtórzonych emaili.
+     * Nic nie jest rozpakowywane na dysk, a postęp liczy się w bajtach pliku skompresowanego.
+     * Import na próbę ({@link ImportOptions#isDryRun()}) pliku CSV w UTF-8 dzieli plik na fragmenty czytane
+     * i walidowane równolegle ({@link #validateCsvSplits}).
+     */
+    private ImportSummary importFile(String filePath, ImportFormat format, ImportOptions options, ImportProgress progress) throws IOException {
+        String readError = readError(format);
+        Path path = resolve(filePath, progress, readError);
+        ImportCompression compression = compressionOf(path, readError);
+        return importWith(options, progress, batch -> {
+            switch (compression) {
+                case GZIP -> {
+                    try (InputStream input = ImportCompression.gunzip(open(path, progress, readError))) {
+                        read(format, input, batch, progress);
+                    }
+                }
+                case ZIP -> readZip(path, batch, progress);
+                default -> {
+                    if (format == ImportFormat.CSV && StandardCharsets.UTF_8.equals(Charset.defaultCharset())) {
+                        if (options.isDryRun()) {
+                            validateCsvSplits(path, batch, progress);
+                        } else {
+                            run(ImportFormat.CSV, batch, sink -> MappedCsvReader.read(path, sink, progress), this::parseCsvRow);
+                        }
+                    } else {
+                        try (InputStream input = open(path, progress, readError)) {
+                            read(format, input, batch, progress);
                         }
-                        position = Position.valueOf(positionStr.trim().toUpperCase());
-                    } catch (IllegalArgumentException | NullPointerException e) {
-                        summary.addError(elementNumber, "Nieprawidłowa pozycja: " + positionStr);
-                        continue;
                     }
+                }
+            }
+        });
+    }
 
-                    int salary;
-                    try {
-                        salary = Integer.parseInt(salaryStr.trim());
-                        if (salary < 0) {
-                            summary.addError(elementNumber, "Wynagrodzenie nie może być ujemne");
-                            continue;
-                        }
-                    } catch (NumberFormatException | NullPointerException e) {
-                        summary.addError(elementNumber, "Nieprawidłowa wartość wynagrodzenia: " + salaryStr);
-                        continue;
+    /**
+     * Import pliku zatwierdzany paczkami: każda paczka trafia do bazy w osobnej transakcji razem z punktem
+     * kontrolnym, więc przerwany import (awaria, restart) jest wznawiany za ostatnią zatwierdzoną paczką.
+     * Metoda celowo nie jest transakcyjna. Tryb REPLACE usuwa pracowników tylko przy pierwszym uruchomieniu,
+     * we własnej transakcji zatwierdzanej przed pierwszą paczką - błąd w dalszej części pliku tego nie cofa.
+     * Przy wznowieniu powtórzone emaile wykrywa zapytanie do bazy. Tryb MERGE nie odróżni w bazie powtórzenia
+     * od aktualizacji, więc przy wznowieniu emaile zatwierdzonych rekordów są odtwarzane z pliku. CSV w UTF-8
+     * wznawia czytanie od bajtu z punktu kontrolnego, pozostałe formaty czytają plik od początku i pomijają
+     * zatwierdzone rekordy.
+     * Archiwa zip i usuwanie brakujących pracowników wymagają importu w jednej transakcji.
+     */
+    public ImportSummary importWithCheckpoints(ImportCheckpoint checkpoint, ImportOptions options, ImportProgress progress) throws IOException {
+        if (checkpoints == null) {
+            throw new IllegalStateException("Import z punktami kontrolnymi nie jest skonfigurowany");
+        }
+        ImportFormat format = checkpoint.getFormat();
+        String readError = readError(format);
+        Path path = resolve(checkpoint.getFilePath(), progress, readError);
+        ImportCompression compression = compressionOf(path, readError);
+        if (!supportsCheckpoints(compression, options)) {
+            throw new IllegalArgumentException("Ten import wymaga jednej transakcji i nie może być zatwierdzany paczkami");
+        }
+        if (!checkpoint.isStarted() && !options.isMerge()) {
+            employeeService.deleteAllEmployees();
+        }
+        ImportBatch batch = new ImportBatch(options, progress, checkpoint);
+
+        try {
+            if (compression == ImportCompression.GZIP) {
+                try (InputStream input = ImportCompression.gunzip(open(path, progress, readError))) {
+                    read(format, input, batch, progress);
+                }
+            } else if (format == ImportFormat.CSV && StandardCharsets.UTF_8.equals(Charset.defaultCharset())) {
+                boolean seek = checkpoint.isStarted() && checkpoint.getByteOffset() > 0;
+                long offset = seek ? checkpoint.getByteOffset() : 0;
+                int lineNumber = seek ? checkpoint.getNextLineNumber() : 1;
+                if (seek && batch.tracksCommittedEmails()) {
+                    MappedCsvReader.readBefore(path, offset,
+                            (committedLine, row) -> batch.seenBeforeResume(parseCsvRow(committedLine, row, new ImportSummary())));
+                }
+                run(ImportFormat.CSV, batch, sink -> MappedCsvReader.read(path, sink, progress, offset, lineNumber),
+                        MappedCsvReader.POSITION, this::parseCsvRow);
+            } else {
+                try (InputStream input = open(path, progress, readError)) {
+                    read(format, input, batch, progress);
+                }
+            }
+            return batch.finish();
+        } finally {
+            batch.close();
+        }
+    }
+
+    /**
+     * Czy plik można importować paczkami z punktami kontrolnymi (zob. {@link #importWithCheckpoints}).
+     */
+    public boolean supportsCheckpoints(Path file, ImportOptions options) throws IOException {
+        return supportsCheckpoints(ImportCompression.of(file), options);
+    }
+
+    private static boolean supportsCheckpoints(ImportCompression compression, ImportOptions options) {
+        return compression != ImportCompression.ZIP && !options.isDeleteMissing() && !options.isDryRun();
+    }
+
+    /**
+     * Sprawdzenie pliku CSV na próbę: plik jest dzielony na fragmenty na granicach wierszy, a każdy fragment
+     * czyta, parsuje i waliduje osobne zadanie puli fork-join ({@link ImportPipeline#runSplits}). Powtórzone
+     * emaile sprawdza potem {@link ImportBatch} w kolejności pliku - numery linii i błędy są takie jak przy imporcie.
+     */
+    private void validateCsvSplits(Path path, ImportBatch batch, ImportProgress progress) throws IOException {
+        batch.setErrorPrefix(CSV_ERROR_PREFIX);
+        try {
+            List<MappedCsvReader.Split> splits = MappedCsvReader.split(path,
+                    pipeline.splitPool().getParallelism() * SPLITS_PER_THREAD, pipeline.splitPool());
+            // nagłówek jest czytany tylko przy dzieleniu pliku
+            progress.bytesRead(splits.isEmpty() ? Files.size(path) : splits.get(0).getStart());
+            List<ImportPipeline.RecordReader<MappedCsvReader.Row>> readers = new ArrayList<>(splits.size());
+            for (MappedCsvReader.Split split : splits) {
+                readers.add(sink -> MappedCsvReader.read(path, split, sink, progress));
+            }
+            pipeline.runSplits(CHUNK_SIZE, readers, this::parseCsvRow, batch::write);
+        } catch (IOException e) {
+            throw new IOException(CSV_READ_ERROR + e.getMessage(), e);
+        }
+    }
+
+    private void readZip(Path path, ImportBatch batch, ImportProgress progress) throws IOException {
+        int imported = 0;
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(open(path, progress, ZIP_READ_ERROR)))) {
+            ZipEntry entry;
+            while ((entry = nextEntry(zip)) != null) {
+                ImportFormat format = ImportFormat.ofFileName(entry.getName());
+                if (entry.isDirectory() || format == null || isHidden(entry.getName())) {
+                    log.info("Pominięto plik archiwum importu: {}", entry.getName());
+                    continue;
+                }
+                batch.startSource(entry.getName());
+                if (entry.getName().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+                    try (InputStream input = ImportCompression.gunzip(ImportCompression.nonClosing(zip))) {
+                        read(format, input, batch, progress);
                     }
+                } else {
+                    read(format, ImportCompression.nonClosing(zip), batch, progress);
+                }
+                imported++;
+            }
+        }
+        if (imported == 0) {
+            batch.startSource(null);
+            batch.addError(new ImportSummary.ErrorEntry(0, ZIP_READ_ERROR + "archiwum nie zawiera plików CSV, XML ani JSON"));
+        }
+    }
 
-                    Employee employee = new Employee(name.trim(), surname.trim(), company.trim(), email.trim(), position, BigDecimal.valueOf(salary));
+    private static ImportCompression compressionOf(Path path, String errorPrefix) throws IOException {
+        try {
+            return ImportCompression.of(path);
+        } catch (IOException e) {
+            throw new IOException(errorPrefix + e.getMessage(), e);
+        }
+    }
 
-                    String statusStr = getElementValue(empElement, "status");
-                    EmploymentStatus status = EmploymentStatus.ACTIVE;
-                    if (statusStr != null && !statusStr.trim().isEmpty()) {
-                        try {
-                            status = EmploymentStatus.valueOf(statusStr.trim().toUpperCase());
-                        } catch (IllegalArgumentException e) {
-                            summary.addError(elementNumber, "Nieprawidłowy status: " + statusStr.trim());
-                            continue;
-                        }
+    private static ZipEntry nextEntry(ZipInputStream zip) throws IOException {
+        try {
+            return zip.getNextEntry();
+        } catch (IOException e) {
+            throw new IOException(ZIP_READ_ERROR + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pliki ukryte i metadane dodawane przez archiwizatory (np. {@code __MACOSX/._plik.csv}).
+     */
+    private static boolean isHidden(String entryName) {
+        String name = entryName.substring(entryName.lastIndexOf('/') + 1);
+        return name.startsWith(".") || entryName.startsWith("__MACOSX/");
+    }
+
+    @FunctionalInterface
+    private interface BatchImport {
+        void run(ImportBatch batch) throws IOException;
+    }
+
+    private ImportSummary importWith(ImportOptions options, ImportProgress progress, BatchImport action) throws IOException {
+        if (!options.isMerge() && !options.isDryRun()) {
+            employeeService.deleteAllEmployees();
+        }
+        ImportBatch batch = new ImportBatch(options, progress);
+
+        try {
+            action.run(batch);
+            return batch.finish();
+        } finally {
+            batch.close();
+        }
+    }
+
+    private void read(ImportFormat format, InputStream input, ImportBatch batch, ImportProgress progress) throws IOException {
+        switch (format) {
+            case CSV -> readCsv(new InputStreamReader(input, Charset.defaultCharset()), batch, progress);
+            case XML -> readXml(input, batch, progress);
+            case JSON -> readJson(input, batch, progress);
+        }
+    }
+
+    private void readCsv(Reader source, ImportBatch batch, ImportProgress progress) throws IOException {
+        run(ImportFormat.CSV, batch, sink -> readCsvLines(source, sink, progress), this::parseCsvLine);
+    }
+
+    private void readXml(InputStream input, ImportBatch batch, ImportProgress progress) throws IOException {
+        this.<Map<String, String>>run(ImportFormat.XML, batch, sink -> readXmlElements(input, sink, progress), this::parseXmlElement);
+    }
+
+    private void readJson(InputStream input, ImportBatch batch, ImportProgress progress) throws IOException {
+        this.<Map<String, String>>run(ImportFormat.JSON, batch, sink -> readJsonObjects(input, sink, progress), this::parseJsonObject);
+    }
+
+    private <R> void run(ImportFormat format, ImportBatch batch, ImportPipeline.RecordReader<R> reader,
+                         ImportPipeline.RecordParser<R> parser) throws IOException {
+        run(format, batch, reader, ImportPipeline.RecordPosition.unknown(), parser);
+    }
+
+    private <R> void run(ImportFormat format, ImportBatch batch, ImportPipeline.RecordReader<R> reader,
+                         ImportPipeline.RecordPosition<R> position, ImportPipeline.RecordParser<R> parser) throws IOException {
+        batch.setErrorPrefix(errorPrefix(format));
+        int resumeFrom = batch.getResumeLineNumber();
+        // przy wznowieniu bez pozycji w pliku rekordy sprzed punktu kontrolnego są czytane, ale nie trafiają do potoku
+        ImportPipeline.RecordReader<R> resumed = resumeFrom <= 1 ? reader
+                : sink -> reader.read((lineNumber, record) -> {
+                    if (lineNumber >= resumeFrom) {
+                        sink.accept(lineNumber, record);
+                    } else if (batch.tracksCommittedEmails()) {
+                        batch.seenBeforeResume(parser.parse(lineNumber, record, new ImportSummary()));
                     }
+                });
+        try {
+            pipeline.run(CHUNK_SIZE, resumed, parser, position, batch::write);
+        } catch (IOException e) {
+            String source = batch.getSource() != null ? batch.getSource() + ": " : "";
+            throw new IOException(readError(format) + source + e.getMessage(), e);
+        }
+    }
 
-                    employee.setStatus(status);
-                    employeeService.addEmployee(employee);
-                    importedEmployees++;
+    private static String errorPrefix(ImportFormat format) {
+        return switch (format) {
+            case CSV -> CSV_ERROR_PREFIX;
+            case XML -> XML_ERROR_PREFIX;
+            case JSON -> JSON_ERROR_PREFIX;
+        };
+    }
+
+    private static String readError(ImportFormat format) {
+        return switch (format) {
+            case CSV -> CSV_READ_ERROR;
+            case XML -> XML_READ_ERROR;
+            case JSON -> JSON_READ_ERROR;
+        };
+    }
 
-                } catch (Exception e) {
-                    summary.addError(elementNumber, "Błąd przy przetwarzaniu elementu: " + e.getMessage());
+    /**
+     * Czyta kolejne obiekty z tablicy na najwyższym poziomie albo, gdy plik nie zaczyna się od {@code [},
+     * kolejne wartości najwyższego poziomu (NDJSON - czytnik w trybie lenient przyjmuje ich wiele).
+     */
+    private static void readJsonObjects(InputStream input, ImportPipeline.RecordSink<Map<String, String>> sink, ImportProgress progress) throws IOException {
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        reader.setLenient(true);
+        try {
+            JsonToken first;
+            try {
+                first = reader.peek();
+            } catch (EOFException e) {
+                return; // pusty plik
+            }
+            boolean array = first == JsonToken.BEGIN_ARRAY;
+            if (array) {
+                reader.beginArray();
+            }
+            int objectNumber = 0;
+            while (array ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT) {
+                objectNumber++;
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    throw new IOException("Oczekiwano obiektu pracownika w rekordzie " + objectNumber + ", a jest " + reader.peek());
                 }
+                progress.recordRead();
+                sink.accept(objectNumber, readJsonFields(reader));
+            }
+            if (array) {
+                reader.endArray();
             }
-        } catch (ParserConfigurationException | SAXException | IOException e) {
-            throw new IOException("Błąd przetwarzania XML: " + e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pola bieżącego obiektu; jak w XML liczy się pierwsze wystąpienie, wartości zagnieżdżone i null są pomijane.
+     */
+    private static Map<String, String> readJsonFields(JsonReader reader) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (!EMPLOYEE_FIELDS.contains(name) || fields.containsKey(name)
+                    || token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY || token == JsonToken.NULL) {
+                reader.skipValue();
+            } else if (token == JsonToken.BOOLEAN) {
+                fields.put(name, String.valueOf(reader.nextBoolean()));
+            } else {
+                fields.put(name, reader.nextString());
+            }
+        }
+        reader.endObject();
+        return fields;
+    }
+
+    private static void readXmlElements(InputStream input, ImportPipeline.RecordSink<Map<String, String>> sink, ImportProgress progress) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = createXmlInputFactory().createXMLStreamReader(new BufferedInputStream(input));
+            int elementNumber = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.DTD) {
+                    throw new XMLStreamException("Deklaracja DOCTYPE jest niedozwolona");
+                }
+                if (event == XMLStreamConstants.START_ELEMENT && "employee".equals(reader.getLocalName())) {
+                    elementNumber++;
+                    progress.recordRead();
+                    sink.accept(elementNumber, readEmployeeFields(reader));
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private static InputStream open(Path path, ImportProgress progress, String errorPrefix) throws IOException {
+        try {
+            return progress.track(Files.newInputStream(path));
+        } catch (IOException e) {
+            throw new IOException(errorPrefix + e.getMessage(), e);
         }
+    }
+
+    private static Path resolve(String filePath, ImportProgress progress, String errorPrefix) throws IOException {
+        try {
+            Path path = Path.of(filePath);
+            progress.setTotalBytes(Files.size(path));
+            return path;
+        } catch (IOException | InvalidPathException e) {
+            throw new IOException(errorPrefix + e.getMessage(), e);
+        }
+    }
 
-        summary.setImportedEmployees(importedEmployees);
-        return summary;
+    private Employee parseXmlElement(int elementNumber, Map<String, String> fields, ImportSummary errors) {
+        return parseFields(elementNumber, fields, errors, XML_ERROR_PREFIX);
+    }
+
+    private Employee parseJsonObject(int objectNumber, Map<String, String> fields, ImportSummary errors) {
+        return parseFields(objectNumber, fields, errors, JSON_ERROR_PREFIX);
+    }
+
+    private Employee parseFields(int recordNumber, Map<String, String> fields, ImportSummary errors, String errorPrefix) {
+        try {
+            Employee employee = toEmployee(fields, recordNumber, errors);
+            return employee == null ? null : validated(recordNumber, employee, errors, errorPrefix);
+        } catch (Exception e) {
+            errors.addError(recordNumber, errorPrefix + e.getClass().getSimpleName(), errorPrefix + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Pomocnicza metoda do pobierania wartości elementu XML.
+     * Fabryka StAX z wyłączonym DTD i encjami zewnętrznymi (ochrona przed XXE).
      */
-    private String getElementValue(Element parent, String tagName) {
-        NodeList nodes = parent.getElementsByTagName(tagName);
-        if (nodes.getLength() > 0) {
-            return nodes.item(0).getTextContent();
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Czyta pola bieżącego elementu {@code <employee>} aż do jego znacznika zamykającego.
+     * Jak wcześniej w DOM liczy się pierwsze wystąpienie pola, a jego wartością jest cały tekst wewnątrz.
+     */
+    private static Map<String, String> readEmployeeFields(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> fields = new HashMap<>();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (EMPLOYEE_FIELDS.contains(name) && !fields.containsKey(name)) {
+                    fields.put(name, readText(reader));
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return fields;
+    }
+
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return text.toString();
+    }
+
+    private Employee toEmployee(Map<String, String> fields, int elementNumber, ImportSummary summary) {
+        String name = fields.get("name");
+        String surname = fields.get("surname");
+        String email = fields.get("email");
+        String company = fields.get("company");
+        String positionStr = fields.get("position");
+        String salaryStr = fields.get("salary");
+
+        if (name == null || name.trim().isEmpty()) {
+            summary.addError(elementNumber, "Pole 'name' jest wymagane");
+            return null;
+        }
+        if (surname == null || surname.trim().isEmpty()) {
+            summary.addError(elementNumber, "Pole 'surname' jest wymagane");
+            return null;
+        }
+        if (email == null || email.trim().isEmpty()) {
+            summary.addError(elementNumber, "Pole 'email' jest wymagane");
+            return null;
+        }
+        if (company == null || company.trim().isEmpty()) {
+            summary.addError(elementNumber, "Pole 'company' jest wymagane");
+            return null;
+        }
+
+        Position position;
+        try {
+            if (positionStr == null || positionStr.trim().isEmpty() || "None".equalsIgnoreCase(positionStr.trim())) {
+                summary.addError(elementNumber, "Nieprawidłowa pozycja: " + positionStr);
+                return null;
+            }
+            position = Position.valueOf(positionStr.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            summary.addError(elementNumber, "Nieprawidłowa pozycja: " + positionStr);
+            return null;
+        }
+
+        int salary;
+        try {
+            salary = Integer.parseInt(salaryStr.trim());
+            if (salary < 0) {
+                summary.addError(elementNumber, "Wynagrodzenie nie może być ujemne");
+                return null;
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            summary.addError(elementNumber, "Nieprawidłowa wartość wynagrodzenia: " + salaryStr);
+            return null;
+        }
+
+        Employee employee = new Employee(name.trim(), surname.trim(), company.trim(), email.trim(), position, BigDecimal.valueOf(salary));
+
+        String statusStr = fields.get("status");
+        EmploymentStatus status = EmploymentStatus.ACTIVE;
+        if (statusStr != null && !statusStr.trim().isEmpty()) {
+            try {
+                status = EmploymentStatus.valueOf(statusStr.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                summary.addError(elementNumber, "Nieprawidłowy status: " + statusStr.trim());
+                return null;
+            }
         }
+
+        employee.setStatus(status);
+        return employee;
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader == null) return;
+        try {
+            reader.close();
+        } catch (XMLStreamException ignored) {
+            // strumień wejściowy zamyka ten, kto go otworzył
+        }
+    }
+
+    private Employee validated(int lineNumber, Employee employee, ImportSummary errors, String errorPrefix) {
+        if (validator == null) return employee;
+
+        Set<ConstraintViolation<Employee>> violations = validator.validate(employee);
+        if (violations.isEmpty()) return employee;
+
+        // typ błędu to lista niepoprawnych pól, bez komunikatów - żeby liczniki grupowały podobne wiersze
+        errors.addError(lineNumber,
+                errorPrefix + violations.stream()
+                        .map(v -> v.getPropertyPath().toString())
+                        .distinct()
+                        .sorted()
+                        .collect(Collectors.joining(", ")),
+                errorPrefix + violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
         return null;
     }
+
+    /**
+     * Etap zapisu: wykrywanie powtórzonych emaili i zapis paczki batchami JDBC. W trybie REPLACE emaile
+     * są sprawdzane w bazie jednym zapytaniem na paczkę, w trybie MERGE istniejący pracownik jest aktualizowany.
+     * Import na próbę niczego nie zapisuje: emaile pracowników z bazy są czytane raz, na początku (potrzebne
+     * tylko w trybie MERGE - REPLACE i tak usunąłby wszystkich), a paczki są tylko liczone.
+     * Wywoływany w wątku transakcji, paczki przychodzą w kolejności pliku.
+     */
+    private final class ImportBatch {
+        private final ImportSummary summary;
+        private final ImportErrorReports.Report report;
+        private final ImportOptions options;
+        private final ImportProgress progress;
+        private final ImportCheckpoint checkpoint;
+        private final Set<String> seenEmails = new HashSet<>();
+        private final Set<String> storedEmails;
+        private String errorPrefix;
+        private String source;
+        private int inserted;
+        private int updated;
+        private int unchanged;
+        private boolean finished;
+
+        ImportBatch(ImportOptions options, ImportProgress progress) {
+            this.summary = errorReports != null ? errorReports.newSummary() : new ImportSummary();
+            this.report = errorReports != null ? errorReports.create() : null;
+            this.options = options;
+            this.progress = progress;
+            this.checkpoint = null;
+            this.storedEmails = options.isDryRun() && options.isMerge() ? employeeService.getAllEmails() : Collections.emptySet();
+        }
+
+        /**
+         * Paczki zatwierdzane osobno razem z punktem kontrolnym. Przy wznowieniu liczniki wracają z punktu
+         * kontrolnego, a błędy (liczniki typów i próbka) - z raportu obciętego do zatwierdzonej długości.
+         */
+        ImportBatch(ImportOptions options, ImportProgress progress, ImportCheckpoint checkpoint) throws IOException {
+            this.summary = errorReports != null ? errorReports.newSummary() : new ImportSummary();
+            this.report = errorReports != null
+                    ? errorReports.resume(checkpoint.getErrorReportId(), checkpoint.getErrorReportBytes()) : null;
+            this.options = options;
+            this.progress = progress;
+            this.checkpoint = checkpoint;
+            this.storedEmails = Collections.emptySet();
+            if (report != null && report.getId() != null) {
+                errorReports.replay(report.getId(), summary::addError);
+            }
+            inserted = checkpoint.getInsertedEmployees();
+            updated = checkpoint.getUpdatedEmployees();
+            unchanged = checkpoint.getUnchangedEmployees();
+            progress.recordsWritten(inserted + updated + unchanged);
+        }
+
+        /**
+         * Numer rekordu, od którego wznowić import, albo 0 przy imporcie od początku.
+         */
+        int getResumeLineNumber() {
+            return checkpoint != null ? checkpoint.getNextLineNumber() : 0;
+        }
+
+        /**
+         * Czy przy wznowieniu trzeba odtworzyć emaile zatwierdzonych rekordów. W trybie REPLACE powtórzenie
+         * wykrywa zapytanie do bazy, w trybie MERGE bez nich duplikat sprzed przerwy nadpisałby pracownika bez błędu.
+         */
+        boolean tracksCommittedEmails() {
+            return checkpoint != null && checkpoint.isStarted() && options.isMerge();
+        }
+
+        /**
+         * Rekord zatwierdzony przed wznowieniem - ponownie sparsowany, żeby {@code seenEmails} było takie jak przed przerwą.
+         */
+        void seenBeforeResume(Employee employee) {
+            if (employee != null) {
+                seenEmails.add(employee.getEmail());
+            }
+        }
+
+        void setErrorPrefix(String errorPrefix) {
+            this.errorPrefix = errorPrefix;
+        }
+
+        /**
+         * Kolejny plik z archiwum - numery linii zaczynają się od nowa, więc błędy są oznaczane nazwą pliku.
+         */
+        void startSource(String source) {
+            this.source = source;
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        void write(ImportPipeline.ParsedChunk chunk) {
+            progress.checkCancelled();
+            if (checkpoint == null) {
+                writeChunk(chunk);
+                return;
+            }
+            checkpoints.commit(checkpoint, () -> {
+                writeChunk(chunk);
+                checkpoint.advance(chunk.getNextLineNumber(), chunk.getEndOffset());
+                checkpoint.setCounts(inserted, updated, unchanged);
+                checkpoint.setErrorCount(summary.getErrorCount());
+                if (report != null) {
+                    checkpoint.setErrorReport(report.getId(), report.flush());
+                }
+            });
+        }
+
+        private void writeChunk(ImportPipeline.ParsedChunk chunk) {
+            List<ImportSummary.ErrorEntry> errors = new ArrayList<>(chunk.getErrors());
+            writeEmployees(chunk, errors);
+            // paczki przychodzą po kolei, więc po posortowaniu paczki cały raport jest w kolejności pliku
+            errors.sort(Comparator.comparingInt(ImportSummary.ErrorEntry::getLineNumber));
+            errors.forEach(this::addError);
+        }
+
+        private void writeEmployees(ImportPipeline.ParsedChunk chunk, List<ImportSummary.ErrorEntry> errors) {
+            List<Employee> employees = chunk.getEmployees();
+            if (employees.isEmpty()) return;
+
+            Set<String> existingEmails = options.isMerge() || options.isDryRun() ? Collections.emptySet() : employeeService.findExistingEmails(
+                    employees.stream().map(Employee::getEmail).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+            List<Employee> valid = new ArrayList<>(employees.size());
+            for (int i = 0; i < employees.size(); i++) {
+                Employee employee = employees.get(i);
+                if (existingEmails.contains(employee.getEmail()) || !seenEmails.add(employee.getEmail())) {
+                    errors.add(new ImportSummary.ErrorEntry(chunk.getLineNumbers().get(i), DUPLICATE_EMAIL, errorPrefix + DUPLICATE_EMAIL));
+                    continue;
+                }
+                valid.add(employee);
+            }
+
+            if (options.isDryRun()) {
+                count(valid);
+            } else if (options.isMerge()) {
+                EmployeeService.MergeResult result = employeeService.mergeImportChunk(valid);
+                inserted += result.getInserted();
+                updated += result.getUpdated();
+                unchanged += result.getUnchanged();
+            } else {
+                inserted += employeeService.saveImportChunk(valid);
+            }
+            progress.recordsWritten(valid.size());
+        }
+
+        /**
+         * Import na próbę: pracownik z bazy liczy się jako aktualizowany, bez porównywania pól.
+         */
+        private void count(List<Employee> valid) {
+            for (Employee employee : valid) {
+                if (storedEmails.contains(employee.getEmail())) {
+                    updated++;
+                } else {
+                    inserted++;
+                }
+            }
+        }
+
+        private void addError(ImportSummary.ErrorEntry error) {
+            if (source != null) {
+                error = new ImportSummary.ErrorEntry(error.getLineNumber(), error.getType(), error.getErrorMessage(), source);
+            }
+            summary.addError(error);
+            if (report != null) {
+                report.write(error);
+            }
+        }
+
+        ImportSummary finish() {
+            if (options.isDeleteMissing()) {
+                // wiersz z błędem nie trafia do seenEmails - usunięcie "brakujących" skasowałoby takiego pracownika
+                if (summary.getErrorCount() == 0) {
+                    summary.setDeletedEmployees(options.isDryRun()
+                            ? (int) storedEmails.stream().filter(email -> !seenEmails.contains(email)).count()
+                            : employeeService.deleteEmployeesNotIn(seenEmails));
+                } else {
+                    source = null;
+                    addError(new ImportSummary.ErrorEntry(0, "Pominięto usuwanie pracowników spoza pliku, bo plik zawiera błędy"));
+                }
+            }
+            // próbka jest już w kolejności plików, na początek trafiają tylko błędy całego importu (linia 0)
+            summary.getErrors().sort(Comparator.comparing(error -> error.getLineNumber() != 0));
+            summary.setInsertedEmployees(inserted);
+            summary.setUpdatedEmployees(updated);
+            summary.setUnchangedEmployees(unchanged);
+            summary.setImportedEmployees(inserted + updated + unchanged);
+            summary.setDryRun(options.isDryRun());
+            if (report != null) {
+                report.close();
+                summary.setErrorReportId(report.getId());
+            }
+            finished = true;
+            return summary;
+        }
+
+        /**
+         * Raport nieudanego importu jest usuwany - jego wynik nigdy nie zostanie pokazany. Import z punktem
+         * kontrolnym zachowuje raport, bo po wznowieniu będzie dopisywany dalej.
+         */
+        void close() {
+            if (report == null) return;
+            if (finished || checkpoint != null) {
+                report.close();
+            } else {
+                report.delete();
+            }
+        }
+    }
 }
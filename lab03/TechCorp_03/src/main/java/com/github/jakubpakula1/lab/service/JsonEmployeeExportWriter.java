@@ -0,0 +1,75 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.google.gson.stream.JsonWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Tablica JSON obiektów pracowników z polami jak w imporcie JSON. Zapis przez {@link JsonWriter} - obiekt po obiekcie.
+ */
+@Component
+public class JsonEmployeeExportWriter implements EmployeeExportWriter {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String getFormat() {
+        return "json";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/json";
+    }
+
+    @Override
+    public void write(Iterator<EmployeeExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonWriter json = new JsonWriter(writer);
+        json.beginArray();
+        while (rows.hasNext()) {
+            writeEmployee(json, rows.next());
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    /**
+     * Obiekt pracownika bez pustych pól. Pensja jako liczba w zapisie dziesiętnym, bez zbędnych zer po przecinku.
+     * Wiersze eksportu zmian mają dodatkowo numer i czas zmiany, a usunięci pracownicy {@code "deleted":true}.
+     */
+    static void writeEmployee(JsonWriter json, EmployeeExportRow row) throws IOException {
+        json.beginObject();
+        writeField(json, "name", row.getName());
+        writeField(json, "surname", row.getSurname());
+        writeField(json, "email", row.getEmail());
+        writeField(json, "company", row.getCompany());
+        writeField(json, "position", row.getPosition() != null ? row.getPosition().name() : null);
+        if (row.getSalary() != null) {
+            json.name("salary").jsonValue(row.getSalary().stripTrailingZeros().toPlainString());
+        }
+        writeField(json, "status", row.getStatus() != null ? row.getStatus().name() : null);
+        if (row.getChangeVersion() != null) {
+            json.name("version").value(row.getChangeVersion());
+        }
+        writeField(json, "changedAt", row.getChangedAt() != null ? row.getChangedAt().toString() : null);
+        if (row.isDeleted()) {
+            json.name("deleted").value(true);
+        }
+        json.endObject();
+    }
+
+    private static void writeField(JsonWriter json, String name, String value) throws IOException {
+        if (value != null) {
+            json.name(name).value(value);
+        }
+    }
+}
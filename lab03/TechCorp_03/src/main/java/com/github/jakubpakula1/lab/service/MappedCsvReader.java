@@ -0,0 +1,383 @@
+package com.github.jakubpakula1.lab.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Dzieli plik CSV na wiersze bez kopiowania danych: plik jest mapowany do pamięci oknami, a każdy wiersz
+ * to tylko zakres bajtów w zmapowanym buforze ({@link Row}). Pola wiersza wyciąga {@link CsvTokenizer}.
+ * Końce linii jak w {@code BufferedReader.readLine()} ({@code \n}, {@code \r}, {@code \r\n}), z tą różnicą,
+ * że znak nowej linii wewnątrz pola w cudzysłowie nie kończy wiersza.
+ */
+public final class MappedCsvReader {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+    /** Mniejszych fragmentów nie opłaca się czytać osobno. */
+    static final long MIN_SPLIT_SIZE = 1024 * 1024;
+    private static final int LINE_SEARCH_BUFFER_SIZE = 8 * 1024;
+    private static final ImportPipeline.RecordSink<Row> NO_ROWS = (lineNumber, row) -> { };
+
+    /**
+     * Pozycja za wierszem dla punktów kontrolnych importu.
+     */
+    static final ImportPipeline.RecordPosition<Row> POSITION = new ImportPipeline.RecordPosition<>() {
+        @Override
+        public long endOffset(Row row) {
+            return row.endOffset;
+        }
+
+        @Override
+        public int nextLineNumber(int lineNumber, Row row) {
+            return lineNumber + 1 + row.quotedLineBreaks;
+        }
+    };
+
+    private MappedCsvReader() {
+    }
+
+    /**
+     * Wiersz pliku: bajty {@code [start, end)} bufora, bez znaków końca linii. Bufor jest tylko do odczytu
+     * i czytany wyłącznie metodami z indeksem, więc wiersze mogą być parsowane współbieżnie.
+     */
+    public static final class Row {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final long endOffset;
+        private final int quotedLineBreaks;
+
+        Row(ByteBuffer buffer, int start, int end, long endOffset, int quotedLineBreaks) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.endOffset = endOffset;
+            this.quotedLineBreaks = quotedLineBreaks;
+        }
+
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * Czyta wszystkie wiersze pliku poza nagłówkiem i przekazuje je do {@code sink} z numerem linii.
+     */
+    public static void read(Path file, ImportPipeline.RecordSink<Row> sink, ImportProgress progress) throws IOException {
+        read(file, sink, progress, 0, 1, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Czyta wiersze od bajtu {@code startOffset} (początek wiersza, np. {@link #POSITION} z punktu kontrolnego),
+     * numerując je od {@code startLineNumber}. Od początku pliku ({@code startOffset == 0}) pomija nagłówek.
+     */
+    public static void read(Path file, ImportPipeline.RecordSink<Row> sink, ImportProgress progress,
+                            long startOffset, int startLineNumber) throws IOException {
+        read(file, sink, progress, startOffset, startLineNumber, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Czyta wiersze poza nagłówkiem, które zaczynają się przed bajtem {@code endOffset}, np. wiersze zatwierdzone
+     * przed punktem kontrolnym. Nie raportuje postępu.
+     */
+    static void readBefore(Path file, long endOffset, ImportPipeline.RecordSink<Row> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            scan(channel, size, 0, Math.min(endOffset, size), 1, true, DEFAULT_WINDOW_SIZE, sink, new ImportProgress());
+        }
+    }
+
+    static void read(Path file, ImportPipeline.RecordSink<Row> sink, ImportProgress progress, int windowSize) throws IOException {
+        read(file, sink, progress, 0, 1, windowSize);
+    }
+
+    static void read(Path file, ImportPipeline.RecordSink<Row> sink, ImportProgress progress,
+                     long startOffset, int startLineNumber, int windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (startOffset < 0 || startOffset > size) {
+                throw new IOException("Pozycja " + startOffset + " jest poza plikiem o rozmiarze " + size);
+            }
+            progress.setTotalBytes(size);
+            progress.bytesRead(startOffset);
+            scan(channel, size, startOffset, size, startLineNumber, startOffset == 0, windowSize, sink, progress);
+        }
+    }
+
+    /**
+     * Fragment pliku do czytania równolegle z innymi: wiersze zaczynające się w bajtach {@code [start, end)},
+     * pierwszy z nich ma numer linii {@code firstLineNumber}.
+     */
+    public static final class Split {
+        private final long start;
+        private final long end;
+        private final int firstLineNumber;
+
+        Split(long start, long end, int firstLineNumber) {
+            this.start = start;
+            this.end = end;
+            this.firstLineNumber = firstLineNumber;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public int getFirstLineNumber() {
+            return firstLineNumber;
+        }
+    }
+
+    /**
+     * Dzieli plik (bez nagłówka) na co najwyżej {@code parts} fragmentów o zbliżonej liczbie bajtów, na granicach wierszy.
+     * Granica w środku pola w cudzysłowie nie jest rozpoznawalna bez czytania pliku od początku, więc fragmenty
+     * są najpierw skanowane równolegle od pierwszej linii za granicą, a potem po kolei sprawdzane: fragment,
+     * który zaczął się w złym miejscu (poprzedni skończył się gdzie indziej), jest skanowany jeszcze raz.
+     * Skanowanie tylko szuka końców wierszy, bez dzielenia na pola.
+     */
+    public static List<Split> split(Path file, int parts, Executor executor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Scan header = scan(channel, size, 0, 1, 1, false, DEFAULT_WINDOW_SIZE, NO_ROWS, new ImportProgress());
+            long first = header.end;
+            if (first >= size) {
+                return List.of();
+            }
+            int count = (int) Math.max(1, Math.min(parts, (size - first) / MIN_SPLIT_SIZE));
+            long[] bounds = new long[count + 1];
+            for (int i = 0; i <= count; i++) {
+                bounds[i] = first + (size - first) * i / count;
+            }
+
+            List<CompletableFuture<Scan>> scans = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long bound = bounds[i];
+                long until = bounds[i + 1];
+                scans.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        long start = bound == first ? first : lineStartAtOrAfter(channel, size, bound);
+                        return scan(channel, size, start, until, 1, false, DEFAULT_WINDOW_SIZE, NO_ROWS, new ImportProgress());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+            }
+
+            List<Split> splits = new ArrayList<>(count);
+            long start = first;
+            int lineNumber = header.nextLineNumber;
+            try {
+                for (int i = 0; i < count; i++) {
+                    Scan scan = await(scans.get(i));
+                    if (scan.start != start) {
+                        scan = scan(channel, size, start, bounds[i + 1], 1, false, DEFAULT_WINDOW_SIZE, NO_ROWS, new ImportProgress());
+                    }
+                    if (scan.end > start) {
+                        splits.add(new Split(start, scan.end, lineNumber));
+                    }
+                    lineNumber += scan.nextLineNumber - 1;
+                    start = scan.end;
+                }
+            } finally {
+                scans.forEach(scan -> scan.cancel(true));
+            }
+            return splits;
+        }
+    }
+
+    /**
+     * Czyta wiersze jednego fragmentu z {@link #split}. Postęp liczy tylko bajty fragmentu.
+     */
+    public static void read(Path file, Split split, ImportPipeline.RecordSink<Row> sink, ImportProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, channel.size(), split.start, split.end, split.firstLineNumber, false, DEFAULT_WINDOW_SIZE, sink, progress);
+        }
+    }
+
+    /**
+     * Pozycja za skanem: początek pierwszego nieprzeczytanego wiersza i jego numer linii.
+     */
+    private static final class Scan {
+        private final long start;
+        private final long end;
+        private final int nextLineNumber;
+
+        Scan(long start, long end, int nextLineNumber) {
+            this.start = start;
+            this.end = end;
+            this.nextLineNumber = nextLineNumber;
+        }
+    }
+
+    /**
+     * Czyta wiersze od bajtu {@code from} (początek wiersza), dopóki zaczynają się przed bajtem {@code until}.
+     * Ostatni wiersz może kończyć się za {@code until}.
+     */
+    private static Scan scan(FileChannel channel, long size, long from, long until, int firstLineNumber, boolean header,
+                             int windowSize, ImportPipeline.RecordSink<Row> sink, ImportProgress progress) throws IOException {
+        long position = from;
+        int window = windowSize;
+        int lineNumber = firstLineNumber - 1;
+
+        while (position < until) {
+            int length = (int) Math.min(window, size - position);
+            boolean lastWindow = position + length == size;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            RowScanner scanner = new RowScanner(buffer, length);
+            int rowStart = 0;
+            while (rowStart < length && position + rowStart < until) {
+                int rowEnd = scanner.findRowEnd(rowStart);
+                int next = rowEnd < length ? scanner.skipLineBreak(rowEnd) : length;
+                // wiersz (albo samo \r z \r\n) urwany na granicy okna - przeczytamy go od nowa w następnym
+                if (!lastWindow && (rowEnd == length || (next == length && buffer.get(rowEnd) == '\r'))) {
+                    break;
+                }
+                int rowLineNumber = ++lineNumber;
+                lineNumber += scanner.quotedLineBreaks;
+                progress.bytesRead(next - rowStart);
+                if (header) {
+                    header = false;
+                } else {
+                    progress.recordRead();
+                    sink.accept(rowLineNumber, new Row(buffer, rowStart, rowEnd, position + next, scanner.quotedLineBreaks));
+                }
+                rowStart = next;
+            }
+
+            if (rowStart == 0 && !lastWindow) {
+                if (window == MAX_WINDOW_SIZE) {
+                    throw new IOException("Wiersz w linii " + (lineNumber + 1) + " jest dłuższy niż " + MAX_WINDOW_SIZE + " bajtów");
+                }
+                window = (int) Math.min(MAX_WINDOW_SIZE, window * 2L);
+            } else {
+                position += rowStart;
+                window = windowSize;
+            }
+        }
+        return new Scan(from, position, lineNumber + 1);
+    }
+
+    /**
+     * Pierwszy początek linii na pozycji {@code position} lub za nią (fragment \r\n nie jest rozdzielany).
+     */
+    private static long lineStartAtOrAfter(FileChannel channel, long size, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_SEARCH_BUFFER_SIZE);
+        long offset = position - 1;
+        byte previous = 0;
+        while (offset < size) {
+            buffer.clear();
+            int n = channel.read(buffer, offset);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++, offset++) {
+                byte b = buffer.get(i);
+                if (previous == '\r' && b != '\n') {
+                    return offset;
+                }
+                if (b == '\n') {
+                    return offset + 1;
+                }
+                previous = b;
+            }
+        }
+        return size;
+    }
+
+    private static Scan await(Future<Scan> scan) throws IOException {
+        try {
+            return scan.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Dzielenie pliku zostało przerwane");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Szuka końców wierszy w jednym oknie, pamiętając, ile nowych linii było w polach w cudzysłowie,
+     * żeby numeracja linii zgadzała się z plikiem.
+     */
+    private static final class RowScanner {
+        private final ByteBuffer buffer;
+        private final int limit;
+        private int quotedLineBreaks;
+
+        RowScanner(ByteBuffer buffer, int limit) {
+            this.buffer = buffer;
+            this.limit = limit;
+        }
+
+        /**
+         * Indeks znaku kończącego wiersz albo {@code limit}, gdy wiersz nie jest zakończony w oknie.
+         */
+        int findRowEnd(int from) {
+            quotedLineBreaks = 0;
+            boolean quoted = false;
+            boolean fieldStart = true;
+            for (int i = from; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (quoted) {
+                    if (b == '"') {
+                        if (i + 1 == limit) {
+                            return limit;
+                        }
+                        if (buffer.get(i + 1) == '"') {
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else if (b == '\n' || (b == '\r' && (i + 1 == limit || buffer.get(i + 1) != '\n'))) {
+                        quotedLineBreaks++;
+                    }
+                } else if (b == '\n' || b == '\r') {
+                    return i;
+                } else if (b == ';') {
+                    fieldStart = true;
+                } else if (b == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                } else if ((b & 0xFF) > ' ') {
+                    fieldStart = false;
+                }
+            }
+            return limit;
+        }
+
+        int skipLineBreak(int rowEnd) {
+            if (buffer.get(rowEnd) == '\r' && rowEnd + 1 < limit && buffer.get(rowEnd + 1) == '\n') {
+                return rowEnd + 2;
+            }
+            return rowEnd + 1;
+        }
+    }
+}
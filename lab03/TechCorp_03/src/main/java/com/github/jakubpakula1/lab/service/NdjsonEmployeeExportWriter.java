@@ -0,0 +1,43 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.google.gson.stream.JsonWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * NDJSON: jeden obiekt pracownika w linii, w tym samym kształcie co {@link JsonEmployeeExportWriter}.
+ */
+@Component
+public class NdjsonEmployeeExportWriter implements EmployeeExportWriter {
+
+    @Override
+    public String getFormat() {
+        return "ndjson";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-ndjson";
+    }
+
+    @Override
+    public void write(Iterator<EmployeeExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), JsonEmployeeExportWriter.BUFFER_SIZE);
+        JsonWriter json = new JsonWriter(writer);
+        // kolejne wartości najwyższego poziomu są dozwolone tylko w trybie lenient
+        json.setLenient(true);
+        while (rows.hasNext()) {
+            JsonEmployeeExportWriter.writeEmployee(json, rows.next());
+            writer.write('\n');
+        }
+        json.flush();
+    }
+}
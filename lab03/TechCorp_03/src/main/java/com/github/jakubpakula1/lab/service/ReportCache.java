@@ -0,0 +1,275 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wygenerowane raporty zapisane w {@code app.reports.directory}/cache. Klucz to typ raportu, jego parametry
+ * i wersja danych, podbijana po każdej zatwierdzonej zmianie pracownika - raport starszej wersji nie może już
+ * zostać trafiony i z czasem wypada jako najdawniej używany, gdy pliki przekroczą limit rozmiaru.
+ * Wersja żyje tylko w pamięci, więc pliki z poprzedniego uruchomienia są usuwane przy starcie.
+ * <p>
+ * Wypchnięty plik nie jest usuwany od razu: wywołujący mógł właśnie dostać go z {@link #get} i jeszcze go
+ * nie otworzył (Tomcat otwiera plik do sendfile po nazwie, dopiero po powrocie z kontrolera). Plik zostaje
+ * na dysku przez {@code app.reports.cache.eviction-grace-seconds} i usuwa go {@link #deleteEvictedFiles()} -
+ * otwartego pliku usunięcie już nie przerywa.
+ */
+@Service
+public class ReportCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportCache.class);
+    private static final String EXTENSION = ".report";
+
+    /**
+     * Zapis raportu do strumienia - wywoływany tylko przy chybieniu.
+     */
+    @FunctionalInterface
+    public interface ReportWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final SingleFlight singleFlight;
+    private final Duration evictionGrace;
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final LinkedHashMap<String, CachedReport> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Wypchnięte pliki i czas wypchnięcia - chronione razem z {@link #entries}. */
+    private final Map<Path, Instant> evictedFiles = new LinkedHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ReportCache(String reportDir, long maxSizeMb, SingleFlight singleFlight) {
+        this(reportDir, maxSizeMb, 60, singleFlight);
+    }
+
+    @Autowired
+    public ReportCache(@Value("${app.reports.directory}") String reportDir,
+                       @Value("${app.reports.cache.max-size-mb:256}") long maxSizeMb,
+                       @Value("${app.reports.cache.eviction-grace-seconds:60}") long evictionGraceSeconds,
+                       SingleFlight singleFlight) {
+        this.directory = prepareDirectory(Paths.get(reportDir).toAbsolutePath().normalize().resolve("cache"));
+        this.maxBytes = Math.max(0, maxSizeMb) * 1024 * 1024;
+        this.evictionGrace = Duration.ofSeconds(Math.max(0, evictionGraceSeconds));
+        this.singleFlight = singleFlight;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Raport z cache albo - przy chybieniu - wygenerowany przez {@code writer} do pliku w cache.
+     * Równoczesne chybienia tego samego klucza generują raport raz.
+     *
+     * @param type       typ raportu, np. {@code employees-csv}; trafia do nazwy pliku
+     * @param parameters parametry raportu w ustalonej kolejności
+     */
+    public CachedReport get(String type, List<String> parameters, ReportWriter writer) throws IOException {
+        long version = dataVersion.get();
+        String key = type + '-' + hash(type + '\u0000' + String.join("\u0000", parameters) + '\u0000' + version);
+        CachedReport cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        try {
+            return singleFlight.execute("report-cache", key, () -> {
+                CachedReport report = lookup(key);
+                if (report != null) {
+                    hits.incrementAndGet();
+                    return report;
+                }
+                misses.incrementAndGet();
+                try {
+                    return generate(key, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (entries) {
+            result.put("entries", entries.size());
+            result.put("bytes", totalBytes);
+            result.put("evictedFiles", evictedFiles.size());
+        }
+        result.put("maxBytes", maxBytes);
+        result.put("hits", hits.get());
+        result.put("misses", misses.get());
+        result.put("evictions", evictions.get());
+        result.put("dataVersion", dataVersion.get());
+        return result;
+    }
+
+    private CachedReport lookup(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Zapisuje raport do pliku tymczasowego, licząc po drodze skrót treści na ETag, i dopisuje go do cache.
+     */
+    private CachedReport generate(String key, ReportWriter writer) throws IOException {
+        Path temp = Files.createTempFile(directory, key + "-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), digest)) {
+                writer.write(out);
+            }
+            String etag = '"' + HexFormat.of().formatHex(digest.digest(), 0, 16) + '"';
+            return store(key, temp, etag);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Przenosi raport pod docelową nazwę i odkłada do usunięcia najdawniej używane pliki ponad limit. Właśnie dodany
+     * raport zostaje, nawet jeśli sam jest większy niż limit - wywołujący zaraz go wyśle. Przeniesienie idzie pod
+     * blokadą, żeby {@link #deleteEvictedFiles()} nie usunęło nowego pliku o nazwie wypchniętego wcześniej raportu.
+     */
+    private CachedReport store(String key, Path temp, String etag) throws IOException {
+        Path file = directory.resolve(key + EXTENSION);
+        synchronized (entries) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evictedFiles.remove(file);
+            CachedReport report = new CachedReport(file, etag, Files.size(file));
+            CachedReport previous = entries.put(key, report);
+            if (previous != null) totalBytes -= previous.size;
+            totalBytes += report.size;
+            Iterator<Map.Entry<String, CachedReport>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, CachedReport> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) continue;
+                iterator.remove();
+                totalBytes -= eldest.getValue().size;
+                evictions.incrementAndGet();
+                evictedFiles.put(eldest.getValue().file, Instant.now());
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Usuwa pliki wypchnięte z cache dawniej niż {@code app.reports.cache.eviction-grace-seconds} temu.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.cache.sweep-interval-ms:30000}")
+    public void deleteEvictedFiles() {
+        Instant threshold = Instant.now().minus(evictionGrace);
+        synchronized (entries) {
+            Iterator<Map.Entry<Path, Instant>> iterator = evictedFiles.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, Instant> evicted = iterator.next();
+                if (evicted.getValue().isAfter(threshold)) break;
+                iterator.remove();
+                delete(evicted.getKey());
+            }
+        }
+    }
+
+    private static Path prepareDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    delete(file);
+                }
+            }
+            // Tomcat wysyła plik przez sendfile tylko po ścieżce kanonicznej
+            return directory.toRealPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można przygotować katalogu cache raportów", e);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Nie udało się usunąć pliku cache raportów {}", file, e);
+        }
+    }
+
+    private static String hash(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)), 0, 16);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Plik raportu w cache z silnym ETagiem liczonym z treści.
+     */
+    public static final class CachedReport {
+        private final Path file;
+        private final String etag;
+        private final long size;
+
+        public CachedReport(Path file, String etag, long size) {
+            this.file = file;
+            this.etag = etag;
+            this.size = size;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
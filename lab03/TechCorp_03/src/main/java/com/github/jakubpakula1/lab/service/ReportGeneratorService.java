@@ -1,112 +1,327 @@
 package com.github.jakubpakula1.lab.service;
 
-import com.github.jakubpakula1.lab.model.Employee;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import com.github.jakubpakula1.lab.dto.CompanyAggregateRow;
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.github.jakubpakula1.lab.dto.TopEarnerRow;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import com.github.jakubpakula1.lab.repository.EmployeeTombstoneRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-/*
- Uwaga: ReportService zakłada istnienie bean'a EmployeeService z metodami:
- - List<Employee> findAll()
- - List<Employee> findByCompany(String company)
- Dostosuj nazwę/implementację do istniejącego serwisu/repozytorium w projekcie.
-*/
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Eksporty i raporty pracowników zapisywane prosto do strumienia odpowiedzi.
+ */
 @Service
 public class ReportGeneratorService {
 
-    private final EmployeeService employeeService;
-
-    public ReportGeneratorService(EmployeeService employeeService) {
-        this.employeeService = employeeService;
-    }
-
-    public Resource generateEmployeesCsv(Optional<String> companyOpt) {
-        List<Employee> employees = companyOpt
-                .map(employeeService::getCompanyEmployees)
-                .orElseGet(employeeService::getAllEmployees);
-
-        String header = "name,surname,company,email,position,salary\n";
-        String body = employees.stream()
-                .map(e -> String.format("%s,%s,%s,%s,%s,%d",
-                        escapeCsv(e.getName()),
-                        escapeCsv(e.getSurname()),
-                        escapeCsv(e.getCompany()),
-                        escapeCsv(e.getEmail()),
-                        escapeCsv(e.getPosition() != null ? e.getPosition().name() : ""),
-                        e.getSalary()))
-                .collect(Collectors.joining("\n"));
-
-        byte[] bytes = (header + body).getBytes(StandardCharsets.UTF_8);
-        return new ByteArrayResource(bytes);
-    }
-
-    private String escapeCsv(String value) {
-        if (value == null) return "";
-        String v = value.replace("\"", "\"\"");
-        if (v.contains(",") || v.contains("\"") || v.contains("\n")) {
-            return "\"" + v + "\"";
-        }
-        return v;
-    }
-
-    public Resource generateCompanyStatisticsPdf(String companyName) {
-        List<Employee> employees = employeeService.getCompanyEmployees(companyName);
-        int total = employees.size();
-
-        try (PDDocument doc = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-            PDPage page = new PDPage(PDRectangle.LETTER);
-            doc.addPage(page);
-
-            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
-                cs.beginText();
-                cs.setFont(PDType1Font.HELVETICA_BOLD, 16);
-                cs.newLineAtOffset(50, 700);
-                cs.showText("Statistics for company: " + companyName);
-                cs.endText();
-
-                cs.beginText();
-                cs.setFont(PDType1Font.HELVETICA, 12);
-                cs.newLineAtOffset(50, 670);
-                cs.showText("Total employees: " + total);
-                cs.endText();
-
-                // prosta tabela / lista (można rozbudować)
-                int y = 640;
-                for (Employee e : employees) {
-                    cs.beginText();
-                    cs.setFont(PDType1Font.HELVETICA, 10);
-                    cs.newLineAtOffset(50, y);
-                    String line = String.format("%s %s (%s)", e.getName(), e.getSurname(), e.getEmail());
-                    cs.showText(truncate(line, 90));
-                    cs.endText();
-                    y -= 14;
-                    if (y < 50) break;
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeTombstoneRepository tombstoneRepository;
+    private final ThreadPoolExecutor pdfExecutor;
+    private final int maxReportsInFlight;
+
+    public ReportGeneratorService(EmployeeRepository employeeRepository) {
+        this(employeeRepository, 0);
+    }
+
+    public ReportGeneratorService(EmployeeRepository employeeRepository, int pdfThreads) {
+        this(employeeRepository, null, pdfThreads);
+    }
+
+    /**
+     * @param pdfThreads liczba wątków renderujących raporty PDF przy eksporcie wszystkich firm; 0 - liczba procesorów
+     */
+    @Autowired
+    public ReportGeneratorService(EmployeeRepository employeeRepository,
+                                  EmployeeTombstoneRepository tombstoneRepository,
+                                  @Value("${app.reports.pdf-threads:0}") int pdfThreads) {
+        this.employeeRepository = employeeRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        int threads = pdfThreads > 0 ? pdfThreads : Runtime.getRuntime().availableProcessors();
+        this.pdfExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("report-pdf-"));
+        this.pdfExecutor.allowCoreThreadTimeOut(true);
+        this.maxReportsInFlight = 2 * threads;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pdfExecutor.shutdownNow();
+    }
+
+    /**
+     * Zapisuje pracowników w podanym formacie prosto do strumienia, wiersz po wierszu z kursora bazy - to samo
+     * źródło wierszy dla każdego formatu. Żaden wiersz nie jest trzymany po zapisaniu, więc pamięć nie rośnie
+     * z liczbą pracowników. Strumień z repozytorium wymaga otwartej transakcji na czas zapisu.
+     * Pusta nazwa firmy nie pasuje do nikogo - zapisywany jest sam szkielet formatu.
+     */
+    @Transactional(readOnly = true)
+    public void writeEmployees(Optional<String> companyOpt, EmployeeExportWriter writer, OutputStream out) throws IOException {
+        if (companyOpt.isPresent() && companyOpt.get().isBlank()) {
+            writer.write(Collections.emptyIterator(), out);
+            return;
+        }
+        try (Stream<EmployeeExportRow> rows = companyOpt
+                .map(employeeRepository::streamExportRowsByCompany)
+                .orElseGet(employeeRepository::streamExportRows)) {
+            writer.write(rows.iterator(), out);
+        }
+    }
+
+    /**
+     * Zmiany pracowników o numerach z przedziału ({@code sinceVersion}, {@code upToVersion}] - zapisani pracownicy
+     * z bieżącymi danymi i ślady usuniętych, razem w kolejności numerów zmian. Pracownik zmieniony kilka razy
+     * występuje raz, z ostatnią zmianą. Górną granicą powinien być stabilny numer z dziennika zmian - wtedy
+     * kolejne pobranie od niego niczego nie pominie.
+     */
+    @Transactional(readOnly = true)
+    public void writeEmployeeChanges(long sinceVersion, long upToVersion, EmployeeExportWriter writer, OutputStream out) throws IOException {
+        try (Stream<EmployeeExportRow> changed = employeeRepository.streamChangedRowsBetweenVersions(sinceVersion, upToVersion);
+             Stream<EmployeeExportRow> deleted = tombstoneRepository != null
+                     ? tombstoneRepository.streamDeletedRowsBetweenVersions(sinceVersion, upToVersion) : Stream.empty()) {
+            writer.write(new ByVersion(changed.iterator(), deleted.iterator()), out);
+        }
+    }
+
+    /**
+     * Jak {@link #writeEmployeeChanges(long, long, EmployeeExportWriter, OutputStream)}, ale od czasu zmiany.
+     * Czas pochodzi z zegara serwera i dwie zmiany mogą go dzielić - pewniejszym znacznikiem jest numer zmiany.
+     */
+    @Transactional(readOnly = true)
+    public void writeEmployeeChanges(Instant changedAfter, long upToVersion, EmployeeExportWriter writer, OutputStream out) throws IOException {
+        try (Stream<EmployeeExportRow> changed = employeeRepository.streamChangedRowsAfter(changedAfter, upToVersion);
+             Stream<EmployeeExportRow> deleted = tombstoneRepository != null
+                     ? tombstoneRepository.streamDeletedRowsAfter(changedAfter, upToVersion) : Stream.empty()) {
+            writer.write(new ByVersion(changed.iterator(), deleted.iterator()), out);
+        }
+    }
+
+    /**
+     * Zapisuje stronicowany raport PDF firmy do strumienia. Podsumowanie liczy baza, a tabela jest czytana
+     * kursorem w trakcie rysowania stron - patrz {@link CompanyReportPdf}.
+     */
+    @Transactional(readOnly = true)
+    public void writeCompanyStatisticsPdf(String companyName, OutputStream out) throws IOException {
+        CompanyAggregateRow aggregate = employeeRepository.aggregateForCompany(companyName);
+        String topEarner = employeeRepository.findTopEarnersForCompany(companyName).stream()
+                .findFirst()
+                .map(TopEarnerRow::getFullName)
+                .orElse("");
+        try (Stream<EmployeeExportRow> rows = employeeRepository.streamExportRowsByCompany(companyName)) {
+            CompanyReportPdf.write(companyName, aggregate, topEarner, rows.iterator(), out);
+        }
+    }
+
+    /**
+     * Raporty PDF wszystkich firm w jednym archiwum ZIP. Pracownicy są czytani jednym zapytaniem posortowanym po firmie,
+     * raporty renderowane równolegle do plików tymczasowych, a każdy gotowy raport od razu trafia do archiwum - w kolejności
+     * ukończenia, nie alfabetycznej. W pamięci są naraz tylko wiersze firm, których raporty są w trakcie renderowania.
+     */
+    @Transactional(readOnly = true)
+    public void writeAllCompanyStatisticsZip(OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        CompletionService<RenderedReport> completion = new ExecutorCompletionService<>(pdfExecutor);
+        List<Future<RenderedReport>> reports = new ArrayList<>();
+        Set<String> entryNames = new HashSet<>();
+        int inFlight = 0;
+        try (Stream<EmployeeExportRow> rows = employeeRepository.streamExportRowsOrderedByCompany()) {
+            Iterator<EmployeeExportRow> iterator = rows.iterator();
+            CompanyRows company = null;
+            while (iterator.hasNext()) {
+                EmployeeExportRow row = iterator.next();
+                if (company != null && !Objects.equals(company.name, row.getCompany())) {
+                    reports.add(completion.submit(company::render));
+                    company = null;
+                    if (++inFlight >= maxReportsInFlight) {
+                        writeEntry(zip, completion.take(), entryNames);
+                        inFlight--;
+                    }
+                }
+                if (company == null) {
+                    company = new CompanyRows(row.getCompany());
+                }
+                company.add(row);
+            }
+            if (company != null) {
+                reports.add(completion.submit(company::render));
+                inFlight++;
+            }
+            for (; inFlight > 0; inFlight--) {
+                writeEntry(zip, completion.take(), entryNames);
+            }
+            zip.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Przerwano generowanie raportów");
+        } finally {
+            for (Future<RenderedReport> report : reports) {
+                discard(report);
+            }
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream zip, Future<RenderedReport> future, Set<String> entryNames) throws IOException, InterruptedException {
+        RenderedReport report;
+        try {
+            report = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+        try {
+            zip.putNextEntry(new ZipEntry(entryName(report.company, entryNames)));
+            Files.copy(report.file, zip);
+            zip.closeEntry();
+        } finally {
+            Files.deleteIfExists(report.file);
+        }
+    }
+
+    /**
+     * Anuluje raport, który nie trafił do archiwum, i usuwa jego plik tymczasowy.
+     */
+    private static void discard(Future<RenderedReport> report) {
+        if (report.cancel(true) || report.isCancelled()) return;
+        try {
+            Files.deleteIfExists(report.get().file);
+        } catch (ExecutionException | IOException e) {
+            // raport się nie udał albo plik już usunięto
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String entryName(String company, Set<String> entryNames) {
+        String base = "statistics_" + (company == null ? "unknown" : company.replaceAll("[^a-zA-Z0-9-_.]", "_"));
+        String name = base + ".pdf";
+        for (int i = 2; !entryNames.add(name); i++) {
+            name = base + "_" + i + ".pdf";
+        }
+        return name;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Wiersze jednej firmy z podsumowaniem liczonym w trakcie zbierania - tak jak w zapytaniach GROUP BY:
+     * średnia z niepustych pensji, a najlepiej zarabiający to pierwszy (po id) z najwyższą pensją.
+     */
+    private static final class CompanyRows {
+        private final String name;
+        private final List<EmployeeExportRow> rows = new ArrayList<>();
+        private int salaryCount;
+        private double salarySum;
+        private EmployeeExportRow topEarner;
+
+        CompanyRows(String name) {
+            this.name = name;
+        }
+
+        void add(EmployeeExportRow row) {
+            rows.add(row);
+            if (row.getSalary() == null) return;
+            salaryCount++;
+            salarySum += row.getSalary().doubleValue();
+            if (topEarner == null || row.getSalary().compareTo(topEarner.getSalary()) > 0) {
+                topEarner = row;
+            }
+        }
+
+        RenderedReport render() throws IOException {
+            CompanyAggregateRow aggregate = new CompanyAggregateRow(name, (long) rows.size(),
+                    salaryCount > 0 ? salarySum / salaryCount : null, topEarner != null ? topEarner.getSalary() : null);
+            String topEarnerName = topEarner != null ? topEarner.getName() + " " + topEarner.getSurname() : "";
+            Path file = Files.createTempFile("company-report-", ".pdf");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                CompanyReportPdf.write(name != null ? name : "-", aggregate, topEarnerName, rows.iterator(), out);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Anulowano raport firmy " + name);
                 }
+                return new RenderedReport(name, file);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
             }
+        }
+    }
+
+    /**
+     * Scala dwa kursory posortowane po numerze zmiany w jeden, bez odkładania wierszy.
+     */
+    private static final class ByVersion implements Iterator<EmployeeExportRow> {
+        private final Iterator<EmployeeExportRow> first;
+        private final Iterator<EmployeeExportRow> second;
+        private EmployeeExportRow nextFirst;
+        private EmployeeExportRow nextSecond;
 
-            doc.save(baos);
-            return new ByteArrayResource(baos.toByteArray());
-        } catch (IOException ex) {
-            throw new RuntimeException("Błąd generowania PDF", ex);
+        ByVersion(Iterator<EmployeeExportRow> first, Iterator<EmployeeExportRow> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public EmployeeExportRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            EmployeeExportRow row;
+            if (nextSecond == null || (nextFirst != null && nextFirst.getChangeVersion() <= nextSecond.getChangeVersion())) {
+                row = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                row = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return row;
         }
     }
 
-    private String truncate(String s, int max) {
-        if (s == null) return "";
-        return s.length() <= max ? s : s.substring(0, max - 3) + "...";
+    private static final class RenderedReport {
+        private final String company;
+        private final Path file;
+
+        RenderedReport(String company, Path file) {
+            this.company = company;
+            this.file = file;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.DashboardRow;
+import com.github.jakubpakula1.lab.dto.SalaryDistributionDTO;
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Rozkład wynagrodzeń (percentyle i histogram). Trzyma po jednym szkicu kwantyli na parę firma/stanowisko
+ * i scala je przy odczycie. Szkicu nie da się pomniejszyć, więc każdy zapis pracownika tylko unieważnia
+ * szkice, a przebudowa następuje przy najbliższym odczycie.
+ */
+@Service
+public class SalaryDistributionService {
+
+    public static final int DEFAULT_BUCKETS = 10;
+    public static final int MAX_BUCKETS = 100;
+
+    private final EmployeeRepository employeeRepository;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final Object rebuildLock = new Object();
+    private volatile Map<Cell, SalaryQuantileSketch> cells = Collections.emptyMap();
+
+    public SalaryDistributionService(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @Transactional(readOnly = true)
+    public SalaryDistributionDTO getDistribution(String company, Position position, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Liczba przedziałów musi być z zakresu 1-" + MAX_BUCKETS);
+        }
+
+        String companyKey = companyKey(company);
+        SalaryQuantileSketch merged = new SalaryQuantileSketch();
+        currentCells().forEach((cell, sketch) -> {
+            if ((companyKey == null || companyKey.equals(cell.company))
+                    && (position == null || position == cell.position)) {
+                merged.merge(sketch);
+            }
+        });
+
+        return toDto(company, position, merged, buckets);
+    }
+
+    private Map<Cell, SalaryQuantileSketch> currentCells() {
+        if (!dirty.get()) {
+            return cells;
+        }
+        synchronized (rebuildLock) {
+            // Zapis w trakcie przebudowy ponownie ustawi flagę, więc kolejny odczyt przebuduje szkice jeszcze raz.
+            if (dirty.getAndSet(false)) {
+                try (Stream<DashboardRow> rows = employeeRepository.streamDashboardRows()) {
+                    cells = buildCells(rows);
+                } catch (RuntimeException e) {
+                    dirty.set(true);
+                    throw e;
+                }
+            }
+            return cells;
+        }
+    }
+
+    static Map<Cell, SalaryQuantileSketch> buildCells(Stream<DashboardRow> rows) {
+        Map<Cell, SalaryQuantileSketch> result = new HashMap<>();
+        rows.forEach(row -> {
+            if (row == null || row.getSalary() == null) return;
+            Cell cell = new Cell(companyKey(row.getCompany()), row.getPosition());
+            result.computeIfAbsent(cell, k -> new SalaryQuantileSketch()).update(row.getSalary().doubleValue());
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    static SalaryDistributionDTO toDto(String company, Position position, SalaryQuantileSketch sketch, int buckets) {
+        return new SalaryDistributionDTO(
+                company,
+                position != null ? position.name() : null,
+                sketch.getCount(),
+                sketch.getMin(),
+                sketch.getMax(),
+                sketch.quantile(0.50),
+                sketch.quantile(0.90),
+                sketch.quantile(0.99),
+                histogram(sketch, buckets)
+        );
+    }
+
+    /**
+     * Przedziały równej szerokości od minimum do maksimum; liczności wynikają z dystrybuanty szkicu.
+     */
+    static List<SalaryDistributionDTO.HistogramBucket> histogram(SalaryQuantileSketch sketch, int buckets) {
+        if (sketch.getCount() == 0) {
+            return Collections.emptyList();
+        }
+
+        double min = sketch.getMin();
+        double max = sketch.getMax();
+        if (min == max) {
+            return List.of(new SalaryDistributionDTO.HistogramBucket(min, max, sketch.getCount()));
+        }
+
+        List<SalaryDistributionDTO.HistogramBucket> result = new ArrayList<>(buckets);
+        double width = (max - min) / buckets;
+        long assigned = 0;
+        double from = min;
+        for (int i = 0; i < buckets; i++) {
+            boolean last = i == buckets - 1;
+            double to = last ? max : min + width * (i + 1);
+            long upTo = last ? sketch.getCount() : Math.round(sketch.cdf(to) * sketch.getCount());
+            long count = Math.max(0, upTo - assigned);
+            result.add(new SalaryDistributionDTO.HistogramBucket(from, to, count));
+            assigned += count;
+            from = to;
+        }
+        return result;
+    }
+
+    private static String companyKey(String company) {
+        if (company == null || company.isBlank()) return null;
+        return company.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static final class Cell {
+        private final String company;
+        private final Position position;
+
+        Cell(String company, Position position) {
+            this.company = company;
+            this.position = position;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Cell)) return false;
+            Cell cell = (Cell) o;
+            return Objects.equals(company, cell.company) && position == cell.position;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(company, position);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.jakubpakula1.lab.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Szkic kwantyli typu KLL (Karnin, Lang, Liberty). Pamięć jest rzędu {@code k * log(n / k)} niezależnie od liczby wartości,
+ * a szkice można łączyć ({@link #merge}), więc trzyma się je per grupa i scala dopiero przy odczycie.
+ * Klasa nie jest bezpieczna wątkowo.
+ */
+public class SalaryQuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private final List<Compactor> compactors = new ArrayList<>();
+    private final SplittableRandom random;
+    private int size;
+    private int maxSize;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public SalaryQuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public SalaryQuantileSketch(int k) {
+        this(k, new SplittableRandom());
+    }
+
+    SalaryQuantileSketch(int k, SplittableRandom random) {
+        if (k < 8) {
+            throw new IllegalArgumentException("Parametr k musi wynosić co najmniej 8");
+        }
+        this.k = k;
+        this.random = random;
+        grow();
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) return;
+        compactors.get(0).add(value);
+        size++;
+        count++;
+        min = Double.isNaN(min) ? value : Math.min(min, value);
+        max = Double.isNaN(max) ? value : Math.max(max, value);
+        if (size >= maxSize) {
+            compress();
+        }
+    }
+
+    public void merge(SalaryQuantileSketch other) {
+        if (other == null || other.count == 0) return;
+        while (compactors.size() < other.compactors.size()) {
+            grow();
+        }
+        for (int h = 0; h < other.compactors.size(); h++) {
+            compactors.get(h).addAll(other.compactors.get(h));
+        }
+        count += other.count;
+        min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+        max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+        recomputeSize();
+        while (size >= maxSize) {
+            compress();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    /**
+     * Przybliżony kwantyl rzędu {@code q} (0..1).
+     */
+    public double quantile(double q) {
+        if (count == 0) return 0.0;
+        if (q <= 0.0) return min;
+        if (q >= 1.0) return max;
+
+        WeightedItems items = sortedItems();
+        double target = q * items.totalWeight;
+        long cumulative = 0;
+        for (int i = 0; i < items.values.length; i++) {
+            cumulative += items.weights[i];
+            if (cumulative >= target) {
+                return items.values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Przybliżony odsetek wartości mniejszych lub równych {@code value}.
+     */
+    public double cdf(double value) {
+        if (count == 0) return 0.0;
+        if (value < min) return 0.0;
+        if (value >= max) return 1.0;
+
+        long below = 0;
+        long total = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            Compactor compactor = compactors.get(h);
+            long weight = 1L << h;
+            for (int i = 0; i < compactor.size; i++) {
+                total += weight;
+                if (compactor.items[i] <= value) below += weight;
+            }
+        }
+        return total == 0 ? 0.0 : (double) below / total;
+    }
+
+    /**
+     * Liczba przechowywanych próbek - miara zajętej pamięci.
+     */
+    public int getRetainedItems() {
+        return size;
+    }
+
+    public SalaryQuantileSketch copy() {
+        SalaryQuantileSketch copy = new SalaryQuantileSketch(k, random.split());
+        copy.merge(this);
+        return copy;
+    }
+
+    private void grow() {
+        compactors.add(new Compactor());
+        maxSize = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            maxSize += capacity(h);
+        }
+    }
+
+    private int capacity(int level) {
+        int height = compactors.size();
+        return (int) Math.ceil(Math.pow(CAPACITY_DECAY, height - level - 1) * k) + 1;
+    }
+
+    private void compress() {
+        for (int h = 0; h < compactors.size(); h++) {
+            Compactor compactor = compactors.get(h);
+            if (compactor.size >= capacity(h)) {
+                if (h + 1 >= compactors.size()) {
+                    grow();
+                }
+                compactor.compactInto(compactors.get(h + 1), random.nextBoolean());
+                recomputeSize();
+                return;
+            }
+        }
+    }
+
+    private void recomputeSize() {
+        int total = 0;
+        for (Compactor compactor : compactors) {
+            total += compactor.size;
+        }
+        size = total;
+    }
+
+    private WeightedItems sortedItems() {
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        int index = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            Compactor compactor = compactors.get(h);
+            for (int i = 0; i < compactor.size; i++) {
+                values[index] = compactor.items[i];
+                weights[index] = 1L << h;
+                index++;
+            }
+        }
+
+        Integer[] order = new Integer[index];
+        for (int i = 0; i < index; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        WeightedItems result = new WeightedItems(index);
+        for (int i = 0; i < index; i++) {
+            result.values[i] = values[order[i]];
+            result.weights[i] = weights[order[i]];
+            result.totalWeight += weights[order[i]];
+        }
+        return result;
+    }
+
+    private static final class WeightedItems {
+        private final double[] values;
+        private final long[] weights;
+        private long totalWeight;
+
+        WeightedItems(int size) {
+            this.values = new double[size];
+            this.weights = new long[size];
+        }
+    }
+
+    private static final class Compactor {
+        private double[] items = new double[16];
+        private int size;
+
+        void add(double value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        void addAll(Compactor other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.items[i]);
+            }
+        }
+
+        /**
+         * Sortuje poziom i przenosi co drugi element (parzyste albo nieparzyste pozycje) poziom wyżej,
+         * gdzie każdy element waży dwa razy więcej. Przy nieparzystej liczbie elementów najmniejszy zostaje.
+         */
+        void compactInto(Compactor next, boolean oddPositions) {
+            Arrays.sort(items, 0, size);
+            int start = size % 2;
+            for (int i = start + (oddPositions ? 1 : 0); i < size; i += 2) {
+                next.add(items[i]);
+            }
+            size = start;
+        }
+    }
+}
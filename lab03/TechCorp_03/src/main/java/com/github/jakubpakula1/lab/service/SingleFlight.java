@@ -0,0 +1,88 @@
+package com.github.jakubpakula1.lab.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Łączy równoczesne wywołania o tym samym kluczu: pierwszy wątek liczy wynik,
+ * a pozostałe czekają na niego zamiast uruchamiać własne zapytania.
+ * Wynik nie jest zapamiętywany po zakończeniu obliczenia - od tego jest cache.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counters> metrics = new ConcurrentHashMap<>();
+
+    public <T> T execute(String operation, Object argument, Supplier<T> supplier) {
+        Counters counters = metrics.computeIfAbsent(operation, k -> new Counters());
+        counters.calls.incrementAndGet();
+
+        String key = argument == null ? operation : operation + ":" + argument;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            counters.coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        counters.executions.incrementAndGet();
+        try {
+            T result = supplier.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        metrics.forEach((operation, counters) -> {
+            Map<String, Long> entry = new LinkedHashMap<>();
+            entry.put("calls", counters.calls.get());
+            entry.put("executions", counters.executions.get());
+            entry.put("coalesced", counters.coalesced.get());
+            result.put(operation, entry);
+        });
+        return result;
+    }
+
+    public long getCoalescedCount(String operation) {
+        Counters counters = metrics.get(operation);
+        return counters == null ? 0 : counters.coalesced.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<Object> future) {
+        try {
+            return (T) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Przerwano oczekiwanie na wynik obliczenia");
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static final class Counters {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+    }
+}
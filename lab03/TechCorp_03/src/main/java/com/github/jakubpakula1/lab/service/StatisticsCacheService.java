@@ -0,0 +1,154 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.event.EmployeeSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache statystyk: odczyt przez {@link #get}, unieważnianie po zatwierdzonych zmianach pracowników
+ * (per firma, gdy to możliwe) i liczniki trafień, chybień i usunięć potrzebne do doboru rozmiaru cache.
+ */
+@Service
+public class StatisticsCacheService {
+
+    public static final String COMPANY_STATISTICS = "companyStatistics";
+    public static final String DASHBOARD_STATISTICS = "dashboardStatistics";
+    public static final List<String> CACHE_NAMES = List.of(COMPANY_STATISTICS, DASHBOARD_STATISTICS);
+
+    /**
+     * Klucz dla statystyk bez filtra firmy.
+     */
+    public static final String ALL_COMPANIES = "";
+
+    private final CacheManager cacheManager;
+    private final SingleFlight singleFlight;
+    private final Map<String, AtomicLong> invalidations = new ConcurrentHashMap<>();
+    /** Rośnie przy każdym unieważnieniu cache - zmieniana i sprawdzana pod blokadą {@code this}. */
+    private final Map<String, Long> generations = new HashMap<>();
+
+    public StatisticsCacheService(CacheManager cacheManager) {
+        this(cacheManager, new SingleFlight());
+    }
+
+    @Autowired
+    public StatisticsCacheService(CacheManager cacheManager, SingleFlight singleFlight) {
+        this.cacheManager = cacheManager;
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Klucz cache dla firmy - porównanie nazw firm jest niewrażliwe na wielkość liter.
+     */
+    public static String companyKey(String company) {
+        if (company == null || company.isBlank()) return ALL_COMPANIES;
+        return company.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Wartość z cache albo wynik {@code loader}. Równoczesne chybienia o tym samym kluczu czekają na jedno obliczenie,
+     * więc {@code loader} powinien sam otwierać transakcję - czekające wątki nie trzymają wtedy połączeń z puli.
+     * <p>
+     * Wynik trafia do cache tylko wtedy, gdy w trakcie obliczenia cache nie był unieważniony: zapis zatwierdzony
+     * w tym czasie mógł nie być widoczny w odczycie, a unieważnienie po nim już przeszło.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cacheName, Object key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return loader.get();
+
+        Cache.ValueWrapper cached = cache.get(key);
+        if (cached != null) return (T) cached.get();
+
+        return singleFlight.execute(cacheName, key, () -> {
+            long generation = generation(cacheName);
+            T value = loader.get();
+            putIfNotInvalidated(cache, cacheName, key, value, generation);
+            return value;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (event == null) return;
+        clear(DASHBOARD_STATISTICS);
+        if (event.isAllDeleted()) {
+            clear(COMPANY_STATISTICS);
+            return;
+        }
+        for (String company : affectedCompanies(event.getBefore(), event.getAfter())) {
+            evict(COMPANY_STATISTICS, company);
+        }
+    }
+
+    /**
+     * Czyści wszystkie cache statystyk, np. przy ponownym imporcie danych.
+     */
+    public void evictAll() {
+        CACHE_NAMES.forEach(this::clear);
+    }
+
+    public Map<String, Map<String, Object>> getCacheStatistics() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String name : CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof CaffeineCache caffeineCache)) continue;
+
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", nativeCache.estimatedSize());
+            entry.put("hits", stats.hitCount());
+            entry.put("misses", stats.missCount());
+            entry.put("hitRate", stats.hitRate());
+            entry.put("evictions", stats.evictionCount());
+            entry.put("invalidations", invalidations.computeIfAbsent(name, k -> new AtomicLong()).get());
+            result.put(name, entry);
+        }
+        return result;
+    }
+
+    private static Set<String> affectedCompanies(EmployeeSnapshot before, EmployeeSnapshot after) {
+        Set<String> companies = new HashSet<>();
+        if (before != null) companies.add(companyKey(before.getCompany()));
+        if (after != null) companies.add(companyKey(after.getCompany()));
+        companies.remove(ALL_COMPANIES);
+        return companies;
+    }
+
+    private synchronized long generation(String cacheName) {
+        return generations.getOrDefault(cacheName, 0L);
+    }
+
+    private synchronized void putIfNotInvalidated(Cache cache, String cacheName, Object key, Object value, long generation) {
+        if (generation(cacheName) == generation) {
+            cache.put(key, value);
+        }
+    }
+
+    private synchronized void evict(String cacheName, Object key) {
+        generations.merge(cacheName, 1L, Long::sum);
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && cache.evictIfPresent(key)) {
+            invalidations.computeIfAbsent(cacheName, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private synchronized void clear(String cacheName) {
+        generations.merge(cacheName, 1L, Long::sum);
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && cache.invalidate()) {
+            invalidations.computeIfAbsent(cacheName, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.CompanyStatisticsDTO;
+import com.github.jakubpakula1.lab.model.DashboardStatistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Statystyki dla kontrolerów: cache i łączenie równoczesnych obliczeń przed wejściem w transakcję,
+ * żeby po unieważnieniu cache połączenie z puli brał tylko jeden wątek liczący wynik.
+ */
+@Service
+public class StatisticsFacade {
+
+    private final StatisticsCacheService statisticsCacheService;
+    private final DashboardStatisticsService dashboardStatisticsService;
+    private final EmployeeService employeeService;
+
+    public StatisticsFacade(StatisticsCacheService statisticsCacheService,
+                            DashboardStatisticsService dashboardStatisticsService,
+                            EmployeeService employeeService) {
+        this.statisticsCacheService = statisticsCacheService;
+        this.dashboardStatisticsService = dashboardStatisticsService;
+        this.employeeService = employeeService;
+    }
+
+    public DashboardStatistics getDashboardStatistics() {
+        return statisticsCacheService.get(StatisticsCacheService.DASHBOARD_STATISTICS, StatisticsCacheService.ALL_COMPANIES,
+                dashboardStatisticsService::getDashboardStatistics);
+    }
+
+    public Optional<CompanyStatisticsDTO> getCompanyStatisticsDTO(String company) {
+        if (company == null || company.isBlank()) {
+            return Optional.empty();
+        }
+        return statisticsCacheService.get(StatisticsCacheService.COMPANY_STATISTICS, StatisticsCacheService.companyKey(company),
+                () -> employeeService.getCompanyStatisticsDTO(company));
+    }
+}
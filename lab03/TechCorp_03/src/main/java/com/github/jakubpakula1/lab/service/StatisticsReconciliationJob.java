@@ -0,0 +1,57 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.StatisticsBucketRow;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Zasila {@link EmployeeStatisticsStore} przy starcie aplikacji i okresowo sprawdza liczniki z agregatami z bazy.
+ */
+@Component
+public class StatisticsReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(StatisticsReconciliationJob.class);
+    private static final int MAX_REBUILD_ATTEMPTS = 5;
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeStatisticsStore statisticsStore;
+
+    public StatisticsReconciliationJob(EmployeeRepository employeeRepository, EmployeeStatisticsStore statisticsStore) {
+        this.employeeRepository = employeeRepository;
+        this.statisticsStore = statisticsStore;
+    }
+
+    /**
+     * Zapis w trakcie skanu unieważnia jego wynik - skan jest powtarzany, a jeśli zapisy nie ustają,
+     * liczniki poprawi najbliższe {@link #reconcile()}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            long version = statisticsStore.getScanVersion();
+            if (statisticsStore.rebuild(employeeRepository.aggregateStatisticsBuckets(), version)) {
+                return;
+            }
+        }
+        log.warn("Nie udało się zasilić liczników statystyk - w trakcie skanu trwały zapisy");
+    }
+
+    @Scheduled(initialDelayString = "${app.statistics.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.statistics.reconcile-interval-ms:300000}")
+    public boolean reconcile() {
+        long version = statisticsStore.getScanVersion();
+        List<StatisticsBucketRow> rows = employeeRepository.aggregateStatisticsBuckets();
+        boolean repaired = statisticsStore.reconcile(rows, version);
+        if (repaired) {
+            log.warn("Liczniki statystyk rozjechały się z bazą - zostały przeliczone od nowa");
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * XML w schemacie importu: {@code <employees>} z elementami {@code <employee>}, których pola są elementami
+ * potomnymi. Puste pola są pomijane, a wiersze eksportu zmian mają dodatkowo {@code version}, {@code changedAt}
+ * i - dla usuniętych - {@code deleted}. Zapis przez StAX - element po elemencie, bez drzewa dokumentu.
+ */
+@Component
+public class XmlEmployeeExportWriter implements EmployeeExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+    @Override
+    public String getFormat() {
+        return "xml";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/xml";
+    }
+
+    @Override
+    public void write(Iterator<EmployeeExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            XMLStreamWriter xml = outputFactory.createXMLStreamWriter(writer);
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("employees");
+            while (rows.hasNext()) {
+                EmployeeExportRow row = rows.next();
+                xml.writeStartElement("employee");
+                writeField(xml, "name", row.getName());
+                writeField(xml, "surname", row.getSurname());
+                writeField(xml, "email", row.getEmail());
+                writeField(xml, "company", row.getCompany());
+                writeField(xml, "position", row.getPosition() != null ? row.getPosition().name() : null);
+                writeField(xml, "salary", row.getSalary() != null ? row.getSalary().stripTrailingZeros().toPlainString() : null);
+                writeField(xml, "status", row.getStatus() != null ? row.getStatus().name() : null);
+                writeField(xml, "version", row.getChangeVersion() != null ? row.getChangeVersion().toString() : null);
+                writeField(xml, "changedAt", row.getChangedAt() != null ? row.getChangedAt().toString() : null);
+                writeField(xml, "deleted", row.isDeleted() ? "true" : null);
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        writer.flush();
+    }
+
+    private static void writeField(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+        if (value == null) return;
+        xml.writeStartElement(name);
+        xml.writeCharacters(xmlText(value));
+        xml.writeEndElement();
+    }
+
+    /**
+     * StAX nie escapuje znaków sterujących, których XML 1.0 w ogóle nie dopuszcza - zastępuje je znakiem zapytania.
+     */
+    static String xmlText(String value) {
+        StringBuilder text = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean allowed = c >= 0x20 ? c != 0xFFFE && c != 0xFFFF : c == '\t' || c == '\n' || c == '\r';
+            if (allowed) {
+                if (text != null) text.append(c);
+                continue;
+            }
+            if (text == null) {
+                text = new StringBuilder(value.length()).append(value, 0, i);
+            }
+            text.append('?');
+        }
+        return text != null ? text.toString() : value;
+    }
+}
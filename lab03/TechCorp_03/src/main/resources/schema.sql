@@ -9,4 +9,6 @@ CREATE TABLE IF NOT EXISTS employees (
     status VARCHAR(50),
     photo_file_name VARCHAR(255),
     department_id BIGINT
-);
\ No newline at end of file
+);
+
+CREATE SEQUENCE IF NOT EXISTS employees_seq START WITH 1 INCREMENT BY 100;
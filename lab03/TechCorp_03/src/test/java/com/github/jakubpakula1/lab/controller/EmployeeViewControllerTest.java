@@ -1,13 +1,21 @@
 package com.github.jakubpakula1.lab.controller;
 
+import com.github.jakubpakula1.lab.dto.ImportJobDTO;
+import com.github.jakubpakula1.lab.exception.ImportJobNotFoundException;
+import com.github.jakubpakula1.lab.exception.ImportJobRejectedException;
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportMode;
 import com.github.jakubpakula1.lab.model.ImportSummary;
 import com.github.jakubpakula1.lab.model.Position;
 import com.github.jakubpakula1.lab.service.DepartmentService;
 import com.github.jakubpakula1.lab.service.EmployeeService;
 import com.github.jakubpakula1.lab.service.FileStorageService;
-import com.github.jakubpakula1.lab.service.ImportService;
+import com.github.jakubpakula1.lab.service.ImportJob;
+import com.github.jakubpakula1.lab.service.ImportJobService;
+import com.github.jakubpakula1.lab.service.ImportOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,8 +28,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -45,7 +54,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         private DepartmentService departmentService;
 
         @MockBean
-        private ImportService importService;
+        private ImportJobService importJobService;
 
         @MockBean
         private FileStorageService fileStorageService;
@@ -234,11 +243,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         }
 
         @Test
-        void testImportEmployeesCsvSuccess() throws Exception {
-            ImportSummary summary = new ImportSummary();
-            summary.setImportedEmployees(2);
-
-            when(importService.importFromCsv(anyString())).thenReturn(summary);
+        void testImportEmployeesCsvSubmitsJob() throws Exception {
+            ImportJob job = mock(ImportJob.class);
+            when(job.getId()).thenReturn("job-1");
+            when(importJobService.submit(any(Path.class), eq("employees.csv"), eq(ImportFormat.CSV), eq(ImportOptions.replace()))).thenReturn(job);
 
             MockMultipartFile file = new MockMultipartFile(
                     "file",
@@ -251,18 +259,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
                     .file(file)
                     .param("fileType", "csv"))
                     .andExpect(status().is3xxRedirection())
-                    .andExpect(redirectedUrl("/employees"))
-                    .andExpect(flash().attributeExists("message"));
+                    .andExpect(redirectedUrl("/employees/import-jobs/job-1"));
 
-            verify(importService, times(1)).importFromCsv(anyString());
+            verify(importJobService, times(1)).submit(any(Path.class), eq("employees.csv"), eq(ImportFormat.CSV), eq(ImportOptions.replace()));
         }
 
         @Test
-        void testImportEmployeesXmlSuccess() throws Exception {
-            ImportSummary summary = new ImportSummary();
-            summary.setImportedEmployees(1);
-
-            when(importService.importFromXml(anyString())).thenReturn(summary);
+        void testImportEmployeesXmlSubmitsJob() throws Exception {
+            ImportJob job = mock(ImportJob.class);
+            when(job.getId()).thenReturn("job-2");
+            when(importJobService.submit(any(Path.class), anyString(), eq(ImportFormat.XML), any(ImportOptions.class))).thenReturn(job);
 
             MockMultipartFile file = new MockMultipartFile(
                     "file",
@@ -275,10 +281,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
                     .file(file)
                     .param("fileType", "xml"))
                     .andExpect(status().is3xxRedirection())
-                    .andExpect(redirectedUrl("/employees"))
-                    .andExpect(flash().attributeExists("message"));
+                    .andExpect(redirectedUrl("/employees/import-jobs/job-2"));
 
-            verify(importService, times(1)).importFromXml(anyString());
+            verify(importJobService, times(1)).submit(any(Path.class), anyString(), eq(ImportFormat.XML), any(ImportOptions.class));
         }
 
         @Test
@@ -297,74 +302,100 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
                     .andExpect(redirectedUrl("/employees/import"))
                     .andExpect(flash().attributeExists("error"));
 
-            verify(importService, never()).importFromCsv(anyString());
+            verify(importJobService, never()).submit(any(), any(), any(), any());
         }
 
         @Test
         void testImportEmployeesUnsupportedFileType() throws Exception {
             MockMultipartFile file = new MockMultipartFile(
                     "file",
-                    "employees.json",
-                    "application/json",
+                    "employees.txt",
+                    "text/plain",
                     "{}".getBytes()
             );
 
             mockMvc.perform(multipart("/employees/import")
                     .file(file)
-                    .param("fileType", "json"))
+                    .param("fileType", "txt"))
                     .andExpect(status().is3xxRedirection())
                     .andExpect(redirectedUrl("/employees/import"))
                     .andExpect(flash().attributeExists("error"));
 
-            verify(importService, never()).importFromCsv(anyString());
-            verify(importService, never()).importFromXml(anyString());
+            verify(importJobService, never()).submit(any(), any(), any(), any());
         }
 
         @Test
-        void testImportEmployeesWithErrors() throws Exception {
-            ImportSummary summary = new ImportSummary();
-            summary.setImportedEmployees(1);
-            summary.addError(2, "Invalid position");
-            summary.addError(3, "Invalid salary");
-
-            when(importService.importFromCsv(anyString())).thenReturn(summary);
+        void testImportEmployeesQueueFull() throws Exception {
+            when(importJobService.submit(any(Path.class), anyString(), any(ImportFormat.class), any(ImportOptions.class)))
+                    .thenThrow(new ImportJobRejectedException("Zbyt wiele importów w kolejce"));
 
             MockMultipartFile file = new MockMultipartFile(
                     "file",
                     "employees.csv",
                     "text/csv",
-                    "John;Doe;john@example.com;TestCompany;PROGRAMISTA;5000".getBytes()
+                    "data".getBytes()
             );
 
             mockMvc.perform(multipart("/employees/import")
                     .file(file)
                     .param("fileType", "csv"))
                     .andExpect(status().is3xxRedirection())
-                    .andExpect(redirectedUrl("/employees/import-results"))
-                    .andExpect(flash().attributeExists("errors", "summary"));
+                    .andExpect(redirectedUrl("/employees/import"))
+                    .andExpect(flash().attributeExists("error"));
+        }
 
-            verify(importService, times(1)).importFromCsv(anyString());
+        @Test
+        void testImportJobRunningShowsProgress() throws Exception {
+            ImportJob job = mock(ImportJob.class);
+            when(job.getStatus()).thenReturn(ImportJobStatus.RUNNING);
+            when(importJobService.getJob("job-1")).thenReturn(job);
+            ImportJobDTO dto = new ImportJobDTO("job-1", ImportFormat.CSV, ImportMode.REPLACE, "employees.csv", ImportJobStatus.RUNNING,
+                    Instant.now(), Instant.now(), null, 50, 100, 50, 10, 0, null, null, null);
+            when(importJobService.toDto(job)).thenReturn(dto);
+
+            mockMvc.perform(get("/employees/import-jobs/job-1"))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("employees/import-progress"))
+                    .andExpect(model().attribute("job", dto));
         }
 
         @Test
-        void testImportEmployeesImportException() throws Exception {
-            when(importService.importFromCsv(anyString())).thenThrow(new IOException("File read error"));
+        void testImportJobCompletedWithErrorsShowsResults() throws Exception {
+            ImportSummary summary = new ImportSummary();
+            summary.setImportedEmployees(1);
+            summary.addError(2, "Invalid position");
+            summary.addError(3, "Invalid salary");
+            ImportJob job = mock(ImportJob.class);
+            when(job.getStatus()).thenReturn(ImportJobStatus.COMPLETED);
+            when(job.getSummary()).thenReturn(summary);
+            when(importJobService.getJob("job-1")).thenReturn(job);
 
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "employees.csv",
-                    "text/csv",
-                    "data".getBytes()
-            );
+            mockMvc.perform(get("/employees/import-jobs/job-1"))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("employees/import-results"))
+                    .andExpect(model().attribute("importedCount", 1))
+                    .andExpect(model().attribute("errors", hasSize(2)));
+        }
 
-            mockMvc.perform(multipart("/employees/import")
-                    .file(file)
-                    .param("fileType", "csv"))
+        @Test
+        void testImportJobNotFound() throws Exception {
+            when(importJobService.getJob("missing")).thenThrow(new ImportJobNotFoundException("Nie znaleziono zadania importu: missing"));
+
+            mockMvc.perform(get("/employees/import-jobs/missing"))
                     .andExpect(status().is3xxRedirection())
                     .andExpect(redirectedUrl("/employees/import"))
                     .andExpect(flash().attributeExists("error"));
+        }
+
+        @Test
+        void testCancelImportJob() throws Exception {
+            when(importJobService.cancel("job-1")).thenReturn(true);
+
+            mockMvc.perform(post("/employees/import-jobs/job-1/cancel"))
+                    .andExpect(status().is3xxRedirection())
+                    .andExpect(redirectedUrl("/employees/import-jobs/job-1"));
 
-            verify(importService, times(1)).importFromCsv(anyString());
+            verify(importJobService).cancel("job-1");
         }
 
         @Test
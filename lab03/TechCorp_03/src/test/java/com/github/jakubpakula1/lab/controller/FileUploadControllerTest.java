@@ -1,5 +1,7 @@
 package com.github.jakubpakula1.lab.controller;
 
+import com.github.jakubpakula1.lab.dto.ImportJobDTO;
+import com.github.jakubpakula1.lab.event.EmployeeChangeLog;
 import com.github.jakubpakula1.lab.exception.InvalidFileException;
 import com.github.jakubpakula1.lab.exception.FileNotFoundException;
 import com.github.jakubpakula1.lab.model.Employee;
@@ -7,27 +9,46 @@ import com.github.jakubpakula1.lab.model.EmployeeDocument;
 import com.github.jakubpakula1.lab.model.FileType;
 import com.github.jakubpakula1.lab.model.Position;
 import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportMode;
 import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.github.jakubpakula1.lab.service.CsvEmployeeExportWriter;
 import com.github.jakubpakula1.lab.service.EmployeeService;
 import com.github.jakubpakula1.lab.service.FileStorageService;
-import com.github.jakubpakula1.lab.service.ImportService;
+import com.github.jakubpakula1.lab.service.ImportJob;
+import com.github.jakubpakula1.lab.service.ImportJobService;
+import com.github.jakubpakula1.lab.service.JsonEmployeeExportWriter;
+import com.github.jakubpakula1.lab.service.NdjsonEmployeeExportWriter;
+import com.github.jakubpakula1.lab.service.ReportCache;
 import com.github.jakubpakula1.lab.service.ReportGeneratorService;
+import com.github.jakubpakula1.lab.service.XmlEmployeeExportWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.invocation.InvocationOnMock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +58,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(FileUploadController.class)
+@Import({CsvEmployeeExportWriter.class, XmlEmployeeExportWriter.class, JsonEmployeeExportWriter.class, NdjsonEmployeeExportWriter.class})
 @Disabled("Testy wyłączone tymczasowo - wymuszają naprawy mocków, aby wygenerować pełny raport JaCoCo")
 class FileUploadControllerTest {
 
@@ -47,7 +69,7 @@ class FileUploadControllerTest {
     private FileStorageService fileStorageService;
 
     @MockBean
-    private ImportService importService;
+    private ImportJobService importJobService;
 
     @MockBean
     private ReportGeneratorService reportService;
@@ -55,6 +77,15 @@ class FileUploadControllerTest {
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private ReportCache reportCache;
+
+    @MockBean
+    private EmployeeChangeLog changeLog;
+
+    @TempDir
+    Path tempDir;
+
     private Employee testEmployee;
     private ImportSummary testSummary;
 
@@ -71,23 +102,28 @@ class FileUploadControllerTest {
     // ===== Testy importu CSV =====
 
     @Test
-    void testImportCsvSuccess() throws Exception {
+    void testImportCsvSubmitsJob() throws Exception {
         String csvContent = "name;surname;email;company;position;salary\n" +
                 "John;Doe;john@example.com;TechCorp;DEVELOPER;5000";
         MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+        ImportJob job = mock(ImportJob.class);
+        when(job.getId()).thenReturn("job-1");
 
-        when(fileStorageService.storeFile(any(), anyString())).thenReturn("employees_12345.csv");
+        when(fileStorageService.storeFile(any(), any())).thenReturn("employees_12345.csv");
         when(fileStorageService.loadFile("employees_12345.csv")).thenReturn(java.nio.file.Paths.get("uploads/employees_12345.csv"));
-        when(importService.importFromCsv(anyString())).thenReturn(testSummary);
+        when(importJobService.submit(any(), anyString(), eq(ImportFormat.CSV), any())).thenReturn(job);
+        when(importJobService.toDto(job)).thenReturn(new ImportJobDTO("job-1", ImportFormat.CSV, ImportMode.REPLACE, "employees.csv",
+                ImportJobStatus.QUEUED, null, null, null, 0, -1, -1, 0, 0, null, null, null));
 
         mockMvc.perform(multipart("/api/files/import/csv")
                 .file(file))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.importedEmployees").value(5))
-                .andExpect(jsonPath("$.errors.size()").value(0));
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/imports/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
 
-        verify(fileStorageService, times(1)).storeFile(any(), anyString());
-        verify(importService, times(1)).importFromCsv(anyString());
+        verify(fileStorageService, times(1)).storeFile(any(), any());
+        verify(importJobService, times(1)).submit(any(), anyString(), eq(ImportFormat.CSV), any());
     }
 
     @Test
@@ -137,10 +173,12 @@ class FileUploadControllerTest {
 
     @Test
     void testExportCsvAllEmployees() throws Exception {
-        String csvData = "id,name,surname,company,email\n1,John,Doe,TechCorp,john@example.com";
-        Resource resource = new ByteArrayResource(csvData.getBytes(StandardCharsets.UTF_8));
-
-        when(reportService.generateEmployeesCsv(any())).thenReturn(resource);
+        String csvData = "name,surname,company,email,position,salary\nJohn,Doe,TechCorp,john@example.com,PROGRAMISTA,8000\n";
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(csvData.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeEmployees(eq(Optional.empty()), any(), any());
+        when(reportCache.get(eq("employees-csv"), eq(List.of()), any())).thenAnswer(this::generateReport);
 
         mockMvc.perform(get("/api/files/export/csv"))
                 .andExpect(status().isOk())
@@ -148,18 +186,21 @@ class FileUploadControllerTest {
                 .andExpect(header().exists("Content-Disposition"))
                 .andExpect(header().string("Content-Disposition", containsString("attachment")))
                 .andExpect(header().string("Content-Disposition", containsString("employees.csv")))
+                .andExpect(header().string("ETag", "\"abc\""))
                 .andExpect(content().string(containsString("John")))
                 .andExpect(content().string(containsString("Doe")));
 
-        verify(reportService, times(1)).generateEmployeesCsv(any());
+        verify(reportService, times(1)).writeEmployees(any(), any(), any());
     }
 
     @Test
     void testExportCsvByCompany() throws Exception {
-        String csvData = "id,name,surname,company,email\n1,John,Doe,TechCorp,john@example.com";
-        Resource resource = new ByteArrayResource(csvData.getBytes(StandardCharsets.UTF_8));
-
-        when(reportService.generateEmployeesCsv(any())).thenReturn(resource);
+        String csvData = "name,surname,company,email,position,salary\nJohn,Doe,TechCorp,john@example.com,PROGRAMISTA,8000\n";
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(csvData.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeEmployees(eq(Optional.of("TechCorp")), any(), any());
+        when(reportCache.get(eq("employees-csv"), eq(List.of("company=techcorp")), any())).thenAnswer(this::generateReport);
 
         mockMvc.perform(get("/api/files/export/csv?company=TechCorp"))
                 .andExpect(status().isOk())
@@ -167,7 +208,129 @@ class FileUploadControllerTest {
                 .andExpect(header().string("Content-Disposition", containsString("TechCorp")))
                 .andExpect(content().string(containsString("John")));
 
-        verify(reportService, times(1)).generateEmployeesCsv(any());
+        verify(reportService, times(1)).writeEmployees(any(), any(), any());
+    }
+
+    @Test
+    void testExportFormatFromAcceptHeader() throws Exception {
+        when(reportCache.get(eq("employees-xml"), eq(List.of()), any())).thenAnswer(this::generateReport);
+
+        mockMvc.perform(get("/api/files/export").header("Accept", "text/html;q=0.9, application/xml"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/xml"))
+                .andExpect(header().string("Content-Disposition", containsString("employees.xml")))
+                .andExpect(header().string("Vary", "Accept"));
+
+        verify(reportService).writeEmployees(eq(Optional.empty()), isA(XmlEmployeeExportWriter.class), any());
+    }
+
+    @Test
+    void testExportFormatParameterOverridesAcceptHeader() throws Exception {
+        when(reportCache.get(eq("employees-ndjson"), eq(List.of("company=techcorp")), any())).thenAnswer(this::generateReport);
+
+        mockMvc.perform(get("/api/files/export?format=NDJSON&company=TechCorp").header("Accept", "application/xml"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", containsString("employees_TechCorp.ndjson")));
+
+        verify(reportService).writeEmployees(eq(Optional.of("TechCorp")), isA(NdjsonEmployeeExportWriter.class), any());
+    }
+
+    @Test
+    void testExportWildcardAcceptDefaultsToCsv() throws Exception {
+        when(reportCache.get(eq("employees-csv"), eq(List.of()), any())).thenAnswer(this::generateReport);
+
+        mockMvc.perform(get("/api/files/export").header("Accept", "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"));
+    }
+
+    @Test
+    void testExportUnsupportedAcceptHeader() throws Exception {
+        mockMvc.perform(get("/api/files/export").header("Accept", "text/html"))
+                .andExpect(status().isNotAcceptable());
+
+        verifyNoInteractions(reportCache, reportService);
+    }
+
+    @Test
+    void testExportUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/files/export?format=yaml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("yaml")));
+
+        verifyNoInteractions(reportCache, reportService);
+    }
+
+    @Test
+    void testExportCsvNotModified() throws Exception {
+        when(reportCache.get(eq("employees-csv"), eq(List.of()), any()))
+                .thenReturn(new ReportCache.CachedReport(tempDir.resolve("missing.report"), "\"abc\"", 10));
+
+        mockMvc.perform(get("/api/files/export/csv").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void testExportChangesSinceVersion() throws Exception {
+        when(changeLog.getStableVersion()).thenReturn(40L);
+        when(changeLog.getLastVersion()).thenReturn(42L);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write("{\"email\":\"jan@techcorp.com\",\"version\":40}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeEmployeeChanges(eq(12L), eq(40L), isA(NdjsonEmployeeExportWriter.class), any());
+
+        MvcResult result = mockMvc.perform(get("/api/files/export/changes?since=12"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Change-Watermark", "40"))
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"email\":\"jan@techcorp.com\",\"version\":40}\n"));
+
+        verifyNoInteractions(reportCache);
+    }
+
+    @Test
+    void testExportChangesSinceTimestamp() throws Exception {
+        when(changeLog.getStableVersion()).thenReturn(7L);
+
+        MvcResult result = mockMvc.perform(get("/api/files/export/changes?since=2026-10-17T08:00:00Z&format=xml"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Change-Watermark", "7"));
+
+        verify(reportService).writeEmployeeChanges(eq(Instant.parse("2026-10-17T08:00:00Z")), eq(7L), isA(XmlEmployeeExportWriter.class), any());
+    }
+
+    @Test
+    void testExportChangesRejectsCsvAndUnknownVersion() throws Exception {
+        when(changeLog.getLastVersion()).thenReturn(42L);
+
+        mockMvc.perform(get("/api/files/export/changes?format=csv"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("csv")));
+        mockMvc.perform(get("/api/files/export/changes?since=43"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/files/export/changes?since=wczoraj"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(reportService);
+    }
+
+    private ReportCache.CachedReport generateReport(InvocationOnMock invocation) throws IOException {
+        Path file = Files.createTempFile(tempDir, "report-", ".report");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            invocation.<ReportCache.ReportWriter>getArgument(2).write(out);
+        }
+        return new ReportCache.CachedReport(file, "\"abc\"", Files.size(file));
     }
 
     // ===== Testy uploadu dokumentów pracownika =====
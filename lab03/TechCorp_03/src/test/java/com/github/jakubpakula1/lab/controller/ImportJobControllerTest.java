@@ -0,0 +1,257 @@
+package com.github.jakubpakula1.lab.controller;
+
+import com.github.jakubpakula1.lab.dto.ImportJobDTO;
+import com.github.jakubpakula1.lab.exception.FileNotFoundException;
+import com.github.jakubpakula1.lab.exception.ImportJobNotFoundException;
+import com.github.jakubpakula1.lab.exception.ImportJobRejectedException;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportMode;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.github.jakubpakula1.lab.service.FileStorageService;
+import com.github.jakubpakula1.lab.service.ImportErrorReports;
+import com.github.jakubpakula1.lab.service.ImportFolderWatcher;
+import com.github.jakubpakula1.lab.service.ImportJob;
+import com.github.jakubpakula1.lab.service.ImportJobService;
+import com.github.jakubpakula1.lab.service.ImportOptions;
+import com.github.jakubpakula1.lab.service.ImportProgress;
+import com.github.jakubpakula1.lab.service.ImportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ImportJobController.class)
+class ImportJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImportJobService importJobService;
+
+    @MockBean
+    private ImportService importService;
+
+    @MockBean
+    private FileStorageService fileStorageService;
+
+    @MockBean
+    private ImportErrorReports errorReports;
+
+    @MockBean
+    private ImportFolderWatcher folderWatcher;
+
+    @Test
+    void submit_returnsAcceptedWithJobLocation() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "employees.xml", "text/xml", "<employees/>".getBytes());
+        ImportJob job = job("job-1", ImportJobStatus.QUEUED);
+        when(fileStorageService.storeFile(any(), any())).thenReturn("employees_1.xml");
+        when(fileStorageService.loadFile("employees_1.xml")).thenReturn(Path.of("uploads/employees_1.xml"));
+        when(importJobService.submit(Path.of("uploads/employees_1.xml"), "employees.xml", ImportFormat.XML, ImportOptions.replace()))
+                .thenReturn(job);
+
+        mockMvc.perform(multipart("/api/imports").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/imports/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void submit_mergeMode_passesOptionsToJob() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", "a;b".getBytes());
+        ImportJob job = job("job-2", ImportJobStatus.QUEUED);
+        when(fileStorageService.storeFile(any(), any())).thenReturn("employees_2.csv");
+        when(importJobService.submit(any(), eq("employees.csv"), eq(ImportFormat.CSV), eq(ImportOptions.merge(true))))
+                .thenReturn(job);
+
+        mockMvc.perform(multipart("/api/imports").file(file)
+                        .param("mode", "MERGE")
+                        .param("deleteMissing", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-2"));
+    }
+
+    @Test
+    void submit_checkpointed_requestsChunkedCommits() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", "a;b".getBytes());
+        ImportJob job = job("job-3", ImportJobStatus.QUEUED);
+        when(fileStorageService.storeFile(any(), any())).thenReturn("employees_3.csv");
+        when(importJobService.submit(any(), eq("employees.csv"), eq(ImportFormat.CSV), eq(ImportOptions.replace().asCheckpointed())))
+                .thenReturn(job);
+
+        mockMvc.perform(multipart("/api/imports").file(file)
+                        .param("checkpointed", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-3"));
+    }
+
+    @Test
+    void submit_queueFull_returnsServiceUnavailable() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", "a;b".getBytes());
+        when(fileStorageService.storeFile(any(), any())).thenReturn("employees_1.csv");
+        when(importJobService.submit(any(), any(), eq(ImportFormat.CSV), any()))
+                .thenThrow(new ImportJobRejectedException("Zbyt wiele importów w kolejce"));
+
+        mockMvc.perform(multipart("/api/imports").file(file))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void watchMetrics_returnsFolderWatcherCounters() throws Exception {
+        when(folderWatcher.getMetrics()).thenReturn(Map.of("filesImported", 3L, "oldestWaitingMs", 1500L));
+
+        mockMvc.perform(get("/api/imports/watch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filesImported").value(3))
+                .andExpect(jsonPath("$.oldestWaitingMs").value(1500));
+    }
+
+    @Test
+    void importStream_csvBody_importsWithoutStagingFile() throws Exception {
+        ImportSummary summary = new ImportSummary();
+        summary.setImportedEmployees(1);
+        when(importService.importFromCsv(any(InputStream.class), eq(StandardCharsets.UTF_8), eq(ImportOptions.merge(false)), any(ImportProgress.class)))
+                .thenReturn(summary);
+
+        mockMvc.perform(post("/api/imports/stream")
+                        .param("mode", "MERGE")
+                        .contentType("text/csv")
+                        .content("firstName;lastName;email;company;position;salary\nJan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedEmployees").value(1));
+
+        verifyNoInteractions(fileStorageService, importJobService);
+    }
+
+    @Test
+    void importStream_xmlBody_usesXmlImport() throws Exception {
+        when(importService.importFromXml(any(InputStream.class), eq(ImportOptions.replace()), any(ImportProgress.class)))
+                .thenReturn(new ImportSummary());
+
+        mockMvc.perform(post("/api/imports/stream")
+                        .contentType("application/xml")
+                        .content("<employees/>"))
+                .andExpect(status().isOk());
+
+        verify(importService).importFromXml(any(InputStream.class), eq(ImportOptions.replace()), any(ImportProgress.class));
+    }
+
+    @Test
+    void importStream_ndjsonBody_usesJsonImport() throws Exception {
+        when(importService.importFromJson(any(InputStream.class), eq(ImportOptions.replace()), any(ImportProgress.class)))
+                .thenReturn(new ImportSummary());
+
+        mockMvc.perform(post("/api/imports/stream")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\": \"Jan\"}\n"))
+                .andExpect(status().isOk());
+
+        verify(importService).importFromJson(any(InputStream.class), eq(ImportOptions.replace()), any(ImportProgress.class));
+    }
+
+    @Test
+    void getStatus_unknownJob_returnsNotFound() throws Exception {
+        when(importJobService.getJob("missing")).thenThrow(new ImportJobNotFoundException("Nie znaleziono zadania importu: missing"));
+
+        mockMvc.perform(get("/api/imports/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getProgress_returnsCounters() throws Exception {
+        ImportJob job = job("job-1", ImportJobStatus.RUNNING);
+        ImportProgress progress = new ImportProgress();
+        progress.setTotalBytes(200);
+        when(job.getProgress()).thenReturn(progress);
+        when(importJobService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/imports/job-1/progress"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.percent").value(0))
+                .andExpect(jsonPath("$.totalBytes").value(200));
+    }
+
+    @Test
+    void getResult_runningJob_returnsAccepted() throws Exception {
+        ImportJob job = job("job-1", ImportJobStatus.RUNNING);
+        when(importJobService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/imports/job-1/result"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    void getResult_completedJob_returnsSummary() throws Exception {
+        ImportSummary summary = new ImportSummary();
+        summary.setImportedEmployees(7);
+        summary.addError(3, "Invalid position: NOPE");
+        ImportJob job = job("job-1", ImportJobStatus.COMPLETED);
+        when(job.getSummary()).thenReturn(summary);
+        when(importJobService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/imports/job-1/result"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedEmployees").value(7))
+                .andExpect(jsonPath("$.errors[0].lineNumber").value(3))
+                .andExpect(jsonPath("$.errorCount").value(1))
+                .andExpect(jsonPath("$.errorCounts['Invalid position']").value(1));
+    }
+
+    @Test
+    void downloadErrorReport_returnsNdjsonFile(@TempDir Path tempDir) throws Exception {
+        String reportId = "0f8fad5b-d9cb-469f-a165-70867728950e";
+        Path report = Files.writeString(tempDir.resolve(reportId + ".ndjson"),
+                "{\"lineNumber\":2,\"type\":\"Invalid position\",\"errorMessage\":\"Invalid position: NOPE\"}\n");
+        when(errorReports.find(reportId)).thenReturn(report);
+
+        mockMvc.perform(get("/api/imports/error-reports/" + reportId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"import-errors-" + reportId + ".ndjson\""))
+                .andExpect(content().string(Files.readString(report)));
+    }
+
+    @Test
+    void downloadErrorReport_unknownReport_returnsNotFound() throws Exception {
+        when(errorReports.find("missing")).thenThrow(new FileNotFoundException("Nie znaleziono raportu błędów: missing"));
+
+        mockMvc.perform(get("/api/imports/error-reports/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancel_finishedJob_returnsConflict() throws Exception {
+        when(importJobService.cancel("job-1")).thenReturn(false);
+
+        mockMvc.perform(post("/api/imports/job-1/cancel"))
+                .andExpect(status().isConflict());
+    }
+
+    private ImportJob job(String id, ImportJobStatus status) {
+        ImportJob job = mock(ImportJob.class);
+        when(job.getId()).thenReturn(id);
+        when(job.getStatus()).thenReturn(status);
+        when(importJobService.toDto(job)).thenReturn(new ImportJobDTO(id, ImportFormat.CSV, ImportMode.REPLACE, "employees.csv", status,
+                null, null, null, 0, -1, -1, 0, 0, null, null, null));
+        return job;
+    }
+}
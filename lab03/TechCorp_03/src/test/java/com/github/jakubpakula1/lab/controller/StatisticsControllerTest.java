@@ -2,7 +2,13 @@ package com.github.jakubpakula1.lab.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.jakubpakula1.lab.dto.CompanyStatisticsDTO;
-import com.github.jakubpakula1.lab.service.EmployeeService;
+import com.github.jakubpakula1.lab.dto.SalaryDistributionDTO;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.service.EmployeeStatisticsStore;
+import com.github.jakubpakula1.lab.service.SalaryDistributionService;
+import com.github.jakubpakula1.lab.service.SingleFlight;
+import com.github.jakubpakula1.lab.service.StatisticsCacheService;
+import com.github.jakubpakula1.lab.service.StatisticsFacade;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -10,9 +16,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.mockito.ArgumentMatchers;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -28,34 +37,46 @@ class StatisticsControllerTest {
     private ObjectMapper objectMapper;
 
     @MockBean
-    private EmployeeService employeeService;
+    private StatisticsFacade statisticsFacade;
+
+    @MockBean
+    private EmployeeStatisticsStore statisticsStore;
+
+    @MockBean
+    private SalaryDistributionService salaryDistributionService;
+
+    @MockBean
+    private StatisticsCacheService statisticsCacheService;
+
+    @MockBean
+    private SingleFlight singleFlight;
 
     @Test
     void getAverageSalary_noCompany_returnsAverage() throws Exception {
-        when(employeeService.getAverageSalary(ArgumentMatchers.isNull())).thenReturn(5000.0);
+        when(statisticsStore.getAverageSalary(ArgumentMatchers.isNull())).thenReturn(5000.0);
 
         mockMvc.perform(get("/api/statistics/salary/average"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.averageSalary").value(5000.0));
 
-        verify(employeeService).getAverageSalary((String) null);
+        verify(statisticsStore).getAverageSalary(null);
     }
 
     @Test
     void getAverageSalary_withCompany_returnsAverage() throws Exception {
-        when(employeeService.getAverageSalary("Acme")).thenReturn(6000.0);
+        when(statisticsStore.getAverageSalary("Acme")).thenReturn(6000.0);
 
         mockMvc.perform(get("/api/statistics/salary/average").param("company", "Acme"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.averageSalary").value(6000.0));
 
-        verify(employeeService).getAverageSalary("Acme");
+        verify(statisticsStore).getAverageSalary("Acme");
     }
 
     @Test
     void getCompanyStatistics_found_returnsDto() throws Exception {
         CompanyStatisticsDTO dto = new CompanyStatisticsDTO("Acme", 2, 5500.0, 6000.0, "Jane Doe");
-        when(employeeService.getCompanyStatisticsDTO("Acme")).thenReturn(Optional.of(dto));
+        when(statisticsFacade.getCompanyStatisticsDTO("Acme")).thenReturn(Optional.of(dto));
 
         mockMvc.perform(get("/api/statistics/company/Acme"))
                 .andExpect(status().isOk())
@@ -65,42 +86,96 @@ class StatisticsControllerTest {
                 .andExpect(jsonPath("$.highestSalary").value(6000.0))
                 .andExpect(jsonPath("$.topEarnerName").value("Jane Doe"));
 
-        verify(employeeService).getCompanyStatisticsDTO("Acme");
+        verify(statisticsFacade).getCompanyStatisticsDTO("Acme");
     }
 
     @Test
     void getCompanyStatistics_notFound_returns404() throws Exception {
-        when(employeeService.getCompanyStatisticsDTO("Nope")).thenReturn(Optional.empty());
+        when(statisticsFacade.getCompanyStatisticsDTO("Nope")).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/statistics/company/Nope"))
                 .andExpect(status().isNotFound());
 
-        verify(employeeService).getCompanyStatisticsDTO("Nope");
+        verify(statisticsFacade).getCompanyStatisticsDTO("Nope");
     }
 
     @Test
     void getPositionStatistics_returnsMap() throws Exception {
         Map<String, Integer> positions = Map.of("PROGRAMISTA", 2, "MANAGER", 1);
-        when(employeeService.getPositionStatistics()).thenReturn(positions);
+        when(statisticsStore.getPositionStatistics()).thenReturn(positions);
 
         mockMvc.perform(get("/api/statistics/positions"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.PROGRAMISTA").value(2))
                 .andExpect(jsonPath("$.MANAGER").value(1));
 
-        verify(employeeService).getPositionStatistics();
+        verify(statisticsStore).getPositionStatistics();
     }
 
     @Test
     void getStatusDistribution_returnsMap() throws Exception {
         Map<String, Integer> distribution = Map.of("ACTIVE", 3, "ON_LEAVE", 1);
-        when(employeeService.getStatusDistribution()).thenReturn(distribution);
+        when(statisticsStore.getStatusDistribution()).thenReturn(distribution);
 
         mockMvc.perform(get("/api/statistics/status"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.ACTIVE").value(3))
                 .andExpect(jsonPath("$.ON_LEAVE").value(1));
 
-        verify(employeeService).getStatusDistribution();
+        verify(statisticsStore).getStatusDistribution();
+    }
+
+    @Test
+    void getSalaryDistribution_withFilters_returnsPercentilesAndHistogram() throws Exception {
+        SalaryDistributionDTO dto = new SalaryDistributionDTO("Acme", "PROGRAMISTA", 3, 4000.0, 9000.0,
+                5000.0, 9000.0, 9000.0,
+                List.of(new SalaryDistributionDTO.HistogramBucket(4000.0, 6500.0, 2),
+                        new SalaryDistributionDTO.HistogramBucket(6500.0, 9000.0, 1)));
+        when(salaryDistributionService.getDistribution("Acme", Position.PROGRAMISTA, 2)).thenReturn(dto);
+
+        mockMvc.perform(get("/api/statistics/salary/distribution")
+                        .param("company", "Acme")
+                        .param("position", "PROGRAMISTA")
+                        .param("buckets", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.p50").value(5000.0))
+                .andExpect(jsonPath("$.p99").value(9000.0))
+                .andExpect(jsonPath("$.histogram.length()").value(2))
+                .andExpect(jsonPath("$.histogram[0].count").value(2));
+
+        verify(salaryDistributionService).getDistribution("Acme", Position.PROGRAMISTA, 2);
+    }
+
+    @Test
+    void getSalaryDistribution_invalidBuckets_returns400() throws Exception {
+        mockMvc.perform(get("/api/statistics/salary/distribution").param("buckets", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(salaryDistributionService, never()).getDistribution(ArgumentMatchers.any(), ArgumentMatchers.any(), anyInt());
+    }
+
+    @Test
+    void getCacheStatistics_returnsCountersPerCache() throws Exception {
+        Map<String, Map<String, Object>> stats = Map.of("companyStatistics", Map.of("hits", 5L, "misses", 2L, "evictions", 0L));
+        when(statisticsCacheService.getCacheStatistics()).thenReturn(stats);
+
+        mockMvc.perform(get("/api/statistics/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.companyStatistics.hits").value(5))
+                .andExpect(jsonPath("$.companyStatistics.misses").value(2));
+
+        verify(statisticsCacheService).getCacheStatistics();
+    }
+
+    @Test
+    void getCoalescingMetrics_returnsCountersPerOperation() throws Exception {
+        when(singleFlight.getMetrics()).thenReturn(Map.of("companyStatistics", Map.of("calls", 10L, "executions", 1L, "coalesced", 9L)));
+
+        mockMvc.perform(get("/api/statistics/coalescing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.companyStatistics.coalesced").value(9));
+
+        verify(singleFlight).getMetrics();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.CompanyStatistics;
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CompanyStatisticsAggregationTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        employeeRepository.save(employee("Jan", "Kowalski", "Acme", "jan@techcorp.com", 8000));
+        employeeRepository.save(employee("Anna", "Nowak", "Acme", "anna@techcorp.com", 12000));
+        employeeRepository.save(employee("Piotr", "Lis", "TechCorp", "piotr@techcorp.com", 9500));
+    }
+
+    @Test
+    void getCompanyStatistics_matchesInMemoryComputation() {
+        Map<String, CompanyStatistics> fromDatabase = employeeService.getCompanyStatistics();
+        Map<String, CompanyStatistics> inMemory = EmployeeService.computeCompanyStatistics(employeeRepository.findAll());
+
+        assertThat(fromDatabase).containsOnlyKeys(inMemory.keySet());
+        inMemory.forEach((company, expected) -> {
+            CompanyStatistics actual = fromDatabase.get(company);
+            assertThat(actual.getNumberOfEmployees()).isEqualTo(expected.getNumberOfEmployees());
+            assertThat(actual.getAverageSalary()).isCloseTo(expected.getAverageSalary(), within(0.01));
+            assertThat(actual.getBestEarningName()).isEqualTo(expected.getBestEarningName());
+        });
+    }
+
+    @Test
+    void getCompanyStatisticsDTO_caseInsensitive_usesAggregates() {
+        var dto = employeeService.getCompanyStatisticsDTO("acme").orElseThrow();
+
+        assertThat(dto.getEmployeeCount()).isEqualTo(2);
+        assertThat(dto.getAverageSalary()).isCloseTo(10000.0, within(0.01));
+        assertThat(dto.getHighestSalary()).isEqualTo(12000.0);
+        assertThat(dto.getTopEarnerName()).isEqualTo("Anna Nowak");
+    }
+
+    @Test
+    void getCompanyStatistics_groupsCompanyNamesLikePerCompanyLookup() {
+        employeeRepository.save(employee("Ewa", "Zając", "ACME", "ewa@techcorp.com", 13000));
+
+        Map<String, CompanyStatistics> all = employeeService.getCompanyStatistics();
+        CompanyStatistics single = employeeService.getCompanyStatistics("acme").orElseThrow();
+
+        assertThat(all).containsOnlyKeys("ACME", "TechCorp");
+        assertThat(all.get("ACME").getNumberOfEmployees()).isEqualTo(single.getNumberOfEmployees()).isEqualTo(3);
+        assertThat(all.get("ACME").getAverageSalary()).isCloseTo(single.getAverageSalary(), within(0.01));
+        assertThat(all.get("ACME").getBestEarningName()).isEqualTo(single.getBestEarningName()).isEqualTo("Ewa Zając");
+        assertThat(EmployeeService.computeCompanyStatistics(employeeRepository.findAll())).containsOnlyKeys("ACME", "TechCorp");
+    }
+
+    @Test
+    void getCompanyStatistics_unknownCompany_returnsEmpty() {
+        assertThat(employeeService.getCompanyStatistics("Nope")).isEmpty();
+    }
+
+    private Employee employee(String name, String surname, String company, String email, int salary) {
+        Employee employee = new Employee(name, surname, company, email, Position.PROGRAMISTA, BigDecimal.valueOf(salary));
+        employee.setStatus(EmploymentStatus.ACTIVE);
+        return employee;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CsvTokenizerTest {
+
+    private final CsvTokenizer tokenizer = new CsvTokenizer();
+
+    @Test
+    void split_trimsFieldsLikeStringSplit() {
+        assertThat(fields(" Jan ;\tKowalski;;X")).containsExactly("Jan", "Kowalski", "", "X");
+        assertThat(fields("a;b;;;")).containsExactly("a", "b");
+        assertThat(fields("a;b; ")).containsExactly("a", "b", "");
+        assertThat(fields("")).isEmpty();
+    }
+
+    @Test
+    void split_decodesPolishCharacters() {
+        assertThat(fields("Zażółć;Gęślą;jaźń")).containsExactly("Zażółć", "Gęślą", "jaźń");
+    }
+
+    @Test
+    void split_quotedFieldKeepsDelimitersQuotesAndWhitespace() {
+        assertThat(fields("\"Ko;wal\"\"ski\"; \" X \" ;\"\"")).containsExactly("Ko;wal\"ski", " X ", "");
+    }
+
+    @Test
+    void parseInt_matchesIntegerParseInt() {
+        for (String value : List.of("0", "5000", "+7", "-5", "007", "2147483647", "-2147483648")) {
+            assertThat(split(" " + value + " ").parseInt(0)).isEqualTo(Integer.parseInt(value));
+        }
+        for (String value : List.of("", "+", "-", "12a", "1 2", "2147483648", "-2147483649", "5,5")) {
+            assertThatThrownBy(() -> split(value).parseInt(0)).isInstanceOf(NumberFormatException.class);
+        }
+        assertThat(split("\" 42 \"").parseInt(0)).isEqualTo(42);
+    }
+
+    @Test
+    void enumValue_ignoresCase() {
+        assertThat(split(" programista ").enumValue(0, Position.values())).isEqualTo(Position.PROGRAMISTA);
+        assertThat(split("\"Manager\"").enumValue(0, Position.values())).isEqualTo(Position.MANAGER);
+        assertThat(split("PROGRAMISTAX").enumValue(0, Position.values())).isNull();
+        assertThat(split("").enumValue(0, Position.values())).isNull();
+    }
+
+    private CsvTokenizer split(String row) {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        return tokenizer.split(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private List<String> fields(String row) {
+        CsvTokenizer fields = split(row);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            result.add(fields.string(i));
+        }
+        return result;
+    }
+}
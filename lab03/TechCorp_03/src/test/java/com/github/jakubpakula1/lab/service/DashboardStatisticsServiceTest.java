@@ -0,0 +1,87 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.DashboardRow;
+import com.github.jakubpakula1.lab.model.DashboardStatistics;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DashboardStatisticsServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @InjectMocks
+    private DashboardStatisticsService service;
+
+    @Test
+    void getDashboardStatistics_singleScan_computesAllFigures() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(Stream.of(
+                new DashboardRow("Acme", "Jan", "Kowalski", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, BigDecimal.valueOf(8000)),
+                new DashboardRow("Acme", "Anna", "Nowak", Position.MANAGER, EmploymentStatus.ON_LEAVE, BigDecimal.valueOf(12000)),
+                new DashboardRow("TechCorp", "Piotr", "Lis", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, BigDecimal.valueOf(10000))
+        ));
+
+        DashboardStatistics stats = service.getDashboardStatistics();
+
+        assertThat(stats.getTotalEmployees()).isEqualTo(3);
+        assertThat(stats.getAverageSalary()).isEqualTo(10000.0);
+        assertThat(stats.getCompanyStatistics()).containsOnlyKeys("Acme", "TechCorp");
+        assertThat(stats.getCompanyStatistics().get("Acme").getNumberOfEmployees()).isEqualTo(2);
+        assertThat(stats.getCompanyStatistics().get("Acme").getAverageSalary()).isEqualTo(10000.0);
+        assertThat(stats.getCompanyStatistics().get("Acme").getBestEarningName()).isEqualTo("Anna Nowak");
+        assertThat(stats.getPositionStatistics()).containsEntry("PROGRAMISTA", 2).containsEntry("MANAGER", 1);
+        assertThat(stats.getStatusDistribution()).containsEntry("ACTIVE", 2).containsEntry("ON_LEAVE", 1);
+        verify(employeeRepository, times(1)).streamDashboardRows();
+        verify(employeeRepository, never()).findAll();
+    }
+
+    @Test
+    void getDashboardStatistics_companyNamesDifferingInCase_areOneCompany() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(Stream.of(
+                new DashboardRow("acme", "Jan", "Kowalski", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, BigDecimal.valueOf(8000)),
+                new DashboardRow("Acme", "Anna", "Nowak", Position.MANAGER, EmploymentStatus.ACTIVE, BigDecimal.valueOf(12000))
+        ));
+
+        DashboardStatistics stats = service.getDashboardStatistics();
+
+        assertThat(stats.getCompanyStatistics()).containsOnlyKeys("Acme");
+        assertThat(stats.getCompanyStatistics().get("Acme").getNumberOfEmployees()).isEqualTo(2);
+        assertThat(stats.getCompanyStatistics().get("Acme").getBestEarningName()).isEqualTo("Anna Nowak");
+    }
+
+    @Test
+    void getDashboardStatistics_emptyTable_returnsZeros() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(Stream.empty());
+
+        DashboardStatistics stats = service.getDashboardStatistics();
+
+        assertThat(stats.getTotalEmployees()).isZero();
+        assertThat(stats.getAverageSalary()).isEqualTo(0.0);
+        assertThat(stats.getCompanyStatistics()).isEmpty();
+        assertThat(stats.getPositionStatistics()).isEmpty();
+        assertThat(stats.getStatusDistribution()).isEmpty();
+    }
+
+    @Test
+    void getDashboardStatistics_snapshotIsImmutable() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(Stream.empty());
+
+        DashboardStatistics stats = service.getDashboardStatistics();
+
+        assertThatThrownBy(() -> stats.getPositionStatistics().put("PREZES", 1))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.event.EmployeeChangeLog;
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class EmployeeChangeFeedIntegrationTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReportGeneratorService reportService;
+
+    @Autowired
+    private EmployeeChangeLog changeLog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long baseline;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        baseline = changeLog.getStableVersion();
+    }
+
+    @Test
+    void writes_stampVersionsAndTimestamps() {
+        Employee jan = employeeService.addEmployee(employee("Jan", "jan@techcorp.com"));
+        Instant createdAt = jan.getCreatedAt();
+
+        employeeService.updateEmployeeStatus("jan@techcorp.com", EmploymentStatus.ON_LEAVE);
+        Employee updated = employeeRepository.findById(jan.getId()).orElseThrow();
+
+        assertThat(jan.getChangeVersion()).isEqualTo(baseline + 1);
+        assertThat(updated.getChangeVersion()).isEqualTo(baseline + 2);
+        assertThat(updated.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(updated.getUpdatedAt()).isAfterOrEqualTo(createdAt);
+        assertThat(changeLog.getStableVersion()).isEqualTo(changeLog.getLastVersion()).isEqualTo(baseline + 2);
+    }
+
+    @Test
+    void changesSinceVersion_includeLatestStateAndTombstonesInVersionOrder() throws IOException {
+        employeeService.addEmployee(employee("Jan", "jan@techcorp.com"));
+        employeeService.addEmployee(employee("Anna", "anna@techcorp.com"));
+        employeeService.updateEmployeeStatus("jan@techcorp.com", EmploymentStatus.ON_LEAVE);
+        employeeService.deleteEmployee("anna@techcorp.com");
+        long watermark = changeLog.getStableVersion();
+
+        String[] all = changes(baseline, watermark).split("\n");
+        String[] afterUpdate = changes(baseline + 3, watermark).split("\n");
+
+        assertThat(all).hasSize(2);
+        assertThat(all[0]).contains("\"email\":\"jan@techcorp.com\"", "\"status\":\"ON_LEAVE\"", "\"version\":" + (baseline + 3))
+                .doesNotContain("deleted");
+        assertThat(all[1]).startsWith("{\"email\":\"anna@techcorp.com\",\"company\":\"Acme\"")
+                .contains("\"version\":" + (baseline + 4), "\"deleted\":true");
+        assertThat(afterUpdate).containsExactly(all[1]);
+        assertThat(changes(watermark, watermark)).isEmpty();
+    }
+
+    @Test
+    void deleteAllEmployees_leavesTombstoneWithOwnVersionForEveryEmployee() throws IOException {
+        employeeService.addEmployee(employee("Jan", "jan@techcorp.com"));
+        employeeService.addEmployee(employee("Anna", "anna@techcorp.com"));
+        long beforeDelete = changeLog.getStableVersion();
+
+        employeeService.deleteAllEmployees();
+
+        String[] deleted = changes(beforeDelete, changeLog.getStableVersion()).split("\n");
+        assertThat(employeeRepository.count()).isZero();
+        assertThat(deleted).hasSize(2);
+        assertThat(deleted[0]).contains("\"email\":\"jan@techcorp.com\"", "\"version\":" + (beforeDelete + 1), "\"deleted\":true");
+        assertThat(deleted[1]).contains("\"email\":\"anna@techcorp.com\"", "\"version\":" + (beforeDelete + 2), "\"deleted\":true");
+        assertThat(changeLog.getStableVersion()).isEqualTo(beforeDelete + 2);
+    }
+
+    @Test
+    void changesSinceTimestamp_skipOlderRows() throws IOException, InterruptedException {
+        employeeService.addEmployee(employee("Jan", "jan@techcorp.com"));
+        Instant since = employeeRepository.findByEmail("jan@techcorp.com").orElseThrow().getUpdatedAt();
+        Thread.sleep(5);
+        employeeService.addEmployee(employee("Anna", "anna@techcorp.com"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeEmployeeChanges(since, changeLog.getStableVersion(), new NdjsonEmployeeExportWriter(), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("anna@techcorp.com").doesNotContain("jan@techcorp.com");
+    }
+
+    @Test
+    void stableVersion_staysBelowTransactionStillInProgress() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            employeeRepository.saveAndFlush(employee("Jan", "jan@techcorp.com"));
+            written.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+
+        employeeService.addEmployee(employee("Anna", "anna@techcorp.com"));
+
+        assertThat(changeLog.getLastVersion()).isEqualTo(baseline + 2);
+        assertThat(changeLog.getStableVersion()).isEqualTo(baseline);
+        release.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        assertThat(changeLog.getStableVersion()).isEqualTo(baseline + 2);
+    }
+
+    private String changes(long since, long upTo) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeEmployeeChanges(since, upTo, new NdjsonEmployeeExportWriter(), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private Employee employee(String name, String email) {
+        Employee employee = new Employee(name, "Kowalski", "Acme", email, Position.PROGRAMISTA, BigDecimal.valueOf(8000));
+        employee.setStatus(EmploymentStatus.ACTIVE);
+        return employee;
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeExportWriterTest {
+
+    private static final List<EmployeeExportRow> ROWS = List.of(
+            new EmployeeExportRow("Łukasz", "Żółw", "Tech & \"Corp\" <PL>", "lukasz@techcorp.com",
+                    Position.MANAGER, new BigDecimal("12000.00"), EmploymentStatus.ON_LEAVE),
+            new EmployeeExportRow("Jan", "Kowalski", "TechCorp", "jan@techcorp.com",
+                    Position.PROGRAMISTA, new BigDecimal("10000"), EmploymentStatus.ACTIVE));
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private ImportPipeline pipeline;
+
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new ImportPipeline(0, 8);
+        importService = new ImportService(new EmployeeService(employeeRepository), null, pipeline, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void xml_roundTripsThroughImport() throws IOException {
+        String xml = write(new XmlEmployeeExportWriter(), ROWS);
+
+        assertThat(xml).startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?><employees><employee><name>Łukasz</name>")
+                .contains("<salary>10000</salary>", "<status>ON_LEAVE</status>", "Tech &amp; \"Corp\" &lt;PL&gt;");
+        ImportSummary summary = importService.importFromXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                ImportOptions.replace(), new ImportProgress());
+
+        assertImported(summary);
+    }
+
+    @Test
+    void json_roundTripsThroughImport() throws IOException {
+        String json = write(new JsonEmployeeExportWriter(), ROWS);
+
+        assertThat(json).startsWith("[{\"name\":\"Łukasz\",").contains("\"salary\":12000,", "\"salary\":10000,").endsWith("}]");
+        ImportSummary summary = importService.importFromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                ImportOptions.replace(), new ImportProgress());
+
+        assertImported(summary);
+    }
+
+    @Test
+    void ndjson_writesOneObjectPerLineAndRoundTripsThroughImport() throws IOException {
+        String ndjson = write(new NdjsonEmployeeExportWriter(), ROWS);
+
+        assertThat(ndjson.split("\n")).hasSize(2).allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}"));
+        ImportSummary summary = importService.importFromJson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                ImportOptions.replace(), new ImportProgress());
+
+        assertImported(summary);
+    }
+
+    @Test
+    void emptyRows_writeEmptyDocuments() throws IOException {
+        assertThat(write(new CsvEmployeeExportWriter(), List.of())).isEqualTo("name,surname,company,email,position,salary\n");
+        assertThat(write(new XmlEmployeeExportWriter(), List.of())).endsWith("<employees></employees>");
+        assertThat(write(new JsonEmployeeExportWriter(), List.of())).isEqualTo("[]");
+        assertThat(write(new NdjsonEmployeeExportWriter(), List.of())).isEmpty();
+    }
+
+    @Test
+    void missingFields_areOmitted() throws IOException {
+        List<EmployeeExportRow> rows = List.of(new EmployeeExportRow("Anna", null, "TechCorp", "anna@techcorp.com", null, null));
+
+        assertThat(write(new XmlEmployeeExportWriter(), rows))
+                .endsWith("<employee><name>Anna</name><email>anna@techcorp.com</email><company>TechCorp</company></employee></employees>");
+        assertThat(write(new JsonEmployeeExportWriter(), rows))
+                .isEqualTo("[{\"name\":\"Anna\",\"email\":\"anna@techcorp.com\",\"company\":\"TechCorp\"}]");
+    }
+
+    @Test
+    void changeRows_carryVersionAndDeletionMarker() throws IOException {
+        Instant changedAt = Instant.parse("2026-10-17T08:00:00Z");
+        List<EmployeeExportRow> rows = List.of(
+                new EmployeeExportRow("Jan", "Kowalski", "TechCorp", "jan@techcorp.com", Position.PROGRAMISTA,
+                        new BigDecimal("10000"), EmploymentStatus.ACTIVE, 7L, changedAt),
+                new EmployeeExportRow("anna@techcorp.com", "TechCorp", 8L, changedAt));
+
+        assertThat(write(new NdjsonEmployeeExportWriter(), rows).split("\n")).containsExactly(
+                "{\"name\":\"Jan\",\"surname\":\"Kowalski\",\"email\":\"jan@techcorp.com\",\"company\":\"TechCorp\","
+                        + "\"position\":\"PROGRAMISTA\",\"salary\":10000,\"status\":\"ACTIVE\",\"version\":7,\"changedAt\":\"2026-10-17T08:00:00Z\"}",
+                "{\"email\":\"anna@techcorp.com\",\"company\":\"TechCorp\",\"version\":8,\"changedAt\":\"2026-10-17T08:00:00Z\",\"deleted\":true}");
+        assertThat(write(new XmlEmployeeExportWriter(), rows))
+                .contains("<status>ACTIVE</status><version>7</version><changedAt>2026-10-17T08:00:00Z</changedAt></employee>",
+                        "<company>TechCorp</company><version>8</version><changedAt>2026-10-17T08:00:00Z</changedAt><deleted>true</deleted>");
+        assertThat(new CsvEmployeeExportWriter().supportsChanges()).isFalse();
+    }
+
+    @Test
+    void xmlText_replacesCharactersNotAllowedInXml() {
+        assertThat(XmlEmployeeExportWriter.xmlText("a\u0001b\tc\uFFFF")).isEqualTo("a?b\tc?");
+        assertThat(XmlEmployeeExportWriter.xmlText("Żółw")).isEqualTo("Żółw");
+    }
+
+    private void assertImported(ImportSummary summary) {
+        assertThat(summary.getErrors()).isEmpty();
+        assertThat(summary.getImportedEmployees()).isEqualTo(2);
+        ArgumentCaptor<Employee> saved = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeRepository, times(2)).save(saved.capture());
+        Employee first = saved.getAllValues().get(0);
+        assertThat(first.getName()).isEqualTo("Łukasz");
+        assertThat(first.getCompany()).isEqualTo("Tech & \"Corp\" <PL>");
+        assertThat(first.getPosition()).isEqualTo(Position.MANAGER);
+        assertThat(first.getSalary()).isEqualByComparingTo("12000");
+        assertThat(first.getStatus()).isEqualTo(EmploymentStatus.ON_LEAVE);
+    }
+
+    private static String write(EmployeeExportWriter writer, List<EmployeeExportRow> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(rows.iterator(), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,8 @@
 package com.github.jakubpakula1.lab.service;
 
+import com.github.jakubpakula1.lab.dto.CompanyAggregateRow;
+import com.github.jakubpakula1.lab.dto.CompanyStatisticsDTO;
+import com.github.jakubpakula1.lab.dto.TopEarnerRow;
 import com.github.jakubpakula1.lab.model.Employee;
 import com.github.jakubpakula1.lab.model.EmploymentStatus;
 import com.github.jakubpakula1.lab.model.Position;
@@ -401,21 +404,26 @@ public class EmployeeServiceTest {
 
     @Test
     void getCompanyStatistics_withEmployees_returnsStats() {
-        Employee e1 = new Employee("A", "A", "Acme", "a@x.com", Position.PROGRAMISTA, BigDecimal.valueOf(8000));
-        Employee e2 = new Employee("B", "B", "Acme", "b@x.com", Position.MANAGER, BigDecimal.valueOf(12000));
-        Employee e3 = new Employee("C", "C", "TechCorp", "c@x.com", Position.PROGRAMISTA, BigDecimal.valueOf(9000));
-        when(employeeRepository.findAll()).thenReturn(List.of(e1, e2, e3));
+        when(employeeRepository.aggregateByCompany()).thenReturn(List.of(
+                new CompanyAggregateRow("Acme", 2L, 10000.0, BigDecimal.valueOf(12000)),
+                new CompanyAggregateRow("TechCorp", 1L, 9000.0, BigDecimal.valueOf(9000))));
+        when(employeeRepository.findTopEarnersByCompany()).thenReturn(List.of(
+                new TopEarnerRow("Acme", "B", "Nowak", BigDecimal.valueOf(12000)),
+                new TopEarnerRow("TechCorp", "C", "Lis", BigDecimal.valueOf(9000))));
 
         Map<String, com.github.jakubpakula1.lab.model.CompanyStatistics> result = service.getCompanyStatistics();
 
         assertThat(result).containsKeys("Acme", "TechCorp");
         assertThat(result.get("Acme").getNumberOfEmployees()).isEqualTo(2);
+        assertThat(result.get("Acme").getAverageSalary()).isEqualTo(10000.0);
+        assertThat(result.get("Acme").getBestEarningName()).isEqualTo("B Nowak");
         assertThat(result.get("TechCorp").getNumberOfEmployees()).isEqualTo(1);
+        verify(employeeRepository, never()).findAll();
     }
 
     @Test
     void getCompanyStatistics_emptyDatabase_returnsEmpty() {
-        when(employeeRepository.findAll()).thenReturn(Collections.emptyList());
+        when(employeeRepository.aggregateByCompany()).thenReturn(Collections.emptyList());
 
         Map<String, com.github.jakubpakula1.lab.model.CompanyStatistics> result = service.getCompanyStatistics();
 
@@ -423,9 +431,50 @@ public class EmployeeServiceTest {
     }
 
     @Test
-    void deleteAllEmployees_deletesAll() {
+    void getCompanyStatisticsDTO_found_buildsFromAggregateRow() {
+        when(employeeRepository.aggregateForCompany("Acme"))
+                .thenReturn(new CompanyAggregateRow("Acme", 2L, 10000.0, BigDecimal.valueOf(12000)));
+        when(employeeRepository.findTopEarnersForCompany("Acme"))
+                .thenReturn(List.of(new TopEarnerRow("Acme", "B", "Nowak", BigDecimal.valueOf(12000))));
+
+        Optional<CompanyStatisticsDTO> result = service.getCompanyStatisticsDTO(" Acme ");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getEmployeeCount()).isEqualTo(2);
+        assertThat(result.get().getHighestSalary()).isEqualTo(12000.0);
+        assertThat(result.get().getTopEarnerName()).isEqualTo("B Nowak");
+        verify(employeeRepository, never()).findByCompanyIgnoreCase(anyString());
+    }
+
+    @Test
+    void getCompanyStatisticsDTO_noEmployees_returnsEmpty() {
+        when(employeeRepository.aggregateForCompany("Nope"))
+                .thenReturn(new CompanyAggregateRow(null, 0L, null, null));
+
+        assertThat(service.getCompanyStatisticsDTO("Nope")).isEmpty();
+    }
+
+    @Test
+    void computeCompanyStatistics_inMemory_groupsByCompany() {
+        Employee e1 = new Employee("A", "A", "Acme", "a@x.com", Position.PROGRAMISTA, BigDecimal.valueOf(8000));
+        Employee e2 = new Employee("B", "Nowak", "Acme", "b@x.com", Position.MANAGER, BigDecimal.valueOf(12000));
+
+        Map<String, com.github.jakubpakula1.lab.model.CompanyStatistics> result =
+                EmployeeService.computeCompanyStatistics(List.of(e1, e2));
+
+        assertThat(result.get("Acme").getNumberOfEmployees()).isEqualTo(2);
+        assertThat(result.get("Acme").getBestEarningName()).isEqualTo("B Nowak");
+    }
+
+    @Test
+    void deleteAllEmployees_deletesInIdChunksWithoutLoadingEntities() {
+        when(employeeRepository.findIdsAfter(eq(Long.MIN_VALUE), any())).thenReturn(List.of(1L, 2L));
+        when(employeeRepository.findIdsAfter(eq(2L), any())).thenReturn(List.of());
+
         service.deleteAllEmployees();
 
-        verify(employeeRepository).deleteAll();
+        verify(employeeRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(employeeRepository, never()).deleteAll();
+        verify(employeeRepository, never()).findAll();
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.StatisticsBucketRow;
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.event.EmployeeSnapshot;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EmployeeStatisticsStoreTest {
+
+    private EmployeeStatisticsStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new EmployeeStatisticsStore();
+    }
+
+    @Test
+    void apply_insert_updatesAllCounters() {
+        store.apply(new EmployeeChangedEvent(null, snapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 8000)));
+        store.apply(new EmployeeChangedEvent(null, snapshot("b@techcorp.com", "acme", Position.MANAGER, EmploymentStatus.ACTIVE, 12000)));
+
+        assertThat(store.getEmployeeCount()).isEqualTo(2);
+        assertThat(store.getAverageSalary(null)).isEqualTo(10000.0);
+        assertThat(store.getAverageSalary("ACME")).isEqualTo(10000.0);
+        assertThat(store.getPositionStatistics()).containsEntry("PROGRAMISTA", 1).containsEntry("MANAGER", 1);
+        assertThat(store.getStatusDistribution()).containsEntry("ACTIVE", 2);
+    }
+
+    @Test
+    void apply_update_movesEmployeeBetweenBuckets() {
+        EmployeeSnapshot before = snapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 8000);
+        EmployeeSnapshot after = snapshot("a@techcorp.com", "Acme", Position.MANAGER, EmploymentStatus.ON_LEAVE, 12000);
+        store.apply(new EmployeeChangedEvent(null, before));
+
+        store.apply(new EmployeeChangedEvent(before, after));
+
+        assertThat(store.getPositionStatistics()).containsOnlyKeys("MANAGER");
+        assertThat(store.getStatusDistribution()).containsOnlyKeys("ON_LEAVE");
+        assertThat(store.getAverageSalary("Acme")).isEqualTo(12000.0);
+    }
+
+    @Test
+    void apply_delete_removesEmployee() {
+        EmployeeSnapshot snapshot = snapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 8000);
+        store.apply(new EmployeeChangedEvent(null, snapshot));
+
+        store.apply(new EmployeeChangedEvent(snapshot, null));
+
+        assertThat(store.getEmployeeCount()).isZero();
+        assertThat(store.getAverageSalary(null)).isEqualTo(0.0);
+        assertThat(store.getPositionStatistics()).isEmpty();
+    }
+
+    @Test
+    void reconcile_matchingCounters_reportsNoDrift() {
+        store.apply(new EmployeeChangedEvent(null, snapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 8000)));
+        List<StatisticsBucketRow> rows = List.of(bucket("Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 1, 8000));
+
+        assertThat(store.reconcile(rows, store.getVersion())).isFalse();
+    }
+
+    @Test
+    void reconcile_drift_replacesCounters() {
+        List<StatisticsBucketRow> rows = List.of(bucket("Acme", Position.MANAGER, EmploymentStatus.ACTIVE, 2, 24000));
+
+        assertThat(store.reconcile(rows, store.getVersion())).isTrue();
+
+        assertThat(store.getEmployeeCount()).isEqualTo(2);
+        assertThat(store.getAverageSalary("Acme")).isEqualTo(12000.0);
+    }
+
+    @Test
+    void reconcile_concurrentWrite_skipsComparison() {
+        long version = store.getVersion();
+        store.apply(new EmployeeChangedEvent(null, snapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 8000)));
+
+        assertThat(store.reconcile(List.of(), version)).isFalse();
+        assertThat(store.getEmployeeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuild_writeCommittedDuringScan_isRejected() {
+        EmployeeChangedEvent insert = new EmployeeChangedEvent(null, snapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 8000));
+        long version = store.getScanVersion();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.onEmployeeChanging(insert);
+            assertThat(store.getScanVersion()).isEqualTo(EmployeeStatisticsStore.NO_SNAPSHOT);
+            store.apply(insert);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            // skan widział już zatwierdzony wiersz - podmiana policzyłaby go drugi raz razem z apply
+            assertThat(store.rebuild(List.of(bucket("Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 1, 8000)), version)).isFalse();
+            assertThat(store.reconcile(List.of(), version)).isFalse();
+            assertThat(store.getEmployeeCount()).isEqualTo(1);
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+
+        long idle = store.getScanVersion();
+        assertThat(store.rebuild(List.of(bucket("Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, 1, 8000)), idle)).isTrue();
+        assertThat(store.getEmployeeCount()).isEqualTo(1);
+    }
+
+    private EmployeeSnapshot snapshot(String email, String company, Position position, EmploymentStatus status, int salary) {
+        return new EmployeeSnapshot(email, company, position, status, BigDecimal.valueOf(salary));
+    }
+
+    private StatisticsBucketRow bucket(String company, Position position, EmploymentStatus status, long count, int salarySum) {
+        return new StatisticsBucketRow(company, position, status, count, count, BigDecimal.valueOf(salarySum));
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportFolderWatcherTest {
+
+    @Mock
+    private ImportService importService;
+
+    @TempDir
+    Path tempDir;
+
+    private ImportFolderWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        watcher = new ImportFolderWatcher(importService, new Gson(), tempDir.toString(), 1, 5, 50, 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    void start_existingFile_importedInMergeModeAndMovedWithSummary() throws Exception {
+        ImportSummary summary = new ImportSummary();
+        summary.setImportedEmployees(2);
+        when(importService.importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenReturn(summary);
+        Files.writeString(tempDir.resolve("partner.csv"), "a;b\n");
+
+        watcher.start();
+
+        awaitUntil(() -> watcher.getMetrics().get("filesImported").equals(1L));
+        verify(importService).importFromCsv(eq(tempDir.resolve("partner.csv").toString()), eq(ImportOptions.merge(false)), any(ImportProgress.class));
+        assertThat(tempDir.resolve("partner.csv")).doesNotExist();
+        List<Path> processed = files("processed");
+        assertThat(processed).hasSize(2);
+        assertThat(processed).anyMatch(file -> file.getFileName().toString().endsWith("-partner.csv"));
+        Path summaryFile = processed.stream().filter(file -> file.toString().endsWith(".summary.json")).findFirst().orElseThrow();
+        assertThat(Files.readString(summaryFile)).contains("\"importedEmployees\":2");
+        assertThat(watcher.getMetrics()).containsEntry("recordsImported", 2L).containsEntry("filesWaiting", 0);
+    }
+
+    @Test
+    void newFile_pickedUpAfterItStopsChanging() throws Exception {
+        when(importService.importFromXml(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenReturn(new ImportSummary());
+        watcher.start();
+
+        Files.writeString(tempDir.resolve("partner.xml"), "<employees/>");
+
+        awaitUntil(() -> watcher.getMetrics().get("filesImported").equals(1L));
+        assertThat(files("processed")).anyMatch(file -> file.getFileName().toString().endsWith("-partner.xml"));
+    }
+
+    @Test
+    void importFailure_movesFileToFailedWithErrorMessage() throws Exception {
+        when(importService.importFromJson(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenThrow(new IOException("zły plik"));
+        Files.writeString(tempDir.resolve("partner.json"), "{");
+
+        watcher.start();
+
+        awaitUntil(() -> watcher.getMetrics().get("filesFailed").equals(1L));
+        Path error = files("failed").stream().filter(file -> file.toString().endsWith(".error.txt")).findFirst().orElseThrow();
+        assertThat(Files.readString(error)).isEqualTo("zły plik");
+        assertThat(watcher.getMetrics()).containsEntry("filesImported", 0L);
+    }
+
+    @Test
+    void temporaryAndUnsupportedFiles_areNotImported() throws Exception {
+        Files.writeString(tempDir.resolve("partner.csv.part"), "a;b\n");
+        Files.writeString(tempDir.resolve("notes.txt"), "x");
+
+        watcher.start();
+
+        awaitUntil(() -> watcher.getMetrics().get("filesFailed").equals(1L));
+        assertThat(tempDir.resolve("partner.csv.part")).exists();
+        assertThat(files("failed")).anyMatch(file -> file.getFileName().toString().endsWith("-notes.txt"));
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void noDirectory_watcherDisabled() throws Exception {
+        ImportFolderWatcher disabled = new ImportFolderWatcher(importService, new Gson(), "", 1, 5, 50, 20);
+
+        disabled.start();
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.getMetrics()).containsEntry("running", false);
+        disabled.stop();
+    }
+
+    private List<Path> files(String folder) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve(folder))) {
+            return files.toList();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Warunek nie został spełniony w czasie");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
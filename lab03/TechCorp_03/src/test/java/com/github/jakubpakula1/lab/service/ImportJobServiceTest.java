@@ -0,0 +1,271 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.exception.ImportJobNotFoundException;
+import com.github.jakubpakula1.lab.exception.ImportJobRejectedException;
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportJobStatus;
+import com.github.jakubpakula1.lab.model.ImportSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportJobServiceTest {
+
+    @Mock
+    private ImportService importService;
+
+    @TempDir
+    Path tempDir;
+
+    private ImportJobService importJobService;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        importJobService = new ImportJobService(importService, 1, 1, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        importJobService.shutdown();
+    }
+
+    @Test
+    void submit_runsImportInBackgroundAndKeepsSummary() throws Exception {
+        ImportSummary summary = new ImportSummary();
+        summary.setImportedEmployees(3);
+        when(importService.importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenReturn(summary);
+        Path file = file("employees.csv");
+
+        ImportJob job = importJobService.submit(file, "employees.csv", ImportFormat.CSV);
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(job.getSummary()).isSameAs(summary);
+        assertThat(job.getStartedAt()).isNotNull();
+        assertThat(importJobService.getJob(job.getId())).isSameAs(job);
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void submit_importFailure_marksJobFailed() throws Exception {
+        when(importService.importFromXml(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenThrow(new IOException("zły plik"));
+
+        ImportJob job = importJobService.submit(file("employees.xml"), "employees.xml", ImportFormat.XML);
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(job.getErrorMessage()).isEqualTo("zły plik");
+        assertThat(importJobService.toDto(job).getImportedEmployees()).isNull();
+    }
+
+    @Test
+    void cancel_queuedJob_isCancelledWithoutRunning() throws Exception {
+        when(importService.importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ImportSummary();
+        });
+        ImportJob running = importJobService.submit(file("a.csv"), "a.csv", ImportFormat.CSV);
+        Path queuedFile = file("b.csv");
+        ImportJob queued = importJobService.submit(queuedFile, "b.csv", ImportFormat.CSV);
+
+        assertThat(importJobService.cancel(queued.getId())).isTrue();
+        release.countDown();
+
+        awaitFinished(running);
+        assertThat(queued.getStatus()).isEqualTo(ImportJobStatus.CANCELLED);
+        assertThat(queuedFile).doesNotExist();
+        verify(importService, times(1)).importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class));
+    }
+
+    @Test
+    void cancel_runningJob_stopsImportAtNextChunk() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(importService.importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenAnswer(invocation -> {
+            ImportProgress progress = invocation.getArgument(2);
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            progress.checkCancelled();
+            return new ImportSummary();
+        });
+        ImportJob job = importJobService.submit(file("a.csv"), "a.csv", ImportFormat.CSV);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(importJobService.cancel(job.getId())).isTrue();
+        release.countDown();
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.CANCELLED);
+        assertThat(importJobService.cancel(job.getId())).isFalse();
+    }
+
+    @Test
+    void submit_queueFull_rejectsJobAndDeletesFile() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(importService.importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new ImportSummary();
+        });
+        importJobService.submit(file("a.csv"), "a.csv", ImportFormat.CSV);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        importJobService.submit(file("b.csv"), "b.csv", ImportFormat.CSV);
+        Path rejectedFile = file("c.csv");
+
+        assertThatThrownBy(() -> importJobService.submit(rejectedFile, "c.csv", ImportFormat.CSV))
+                .isInstanceOf(ImportJobRejectedException.class);
+        assertThat(rejectedFile).doesNotExist();
+        assertThat(importJobService.getJobs()).hasSize(2);
+    }
+
+    @Test
+    void defaultImport_withCheckpointsConfigured_runsInOneTransaction() throws Exception {
+        ImportCheckpointService checkpoints = mock(ImportCheckpointService.class);
+        importJobService.shutdown();
+        importJobService = new ImportJobService(importService, checkpoints, 1, 1, 60);
+        when(importService.importFromCsv(anyString(), any(ImportOptions.class), any(ImportProgress.class)))
+                .thenThrow(new IOException("awaria"));
+        Path file = file("employees.csv");
+
+        ImportJob job = importJobService.submit(file, "employees.csv", ImportFormat.CSV, ImportOptions.replace());
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(job.isResumable()).isFalse();
+        verify(checkpoints, never()).start(any());
+        verify(importService, never()).importWithCheckpoints(any(), any(), any());
+    }
+
+    @Test
+    void checkpointedImport_failure_keepsFileAndResumesUnderSameId() throws Exception {
+        ImportCheckpointService checkpoints = mock(ImportCheckpointService.class);
+        importJobService.shutdown();
+        importJobService = new ImportJobService(importService, checkpoints, 1, 1, 60);
+        AtomicReference<ImportCheckpoint> checkpoint = new AtomicReference<>();
+        when(checkpoints.start(any(ImportJob.class))).thenAnswer(invocation -> {
+            ImportJob job = invocation.getArgument(0);
+            checkpoint.set(new ImportCheckpoint(job.getId(), job.getFileName(), job.getFile().toString(), "hash", 4,
+                    job.getFormat(), job.getOptions().getMode(), job.getSubmittedAt()));
+            return checkpoint.get();
+        });
+        when(importService.supportsCheckpoints(any(Path.class), any(ImportOptions.class))).thenReturn(true);
+        when(importService.importWithCheckpoints(any(ImportCheckpoint.class), any(ImportOptions.class), any(ImportProgress.class)))
+                .thenThrow(new IOException("awaria"))
+                .thenReturn(new ImportSummary());
+        Path file = file("employees.csv");
+
+        ImportJob job = importJobService.submit(file, "employees.csv", ImportFormat.CSV, ImportOptions.replace().asCheckpointed());
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(job.isResumable()).isTrue();
+        verify(checkpoints, timeout(1000)).markFailed(job.getId(), "awaria");
+        assertThat(file).exists();
+
+        checkpoint.get().setStatus(ImportJobStatus.FAILED);
+        when(checkpoints.find(job.getId())).thenReturn(Optional.of(checkpoint.get()));
+        when(checkpoints.matchesFile(checkpoint.get())).thenReturn(true);
+
+        ImportJob resumed = importJobService.resume(job.getId());
+
+        awaitFinished(resumed);
+        assertThat(resumed.getId()).isEqualTo(job.getId());
+        assertThat(resumed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(importJobService.getJob(job.getId())).isSameAs(resumed);
+        verify(checkpoints).markRunning(checkpoint.get());
+        verify(checkpoints, timeout(1000)).delete(checkpoint.get());
+    }
+
+    @Test
+    void checkpointedReplaceImport_cancelledHalfway_keepsCheckpointAndResumes() throws Exception {
+        ImportCheckpointService checkpoints = mock(ImportCheckpointService.class);
+        importJobService.shutdown();
+        importJobService = new ImportJobService(importService, checkpoints, 1, 1, 60);
+        AtomicReference<ImportCheckpoint> checkpoint = new AtomicReference<>();
+        when(checkpoints.start(any(ImportJob.class))).thenAnswer(invocation -> {
+            ImportJob job = invocation.getArgument(0);
+            checkpoint.set(new ImportCheckpoint(job.getId(), job.getFileName(), job.getFile().toString(), "hash", 4,
+                    job.getFormat(), job.getOptions().getMode(), job.getSubmittedAt()));
+            return checkpoint.get();
+        });
+        when(importService.supportsCheckpoints(any(Path.class), any(ImportOptions.class))).thenReturn(true);
+        CountDownLatch halfway = new CountDownLatch(1);
+        when(importService.importWithCheckpoints(any(ImportCheckpoint.class), any(ImportOptions.class), any(ImportProgress.class)))
+                .thenAnswer(invocation -> {
+                    // pierwsza paczka zatwierdzona, dawni pracownicy już usunięci
+                    invocation.<ImportCheckpoint>getArgument(0).advance(100, 4096);
+                    halfway.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    invocation.<ImportProgress>getArgument(2).checkCancelled();
+                    return new ImportSummary();
+                })
+                .thenReturn(new ImportSummary());
+        Path file = file("employees.csv");
+
+        ImportJob job = importJobService.submit(file, "employees.csv", ImportFormat.CSV, ImportOptions.replace().asCheckpointed());
+        assertThat(halfway.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(importJobService.cancel(job.getId())).isTrue();
+        release.countDown();
+
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.CANCELLED);
+        assertThat(job.isResumable()).isTrue();
+        verify(checkpoints, timeout(1000)).markFailed(job.getId(), ImportJobService.CANCELLED_MESSAGE);
+        verify(checkpoints, never()).delete(any());
+        assertThat(file).exists();
+
+        checkpoint.get().setStatus(ImportJobStatus.FAILED);
+        when(checkpoints.find(job.getId())).thenReturn(Optional.of(checkpoint.get()));
+        when(checkpoints.matchesFile(checkpoint.get())).thenReturn(true);
+
+        ImportJob resumed = importJobService.resume(job.getId());
+
+        awaitFinished(resumed);
+        assertThat(resumed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        verify(checkpoints, timeout(1000)).delete(checkpoint.get());
+    }
+
+    @Test
+    void resume_withoutCheckpoint_throwsNotFound() {
+        assertThatThrownBy(() -> importJobService.resume("missing"))
+                .isInstanceOf(ImportJobNotFoundException.class);
+    }
+
+    @Test
+    void getJob_unknownId_throwsNotFound() {
+        assertThatThrownBy(() -> importJobService.getJob("missing"))
+                .isInstanceOf(ImportJobNotFoundException.class);
+    }
+
+    private Path file(String name) throws IOException {
+        return Files.writeString(tempDir.resolve(name), "dane");
+    }
+
+    private static void awaitFinished(ImportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(job.getStatus().isFinished()).as("zadanie zakończone").isTrue();
+    }
+}
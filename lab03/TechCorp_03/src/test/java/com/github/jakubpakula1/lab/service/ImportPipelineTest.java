@@ -0,0 +1,149 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.Position;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ImportPipelineTest {
+
+    private final ImportPipeline pipeline = new ImportPipeline(4, 2);
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void run_parallelParsing_writesChunksInFileOrder() throws IOException {
+        List<Integer> written = new ArrayList<>();
+
+        pipeline.<Integer>run(10, sink -> {
+            for (int line = 1; line <= 1000; line++) {
+                sink.accept(line, line);
+            }
+        }, (line, record, errors) -> {
+            sleepMillis(ThreadLocalRandom.current().nextInt(2));
+            if (record % 100 == 0) {
+                errors.addError(line, "błąd");
+                return null;
+            }
+            return employee(record);
+        }, chunk -> written.addAll(chunk.getLineNumbers()));
+
+        assertThat(written).hasSize(990).isSorted();
+    }
+
+    @Test
+    void run_slowWriter_limitsChunksInFlight() throws IOException {
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        AtomicInteger writtenRecords = new AtomicInteger();
+
+        pipeline.<Integer>run(10, sink -> {
+            for (int line = 1; line <= 500; line++) {
+                read.incrementAndGet();
+                sink.accept(line, line);
+            }
+        }, (line, record, errors) -> employee(record), chunk -> {
+            sleepMillis(5);
+            writtenRecords.addAndGet(chunk.getEmployees().size());
+            maxAhead.accumulateAndGet(read.get() - writtenRecords.get(), Math::max);
+        });
+
+        assertThat(writtenRecords.get()).isEqualTo(500);
+        // kolejka (2 paczki + miejsce na znacznik końca), paczka w zapisie i paczka zbierana przez czytający wątek
+        assertThat(maxAhead.get()).isLessThanOrEqualTo(5 * 10);
+    }
+
+    @Test
+    void runSplits_slowWriter_limitsChunksBufferedAcrossSplits() throws IOException {
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        List<Integer> written = new ArrayList<>();
+        List<ImportPipeline.RecordReader<Integer>> splits = new ArrayList<>();
+        for (int split = 0; split < 16; split++) {
+            int first = split * 100 + 1;
+            splits.add(sink -> {
+                for (int line = first; line < first + 100; line++) {
+                    read.incrementAndGet();
+                    sink.accept(line, line);
+                }
+            });
+        }
+
+        pipeline.<Integer>runSplits(10, splits, (line, record, errors) -> employee(record), chunk -> {
+            sleepMillis(2);
+            written.addAll(chunk.getLineNumbers());
+            maxAhead.accumulateAndGet(read.get() - written.size(), Math::max);
+        });
+
+        assertThat(written).hasSize(1600).isSorted();
+        // 4 fragmenty naraz, każdy: 2 paczki w kolejce, paczka czekająca na miejsce i paczka zbierana
+        assertThat(maxAhead.get()).isLessThanOrEqualTo(4 * 4 * 10);
+    }
+
+    @Test
+    void runSplits_splitFailure_isPropagatedAfterEarlierChunks() {
+        List<Integer> written = new ArrayList<>();
+        List<ImportPipeline.RecordReader<Integer>> splits = List.of(
+                sink -> sink.accept(1, 1),
+                sink -> {
+                    sink.accept(2, 2);
+                    throw new IOException("dysk");
+                });
+
+        assertThatThrownBy(() -> pipeline.<Integer>runSplits(1, splits, (line, record, errors) -> employee(record),
+                chunk -> written.addAll(chunk.getLineNumbers())))
+                .isInstanceOf(IOException.class)
+                .hasMessage("dysk");
+        assertThat(written).containsExactly(1, 2);
+    }
+
+    @Test
+    void run_readerFailure_isPropagated() {
+        assertThatThrownBy(() -> pipeline.<Integer>run(10, sink -> {
+            sink.accept(1, 1);
+            throw new IOException("dysk");
+        }, (line, record, errors) -> employee(record), chunk -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessage("dysk");
+    }
+
+    @Test
+    void run_writerFailure_stopsReader() {
+        AtomicInteger read = new AtomicInteger();
+
+        assertThatThrownBy(() -> pipeline.<Integer>run(10, sink -> {
+            for (int line = 1; line <= 100_000; line++) {
+                read.incrementAndGet();
+                sink.accept(line, line);
+            }
+        }, (line, record, errors) -> employee(record), chunk -> {
+            throw new IllegalStateException("baza");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(read.get()).isLessThan(100_000);
+    }
+
+    private static Employee employee(int index) {
+        return new Employee("Jan", "Kowalski", "X", "jan" + index + "@techcorp.com", Position.PROGRAMISTA, BigDecimal.valueOf(8000));
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
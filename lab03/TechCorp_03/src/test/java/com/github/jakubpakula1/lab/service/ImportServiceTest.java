@@ -1,22 +1,47 @@
 package com.github.jakubpakula1.lab.service;
 
+import com.github.jakubpakula1.lab.dto.EmployeeKeyRow;
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.ImportCheckpoint;
+import com.github.jakubpakula1.lab.model.ImportFormat;
+import com.github.jakubpakula1.lab.model.ImportMode;
 import com.github.jakubpakula1.lab.model.ImportSummary;
 import com.github.jakubpakula1.lab.model.Position;
 import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import com.github.jakubpakula1.lab.repository.ImportCheckpointRepository;
+import com.google.gson.Gson;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 
 import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,12 +52,20 @@ public class ImportServiceTest {
 
     private EmployeeService employeeService;
 
+    private ImportPipeline pipeline;
+
     private ImportService importService;
 
     @BeforeEach
     void setUp() {
         employeeService = new EmployeeService(employeeRepository);
-        importService = new ImportService(employeeService);
+        pipeline = new ImportPipeline(0, 8);
+        importService = new ImportService(employeeService, null, pipeline, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
     }
 
 
@@ -49,7 +82,7 @@ public class ImportServiceTest {
         assertThat(summary).isNotNull();
         assertThat(summary.getImportedEmployees()).isEqualTo(1);
         assertThat(summary.getErrors()).isEmpty();
-        verify(employeeRepository).deleteAll();
+        verify(employeeRepository).findIdsAfter(anyLong(), any());
         verify(employeeRepository).save(any());
     }
 
@@ -82,6 +115,49 @@ public class ImportServiceTest {
         verify(employeeRepository).save(argThat(emp -> emp.getName().equals("Jan")));
     }
 
+    @Test
+    void importFromCsv_quotedFieldsAndPolishCharacters_parsedFromMappedFile(@TempDir Path tempDir) throws IOException {
+        assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()), "plik mapowany jest czytany tylko przy UTF-8");
+        Path csv = tempDir.resolve("test.csv");
+        String content = "firstName;lastName;email;company;position;salary\r\n" +
+                "Łukasz;\"Żółkiewski\";lukasz@techcorp.com;\"Tech;Corp \"\"Ś\"\"\";programista;8000\r\n";
+        Files.writeString(csv, content);
+
+        ImportSummary summary = importService.importFromCsv(csv.toString());
+
+        assertThat(summary.getErrors()).isEmpty();
+        verify(employeeRepository).save(argThat(emp -> emp.getName().equals("Łukasz")
+                && emp.getSurname().equals("Żółkiewski")
+                && emp.getCompany().equals("Tech;Corp \"Ś\"")
+                && emp.getPosition() == Position.PROGRAMISTA));
+    }
+
+    @Test
+    void importFromCsv_quotedRow_sameResultFromMappedFileAndStream(@TempDir Path tempDir) throws IOException {
+        assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()), "plik mapowany jest czytany tylko przy UTF-8");
+        String content = "firstName;lastName;email;company;position;salary\n" +
+                "Łukasz;\"Żółkiewski\";lukasz@techcorp.com;\"Tech;Corp\nSp. z o.o. \"\"Ś\"\"\";programista;8000\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;abc\n";
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, content);
+
+        ImportSummary fromFile = importService.importFromCsv(csv.toString());
+        ImportSummary fromStream = importService.importFromCsv(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, ImportOptions.replace(), new ImportProgress());
+
+        ArgumentCaptor<Employee> saved = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).allSatisfy(emp -> {
+            assertThat(emp.getSurname()).isEqualTo("Żółkiewski");
+            assertThat(emp.getCompany()).isEqualTo("Tech;Corp\nSp. z o.o. \"Ś\"");
+        });
+        assertThat(List.of(fromFile, fromStream)).allSatisfy(summary -> {
+            assertThat(summary.getImportedEmployees()).isEqualTo(1);
+            assertThat(summary.getErrors()).singleElement()
+                    .extracting(ImportSummary.ErrorEntry::getLineNumber).isEqualTo(4);
+        });
+    }
+
     @Test
     void importFromCsv_validRow_parsesLastName(@TempDir Path tempDir) throws IOException {
         Path csv = tempDir.resolve("test.csv");
@@ -353,6 +429,274 @@ public class ImportServiceTest {
         verify(employeeRepository, times(2)).save(any());
     }
 
+    @Test
+    void importFromCsv_duplicateEmailInFile_secondRowRejected(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("test.csv");
+        String content = "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Janusz;Kowal;jan@techcorp.com;Y;MANAGER;9000\n";
+        Files.writeString(csv, content);
+
+        ImportSummary summary = importService.importFromCsv(csv.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).hasSize(1)
+                .extracting("lineNumber")
+                .containsExactly(3);
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    void importFromCsv_emailAlreadyInDatabase_rejectedWithOneQueryPerChunk(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("test.csv");
+        String content = "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Anna;Nowak;anna@techcorp.com;Y;MANAGER;12000\n";
+        Files.writeString(csv, content);
+        when(employeeRepository.findExistingEmails(anyCollection())).thenReturn(List.of("anna@techcorp.com"));
+
+        ImportSummary summary = importService.importFromCsv(csv.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(3);
+        verify(employeeRepository, times(1)).findExistingEmails(anyCollection());
+        verify(employeeRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void importFromCsv_manyRows_savedInChunksWithFlush(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("test.csv");
+        StringBuilder content = new StringBuilder("firstName;lastName;email;company;position;salary\n");
+        int rows = ImportService.CHUNK_SIZE * 2 + 500;
+        for (int i = 0; i < rows; i++) {
+            content.append("Jan;Kowalski;jan").append(i).append("@techcorp.com;X;PROGRAMISTA;8000\n");
+        }
+        Files.writeString(csv, content);
+
+        ImportSummary summary = importService.importFromCsv(csv.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(rows);
+        verify(employeeRepository, times(rows)).save(any());
+        verify(employeeRepository, times(3)).flush();
+        verify(employeeRepository, times(3)).findExistingEmails(anyCollection());
+    }
+
+    @Test
+    void importFromCsv_withValidator_rejectsInvalidRows(@TempDir Path tempDir) throws IOException {
+        ImportService validatingService = new ImportService(employeeService,
+                Validation.buildDefaultValidatorFactory().getValidator(), pipeline, null);
+        Path csv = tempDir.resolve("test.csv");
+        String content = "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Anna;Nowak;anna@gmail.com;Y;MANAGER;12000\n" +
+                "Piotr;Lis;piotr@techcorp.com;Z;MANAGER;-100\n";
+        Files.writeString(csv, content);
+
+        ImportSummary summary = validatingService.importFromCsv(csv.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(3, 4);
+        assertThat(summary.getErrors().get(0).getErrorMessage()).contains("email");
+        assertThat(summary.getErrors().get(1).getErrorMessage()).contains("salary");
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    void importFromCsv_manyErrors_keepsSampleAndCountsAndWritesFullReport(@TempDir Path tempDir) throws IOException {
+        ImportErrorReports reports = new ImportErrorReports(tempDir.resolve("reports").toString(), new Gson(), 5, 60);
+        ImportService reportingService = new ImportService(employeeService, null, pipeline, reports);
+        StringBuilder content = new StringBuilder("firstName;lastName;email;company;position;salary\n");
+        for (int i = 0; i < 2500; i++) {
+            content.append(i % 2 == 0 ? "Jan;Kowalski;jan" + i + "@techcorp.com;X;NOPE;8000\n" : "za;mało\n");
+        }
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, content);
+
+        ImportSummary summary = reportingService.importFromCsv(csv.toString());
+
+        assertThat(summary.getErrorCount()).isEqualTo(2500);
+        assertThat(summary.isErrorsTruncated()).isTrue();
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(2, 3, 4, 5, 6);
+        assertThat(summary.getErrorCounts()).containsOnly(
+                entry("Invalid position", 1250), entry("Invalid number of columns in row", 1250));
+
+        List<String> report = Files.readAllLines(reports.find(summary.getErrorReportId()));
+        assertThat(report).hasSize(2500);
+        assertThat(report.get(0)).contains("\"lineNumber\":2", "Invalid position: NOPE");
+        assertThat(report.get(2499)).contains("\"lineNumber\":2501");
+    }
+
+    @Test
+    void importFromCsv_noErrors_createsNoReport(@TempDir Path tempDir) throws IOException {
+        ImportErrorReports reports = new ImportErrorReports(tempDir.resolve("reports").toString(), new Gson(), 5, 60);
+        ImportService reportingService = new ImportService(employeeService, null, pipeline, reports);
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n");
+
+        ImportSummary summary = reportingService.importFromCsv(csv.toString());
+
+        assertThat(summary.getErrorReportId()).isNull();
+        assertThat(tempDir.resolve("reports")).doesNotExist();
+    }
+
+    @Test
+    void importFromCsv_withProgress_reportsBytesAndRecords(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Anna;Nowak;anna@techcorp.com;Y;NOPE;12000\n");
+        ImportProgress progress = new ImportProgress();
+
+        importService.importFromCsv(csv.toString(), ImportOptions.replace(), progress);
+
+        assertThat(progress.getTotalBytes()).isEqualTo(Files.size(csv));
+        assertThat(progress.getBytesRead()).isEqualTo(Files.size(csv));
+        assertThat(progress.getPercent()).isEqualTo(100);
+        assertThat(progress.getRecordsRead()).isEqualTo(2);
+        assertThat(progress.getRecordsWritten()).isEqualTo(1);
+    }
+
+    @Test
+    void importFromCsv_cancelRequested_stopsBeforeSaving(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n");
+        ImportProgress progress = new ImportProgress();
+        progress.requestCancel();
+
+        assertThatThrownBy(() -> importService.importFromCsv(csv.toString(), ImportOptions.replace(), progress))
+                .isInstanceOf(CancellationException.class);
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    void importFromCsv_mergeMode_insertsNewAndUpdatesOnlyChangedRows(@TempDir Path tempDir) throws IOException {
+        Employee jan = existing(1L, "Jan", "jan@techcorp.com", 8000);
+        Employee anna = existing(2L, "Anna", "anna@techcorp.com", 12000);
+        when(employeeRepository.findByEmailIn(any())).thenReturn(List.of(jan, anna));
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;9000\n" +
+                "Anna;Kowalski;anna@techcorp.com;X;PROGRAMISTA;12000\n" +
+                "Piotr;Kowalski;piotr@techcorp.com;X;PROGRAMISTA;7000\n");
+
+        ImportSummary summary = importService.importFromCsv(csv.toString(), ImportOptions.merge(false), new ImportProgress());
+
+        assertThat(summary.getInsertedEmployees()).isEqualTo(1);
+        assertThat(summary.getUpdatedEmployees()).isEqualTo(1);
+        assertThat(summary.getUnchangedEmployees()).isEqualTo(1);
+        assertThat(summary.getDeletedEmployees()).isZero();
+        assertThat(summary.getImportedEmployees()).isEqualTo(3);
+        assertThat(jan.getSalary()).isEqualByComparingTo("9000");
+        assertThat(jan.getId()).isEqualTo(1L);
+        verify(employeeRepository, never()).findIdsAfter(anyLong(), any());
+        verify(employeeRepository, times(1)).save(any());
+        verify(employeeRepository, never()).findExistingEmails(any());
+    }
+
+    @Test
+    void importFromCsv_mergeWithDeleteMissing_deletesRowsAbsentFromFile(@TempDir Path tempDir) throws IOException {
+        Employee jan = existing(1L, "Jan", "jan@techcorp.com", 8000);
+        Employee old = existing(2L, "Olga", "old@techcorp.com", 5000);
+        when(employeeRepository.findByEmailIn(any())).thenReturn(List.of(jan));
+        when(employeeRepository.streamEmployeeKeys()).thenReturn(Stream.of(
+                new EmployeeKeyRow(1L, "jan@techcorp.com"), new EmployeeKeyRow(2L, "old@techcorp.com")));
+        when(employeeRepository.findAllById(List.of(2L))).thenReturn(List.of(old));
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n");
+
+        ImportSummary summary = importService.importFromCsv(csv.toString(), ImportOptions.merge(true), new ImportProgress());
+
+        assertThat(summary.getUnchangedEmployees()).isEqualTo(1);
+        assertThat(summary.getDeletedEmployees()).isEqualTo(1);
+        verify(employeeRepository).deleteAll(List.of(old));
+    }
+
+    @Test
+    void importFromCsv_mergeWithDeleteMissing_skipsDeleteWhenFileHasErrors(@TempDir Path tempDir) throws IOException {
+        when(employeeRepository.findByEmailIn(any())).thenReturn(List.of());
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Anna;Nowak;anna@techcorp.com;X;NOPE;8000\n");
+
+        ImportSummary summary = importService.importFromCsv(csv.toString(), ImportOptions.merge(true), new ImportProgress());
+
+        assertThat(summary.getInsertedEmployees()).isEqualTo(1);
+        assertThat(summary.getDeletedEmployees()).isZero();
+        assertThat(summary.getErrors()).extracting(ImportSummary.ErrorEntry::getErrorMessage)
+                .anyMatch(message -> message.contains("Pominięto usuwanie"));
+        verify(employeeRepository, never()).streamEmployeeKeys();
+    }
+
+    @Test
+    void importFromCsv_dryRun_reportsErrorsWithoutTouchingDatabase(@TempDir Path tempDir) throws IOException {
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Anna;Nowak;anna@techcorp.com;X;NOPE;8000\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n");
+
+        ImportSummary summary = importService.importFromCsv(csv.toString(),
+                ImportOptions.of(ImportMode.REPLACE, false, true), new ImportProgress());
+
+        assertThat(summary.isDryRun()).isTrue();
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting(ImportSummary.ErrorEntry::getLineNumber).containsExactly(3, 4);
+        verify(employeeRepository, never()).findIdsAfter(anyLong(), any());
+        verify(employeeRepository, never()).save(any());
+        verify(employeeRepository, never()).findExistingEmails(any());
+    }
+
+    @Test
+    void importFromCsv_dryRunMerge_countsAgainstStoredEmailsWithOneQuery(@TempDir Path tempDir) throws IOException {
+        when(employeeRepository.streamEmployeeKeys()).thenReturn(Stream.of(
+                new EmployeeKeyRow(1L, "jan@techcorp.com"), new EmployeeKeyRow(2L, "old@techcorp.com")));
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;9000\n" +
+                "Piotr;Kowalski;piotr@techcorp.com;X;PROGRAMISTA;7000\n");
+
+        ImportSummary summary = importService.importFromCsv(csv.toString(),
+                ImportOptions.of(ImportMode.MERGE, true, true), new ImportProgress());
+
+        assertThat(summary.getUpdatedEmployees()).isEqualTo(1);
+        assertThat(summary.getInsertedEmployees()).isEqualTo(1);
+        assertThat(summary.getDeletedEmployees()).isEqualTo(1);
+        verify(employeeRepository, times(1)).streamEmployeeKeys();
+        verify(employeeRepository, never()).findByEmailIn(any());
+        verify(employeeRepository, never()).save(any());
+        verify(employeeRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void importFromCsv_inputStream_importsWithoutFile() throws IOException {
+        byte[] content = ("firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Łucja;Żak;lucja@techcorp.com;X;MANAGER;9000\n").getBytes(StandardCharsets.UTF_8);
+        ImportProgress progress = new ImportProgress();
+
+        ImportSummary summary = importService.importFromCsv(new ByteArrayInputStream(content), StandardCharsets.UTF_8,
+                ImportOptions.replace(), progress);
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(2);
+        assertThat(progress.getBytesRead()).isEqualTo(content.length);
+        verify(employeeRepository).save(argThat(employee -> "Łucja".equals(employee.getName())));
+    }
+
+    @Test
+    void importFromXml_inputStream_importsWithoutFile() throws IOException {
+        String xml = "<employees>" + employeeXml("Jan", "Kowalski", "jan@techcorp.com", "PROGRAMISTA", "8000", "ACTIVE") + "</employees>";
+
+        ImportSummary summary = importService.importFromXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                ImportOptions.replace(), new ImportProgress());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).isEmpty();
+    }
+
     @Test
     void importFromCsv_fileNotFound_throwsIOException() {
         assertThatThrownBy(() -> importService.importFromCsv("/nonexistent/path/file.csv"))
@@ -365,9 +709,332 @@ public class ImportServiceTest {
                 .isInstanceOf(IOException.class);
     }
 
+    @Test
+    void importFromXml_validElements_importedInOrder(@TempDir Path tempDir) throws IOException {
+        Path xml = tempDir.resolve("test.xml");
+        Files.writeString(xml, "<employees>" +
+                employeeXml("Jan", "Kowalski", "jan@techcorp.com", "PROGRAMISTA", "8000", "ON_LEAVE") +
+                employeeXml("Anna", "Nowak", "anna@techcorp.com", "MANAGER", "12000", null) +
+                "</employees>");
+
+        ImportSummary summary = importService.importFromXml(xml.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(2);
+        assertThat(summary.getErrors()).isEmpty();
+        verify(employeeRepository).findIdsAfter(anyLong(), any());
+        verify(employeeRepository).save(argThat(emp -> emp.getName().equals("Jan")
+                && emp.getStatus() == com.github.jakubpakula1.lab.model.EmploymentStatus.ON_LEAVE));
+        verify(employeeRepository).save(argThat(emp -> emp.getName().equals("Anna")
+                && emp.getStatus() == com.github.jakubpakula1.lab.model.EmploymentStatus.ACTIVE));
+    }
+
+    @Test
+    void importFromXml_invalidElements_reportErrorsPerElement(@TempDir Path tempDir) throws IOException {
+        Path xml = tempDir.resolve("test.xml");
+        Files.writeString(xml, "<employees>" +
+                employeeXml("", "Kowalski", "jan@techcorp.com", "PROGRAMISTA", "8000", null) +
+                employeeXml("Anna", "Nowak", "anna@techcorp.com", "None", "12000", null) +
+                employeeXml("Piotr", "Lis", "piotr@techcorp.com", "MANAGER", "-5", null) +
+                employeeXml("Ewa", "Maj", "ewa@techcorp.com", "MANAGER", "abc", null) +
+                employeeXml("Ola", "Kot", "ola@techcorp.com", "MANAGER", "9000", "FIRED") +
+                employeeXml("Adam", "Wolny", "adam@techcorp.com", "MANAGER", "9000", null) +
+                "</employees>");
+
+        ImportSummary summary = importService.importFromXml(xml.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(1, 2, 3, 4, 5);
+        assertThat(summary.getErrors()).extracting("errorMessage").containsExactly(
+                "Pole 'name' jest wymagane",
+                "Nieprawidłowa pozycja: None",
+                "Wynagrodzenie nie może być ujemne",
+                "Nieprawidłowa wartość wynagrodzenia: abc",
+                "Nieprawidłowy status: FIRED");
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    void importFromXml_doctype_rejected(@TempDir Path tempDir) throws IOException {
+        Path xml = tempDir.resolve("test.xml");
+        Files.writeString(xml, "<?xml version=\"1.0\"?>" +
+                "<!DOCTYPE employees [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>" +
+                "<employees>" + employeeXml("&xxe;", "Kowalski", "jan@techcorp.com", "PROGRAMISTA", "8000", null) +
+                "</employees>");
+
+        assertThatThrownBy(() -> importService.importFromXml(xml.toString()))
+                .isInstanceOf(IOException.class);
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    void importFromXml_malformedDocument_throwsIOException(@TempDir Path tempDir) throws IOException {
+        Path xml = tempDir.resolve("test.xml");
+        Files.writeString(xml, "<employees><employee><name>Jan</name>");
+
+        assertThatThrownBy(() -> importService.importFromXml(xml.toString()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Błąd przetwarzania XML");
+    }
+
+    @Test
+    void importFromJson_array_importedInOrder(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("test.json");
+        Files.writeString(json, "[\n" +
+                "  {\"name\": \"Jan\", \"surname\": \"Kowalski\", \"email\": \"jan@techcorp.com\", \"company\": \"X\"," +
+                " \"position\": \"PROGRAMISTA\", \"salary\": 8000, \"status\": \"ON_LEAVE\", \"address\": {\"city\": \"Kraków\"}},\n" +
+                "  {\"name\": \"Anna\", \"surname\": \"Nowak\", \"email\": \"anna@techcorp.com\", \"company\": \"Y\"," +
+                " \"position\": \"manager\", \"salary\": \"12000\", \"status\": null}\n" +
+                "]");
+
+        ImportSummary summary = importService.importFromJson(json.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(2);
+        assertThat(summary.getErrors()).isEmpty();
+        verify(employeeRepository).findIdsAfter(anyLong(), any());
+        verify(employeeRepository).save(argThat(emp -> emp.getName().equals("Jan")
+                && emp.getSalary().intValue() == 8000 && emp.getStatus() == EmploymentStatus.ON_LEAVE));
+        verify(employeeRepository).save(argThat(emp -> emp.getName().equals("Anna")
+                && emp.getPosition() == Position.MANAGER && emp.getStatus() == EmploymentStatus.ACTIVE));
+    }
+
+    @Test
+    void importFromJson_ndjson_reportsErrorsPerObject() throws IOException {
+        String ndjson = "{\"name\": \"Jan\", \"surname\": \"Kowalski\", \"email\": \"jan@techcorp.com\", \"company\": \"X\", \"position\": \"PROGRAMISTA\", \"salary\": 8000}\n" +
+                "\n" +
+                "{\"name\": \"Anna\", \"surname\": \"Nowak\", \"email\": \"anna@techcorp.com\", \"company\": \"Y\", \"position\": \"NOPE\", \"salary\": 12000}\n" +
+                "{\"name\": \"Ewa\", \"surname\": \"Maj\", \"email\": \"ewa@techcorp.com\", \"company\": \"Z\", \"position\": \"MANAGER\", \"salary\": 9000.5}\n";
+
+        ImportSummary summary = importService.importFromJson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                ImportOptions.replace(), new ImportProgress());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(2, 3);
+        assertThat(summary.getErrors()).extracting("errorMessage").containsExactly(
+                "Nieprawidłowa pozycja: NOPE",
+                "Nieprawidłowa wartość wynagrodzenia: 9000.5");
+    }
+
+    @Test
+    void importFromJson_emptyFile_returnsZeroImported(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("test.json");
+        Files.writeString(json, "");
+
+        ImportSummary summary = importService.importFromJson(json.toString());
+
+        assertThat(summary.getImportedEmployees()).isZero();
+        assertThat(summary.getErrors()).isEmpty();
+    }
+
+    @Test
+    void importFromJson_valueThatIsNotAnObject_throwsIOException(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("test.json");
+        Files.writeString(json, "[{\"name\": \"Jan\"}, 42]");
+
+        assertThatThrownBy(() -> importService.importFromJson(json.toString()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Błąd przetwarzania JSON");
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    void importFromJson_truncatedDocument_throwsIOException(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("test.json");
+        Files.writeString(json, "[{\"name\": \"Jan\", \"surname\": ");
+
+        assertThatThrownBy(() -> importService.importFromJson(json.toString()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Błąd przetwarzania JSON");
+    }
+
+    @Test
+    void importFromCsv_gzipFile_decompressedOnTheFly(@TempDir Path tempDir) throws IOException {
+        Path gz = tempDir.resolve("test.csv.gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            output.write(("firstName;lastName;email;company;position;salary\n" +
+                    "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                    "Anna;Nowak;anna@techcorp.com;Y;NOPE;12000\n").getBytes(StandardCharsets.UTF_8));
+        }
+        ImportProgress progress = new ImportProgress();
+
+        ImportSummary summary = importService.importFromCsv(gz.toString(), ImportOptions.replace(), progress);
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(3);
+        assertThat(progress.getTotalBytes()).isEqualTo(Files.size(gz));
+        assertThat(progress.getBytesRead()).isEqualTo(Files.size(gz));
+    }
+
+    @Test
+    void importFromCsv_zipArchive_importsEveryFileInOneSummary(@TempDir Path tempDir) throws IOException {
+        Path zip = tempDir.resolve("test.zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zip))) {
+            output.putNextEntry(new ZipEntry("dzial-a.csv"));
+            output.write(("firstName;lastName;email;company;position;salary\n" +
+                    "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                    "Anna;Nowak;anna@techcorp.com;Y;NOPE;12000\n").getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("README.txt"));
+            output.write("nie jest importowany".getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("dzial-b/pracownicy.xml"));
+            output.write(("<employees>" +
+                    employeeXml("Ewa", "Maj", "ewa@techcorp.com", "MANAGER", "9000", null) +
+                    employeeXml("Jan", "Kowalski", "jan@techcorp.com", "MANAGER", "9000", null) +
+                    "</employees>").getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportSummary summary = importService.importFromCsv(zip.toString());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(2);
+        assertThat(summary.getErrors()).extracting("source").containsExactly("dzial-a.csv", "dzial-b/pracownicy.xml");
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(3, 2);
+        assertThat(summary.getErrors().get(1).getErrorMessage()).contains("Employee with this email already exists!");
+        verify(employeeRepository, times(1)).findIdsAfter(anyLong(), any());
+    }
+
+    @Test
+    void importFromCsv_zipWithoutSupportedFiles_reportsError(@TempDir Path tempDir) throws IOException {
+        Path zip = tempDir.resolve("test.zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zip))) {
+            output.putNextEntry(new ZipEntry("README.txt"));
+        }
+
+        ImportSummary summary = importService.importFromCsv(zip.toString());
+
+        assertThat(summary.getImportedEmployees()).isZero();
+        assertThat(summary.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getErrorMessage()).contains("archiwum nie zawiera"));
+    }
+
+    @Test
+    void importWithCheckpoints_resumedCsv_skipsCommittedRowsAndKeepsEmployees(@TempDir Path tempDir) throws IOException {
+        assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()), "plik mapowany jest czytany tylko przy UTF-8");
+        String committed = "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n" +
+                "Anna;Nowak;anna@techcorp.com;Y;MANAGER;12000\n";
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, committed +
+                "Piotr;Lewandowski;piotr@techcorp.com;Z;WICEPREZES;9500\n" +
+                "Ewa;Maj;ewa@techcorp.com;Z;NOPE;9000\n");
+        ImportCheckpoint checkpoint = checkpoint(csv, ImportFormat.CSV);
+        checkpoint.advance(4, committed.getBytes(StandardCharsets.UTF_8).length);
+        checkpoint.setCounts(2, 0, 0);
+        ImportProgress progress = new ImportProgress();
+
+        ImportSummary summary = checkpointedImportService().importWithCheckpoints(checkpoint, ImportOptions.replace(), progress);
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(3);
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(5);
+        assertThat(progress.getRecordsWritten()).isEqualTo(3);
+        assertThat(checkpoint.getNextLineNumber()).isEqualTo(6);
+        assertThat(checkpoint.getByteOffset()).isEqualTo(Files.size(csv));
+        verify(employeeRepository, never()).findIdsAfter(anyLong(), any());
+        verify(employeeRepository, times(1)).save(any());
+    }
+
+    @Test
+    void importWithCheckpoints_resumedCsvMerge_reportsDuplicateOfCommittedRow(@TempDir Path tempDir) throws IOException {
+        assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()), "plik mapowany jest czytany tylko przy UTF-8");
+        String committed = "firstName;lastName;email;company;position;salary\n" +
+                "Jan;Kowalski;jan@techcorp.com;X;PROGRAMISTA;8000\n";
+        Path csv = tempDir.resolve("test.csv");
+        Files.writeString(csv, committed +
+                "Jan;Nowy;jan@techcorp.com;X;MANAGER;9000\n" +
+                "Piotr;Lewandowski;piotr@techcorp.com;Z;WICEPREZES;9500\n");
+        ImportCheckpoint checkpoint = checkpoint(csv, ImportFormat.CSV);
+        checkpoint.advance(3, committed.getBytes(StandardCharsets.UTF_8).length);
+        checkpoint.setCounts(1, 0, 0);
+
+        ImportSummary summary = checkpointedImportService().importWithCheckpoints(checkpoint, ImportOptions.merge(false), new ImportProgress());
+
+        assertThat(summary.getErrors()).extracting("lineNumber", "type").containsExactly(tuple(3, "Employee with this email already exists!"));
+        verify(employeeRepository).findByEmailIn(Set.of("piotr@techcorp.com"));
+        verify(employeeRepository, times(1)).save(argThat(employee -> "piotr@techcorp.com".equals(employee.getEmail())));
+    }
+
+    @Test
+    void importWithCheckpoints_resumedXmlMerge_reportsDuplicateOfCommittedElement(@TempDir Path tempDir) throws IOException {
+        Path xml = tempDir.resolve("test.xml");
+        Files.writeString(xml, "<employees>" +
+                employeeXml("Jan", "Kowalski", "jan@techcorp.com", "PROGRAMISTA", "8000", null) +
+                employeeXml("Jan", "Nowy", "jan@techcorp.com", "MANAGER", "9000", null) +
+                employeeXml("Ewa", "Maj", "ewa@techcorp.com", "MANAGER", "9000", null) +
+                "</employees>");
+        ImportCheckpoint checkpoint = checkpoint(xml, ImportFormat.XML);
+        checkpoint.advance(2, -1);
+        checkpoint.setCounts(1, 0, 0);
+
+        ImportSummary summary = checkpointedImportService().importWithCheckpoints(checkpoint, ImportOptions.merge(false), new ImportProgress());
+
+        assertThat(summary.getErrors()).extracting("lineNumber").containsExactly(2);
+        verify(employeeRepository).findByEmailIn(Set.of("ewa@techcorp.com"));
+        verify(employeeRepository, times(1)).save(argThat(employee -> "ewa@techcorp.com".equals(employee.getEmail())));
+    }
+
+    @Test
+    void importWithCheckpoints_resumedXml_skipsCommittedElements(@TempDir Path tempDir) throws IOException {
+        Path xml = tempDir.resolve("test.xml");
+        Files.writeString(xml, "<employees>" +
+                employeeXml("Jan", "Kowalski", "jan@techcorp.com", "PROGRAMISTA", "8000", null) +
+                employeeXml("Anna", "Nowak", "anna@techcorp.com", "MANAGER", "12000", null) +
+                employeeXml("Ewa", "Maj", "ewa@techcorp.com", "MANAGER", "9000", null) +
+                "</employees>");
+        ImportCheckpoint checkpoint = checkpoint(xml, ImportFormat.XML);
+        checkpoint.advance(3, -1);
+        checkpoint.setCounts(2, 0, 0);
+
+        ImportSummary summary = checkpointedImportService().importWithCheckpoints(checkpoint, ImportOptions.replace(), new ImportProgress());
+
+        assertThat(summary.getImportedEmployees()).isEqualTo(3);
+        assertThat(summary.getErrors()).isEmpty();
+        verify(employeeRepository, never()).findIdsAfter(anyLong(), any());
+        verify(employeeRepository, times(1)).save(argThat(employee -> "ewa@techcorp.com".equals(employee.getEmail())));
+    }
+
+    @Test
+    void importWithCheckpoints_zipArchive_rejected(@TempDir Path tempDir) throws IOException {
+        Path zip = tempDir.resolve("test.zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zip))) {
+            output.putNextEntry(new ZipEntry("test.csv"));
+        }
+
+        assertThatThrownBy(() -> checkpointedImportService().importWithCheckpoints(checkpoint(zip, ImportFormat.CSV),
+                ImportOptions.replace(), new ImportProgress()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(employeeRepository);
+    }
+
+    private ImportService checkpointedImportService() {
+        ImportCheckpointService checkpoints = new ImportCheckpointService(mock(ImportCheckpointRepository.class),
+                mock(PlatformTransactionManager.class), 60);
+        return new ImportService(employeeService, null, pipeline, null, checkpoints);
+    }
+
+    private static ImportCheckpoint checkpoint(Path file, ImportFormat format) {
+        return new ImportCheckpoint("job-1", file.getFileName().toString(), file.toString(), "hash", 0,
+                format, ImportMode.REPLACE, Instant.now());
+    }
+
+    private static Employee existing(Long id, String name, String email, int salary) {
+        Employee employee = new Employee(name, "Kowalski", "X", email, Position.PROGRAMISTA, BigDecimal.valueOf(salary).setScale(2));
+        employee.setId(id);
+        employee.setStatus(EmploymentStatus.ACTIVE);
+        return employee;
+    }
+
+    private static String employeeXml(String name, String surname, String email, String position, String salary, String status) {
+        return "<employee>" +
+                "<name>" + name + "</name>" +
+                "<surname>" + surname + "</surname>" +
+                "<email>" + email + "</email>" +
+                "<company>X</company>" +
+                "<position>" + position + "</position>" +
+                "<salary>" + salary + "</salary>" +
+                (status != null ? "<status>" + status + "</status>" : "") +
+                "</employee>";
+    }
+
     @Test
     void constructor_createsInstance() {
-        ImportService service = new ImportService(employeeService);
+        ImportService service = new ImportService(employeeService, null, pipeline, null);
 
         assertThat(service).isNotNull();
     }
@@ -375,7 +1042,7 @@ public class ImportServiceTest {
     @Test
     void constructor_withEmployeeService_createsInstance() {
         EmployeeService service = new EmployeeService(employeeRepository);
-        ImportService importService = new ImportService(service);
+        ImportService importService = new ImportService(service, null, pipeline, null);
 
         assertThat(importService).isNotNull();
     }
@@ -0,0 +1,98 @@
+package com.github.jakubpakula1.lab.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class MappedCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_skipsHeaderAndHandlesAllLineEndings() throws IOException {
+        Path csv = write("header\na;1\r\nb;2\rc;3\n\nd;4");
+
+        assertThat(rows(csv, MappedCsvReader.DEFAULT_WINDOW_SIZE))
+                .containsExactly("2:a;1", "3:b;2", "4:c;3", "5:", "6:d;4");
+    }
+
+    @Test
+    void read_quotedNewlineDoesNotEndRow() throws IOException {
+        Path csv = write("header\n\"Tech\nCorp\";1\nb;2\n");
+
+        assertThat(rows(csv, MappedCsvReader.DEFAULT_WINDOW_SIZE))
+                .containsExactly("2:\"Tech\nCorp\";1", "4:b;2");
+    }
+
+    @Test
+    void read_smallWindows_giveSameRowsAndByteCount() throws IOException {
+        String content = "header\r\nJan;Kowalski\r\n\"Żółć\r\n\";x\r\nlonger row than window\r\n";
+        Path csv = write(content);
+        List<String> expected = rows(csv, MappedCsvReader.DEFAULT_WINDOW_SIZE);
+
+        for (int window = 1; window <= 16; window++) {
+            ImportProgress progress = new ImportProgress();
+            assertThat(rows(csv, window, progress)).as("okno %d", window).isEqualTo(expected);
+            assertThat(progress.getBytesRead()).isEqualTo(Files.size(csv));
+            assertThat(progress.getRecordsRead()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void read_emptyFile_readsNothing() throws IOException {
+        assertThat(rows(write(""), MappedCsvReader.DEFAULT_WINDOW_SIZE)).isEmpty();
+    }
+
+    @Test
+    void split_quotedNewlinesAcrossBoundaries_coverEveryRowOnce() throws IOException {
+        StringBuilder content = new StringBuilder("header\n");
+        String fakeRows = "a;1\n".repeat(50_000);
+        for (int i = 0; content.length() < 5 * MappedCsvReader.MIN_SPLIT_SIZE; i++) {
+            content.append(i % 1000 == 0 ? "\"" + fakeRows + "\";" + i : "row;" + i).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        Path csv = write(content.toString());
+        List<String> expected = rows(csv, MappedCsvReader.DEFAULT_WINDOW_SIZE);
+
+        List<MappedCsvReader.Split> splits = MappedCsvReader.split(csv, 8, Runnable::run);
+
+        assertThat(splits).hasSizeGreaterThan(1);
+        assertThat(splits.get(splits.size() - 1).getEnd()).isEqualTo(Files.size(csv));
+        ImportProgress progress = new ImportProgress();
+        List<String> rows = new ArrayList<>();
+        for (MappedCsvReader.Split split : splits) {
+            MappedCsvReader.read(csv, split, (lineNumber, row) -> rows.add(lineNumber + ":" + text(row)), progress);
+        }
+        assertThat(rows).isEqualTo(expected);
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("test.csv"), content);
+    }
+
+    private List<String> rows(Path csv, int window) throws IOException {
+        return rows(csv, window, new ImportProgress());
+    }
+
+    private List<String> rows(Path csv, int window, ImportProgress progress) throws IOException {
+        List<String> rows = new ArrayList<>();
+        MappedCsvReader.read(csv, (lineNumber, row) -> {
+            rows.add(lineNumber + ":" + text(row));
+        }, progress, window);
+        return rows;
+    }
+
+    private static String text(MappedCsvReader.Row row) {
+        byte[] bytes = new byte[row.getEnd() - row.getStart()];
+        row.getBuffer().get(row.getStart(), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
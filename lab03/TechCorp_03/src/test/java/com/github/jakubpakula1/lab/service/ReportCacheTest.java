@@ -0,0 +1,152 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.event.EmployeeSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReportCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReportCache newCache(long maxSizeMb) {
+        return new ReportCache(tempDir.toString(), maxSizeMb, new SingleFlight());
+    }
+
+    private ReportCache newCache(long maxSizeMb, long evictionGraceSeconds) {
+        return new ReportCache(tempDir.toString(), maxSizeMb, evictionGraceSeconds, new SingleFlight());
+    }
+
+    @Test
+    void get_sameKeyAndVersion_generatesOnceAndServesSameFile() throws IOException {
+        ReportCache cache = newCache(1);
+        AtomicInteger generated = new AtomicInteger();
+        ReportCache.ReportWriter writer = out -> {
+            generated.incrementAndGet();
+            out.write("name,surname\nJan,Kowalski\n".getBytes(StandardCharsets.UTF_8));
+        };
+
+        ReportCache.CachedReport first = cache.get("employees-csv", List.of("company=techcorp"), writer);
+        ReportCache.CachedReport second = cache.get("employees-csv", List.of("company=techcorp"), writer);
+
+        assertThat(generated).hasValue(1);
+        assertThat(second.getFile()).isEqualTo(first.getFile());
+        assertThat(second.getEtag()).isEqualTo(first.getEtag()).startsWith("\"").endsWith("\"");
+        assertThat(Files.readString(first.getFile())).isEqualTo("name,surname\nJan,Kowalski\n");
+        assertThat(first.getSize()).isEqualTo(Files.size(first.getFile()));
+        assertThat(cache.getMetrics()).containsEntry("hits", 1L).containsEntry("misses", 1L).containsEntry("entries", 1);
+    }
+
+    @Test
+    void get_differentParameters_areSeparateEntries() throws IOException {
+        ReportCache cache = newCache(1);
+
+        ReportCache.CachedReport all = cache.get("employees-csv", List.of(), out -> out.write('a'));
+        ReportCache.CachedReport blank = cache.get("employees-csv", List.of("company="), out -> out.write('b'));
+        ReportCache.CachedReport pdf = cache.get("statistics-pdf", List.of(), out -> out.write('c'));
+
+        assertThat(List.of(all.getFile(), blank.getFile(), pdf.getFile())).doesNotHaveDuplicates();
+        assertThat(all.getEtag()).isNotEqualTo(blank.getEtag());
+    }
+
+    @Test
+    void get_afterEmployeeChange_regeneratesReport() throws IOException {
+        ReportCache cache = newCache(1);
+        AtomicInteger generated = new AtomicInteger();
+        ReportCache.ReportWriter writer = out -> out.write(("v" + generated.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+        ReportCache.CachedReport before = cache.get("employees-csv", List.of(), writer);
+
+        cache.onEmployeeChanged(new EmployeeChangedEvent(null, new EmployeeSnapshot("jan@techcorp.com", "TechCorp", null, null, null)));
+        ReportCache.CachedReport after = cache.get("employees-csv", List.of(), writer);
+
+        assertThat(generated).hasValue(2);
+        assertThat(after.getFile()).isNotEqualTo(before.getFile());
+        assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+        assertThat(cache.getDataVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void get_aboveSizeCap_evictsLeastRecentlyUsedFiles() throws IOException {
+        ReportCache cache = newCache(1, 0);
+        byte[] halfMegabyte = new byte[512 * 1024];
+        ReportCache.CachedReport a = cache.get("report", List.of("a"), out -> out.write(halfMegabyte));
+        ReportCache.CachedReport b = cache.get("report", List.of("b"), out -> out.write(halfMegabyte));
+        cache.get("report", List.of("a"), out -> fail("a powinien być w cache"));
+
+        ReportCache.CachedReport c = cache.get("report", List.of("c"), out -> out.write(halfMegabyte));
+        cache.deleteEvictedFiles();
+
+        assertThat(a.getFile()).exists();
+        assertThat(b.getFile()).doesNotExist();
+        assertThat(c.getFile()).exists();
+        assertThat(cache.getMetrics()).containsEntry("evictions", 1L).containsEntry("bytes", 2L * halfMegabyte.length)
+                .containsEntry("evictedFiles", 0);
+    }
+
+    @Test
+    void get_evictedFileStillBeingSent_isKeptUntilGracePeriodEnds() throws IOException {
+        ReportCache cache = newCache(1, 60);
+        byte[] megabyte = new byte[1024 * 1024];
+        ReportCache.CachedReport sending = cache.get("report", List.of("a"), out -> out.write(megabyte));
+
+        try (InputStream in = Files.newInputStream(sending.getFile())) {
+            cache.get("report", List.of("b"), out -> out.write(megabyte));
+            cache.deleteEvictedFiles();
+
+            assertThat(sending.getFile()).exists();
+            assertThat(in.readAllBytes()).hasSize(megabyte.length);
+        }
+        assertThat(cache.getMetrics()).containsEntry("evictions", 1L).containsEntry("evictedFiles", 1);
+    }
+
+    @Test
+    void get_regeneratedReportWithEvictedName_isNotDeletedBySweep() throws IOException {
+        ReportCache cache = newCache(1, 0);
+        byte[] megabyte = new byte[1024 * 1024];
+        cache.get("report", List.of("a"), out -> out.write(megabyte));
+        cache.get("report", List.of("b"), out -> out.write(megabyte));
+
+        ReportCache.CachedReport again = cache.get("report", List.of("a"), out -> out.write(megabyte));
+        cache.deleteEvictedFiles();
+
+        assertThat(again.getFile()).exists();
+        assertThat(cache.getMetrics()).containsEntry("evictions", 2L);
+    }
+
+    @Test
+    void get_writerFails_leavesNoFileAndRetriesNextTime() throws IOException {
+        ReportCache cache = newCache(1);
+
+        assertThatThrownBy(() -> cache.get("report", List.of(), out -> {
+            out.write('x');
+            throw new IOException("dysk pełny");
+        })).isInstanceOf(IOException.class).hasMessage("dysk pełny");
+
+        try (var files = Files.list(tempDir.resolve("cache"))) {
+            assertThat(files).isEmpty();
+        }
+        assertThat(Files.readString(cache.get("report", List.of(), out -> out.write('y')).getFile())).isEqualTo("y");
+    }
+
+    @Test
+    void constructor_removesFilesFromPreviousRun() throws IOException {
+        Path stale = tempDir.resolve("cache").resolve("employees-csv-old.report");
+        Files.createDirectories(stale.getParent());
+        Files.writeString(stale, "stare dane");
+
+        newCache(1);
+
+        assertThat(stale).doesNotExist();
+    }
+}
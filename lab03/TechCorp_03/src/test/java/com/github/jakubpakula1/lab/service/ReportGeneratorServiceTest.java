@@ -0,0 +1,155 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.CompanyAggregateRow;
+import com.github.jakubpakula1.lab.dto.EmployeeExportRow;
+import com.github.jakubpakula1.lab.dto.TopEarnerRow;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportGeneratorServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private ReportGeneratorService reportService;
+
+    @BeforeEach
+    void setUp() {
+        reportService = new ReportGeneratorService(employeeRepository, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportService.shutdown();
+    }
+
+    @Test
+    void writeEmployees_csv_streamsRowsFromCursorAndClosesIt() throws IOException {
+        boolean[] closed = {false};
+        when(employeeRepository.streamExportRows()).thenReturn(Stream.of(
+                new EmployeeExportRow("Jan", "Kowalski", "TechCorp", "jan@techcorp.com", Position.PROGRAMISTA, new BigDecimal("8000.50")),
+                new EmployeeExportRow("Anna", "Nowak", "Tech, \"Corp\"", "anna@techcorp.com", null, null)
+        ).onClose(() -> closed[0] = true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reportService.writeEmployees(Optional.empty(), new CsvEmployeeExportWriter(), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("name,surname,company,email,position,salary\n" +
+                "Jan,Kowalski,TechCorp,jan@techcorp.com,PROGRAMISTA,8000.50\n" +
+                "Anna,Nowak,\"Tech, \"\"Corp\"\"\",anna@techcorp.com,,\n");
+        assertThat(closed[0]).isTrue();
+    }
+
+    @Test
+    void writeEmployees_company_usesCompanyCursor() throws IOException {
+        when(employeeRepository.streamExportRowsByCompany("TechCorp")).thenReturn(Stream.of(
+                new EmployeeExportRow("Żaneta", "Łęcka", "TechCorp", "zaneta@techcorp.com", Position.MANAGER, new BigDecimal("12000"))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reportService.writeEmployees(Optional.of("TechCorp"), new CsvEmployeeExportWriter(), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("Żaneta,Łęcka,TechCorp,zaneta@techcorp.com,MANAGER,12000\n");
+        verify(employeeRepository, never()).streamExportRows();
+    }
+
+    @Test
+    void writeEmployees_blankCompany_writesEmptyDocument() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reportService.writeEmployees(Optional.of(" "), new XmlEmployeeExportWriter(), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("<employees></employees>");
+        verifyNoInteractions(employeeRepository);
+    }
+
+    @Test
+    void writeCompanyStatisticsPdf_manyEmployees_continuesTableOnNextPages() throws IOException {
+        when(employeeRepository.aggregateForCompany("TechCorp"))
+                .thenReturn(new CompanyAggregateRow("TechCorp", 200L, 8100.0, new BigDecimal("9999")));
+        when(employeeRepository.findTopEarnersForCompany("TechCorp"))
+                .thenReturn(List.of(new TopEarnerRow("TechCorp", "Łukasz", "Żółw", new BigDecimal("9999"))));
+        when(employeeRepository.streamExportRowsByCompany("TechCorp")).thenReturn(IntStream.rangeClosed(1, 200)
+                .mapToObj(i -> new EmployeeExportRow("Jan" + i, "Kowalski", "TechCorp", "jan" + i + "@techcorp.com",
+                        Position.PROGRAMISTA, BigDecimal.valueOf(8000 + i))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reportService.writeCompanyStatisticsPdf("TechCorp", out);
+
+        try (PDDocument pdf = PDDocument.load(out.toByteArray())) {
+            assertThat(pdf.getNumberOfPages()).isGreaterThan(3);
+            String text = new PDFTextStripper().getText(pdf);
+            assertThat(text).contains("Total employees: 200", "Top earner: Lukasz Zólw", "jan1@techcorp.com", "jan200@techcorp.com", "8200");
+        }
+    }
+
+    @Test
+    void writeAllCompanyStatisticsZip_rendersOneReportPerCompanyFromSingleCursor() throws IOException {
+        boolean[] closed = {false};
+        Stream<EmployeeExportRow> alpha = IntStream.rangeClosed(1, 120)
+                .mapToObj(i -> new EmployeeExportRow("Jan" + i, "Kowalski", "Alpha", "jan" + i + "@alpha.com",
+                        Position.PROGRAMISTA, BigDecimal.valueOf(8000 + i)));
+        Stream<EmployeeExportRow> others = Stream.of(
+                new EmployeeExportRow("Anna", "Nowak", "Beta Corp", "anna@beta.com", Position.MANAGER, new BigDecimal("12000")),
+                new EmployeeExportRow("Ewa", "Lis", "Beta Corp", "ewa@beta.com", Position.MANAGER, new BigDecimal("12000")),
+                new EmployeeExportRow("Piotr", "Wójcik", "Beta/Corp", "piotr@beta.pl", Position.STAZYSTA, null),
+                new EmployeeExportRow("Ola", "Kot", null, "ola@none.com", Position.STAZYSTA, new BigDecimal("3000")));
+        when(employeeRepository.streamExportRowsOrderedByCompany())
+                .thenReturn(Stream.concat(alpha, others).onClose(() -> closed[0] = true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        reportService.writeAllCompanyStatisticsZip(out);
+
+        Map<String, String> reports = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                try (PDDocument pdf = PDDocument.load(zip.readAllBytes())) {
+                    reports.put(entry.getName(), new PDFTextStripper().getText(pdf));
+                }
+            }
+        }
+        assertThat(reports).containsOnlyKeys("statistics_Alpha.pdf", "statistics_Beta_Corp.pdf",
+                "statistics_Beta_Corp_2.pdf", "statistics_unknown.pdf");
+        assertThat(reports.get("statistics_Alpha.pdf"))
+                .contains("Statistics for company: Alpha", "Total employees: 120", "Highest salary: 8120", "jan120@alpha.com");
+        assertThat(reports.values()).anySatisfy(text -> assertThat(text)
+                .contains("Statistics for company: Beta Corp", "Total employees: 2", "Top earner: Anna Nowak"));
+        assertThat(reports.values()).anySatisfy(text -> assertThat(text)
+                .contains("Statistics for company: Beta/Corp", "Highest salary: -", "Top earner: -"));
+        assertThat(closed[0]).isTrue();
+        verify(employeeRepository, never()).aggregateForCompany(any());
+        verify(employeeRepository, never()).findTopEarnersForCompany(any());
+    }
+
+    @Test
+    void pdfText_replacesCharactersOutsideStandardFont() {
+        assertThat(CompanyReportPdf.pdfText("Łódź ąę żółć")).isEqualTo("Lódz ae zólc");
+        assertThat(CompanyReportPdf.pdfText("a\tb 日本")).isEqualTo("a b ??");
+        assertThat(CompanyReportPdf.pdfText(null)).isEmpty();
+    }
+}
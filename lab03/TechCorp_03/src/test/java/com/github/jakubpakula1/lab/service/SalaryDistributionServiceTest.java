@@ -0,0 +1,101 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.dto.DashboardRow;
+import com.github.jakubpakula1.lab.dto.SalaryDistributionDTO;
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalaryDistributionServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @InjectMocks
+    private SalaryDistributionService service;
+
+    private static DashboardRow row(String company, Position position, int salary) {
+        return new DashboardRow(company, "Jan", "Kowalski", position, EmploymentStatus.ACTIVE, BigDecimal.valueOf(salary));
+    }
+
+    private Stream<DashboardRow> sampleRows() {
+        return Stream.of(
+                row("Acme", Position.PROGRAMISTA, 4000),
+                row("Acme", Position.PROGRAMISTA, 6000),
+                row("Acme", Position.MANAGER, 12000),
+                row("TechCorp", Position.PROGRAMISTA, 8000)
+        );
+    }
+
+    @Test
+    void getDistribution_overall_mergesAllGroups() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(sampleRows());
+
+        SalaryDistributionDTO dto = service.getDistribution(null, null, 2);
+
+        assertThat(dto.getCount()).isEqualTo(4);
+        assertThat(dto.getMin()).isEqualTo(4000.0);
+        assertThat(dto.getMax()).isEqualTo(12000.0);
+        assertThat(dto.getP50()).isEqualTo(6000.0);
+        assertThat(dto.getP99()).isEqualTo(12000.0);
+        assertThat(dto.getHistogram()).extracting(SalaryDistributionDTO.HistogramBucket::getCount).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void getDistribution_filtersByCompanyAndPosition() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(sampleRows());
+
+        SalaryDistributionDTO acme = service.getDistribution("acme", null, 10);
+        SalaryDistributionDTO programmers = service.getDistribution(null, Position.PROGRAMISTA, 10);
+        SalaryDistributionDTO cell = service.getDistribution("Acme", Position.MANAGER, 10);
+
+        assertThat(acme.getCount()).isEqualTo(3);
+        assertThat(programmers.getCount()).isEqualTo(3);
+        assertThat(programmers.getMax()).isEqualTo(8000.0);
+        assertThat(cell.getCount()).isEqualTo(1);
+        assertThat(cell.getHistogram()).hasSize(1);
+        verify(employeeRepository, times(1)).streamDashboardRows();
+    }
+
+    @Test
+    void getDistribution_afterEmployeeChange_rebuildsSketches() {
+        when(employeeRepository.streamDashboardRows())
+                .thenReturn(sampleRows())
+                .thenReturn(Stream.of(row("Acme", Position.PROGRAMISTA, 4000)));
+
+        assertThat(service.getDistribution(null, null, 10).getCount()).isEqualTo(4);
+        service.onEmployeeChanged(new EmployeeChangedEvent(null, null));
+
+        assertThat(service.getDistribution(null, null, 10).getCount()).isEqualTo(1);
+        verify(employeeRepository, times(2)).streamDashboardRows();
+    }
+
+    @Test
+    void getDistribution_unknownCompany_returnsEmptyDistribution() {
+        when(employeeRepository.streamDashboardRows()).thenReturn(sampleRows());
+
+        SalaryDistributionDTO dto = service.getDistribution("Nope", null, 10);
+
+        assertThat(dto.getCount()).isZero();
+        assertThat(dto.getHistogram()).isEmpty();
+    }
+
+    @Test
+    void getDistribution_invalidBuckets_throws() {
+        assertThatThrownBy(() -> service.getDistribution(null, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
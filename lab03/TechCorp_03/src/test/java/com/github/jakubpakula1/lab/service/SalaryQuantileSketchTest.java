@@ -0,0 +1,63 @@
+package com.github.jakubpakula1.lab.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SalaryQuantileSketchTest {
+
+    @Test
+    void quantile_largeStream_staysAccurateWithBoundedMemory() {
+        SalaryQuantileSketch sketch = new SalaryQuantileSketch(200, new SplittableRandom(42));
+        for (int i = 1; i <= 1_000_000; i++) {
+            sketch.update(i);
+        }
+
+        assertThat(sketch.getCount()).isEqualTo(1_000_000);
+        assertThat(sketch.quantile(0.5)).isCloseTo(500_000, within(20_000.0));
+        assertThat(sketch.quantile(0.9)).isCloseTo(900_000, within(20_000.0));
+        assertThat(sketch.quantile(0.99)).isCloseTo(990_000, within(20_000.0));
+        assertThat(sketch.getRetainedItems()).isLessThan(2_000);
+    }
+
+    @Test
+    void merge_combinesSketchesOfDisjointGroups() {
+        SalaryQuantileSketch low = new SalaryQuantileSketch(200, new SplittableRandom(1));
+        SalaryQuantileSketch high = new SalaryQuantileSketch(200, new SplittableRandom(2));
+        for (int i = 1; i <= 50_000; i++) {
+            low.update(i);
+            high.update(50_000 + i);
+        }
+
+        low.merge(high);
+
+        assertThat(low.getCount()).isEqualTo(100_000);
+        assertThat(low.getMin()).isEqualTo(1.0);
+        assertThat(low.getMax()).isEqualTo(100_000.0);
+        assertThat(low.quantile(0.5)).isCloseTo(50_000, within(2_000.0));
+        assertThat(low.cdf(25_000)).isCloseTo(0.25, within(0.02));
+    }
+
+    @Test
+    void quantile_smallInput_isExact() {
+        SalaryQuantileSketch sketch = new SalaryQuantileSketch();
+        sketch.update(3000);
+        sketch.update(5000);
+        sketch.update(9000);
+
+        assertThat(sketch.quantile(0.5)).isEqualTo(5000.0);
+        assertThat(sketch.quantile(0.99)).isEqualTo(9000.0);
+        assertThat(sketch.cdf(5000)).isCloseTo(2.0 / 3.0, within(1e-9));
+    }
+
+    @Test
+    void emptySketch_returnsZeros() {
+        SalaryQuantileSketch sketch = new SalaryQuantileSketch();
+
+        assertThat(sketch.getCount()).isZero();
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertThat(sketch.cdf(100)).isZero();
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.jakubpakula1.lab.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    void execute_concurrentCallersWithSameKey_shareOneComputation() throws Exception {
+        int callers = 8;
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("companyStatistics", null, () -> {
+                    computations.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (singleFlight.getCoalescedCount("companyStatistics") < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(computations.get()).isEqualTo(1);
+        assertThat(singleFlight.getMetrics().get("companyStatistics"))
+                .containsEntry("calls", (long) callers)
+                .containsEntry("executions", 1L)
+                .containsEntry("coalesced", (long) callers - 1);
+    }
+
+    @Test
+    void execute_differentKeys_runIndependently() {
+        assertThat(singleFlight.execute("averageSalary", "acme", () -> 1.0)).isEqualTo(1.0);
+        assertThat(singleFlight.execute("averageSalary", "techcorp", () -> 2.0)).isEqualTo(2.0);
+
+        assertThat(singleFlight.getMetrics().get("averageSalary")).containsEntry("executions", 2L).containsEntry("coalesced", 0L);
+    }
+
+    @Test
+    void execute_failure_isPropagatedAndNextCallRecomputes() {
+        assertThatThrownBy(() -> singleFlight.execute("report", "Acme", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(singleFlight.execute("report", "Acme", () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
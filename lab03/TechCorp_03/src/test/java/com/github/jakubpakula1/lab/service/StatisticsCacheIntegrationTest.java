@@ -0,0 +1,94 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class StatisticsCacheIntegrationTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private StatisticsCacheService statisticsCacheService;
+
+    @Autowired
+    private StatisticsFacade statisticsFacade;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        statisticsCacheService.evictAll();
+        employeeService.addEmployee(employee("Jan", "Kowalski", "Acme", "jan@techcorp.com", 8000));
+        employeeService.addEmployee(employee("Piotr", "Lis", "TechCorp", "piotr@techcorp.com", 9500));
+    }
+
+    @Test
+    void getCompanyStatisticsDTO_secondCall_isServedFromCache() {
+        statisticsFacade.getCompanyStatisticsDTO("Acme");
+        long hitsBefore = hits(StatisticsCacheService.COMPANY_STATISTICS);
+
+        assertThat(statisticsFacade.getCompanyStatisticsDTO(" ACME ")).isPresent();
+
+        assertThat(hits(StatisticsCacheService.COMPANY_STATISTICS)).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void updateEmployee_evictsOnlyAffectedCompany() {
+        statisticsFacade.getCompanyStatisticsDTO("Acme");
+        statisticsFacade.getCompanyStatisticsDTO("TechCorp");
+
+        Employee updated = employee("Jan", "Kowalski", "Acme", "jan@techcorp.com", 10000);
+        employeeService.updateEmployee("jan@techcorp.com", updated);
+
+        var companyCache = cacheManager.getCache(StatisticsCacheService.COMPANY_STATISTICS);
+        assertThat(companyCache.get("acme")).isNull();
+        assertThat(companyCache.get("techcorp")).isNotNull();
+        assertThat(statisticsFacade.getCompanyStatisticsDTO("Acme").orElseThrow().getAverageSalary()).isEqualTo(10000.0);
+    }
+
+    @Test
+    void deleteAllEmployees_clearsEveryStatisticsCache() {
+        statisticsFacade.getCompanyStatisticsDTO("Acme");
+
+        employeeService.deleteAllEmployees();
+
+        assertThat(cacheManager.getCache(StatisticsCacheService.COMPANY_STATISTICS).get("acme")).isNull();
+        assertThat(statisticsFacade.getCompanyStatisticsDTO("Acme")).isEmpty();
+    }
+
+    @Test
+    void getCacheStatistics_listsOnlyCachesInFrontOfEndpoints() {
+        assertThat(statisticsCacheService.getCacheStatistics())
+                .containsOnlyKeys(StatisticsCacheService.COMPANY_STATISTICS, StatisticsCacheService.DASHBOARD_STATISTICS);
+    }
+
+    private long hits(String cacheName) {
+        return ((Number) statisticsCacheService.getCacheStatistics().get(cacheName).get("hits")).longValue();
+    }
+
+    private Employee employee(String name, String surname, String company, String email, int salary) {
+        Employee employee = new Employee(name, surname, company, email, Position.PROGRAMISTA, BigDecimal.valueOf(salary));
+        employee.setStatus(EmploymentStatus.ACTIVE);
+        return employee;
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.event.EmployeeChangedEvent;
+import com.github.jakubpakula1.lab.event.EmployeeSnapshot;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StatisticsCacheServiceTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private CaffeineCacheManager cacheManager;
+    private StatisticsCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(StatisticsCacheService.COMPANY_STATISTICS, StatisticsCacheService.DASHBOARD_STATISTICS);
+        service = new StatisticsCacheService(cacheManager, singleFlight);
+    }
+
+    @Test
+    void get_secondCall_isServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        service.get(StatisticsCacheService.COMPANY_STATISTICS, "acme", loads::incrementAndGet);
+        Integer cached = service.get(StatisticsCacheService.COMPANY_STATISTICS, "acme", loads::incrementAndGet);
+
+        assertThat(cached).isEqualTo(1);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void get_concurrentMisses_loadOnce() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> service.get(StatisticsCacheService.DASHBOARD_STATISTICS,
+                        StatisticsCacheService.ALL_COMPANIES, () -> {
+                            loads.incrementAndGet();
+                            await(release);
+                            return 42;
+                        })));
+            }
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (singleFlight.getCoalescedCount(StatisticsCacheService.DASHBOARD_STATISTICS) < callers - 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void get_invalidatedWhileLoading_doesNotCacheStaleValue() {
+        Integer stale = service.get(StatisticsCacheService.COMPANY_STATISTICS, "acme", () -> {
+            service.onEmployeeChanged(new EmployeeChangedEvent(null,
+                    new EmployeeSnapshot("a@techcorp.com", "Acme", Position.PROGRAMISTA, EmploymentStatus.ACTIVE, BigDecimal.valueOf(8000))));
+            return 1;
+        });
+
+        Integer fresh = service.get(StatisticsCacheService.COMPANY_STATISTICS, "acme", () -> 2);
+
+        assertThat(stale).isEqualTo(1);
+        assertThat(fresh).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
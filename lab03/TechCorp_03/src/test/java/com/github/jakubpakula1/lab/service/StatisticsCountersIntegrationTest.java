@@ -0,0 +1,89 @@
+package com.github.jakubpakula1.lab.service;
+
+import com.github.jakubpakula1.lab.model.Employee;
+import com.github.jakubpakula1.lab.model.EmploymentStatus;
+import com.github.jakubpakula1.lab.model.Position;
+import com.github.jakubpakula1.lab.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class StatisticsCountersIntegrationTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private SalaryService salaryService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeStatisticsStore statisticsStore;
+
+    @Autowired
+    private StatisticsReconciliationJob reconciliationJob;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        reconciliationJob.initialize();
+    }
+
+    @Test
+    void writesThroughServices_keepCountersInSyncWithDatabase() throws Exception {
+        Employee jan = employeeService.addEmployee(employee("Jan", "Kowalski", "jan@techcorp.com", Position.PROGRAMISTA, 8000));
+        employeeService.addEmployee(employee("Anna", "Nowak", "anna@techcorp.com", Position.MANAGER, 12000));
+
+        assertThat(statisticsStore.getEmployeeCount()).isEqualTo(2);
+        assertThat(statisticsStore.getAverageSalary("acme")).isEqualTo(10000.0);
+
+        employeeService.updateEmployeeStatus("jan@techcorp.com", EmploymentStatus.ON_LEAVE);
+        salaryService.updateSalary(jan.getId(), BigDecimal.valueOf(10000));
+
+        assertThat(statisticsStore.getStatusDistribution()).containsEntry("ON_LEAVE", 1).containsEntry("ACTIVE", 1);
+        assertThat(statisticsStore.getAverageSalary(null)).isEqualTo(11000.0);
+
+        employeeService.deleteEmployee("anna@techcorp.com");
+
+        assertThat(statisticsStore.getPositionStatistics()).containsOnlyKeys("PROGRAMISTA");
+        assertThat(reconciliationJob.reconcile()).isFalse();
+    }
+
+    @Test
+    void deleteAllEmployees_resetsCounters() {
+        employeeService.addEmployee(employee("Jan", "Kowalski", "jan@techcorp.com", Position.PROGRAMISTA, 8000));
+        employeeService.addEmployee(employee("Anna", "Nowak", "anna@techcorp.com", Position.MANAGER, 12000));
+
+        employeeService.deleteAllEmployees();
+
+        assertThat(statisticsStore.getEmployeeCount()).isZero();
+        assertThat(statisticsStore.getPositionStatistics()).isEmpty();
+        assertThat(reconciliationJob.reconcile()).isFalse();
+    }
+
+    @Test
+    void rolledBackWrite_doesNotChangeCounters() {
+        Employee jan = employeeRepository.save(employee("Jan", "Kowalski", "jan@techcorp.com", Position.PROGRAMISTA, 8000));
+
+        assertThatThrownBy(() -> salaryService.updateSalary(jan.getId(), BigDecimal.valueOf(-1)));
+
+        assertThat(statisticsStore.getAverageSalary(null)).isEqualTo(8000.0);
+        assertThat(reconciliationJob.reconcile()).isFalse();
+    }
+
+    private Employee employee(String name, String surname, String email, Position position, int salary) {
+        Employee employee = new Employee(name, surname, "Acme", email, position, BigDecimal.valueOf(salary));
+        employee.setStatus(EmploymentStatus.ACTIVE);
+        return employee;
+    }
+}